@@ -0,0 +1,95 @@
+package com.stockpilot.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs {@link FinanceAnalyticsBenchmark} and exits non-zero if, for any
+ * history length, a kernel is less than {@code stockpilot.guard.min-speedup}
+ * times faster than its legacy counterpart (default 5) or allocates more
+ * than {@code stockpilot.guard.max-alloc} bytes per call (default 16).
+ *
+ * <p>Both checks compare against numbers from the same run, so the guard
+ * gives the same answer on a laptop and on a CI runner.</p>
+ *
+ * <pre>java -cp target/benchmarks.jar com.stockpilot.benchmarks.AnalyticsRegressionGuard</pre>
+ */
+public final class AnalyticsRegressionGuard {
+
+    private static final String[][] PAIRS = {
+            {"volatilityKernel", "volatilityLegacy"},
+            {"drawdownKernel", "drawdownLegacy"},
+    };
+
+    private AnalyticsRegressionGuard() {}
+
+    public static void main(String[] args) throws RunnerException {
+        double minSpeedup = Double.parseDouble(System.getProperty("stockpilot.guard.min-speedup", "5"));
+        double maxAlloc = Double.parseDouble(System.getProperty("stockpilot.guard.max-alloc", "16"));
+
+        Options options = new OptionsBuilder()
+                .include(FinanceAnalyticsBenchmark.class.getSimpleName() + ".(volatility|drawdown)")
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(3)
+                .measurementTime(TimeValue.seconds(1))
+                .forks(1)
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        // range -> benchmark method -> result
+        Map<String, Map<String, RunResult>> byRange = new HashMap<>();
+        for (RunResult result : results) {
+            String label = result.getParams().getBenchmark();
+            String method = label.substring(label.lastIndexOf('.') + 1);
+            byRange.computeIfAbsent(result.getParams().getParam("range"), r -> new HashMap<>()).put(method, result);
+        }
+
+        List<String> failures = new ArrayList<>();
+        byRange.forEach((range, methods) -> {
+            for (String[] pair : PAIRS) {
+                RunResult kernel = methods.get(pair[0]);
+                RunResult legacy = methods.get(pair[1]);
+                if (kernel == null || legacy == null) {
+                    failures.add(range + ": missing results for " + pair[0]);
+                    continue;
+                }
+                double speedup = legacy.getPrimaryResult().getScore() / kernel.getPrimaryResult().getScore();
+                double alloc = allocationPerOp(kernel);
+                System.out.printf("%-5s %-18s %8.1fx faster, %6.1f B/op%n", range, pair[0], speedup, alloc);
+                if (speedup < minSpeedup) {
+                    failures.add(String.format("%s: %s only %.1fx faster than %s (need %.1fx)",
+                            range, pair[0], speedup, pair[1], minSpeedup));
+                }
+                if (alloc > maxAlloc) {
+                    failures.add(String.format("%s: %s allocates %.1f B/op (limit %.1f)",
+                            range, pair[0], alloc, maxAlloc));
+                }
+            }
+        });
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.err.println("REGRESSION " + failure));
+            System.exit(1);
+        }
+        System.out.println("Analytics kernels within limits");
+    }
+
+    private static double allocationPerOp(RunResult result) {
+        Result<?> alloc = result.getSecondaryResults().get("gc.alloc.rate.norm");
+        return alloc != null ? alloc.getScore() : 0;
+    }
+}
@@ -0,0 +1,72 @@
+package com.stockpilot.benchmarks;
+
+import com.stockpilot.domain.HistoricalPrice;
+import com.stockpilot.domain.PriceSeries;
+import com.stockpilot.service.FinanceUtilsService;
+import com.stockpilot.service.PriceKernels;
+import com.stockpilot.service.YahooResponseParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The primitive volatility and drawdown kernels against the previous
+ * {@code BigDecimal}-per-bar implementation ({@link LegacyFinanceUtils}),
+ * across history lengths. {@link AnalyticsRegressionGuard} runs this class
+ * and fails when the kernels lose their lead or start allocating.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FinanceAnalyticsBenchmark {
+
+    @Param({"1mo", "1y", "5y", "max"})
+    public String range;
+
+    private final FinanceUtilsService financeUtils = new FinanceUtilsService();
+
+    private PriceSeries series;
+    private List<HistoricalPrice> prices;
+
+    @Setup
+    public void setUp() throws IOException {
+        series = new YahooResponseParser().parseChart(new ByteArrayInputStream(YahooPayloads.chart(range)));
+        prices = series.toHistoricalPrices();
+    }
+
+    @Benchmark
+    public BigDecimal volatilityLegacy() {
+        return LegacyFinanceUtils.computeVolatility(prices);
+    }
+
+    @Benchmark
+    public double volatilityKernel() {
+        return PriceKernels.annualizedVolatility(series.closes(), series.offset(), series.offset() + series.size());
+    }
+
+    @Benchmark
+    public BigDecimal drawdownLegacy() {
+        return LegacyFinanceUtils.computeMaxDrawdown(prices);
+    }
+
+    @Benchmark
+    public double drawdownKernel() {
+        return PriceKernels.maxDrawdown(series.closes(), series.offset(), series.offset() + series.size());
+    }
+
+    /**
+     * Both metrics through the service API, including the rounding into
+     * {@code BigDecimal} that the endpoint returns.
+     */
+    @Benchmark
+    public BigDecimal analysisService() {
+        return financeUtils.computeVolatility(series).add(financeUtils.computeMaxDrawdown(series));
+    }
+}
@@ -0,0 +1,80 @@
+package com.stockpilot.benchmarks;
+
+import com.stockpilot.domain.HistoricalPrice;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * The {@code BigDecimal}-per-bar volatility and drawdown that
+ * {@code FinanceUtilsService} used before the primitive kernels, kept verbatim
+ * as the baseline for {@link FinanceAnalyticsBenchmark}.
+ */
+final class LegacyFinanceUtils {
+
+    private LegacyFinanceUtils() {}
+
+    static BigDecimal computeVolatility(List<HistoricalPrice> prices) {
+        if (prices == null || prices.size() < 2) {
+            return BigDecimal.ZERO;
+        }
+
+        // Calculate daily returns
+        double[] returns = new double[prices.size() - 1];
+        for (int i = 1; i < prices.size(); i++) {
+            BigDecimal prev = prices.get(i - 1).getClose();
+            BigDecimal current = prices.get(i).getClose();
+            returns[i - 1] = current.subtract(prev)
+                    .divide(prev, 6, RoundingMode.HALF_UP)
+                    .doubleValue();
+        }
+
+        // Calculate standard deviation
+        double mean = 0;
+        for (double ret : returns) {
+            mean += ret;
+        }
+        mean /= returns.length;
+
+        double variance = 0;
+        for (double ret : returns) {
+            variance += Math.pow(ret - mean, 2);
+        }
+        variance /= returns.length;
+
+        double stdDev = Math.sqrt(variance);
+
+        // Annualize (assuming 252 trading days)
+        double annualizedVolatility = stdDev * Math.sqrt(252) * 100;
+
+        return BigDecimal.valueOf(annualizedVolatility).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    static BigDecimal computeMaxDrawdown(List<HistoricalPrice> prices) {
+        if (prices == null || prices.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+
+        BigDecimal maxPrice = prices.get(0).getClose();
+        BigDecimal maxDrawdown = BigDecimal.ZERO;
+
+        for (HistoricalPrice price : prices) {
+            BigDecimal currentPrice = price.getClose();
+
+            if (currentPrice.compareTo(maxPrice) > 0) {
+                maxPrice = currentPrice;
+            }
+
+            BigDecimal drawdown = maxPrice.subtract(currentPrice)
+                    .divide(maxPrice, 4, RoundingMode.HALF_UP)
+                    .multiply(new BigDecimal("100"));
+
+            if (drawdown.compareTo(maxDrawdown) > 0) {
+                maxDrawdown = drawdown;
+            }
+        }
+
+        return maxDrawdown;
+    }
+}
@@ -0,0 +1,322 @@
+package com.stockpilot.benchmarks;
+
+import com.stockpilot.cache.CacheProperties;
+import com.stockpilot.cache.MarketDataCache;
+import com.stockpilot.domain.HistoricalPrice;
+import com.stockpilot.domain.NewsArticle;
+import com.stockpilot.domain.PriceSeries;
+import com.stockpilot.domain.StockFundamentals;
+import com.stockpilot.domain.StockQuote;
+import com.stockpilot.domain.StockSearchResult;
+import com.stockpilot.search.SearchProperties;
+import com.stockpilot.search.SymbolIndex;
+import com.stockpilot.service.FileMarketDataProvider;
+import com.stockpilot.service.FileProviderProperties;
+import com.stockpilot.service.MarketDataExecutors;
+import com.stockpilot.service.MarketDataProvider;
+import com.stockpilot.service.MarketDataService;
+import com.stockpilot.service.ProviderHealthProperties;
+import com.stockpilot.service.ProviderHealthRegistry;
+import com.stockpilot.service.ProviderRoutingProperties;
+import com.stockpilot.service.RateLimitProperties;
+import com.stockpilot.service.RecordingMarketDataProvider;
+import com.stockpilot.service.UpstreamRateLimiter;
+import com.stockpilot.store.HistoryStore;
+import com.stockpilot.store.StoreProperties;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reproducible load through the market data stack with no network: the
+ * upstream is a {@link FileMarketDataProvider} replaying recordings, with
+ * injected latency, jitter and errors.
+ *
+ * <p>The workload is a fixed, seeded sequence of requests, so every run
+ * sends the same requests in the same order: 70% single quotes, 20% one-year
+ * histories and 10% batch quotes of 20 symbols, with symbols drawn so that
+ * a small set is hot, as on a real watchlist-driven site. Requests are
+ * issued by a fixed number of concurrent clients, each sending its next
+ * request as soon as the previous one is answered.</p>
+ *
+ * <p>Recordings are read from {@code -Dstockpilot.replay.directory}, or a
+ * temporary directory; if it has no quotes yet, a synthetic recording for
+ * {@code stockpilot.replay.symbols} symbols is generated into it first.</p>
+ *
+ * <p>Without {@code -Dstockpilot.replay.url} the load runs in process
+ * against {@link MarketDataService}; with it, the same requests go over HTTP
+ * to a running server started with the {@code replay} profile and
+ * {@code stockpilot.providers.file.directory} set to the same directory.</p>
+ *
+ * <pre>java -cp target/benchmarks.jar com.stockpilot.benchmarks.ReplayLoadHarness</pre>
+ */
+public final class ReplayLoadHarness {
+
+    private static final int BATCH_SYMBOLS = 20;
+
+    private ReplayLoadHarness() {}
+
+    public static void main(String[] args) throws Exception {
+        int symbolCount = Integer.getInteger("stockpilot.replay.symbols", 2_000);
+        int requests = Integer.getInteger("stockpilot.replay.requests", 20_000);
+        int clients = Integer.getInteger("stockpilot.replay.clients", 64);
+        long seed = Long.getLong("stockpilot.replay.seed", 42);
+        String url = System.getProperty("stockpilot.replay.url");
+
+        String configured = System.getProperty("stockpilot.replay.directory");
+        Path directory = configured != null ? Path.of(configured) : Files.createTempDirectory("stockpilot-replay");
+        List<String> symbols = symbols(symbolCount);
+        if (!Files.isDirectory(directory.resolve("quotes"))) {
+            generate(directory, symbols, seed);
+        }
+
+        List<Request> workload = workload(symbols, requests, seed);
+        System.out.printf("%d requests over %d symbols, %d clients, recordings in %s%n",
+                requests, symbols.size(), clients, directory);
+
+        if (url != null) {
+            HttpClient http = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+            run("http", workload, clients, request -> request.send(http, url));
+            return;
+        }
+
+        FileProviderProperties replay = new FileProviderProperties();
+        replay.setDirectory(directory);
+        replay.setLatency(Duration.ofMillis(Long.getLong("stockpilot.replay.latency-ms", 80)));
+        replay.setJitter(Duration.ofMillis(Long.getLong("stockpilot.replay.jitter-ms", 40)));
+        replay.setErrorRate(Double.parseDouble(System.getProperty("stockpilot.replay.error-rate", "0.01")));
+        FileMarketDataProvider provider = new FileMarketDataProvider(replay);
+
+        MarketDataExecutors executors = new MarketDataExecutors(true);
+        StoreProperties store = new StoreProperties();
+        store.setEnabled(false);
+        // The harness measures the service, not the upstream budget
+        RateLimitProperties limits = new RateLimitProperties();
+        limits.setEnabled(false);
+        SearchProperties search = new SearchProperties();
+        search.setEnabled(false);
+        MarketDataService service = new MarketDataService(List.of(provider), new MarketDataCache(new CacheProperties()),
+                executors, new ProviderHealthRegistry(List.of(provider), new ProviderHealthProperties()),
+                new HistoryStore(store), new ProviderRoutingProperties(), new UpstreamRateLimiter(limits),
+                new SymbolIndex(search));
+        try {
+            run("service", workload, clients, request -> request.call(service));
+        } finally {
+            executors.shutdown();
+        }
+    }
+
+    private interface Target {
+        boolean send(Request request) throws Exception;
+    }
+
+    private static void run(String mode, List<Request> workload, int clients, Target target)
+            throws InterruptedException {
+        long[] latencies = new long[workload.size()];
+        AtomicInteger next = new AtomicInteger();
+        LongAdder misses = new LongAdder();
+        long start = System.nanoTime();
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                threads.execute(() -> {
+                    int index;
+                    while ((index = next.getAndIncrement()) < workload.size()) {
+                        long sent = System.nanoTime();
+                        try {
+                            if (!target.send(workload.get(index))) {
+                                misses.increment();
+                            }
+                        } catch (Exception e) {
+                            misses.increment();
+                        }
+                        latencies[index] = System.nanoTime() - sent;
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        int n = latencies.length;
+        System.out.printf("%-8s %10s %10s %10s %10s %10s%n", "target", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "no data");
+        System.out.printf("%-8s %10.0f %10.1f %10.1f %10.1f %10d%n", mode,
+                n / (elapsed / 1e9),
+                latencies[n / 2] / 1e6,
+                latencies[(int) (n * 0.99)] / 1e6,
+                latencies[(int) (n * 0.999)] / 1e6,
+                misses.sum());
+    }
+
+    /**
+     * One request of the workload, sendable in process or over HTTP.
+     */
+    private record Request(String kind, List<String> symbols) {
+
+        boolean call(MarketDataService service) {
+            return switch (kind) {
+                case "quote" -> service.getQuote(symbols.get(0)) != null;
+                case "history" -> !service.getPriceSeries(symbols.get(0), "1Y").isEmpty();
+                default -> service.getQuotes(symbols).size() == symbols.size();
+            };
+        }
+
+        boolean send(HttpClient http, String baseUrl) throws IOException, InterruptedException {
+            HttpRequest.Builder builder = switch (kind) {
+                case "quote" -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/stocks/quote/" + symbols.get(0)));
+                case "history" -> HttpRequest.newBuilder(
+                        URI.create(baseUrl + "/api/stocks/historical/" + symbols.get(0) + "?range=1Y"));
+                default -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/stocks/quotes"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "[\"" + String.join("\",\"", symbols) + "\"]"));
+            };
+            return http.send(builder.build(), HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        }
+    }
+
+    private static List<String> symbols(int count) {
+        List<String> symbols = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder symbol = new StringBuilder();
+            for (int n = i; symbol.isEmpty() || n > 0; n /= 26) {
+                symbol.insert(0, (char) ('A' + n % 26));
+            }
+            symbols.add("R" + symbol);
+        }
+        return symbols;
+    }
+
+    private static List<Request> workload(List<String> symbols, int requests, long seed) {
+        Random random = new Random(seed);
+        List<Request> workload = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            int kind = random.nextInt(10);
+            if (kind < 7) {
+                workload.add(new Request("quote", List.of(pick(symbols, random))));
+            } else if (kind < 9) {
+                workload.add(new Request("history", List.of(pick(symbols, random))));
+            } else {
+                List<String> batch = new ArrayList<>();
+                while (batch.size() < BATCH_SYMBOLS) {
+                    String symbol = pick(symbols, random);
+                    if (!batch.contains(symbol)) {
+                        batch.add(symbol);
+                    }
+                }
+                workload.add(new Request("batch", batch));
+            }
+        }
+        return workload;
+    }
+
+    /**
+     * Half of the picks go to the first 5% of symbols.
+     */
+    private static String pick(List<String> symbols, Random random) {
+        int hot = Math.max(1, symbols.size() / 20);
+        return random.nextBoolean() ? symbols.get(random.nextInt(hot)) : symbols.get(random.nextInt(symbols.size()));
+    }
+
+    /**
+     * Writes a recording for {@code symbols} by recording a synthetic provider.
+     */
+    private static void generate(Path directory, List<String> symbols, long seed) {
+        RecordingMarketDataProvider recorder = new RecordingMarketDataProvider(new SyntheticProvider(seed), directory);
+        LocalDate today = LocalDate.now();
+        for (String symbol : symbols) {
+            recorder.getQuote(symbol);
+            recorder.getPriceSeries(symbol, today.minusYears(2), today);
+        }
+    }
+
+    /**
+     * Random-walk quotes and daily bars, the same for the same seed and symbol.
+     */
+    private static final class SyntheticProvider implements MarketDataProvider {
+
+        private final long seed;
+
+        SyntheticProvider(long seed) {
+            this.seed = seed;
+        }
+
+        @Override
+        public StockQuote getQuote(String symbol) {
+            Random random = new Random(seed ^ symbol.hashCode());
+            StockQuote quote = new StockQuote(symbol, symbol + " Corp.",
+                    BigDecimal.valueOf(10 + random.nextDouble() * 490).setScale(2, RoundingMode.HALF_UP));
+            quote.setVolume(random.nextLong(100_000, 50_000_000));
+            return quote;
+        }
+
+        @Override
+        public PriceSeries getPriceSeries(String symbol, LocalDate from, LocalDate to) {
+            Random random = new Random(seed ^ symbol.hashCode());
+            int size = (int) (to.toEpochDay() - from.toEpochDay() + 1);
+            long[] days = new long[size];
+            double[] open = new double[size];
+            double[] high = new double[size];
+            double[] low = new double[size];
+            double[] close = new double[size];
+            long[] volume = new long[size];
+            double price = 10 + random.nextDouble() * 490;
+            for (int i = 0; i < size; i++) {
+                days[i] = from.toEpochDay() + i;
+                open[i] = price;
+                price *= 1 + random.nextGaussian() * 0.02;
+                close[i] = price;
+                high[i] = Math.max(open[i], close[i]) * 1.005;
+                low[i] = Math.min(open[i], close[i]) * 0.995;
+                volume[i] = random.nextLong(100_000, 50_000_000);
+            }
+            return new PriceSeries(days, open, high, low, close, volume);
+        }
+
+        @Override
+        public List<StockSearchResult> searchSymbols(String query) {
+            return List.of();
+        }
+
+        @Override
+        public List<HistoricalPrice> getHistoricalData(String symbol, String range) {
+            return List.of();
+        }
+
+        @Override
+        public StockFundamentals getFundamentals(String symbol) {
+            return null;
+        }
+
+        @Override
+        public List<NewsArticle> getNews(String symbol, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public String getProviderName() {
+            return "Synthetic";
+        }
+    }
+}
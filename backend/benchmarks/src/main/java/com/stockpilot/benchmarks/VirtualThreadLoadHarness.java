@@ -0,0 +1,176 @@
+package com.stockpilot.benchmarks;
+
+import com.stockpilot.cache.CacheProperties;
+import com.stockpilot.cache.MarketDataCache;
+import com.stockpilot.domain.HistoricalPrice;
+import com.stockpilot.domain.NewsArticle;
+import com.stockpilot.domain.StockFundamentals;
+import com.stockpilot.domain.StockQuote;
+import com.stockpilot.domain.StockSearchResult;
+import com.stockpilot.search.SearchProperties;
+import com.stockpilot.search.SymbolIndex;
+import com.stockpilot.service.MarketDataExecutors;
+import com.stockpilot.service.MarketDataProvider;
+import com.stockpilot.service.MarketDataService;
+import com.stockpilot.service.ProviderHealthProperties;
+import com.stockpilot.service.ProviderHealthRegistry;
+import com.stockpilot.service.ProviderRoutingProperties;
+import com.stockpilot.service.RateLimitProperties;
+import com.stockpilot.service.UpstreamRateLimiter;
+import com.stockpilot.store.HistoryStore;
+import com.stockpilot.store.StoreProperties;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request capacity of the blocking request path on platform threads against
+ * virtual threads, at whatever heap the JVM is started with.
+ *
+ * <p>Each simulated request runs {@link MarketDataService#getQuote} for a
+ * distinct symbol, so every one misses the cache and blocks for the
+ * configured upstream latency. Platform mode runs requests on a pool the size
+ * of Tomcat's default {@code server.tomcat.threads.max} (200), queueing the
+ * rest as Tomcat's accept queue would; virtual mode gives each request its own
+ * virtual thread, as {@code spring.threads.virtual.enabled=true} does.</p>
+ *
+ * <pre>java -Xmx256m -cp target/benchmarks.jar com.stockpilot.benchmarks.VirtualThreadLoadHarness</pre>
+ *
+ * <p>Tunable with {@code -Dstockpilot.load.requests} (default 10000),
+ * {@code -Dstockpilot.load.latency-ms} (default 200) and
+ * {@code -Dstockpilot.load.platform-threads} (default 200).</p>
+ */
+public final class VirtualThreadLoadHarness {
+
+    private VirtualThreadLoadHarness() {}
+
+    public static void main(String[] args) throws InterruptedException {
+        int requests = Integer.getInteger("stockpilot.load.requests", 10_000);
+        long latencyMs = Long.getLong("stockpilot.load.latency-ms", 200);
+        int platformThreads = Integer.getInteger("stockpilot.load.platform-threads", 200);
+
+        System.out.printf("%d requests, %d ms upstream latency, max heap %d MB%n%n",
+                requests, latencyMs, Runtime.getRuntime().maxMemory() >> 20);
+        System.out.printf("%-10s %10s %10s %10s %10s %12s%n",
+                "mode", "req/s", "p50 ms", "p99 ms", "threads", "heap MB");
+        run("platform", false, requests, latencyMs, platformThreads);
+        run("virtual", true, requests, latencyMs, platformThreads);
+    }
+
+    private static void run(String mode, boolean virtual, int requests, long latencyMs, int platformThreads)
+            throws InterruptedException {
+        System.gc();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        MarketDataExecutors executors = new MarketDataExecutors(virtual);
+        SlowProvider provider = new SlowProvider(latencyMs);
+        StoreProperties store = new StoreProperties();
+        store.setEnabled(false);
+        // The harness measures the service, not the upstream budget
+        RateLimitProperties limits = new RateLimitProperties();
+        limits.setEnabled(false);
+        SearchProperties search = new SearchProperties();
+        search.setEnabled(false);
+        MarketDataService service = new MarketDataService(List.of(provider), new MarketDataCache(new CacheProperties()),
+                executors, new ProviderHealthRegistry(List.of(provider), new ProviderHealthProperties()),
+                new HistoryStore(store), new ProviderRoutingProperties(), new UpstreamRateLimiter(limits),
+                new SymbolIndex(search));
+
+        ExecutorService requestThreads = virtual
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : new ThreadPoolExecutor(platformThreads, platformThreads, 60, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>());
+
+        long[] latencies = new long[requests];
+        CountDownLatch done = new CountDownLatch(requests);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            int request = i;
+            long submitted = System.nanoTime();
+            requestThreads.execute(() -> {
+                try {
+                    service.getQuote("SYM" + request);
+                } finally {
+                    latencies[request] = System.nanoTime() - submitted;
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+        requestThreads.shutdown();
+        executors.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("%-10s %10.0f %10.1f %10.1f %10d %12d%n", mode,
+                requests / (elapsed / 1e9),
+                latencies[requests / 2] / 1e6,
+                latencies[(int) (requests * 0.99)] / 1e6,
+                threads.getPeakThreadCount(),
+                heapUsed >> 20);
+    }
+
+    /**
+     * Answers quotes after a fixed delay, like an upstream API would.
+     */
+    private static final class SlowProvider implements MarketDataProvider {
+
+        private final long latencyMs;
+
+        SlowProvider(long latencyMs) {
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public StockQuote getQuote(String symbol) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new StockQuote(symbol, symbol, BigDecimal.TEN);
+        }
+
+        @Override
+        public List<StockSearchResult> searchSymbols(String query) {
+            return List.of();
+        }
+
+        @Override
+        public List<HistoricalPrice> getHistoricalData(String symbol, String range) {
+            return List.of();
+        }
+
+        @Override
+        public StockFundamentals getFundamentals(String symbol) {
+            return null;
+        }
+
+        @Override
+        public List<NewsArticle> getNews(String symbol, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public String getProviderName() {
+            return "Slow";
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.stockpilot.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpilot.domain.HistoricalPrice;
+import com.stockpilot.domain.PriceSeries;
+import com.stockpilot.service.YahooResponseParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming chart parsing into a columnar {@link PriceSeries} against the
+ * previous String + {@code readTree} DOM walk into {@link HistoricalPrice}
+ * objects, across history lengths. Run with {@code -prof gc} to compare
+ * allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class YahooChartParsingBenchmark {
+
+    @Param({"1mo", "1y", "5y", "max"})
+    public String range;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final YahooResponseParser parser = new YahooResponseParser();
+
+    private byte[] chart;
+
+    @Setup
+    public void setUp() {
+        chart = YahooPayloads.chart(range);
+    }
+
+    @Benchmark
+    public PriceSeries chartStreaming() throws IOException {
+        return parser.parseChart(new ByteArrayInputStream(chart));
+    }
+
+    @Benchmark
+    public List<HistoricalPrice> chartDom() throws IOException {
+        JsonNode root = objectMapper.readTree(new String(chart, StandardCharsets.UTF_8));
+        JsonNode result = root.path("chart").path("result").get(0);
+        JsonNode timestamps = result.path("timestamp");
+        JsonNode quote = result.path("indicators").path("quote").get(0);
+        JsonNode opens = quote.path("open");
+        JsonNode highs = quote.path("high");
+        JsonNode lows = quote.path("low");
+        JsonNode closes = quote.path("close");
+        JsonNode volumes = quote.path("volume");
+
+        List<HistoricalPrice> prices = new ArrayList<>();
+        for (int i = 0; i < timestamps.size(); i++) {
+            HistoricalPrice price = new HistoricalPrice();
+            price.setDate(Instant.ofEpochSecond(timestamps.get(i).asLong())
+                    .atZone(ZoneId.systemDefault()).toLocalDate());
+            price.setOpen(domDecimal(opens, i));
+            price.setHigh(domDecimal(highs, i));
+            price.setLow(domDecimal(lows, i));
+            price.setClose(domDecimal(closes, i));
+            price.setVolume(volumes.get(i).asLong(0));
+            prices.add(price);
+        }
+        return prices;
+    }
+
+    private static BigDecimal domDecimal(JsonNode array, int index) {
+        JsonNode node = array.get(index);
+        if (node == null || node.isNull()) {
+            return BigDecimal.ZERO;
+        }
+        return new BigDecimal(node.asText("0"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.stockpilot.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpilot.domain.NewsArticle;
+import com.stockpilot.domain.StockFundamentals;
+import com.stockpilot.domain.StockSearchResult;
+import com.stockpilot.service.YahooResponseParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming {@link YahooResponseParser} against the previous approach of
+ * reading the body into a String and walking an {@code ObjectMapper.readTree}
+ * DOM, for the search, news and fundamentals responses. Charts are covered by
+ * {@link YahooChartParsingBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class YahooParsingBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final YahooResponseParser parser = new YahooResponseParser();
+
+    private byte[] search;
+    private byte[] news;
+    private byte[] fundamentals;
+
+    @Setup
+    public void setUp() {
+        search = YahooPayloads.search();
+        news = YahooPayloads.news();
+        fundamentals = YahooPayloads.fundamentals();
+    }
+
+    @Benchmark
+    public List<StockSearchResult> searchStreaming() throws IOException {
+        return parser.parseSearch(new ByteArrayInputStream(search));
+    }
+
+    @Benchmark
+    public List<StockSearchResult> searchDom() throws IOException {
+        JsonNode root = objectMapper.readTree(new String(search, StandardCharsets.UTF_8));
+        List<StockSearchResult> results = new ArrayList<>();
+        for (JsonNode quote : root.path("quotes")) {
+            StockSearchResult result = new StockSearchResult();
+            result.setSymbol(quote.path("symbol").asText());
+            result.setName(quote.path("shortname").asText());
+            result.setExchange(quote.path("exchange").asText());
+            result.setType(quote.path("quoteType").asText());
+            results.add(result);
+        }
+        return results;
+    }
+
+    @Benchmark
+    public List<NewsArticle> newsStreaming() throws IOException {
+        return parser.parseNews(new ByteArrayInputStream(news));
+    }
+
+    @Benchmark
+    public List<NewsArticle> newsDom() throws IOException {
+        JsonNode root = objectMapper.readTree(new String(news, StandardCharsets.UTF_8));
+        List<NewsArticle> articles = new ArrayList<>();
+        for (JsonNode item : root.path("news")) {
+            NewsArticle article = new NewsArticle();
+            article.setTitle(item.path("title").asText());
+            article.setSummary(item.path("summary").asText());
+            article.setUrl(item.path("link").asText());
+            article.setSource(item.path("publisher").asText());
+            article.setPublishedAt(LocalDateTime.ofInstant(
+                    Instant.ofEpochSecond(item.path("providerPublishTime").asLong()), ZoneId.systemDefault()));
+            JsonNode thumbnail = item.path("thumbnail");
+            if (!thumbnail.isMissingNode()) {
+                article.setImageUrl(thumbnail.path("resolutions").get(0).path("url").asText());
+            }
+            articles.add(article);
+        }
+        return articles;
+    }
+
+    @Benchmark
+    public StockFundamentals fundamentalsStreaming() throws IOException {
+        return parser.parseFundamentals(new ByteArrayInputStream(fundamentals), "AAPL");
+    }
+
+    @Benchmark
+    public StockFundamentals fundamentalsDom() throws IOException {
+        JsonNode root = objectMapper.readTree(new String(fundamentals, StandardCharsets.UTF_8));
+        JsonNode result = root.path("quoteSummary").path("result").get(0);
+        StockFundamentals f = new StockFundamentals();
+        f.setSymbol("AAPL");
+        f.setName(result.path("price").path("longName").asText("AAPL"));
+        JsonNode summaryDetail = result.path("summaryDetail");
+        f.setMarketCap(domRaw(summaryDetail.path("marketCap")));
+        f.setPeRatio(domRaw(summaryDetail.path("trailingPE")));
+        f.setDividendYield(domRaw(summaryDetail.path("dividendYield")));
+        f.setBeta(domRaw(summaryDetail.path("beta")));
+        f.setFiftyTwoWeekHigh(domRaw(summaryDetail.path("fiftyTwoWeekHigh")));
+        f.setFiftyTwoWeekLow(domRaw(summaryDetail.path("fiftyTwoWeekLow")));
+        f.setEps(domRaw(result.path("defaultKeyStatistics").path("trailingEps")));
+        JsonNode assetProfile = result.path("assetProfile");
+        f.setSector(assetProfile.path("sector").asText());
+        f.setIndustry(assetProfile.path("industry").asText());
+        f.setDescription(assetProfile.path("longBusinessSummary").asText());
+        return f;
+    }
+
+    private static BigDecimal domRaw(JsonNode node) {
+        if (node.isMissingNode() || node.isNull()) {
+            return null;
+        }
+        JsonNode raw = node.path("raw");
+        if (raw.isMissingNode()) {
+            return null;
+        }
+        return new BigDecimal(raw.asText("0"));
+    }
+}
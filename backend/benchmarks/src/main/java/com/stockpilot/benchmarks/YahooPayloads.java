@@ -0,0 +1,203 @@
+package com.stockpilot.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Response bodies in the shape Yahoo Finance returns them.
+ *
+ * <p>If the {@code stockpilot.payloads} system property points at a directory
+ * of recorded responses (e.g. {@code chart-5y.json}, {@code search.json},
+ * {@code news.json}, {@code fundamentals.json}), those files are used.
+ * Otherwise a deterministic payload with the same structure and field set is
+ * generated, so the benchmarks also run without network access.</p>
+ */
+public final class YahooPayloads {
+
+    private static final long DAY_SECONDS = 86_400;
+    private static final long START_EPOCH_SECOND = 1_072_969_800L; // 2004-01-01 14:30 UTC
+
+    private YahooPayloads() {}
+
+    /**
+     * Daily chart for a Yahoo range ({@code 1mo}, {@code 1y}, {@code 5y}, {@code max}).
+     */
+    public static byte[] chart(String range) {
+        return recorded("chart-" + range + ".json").orElse(generateChart(barsFor(range)));
+    }
+
+    public static int barsFor(String range) {
+        return switch (range) {
+            case "1mo" -> 21;
+            case "6mo" -> 126;
+            case "1y" -> 252;
+            case "5y" -> 1_260;
+            case "max" -> 10_000;
+            default -> throw new IllegalArgumentException("Unknown range " + range);
+        };
+    }
+
+    public static byte[] search() {
+        return recorded("search.json").orElse(generateSearch(10, 10));
+    }
+
+    public static byte[] news() {
+        return recorded("news.json").orElse(generateSearch(0, 20));
+    }
+
+    public static byte[] fundamentals() {
+        return recorded("fundamentals.json").orElse(generateFundamentals());
+    }
+
+    private static Recorded recorded(String name) {
+        String dir = System.getProperty("stockpilot.payloads");
+        if (dir == null) {
+            return new Recorded(null);
+        }
+        Path file = Path.of(dir, name);
+        try {
+            return new Recorded(Files.exists(file) ? Files.readAllBytes(file) : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Recorded(byte[] bytes) {
+        byte[] orElse(byte[] fallback) {
+            return bytes != null ? bytes : fallback;
+        }
+    }
+
+    static byte[] generateChart(int bars) {
+        Random random = new Random(42);
+        long[] timestamps = new long[bars];
+        double[] open = new double[bars];
+        double[] high = new double[bars];
+        double[] low = new double[bars];
+        double[] close = new double[bars];
+        long[] volume = new long[bars];
+
+        double price = 100;
+        long time = START_EPOCH_SECOND;
+        for (int i = 0; i < bars; i++) {
+            time += DAY_SECONDS * (time / DAY_SECONDS % 7 == 1 ? 3 : 1);
+            timestamps[i] = time;
+            open[i] = price;
+            price = Math.max(1, price * (1 + random.nextGaussian() * 0.015));
+            close[i] = price;
+            high[i] = Math.max(open[i], close[i]) * (1 + random.nextDouble() * 0.01);
+            low[i] = Math.min(open[i], close[i]) * (1 - random.nextDouble() * 0.01);
+            volume[i] = 20_000_000L + random.nextInt(80_000_000);
+        }
+
+        StringBuilder json = new StringBuilder(bars * 160);
+        json.append("{\"chart\":{\"result\":[{\"meta\":{\"currency\":\"USD\",\"symbol\":\"AAPL\",")
+                .append("\"exchangeName\":\"NMS\",\"instrumentType\":\"EQUITY\",\"firstTradeDate\":345479400,")
+                .append("\"regularMarketTime\":").append(time).append(",\"gmtoffset\":-18000,\"timezone\":\"EST\",")
+                .append("\"exchangeTimezoneName\":\"America/New_York\",\"regularMarketPrice\":")
+                .append(decimal(price)).append(",\"chartPreviousClose\":").append(decimal(open[0]))
+                .append(",\"priceHint\":2,\"currentTradingPeriod\":{\"pre\":{\"timezone\":\"EST\",\"start\":")
+                .append(time - 19_800).append(",\"end\":").append(time).append(",\"gmtoffset\":-18000},")
+                .append("\"regular\":{\"timezone\":\"EST\",\"start\":").append(time).append(",\"end\":")
+                .append(time + 23_400).append(",\"gmtoffset\":-18000}},\"dataGranularity\":\"1d\",")
+                .append("\"range\":\"\",\"validRanges\":[\"1d\",\"5d\",\"1mo\",\"3mo\",\"6mo\",\"1y\",\"2y\",")
+                .append("\"5y\",\"10y\",\"ytd\",\"max\"]},\"timestamp\":");
+        appendLongs(json, timestamps);
+        json.append(",\"indicators\":{\"quote\":[{\"low\":");
+        appendDoubles(json, low);
+        json.append(",\"open\":");
+        appendDoubles(json, open);
+        json.append(",\"volume\":");
+        appendLongs(json, volume);
+        json.append(",\"close\":");
+        appendDoubles(json, close);
+        json.append(",\"high\":");
+        appendDoubles(json, high);
+        json.append("}],\"adjclose\":[{\"adjclose\":");
+        appendDoubles(json, close);
+        json.append("}]}}],\"error\":null}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] generateSearch(int quotes, int news) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"explains\":[],\"count\":").append(quotes + news).append(",\"quotes\":[");
+        for (int i = 0; i < quotes; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"exchange\":\"NMS\",\"shortname\":\"Company ").append(i)
+                    .append(" Inc.\",\"quoteType\":\"EQUITY\",\"symbol\":\"SYM").append(i)
+                    .append("\",\"index\":\"quotes\",\"score\":").append(20_000 - i)
+                    .append(",\"typeDisp\":\"Equity\",\"longname\":\"Company ").append(i)
+                    .append(" Incorporated\",\"exchDisp\":\"NASDAQ\",\"sector\":\"Technology\",")
+                    .append("\"industry\":\"Consumer Electronics\",\"isYahooFinance\":true}");
+        }
+        json.append("],\"news\":[");
+        for (int i = 0; i < news; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"uuid\":\"a1b2c3d4-").append(i).append("\",\"title\":\"Headline number ").append(i)
+                    .append(" about quarterly results and guidance\",\"publisher\":\"Reuters\",")
+                    .append("\"link\":\"https://finance.yahoo.com/news/story-").append(i).append(".html\",")
+                    .append("\"providerPublishTime\":").append(1_704_205_800L + i * 3_600L)
+                    .append(",\"type\":\"STORY\",\"thumbnail\":{\"resolutions\":[")
+                    .append("{\"url\":\"https://s.yimg.com/uu/api/res/1.2/original/").append(i)
+                    .append(".jpg\",\"width\":1200,\"height\":800,\"tag\":\"original\"},")
+                    .append("{\"url\":\"https://s.yimg.com/uu/api/res/1.2/140x140/").append(i)
+                    .append(".jpg\",\"width\":140,\"height\":140,\"tag\":\"140x140\"}]},")
+                    .append("\"relatedTickers\":[\"AAPL\",\"MSFT\"]}");
+        }
+        json.append("],\"nav\":[],\"lists\":[],\"researchReports\":[],\"totalTime\":42}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] generateFundamentals() {
+        String json = "{\"quoteSummary\":{\"result\":[{"
+                + "\"assetProfile\":{\"address1\":\"One Apple Park Way\",\"city\":\"Cupertino\",\"country\":\"United States\","
+                + "\"industry\":\"Consumer Electronics\",\"sector\":\"Technology\",\"fullTimeEmployees\":161000,"
+                + "\"longBusinessSummary\":\"" + "Designs, manufactures and markets smartphones and services. ".repeat(20) + "\","
+                + "\"companyOfficers\":[" + "{\"name\":\"Officer\",\"age\":60,\"title\":\"Executive\",\"totalPay\":{\"raw\":16425933,\"fmt\":\"16.43M\"}},".repeat(9)
+                + "{\"name\":\"Officer\",\"age\":60,\"title\":\"Executive\"}]},"
+                + "\"summaryDetail\":{\"previousClose\":{\"raw\":192.53,\"fmt\":\"192.53\"},\"beta\":{\"raw\":1.29,\"fmt\":\"1.29\"},"
+                + "\"trailingPE\":{\"raw\":29.96,\"fmt\":\"29.96\"},\"dividendYield\":{\"raw\":0.005,\"fmt\":\"0.50%\"},"
+                + "\"marketCap\":{\"raw\":2950000000000,\"fmt\":\"2.95T\",\"longFmt\":\"2,950,000,000,000\"},"
+                + "\"fiftyTwoWeekLow\":{\"raw\":124.17,\"fmt\":\"124.17\"},\"fiftyTwoWeekHigh\":{\"raw\":199.62,\"fmt\":\"199.62\"}},"
+                + "\"defaultKeyStatistics\":{\"trailingEps\":{\"raw\":6.43,\"fmt\":\"6.43\"},\"forwardEps\":{\"raw\":7.1,\"fmt\":\"7.10\"}},"
+                + "\"price\":{\"longName\":\"Apple Inc.\",\"shortName\":\"Apple Inc.\",\"currency\":\"USD\","
+                + "\"regularMarketPrice\":{\"raw\":190.0,\"fmt\":\"190.00\"}}}],\"error\":null}}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendDoubles(StringBuilder json, double[] values) {
+        json.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(values[i]);
+        }
+        json.append(']');
+    }
+
+    private static void appendLongs(StringBuilder json, long[] values) {
+        json.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(values[i]);
+        }
+        json.append(']');
+    }
+
+    private static String decimal(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
@@ -1,12 +1,23 @@
 ﻿package com.stockpilot;
 
+import com.stockpilot.cache.CacheProperties;
+import com.stockpilot.cache.InMemorySharedCacheStore;
+import com.stockpilot.cache.RedisSharedCacheStore;
+import com.stockpilot.cache.SharedCacheStore;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
 public class StockPilotApplication {
 
     public static void main(String[] args) {
@@ -26,4 +37,30 @@ public class StockPilotApplication {
             }
         };
     }
+
+    /**
+     * The reactive profile runs on Netty. Tomcat is on the classpath for the
+     * servlet stack and would otherwise be picked for WebFlux as well.
+     */
+    @Bean
+    @Profile("reactive")
+    public NettyReactiveWebServerFactory reactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * The second cache level shared by all replicas, only when
+     * {@code stockpilot.cache.l2.enabled} is set. Without it the
+     * {@link com.stockpilot.cache.MarketDataCache} is local to this instance.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "stockpilot.cache.l2", name = "enabled", havingValue = "true")
+    public SharedCacheStore sharedCacheStore(CacheProperties properties) {
+        CacheProperties.L2 l2 = properties.getL2();
+        return switch (l2.getStore()) {
+            case REDIS -> new RedisSharedCacheStore(l2.getRedisUri(), l2.getTimeout(),
+                    l2.getKeyPrefix() + "invalidations");
+            case MEMORY -> new InMemorySharedCacheStore();
+        };
+    }
 }
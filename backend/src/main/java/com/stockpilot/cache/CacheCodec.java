@@ -0,0 +1,173 @@
+package com.stockpilot.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.stockpilot.domain.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Binary encoding of the values the market data cache holds, for storing
+ * them outside the heap.
+ *
+ * <p>Each value is a type tag plus a payload. Price series are written as
+ * columns, with each day as a delta from the one before; quotes,
+ * fundamentals, search results and news are CBOR. Only these types are
+ * supported, so a payload can never name a class to instantiate.</p>
+ */
+final class CacheCodec {
+
+    static final byte UNSUPPORTED = 0;
+    private static final byte QUOTE = 1;
+    private static final byte FUNDAMENTALS = 2;
+    private static final byte SEARCH_RESULTS = 3;
+    private static final byte NEWS = 4;
+    private static final byte PRICE_SERIES = 5;
+    private static final byte PRICE_HISTORY = 6;
+
+    private final ObjectMapper cbor = CBORMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    /**
+     * The tag {@code value} is encoded with, or {@link #UNSUPPORTED}.
+     */
+    byte tagOf(Object value) {
+        if (value instanceof StockQuote) {
+            return QUOTE;
+        }
+        if (value instanceof StockFundamentals) {
+            return FUNDAMENTALS;
+        }
+        if (value instanceof PriceSeries) {
+            return PRICE_SERIES;
+        }
+        if (value instanceof PriceHistory) {
+            return PRICE_HISTORY;
+        }
+        if (value instanceof List<?> list && !list.isEmpty()) {
+            if (list.stream().allMatch(StockSearchResult.class::isInstance)) {
+                return SEARCH_RESULTS;
+            }
+            if (list.stream().allMatch(NewsArticle.class::isInstance)) {
+                return NEWS;
+            }
+        }
+        return UNSUPPORTED;
+    }
+
+    byte[] encode(byte tag, Object value) throws IOException {
+        return switch (tag) {
+            case QUOTE, FUNDAMENTALS, SEARCH_RESULTS, NEWS -> cbor.writeValueAsBytes(value);
+            case PRICE_SERIES -> columns(out -> writeSeries(out, (PriceSeries) value));
+            case PRICE_HISTORY -> columns(out -> {
+                PriceHistory history = (PriceHistory) value;
+                out.writeLong(history.getCoveredFrom());
+                writeSeries(out, history.getSeries());
+            });
+            default -> throw new IllegalArgumentException("Unsupported cache value tag " + tag);
+        };
+    }
+
+    /**
+     * The value encoded as {@code payload}, or null for a tag this version
+     * does not know.
+     */
+    Object decode(byte tag, byte[] payload) throws IOException {
+        return switch (tag) {
+            case QUOTE -> cbor.readValue(payload, StockQuote.class);
+            case FUNDAMENTALS -> cbor.readValue(payload, StockFundamentals.class);
+            case SEARCH_RESULTS -> cbor.readValue(payload, new TypeReference<List<StockSearchResult>>() {});
+            case NEWS -> cbor.readValue(payload, new TypeReference<List<NewsArticle>>() {});
+            case PRICE_SERIES -> readSeries(new DataInputStream(new ByteArrayInputStream(payload)));
+            case PRICE_HISTORY -> {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+                long coveredFrom = in.readLong();
+                yield new PriceHistory(coveredFrom, readSeries(in));
+            }
+            default -> null;
+        };
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] columns(Writer writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeSeries(DataOutputStream out, PriceSeries series) throws IOException {
+        int size = series.size();
+        out.writeInt(size);
+        long previous = size > 0 ? series.firstDay() : 0;
+        out.writeLong(previous);
+        for (int i = 0; i < size; i++) {
+            long delta = series.epochDay(i) - previous;
+            if (delta < 0 || delta > 0xFFFF) {
+                throw new IOException("Days out of order at " + series.date(i));
+            }
+            out.writeShort((int) delta);
+            previous = series.epochDay(i);
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(series.open(i));
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(series.high(i));
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(series.low(i));
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(series.close(i));
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeLong(series.volume(i));
+        }
+    }
+
+    private static PriceSeries readSeries(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size == 0) {
+            in.readLong();
+            return PriceSeries.EMPTY;
+        }
+        long[] epochDays = new long[size];
+        long day = in.readLong();
+        for (int i = 0; i < size; i++) {
+            day += in.readUnsignedShort();
+            epochDays[i] = day;
+        }
+        double[] open = readDoubles(in, size);
+        double[] high = readDoubles(in, size);
+        double[] low = readDoubles(in, size);
+        double[] close = readDoubles(in, size);
+        long[] volume = new long[size];
+        for (int i = 0; i < size; i++) {
+            volume[i] = in.readLong();
+        }
+        return new PriceSeries(epochDays, open, high, low, close, volume);
+    }
+
+    private static double[] readDoubles(DataInputStream in, int size) throws IOException {
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,83 @@
+package com.stockpilot.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A cached value with a soft and a hard time-to-live.
+ *
+ * <p>Until {@code ttl} has passed the entry is fresh. After that it is stale:
+ * it is still served, but callers should refresh it in the background. The
+ * cache drops the entry once {@code ttl + staleTtl} has passed.</p>
+ */
+public class CacheEntry {
+    private final Object data;
+    private final Duration ttl;
+    private final Duration staleTtl;
+    private final int weight;
+    private final long writtenAtNanos;
+    private final AtomicInteger hits;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    public CacheEntry(Object data, Duration ttl, Duration staleTtl, int weight) {
+        this(data, ttl, staleTtl, weight, Duration.ZERO, 0);
+    }
+
+    /**
+     * An entry written {@code age} ago and read {@code hits} times since, for
+     * entries restored from outside this JVM.
+     */
+    CacheEntry(Object data, Duration ttl, Duration staleTtl, int weight, Duration age, int hits) {
+        this.data = data;
+        this.ttl = ttl;
+        this.staleTtl = staleTtl;
+        this.weight = weight;
+        this.writtenAtNanos = System.nanoTime() - age.toNanos();
+        this.hits = new AtomicInteger(hits);
+    }
+
+    public Object getData() { return data; }
+
+    public Duration getTtl() { return ttl; }
+
+    public Duration getStaleTtl() { return staleTtl; }
+
+    public Duration getHardTtl() { return ttl.plus(staleTtl); }
+
+    public int getWeight() { return weight; }
+
+    public int getHits() { return hits.get(); }
+
+    public Duration getAge() {
+        return Duration.ofNanos(System.nanoTime() - writtenAtNanos);
+    }
+
+    /**
+     * Time left until the cache drops this entry.
+     */
+    public Duration getRemainingTtl() {
+        Duration remaining = getHardTtl().minus(getAge());
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    public boolean isFresh() {
+        return System.nanoTime() - writtenAtNanos < ttl.toNanos();
+    }
+
+    void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    /**
+     * Claims the right to refresh this entry; only the first caller wins, so a
+     * hot stale key triggers a single background refresh.
+     */
+    public boolean tryStartRefresh() {
+        return refreshing.compareAndSet(false, true);
+    }
+
+    public void refreshFailed() {
+        refreshing.set(false);
+    }
+}
@@ -0,0 +1,151 @@
+package com.stockpilot.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for the market data cache, bound from {@code stockpilot.cache.*}.
+ * Each key namespace (the part of the cache key before the first ':') can
+ * override the defaults, e.g. {@code stockpilot.cache.namespaces.quote.ttl=15s}.
+ */
+@ConfigurationProperties(prefix = "stockpilot.cache")
+public class CacheProperties {
+
+    private int ttlMinutes = 5;
+    private Duration staleTtl = Duration.ofMinutes(5);
+    private DataSize maxWeight = DataSize.ofMegabytes(16);
+    private int refreshAheadHits = 10;
+    private double refreshAheadFraction = 0.8;
+    private Map<String, Namespace> namespaces = new HashMap<>();
+    private Snapshot snapshot = new Snapshot();
+    private L2 l2 = new L2();
+
+    public int getTtlMinutes() { return ttlMinutes; }
+    public void setTtlMinutes(int ttlMinutes) { this.ttlMinutes = ttlMinutes; }
+
+    public Duration getStaleTtl() { return staleTtl; }
+    public void setStaleTtl(Duration staleTtl) { this.staleTtl = staleTtl; }
+
+    public DataSize getMaxWeight() { return maxWeight; }
+    public void setMaxWeight(DataSize maxWeight) { this.maxWeight = maxWeight; }
+
+    public int getRefreshAheadHits() { return refreshAheadHits; }
+    public void setRefreshAheadHits(int refreshAheadHits) { this.refreshAheadHits = refreshAheadHits; }
+
+    public double getRefreshAheadFraction() { return refreshAheadFraction; }
+    public void setRefreshAheadFraction(double refreshAheadFraction) { this.refreshAheadFraction = refreshAheadFraction; }
+
+    public Map<String, Namespace> getNamespaces() { return namespaces; }
+    public void setNamespaces(Map<String, Namespace> namespaces) { this.namespaces = namespaces; }
+
+    public Snapshot getSnapshot() { return snapshot; }
+    public void setSnapshot(Snapshot snapshot) { this.snapshot = snapshot; }
+
+    public L2 getL2() { return l2; }
+    public void setL2(L2 l2) { this.l2 = l2; }
+
+    public DataSize maxWeightFor(String namespace) {
+        Namespace settings = namespaces.get(namespace);
+        if (settings != null && settings.getMaxWeight() != null) {
+            return settings.getMaxWeight();
+        }
+        return maxWeight;
+    }
+
+    public Duration ttlFor(String namespace) {
+        Namespace settings = namespaces.get(namespace);
+        if (settings != null && settings.getTtl() != null) {
+            return settings.getTtl();
+        }
+        return Duration.ofMinutes(ttlMinutes);
+    }
+
+    public Duration staleTtlFor(String namespace) {
+        Namespace settings = namespaces.get(namespace);
+        if (settings != null && settings.getStaleTtl() != null) {
+            return settings.getStaleTtl();
+        }
+        return staleTtl;
+    }
+
+    public static class Namespace {
+        private DataSize maxWeight;
+        private Duration ttl;
+        private Duration staleTtl;
+
+        public DataSize getMaxWeight() { return maxWeight; }
+        public void setMaxWeight(DataSize maxWeight) { this.maxWeight = maxWeight; }
+
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+
+        public Duration getStaleTtl() { return staleTtl; }
+        public void setStaleTtl(Duration staleTtl) { this.staleTtl = staleTtl; }
+    }
+
+    /**
+     * Cache snapshots for warm restarts; see {@link CacheSnapshotter}. How
+     * often one is written is read separately as
+     * {@code stockpilot.cache.snapshot.interval-ms}.
+     */
+    public static class Snapshot {
+        private boolean enabled = true;
+        private Path file = Path.of("data", "cache", "market-data.snapshot");
+        private Duration restoreTimeout = Duration.ofSeconds(10);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public Path getFile() { return file; }
+        public void setFile(Path file) { this.file = file; }
+
+        public Duration getRestoreTimeout() { return restoreTimeout; }
+        public void setRestoreTimeout(Duration restoreTimeout) { this.restoreTimeout = restoreTimeout; }
+    }
+
+    /**
+     * The optional second cache level shared by all replicas; see
+     * {@link SharedCacheStore}. Off unless {@code enabled} is set.
+     */
+    public static class L2 {
+        public enum Store { REDIS, MEMORY }
+
+        private boolean enabled = false;
+        private Store store = Store.REDIS;
+        private String redisUri = "redis://localhost:6379";
+        private String keyPrefix = "stockpilot:";
+        private Duration timeout = Duration.ofMillis(250);
+        private Duration lockTtl = Duration.ofSeconds(15);
+        private Duration lockWait = Duration.ofSeconds(3);
+        private Duration pollInterval = Duration.ofMillis(50);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public Store getStore() { return store; }
+        public void setStore(Store store) { this.store = store; }
+
+        public String getRedisUri() { return redisUri; }
+        public void setRedisUri(String redisUri) { this.redisUri = redisUri; }
+
+        public String getKeyPrefix() { return keyPrefix; }
+        public void setKeyPrefix(String keyPrefix) { this.keyPrefix = keyPrefix; }
+
+        public Duration getTimeout() { return timeout; }
+        public void setTimeout(Duration timeout) { this.timeout = timeout; }
+
+        public Duration getLockTtl() { return lockTtl; }
+        public void setLockTtl(Duration lockTtl) { this.lockTtl = lockTtl; }
+
+        public Duration getLockWait() { return lockWait; }
+        public void setLockWait(Duration lockWait) { this.lockWait = lockWait; }
+
+        public Duration getPollInterval() { return pollInterval; }
+        public void setPollInterval(Duration pollInterval) { this.pollInterval = pollInterval; }
+    }
+}
@@ -0,0 +1,197 @@
+package com.stockpilot.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes the {@link MarketDataCache} to disk every
+ * {@code stockpilot.cache.snapshot.interval-ms} and on shutdown, and loads it
+ * back on startup, so a restarted instance serves from a warm cache instead
+ * of refetching everything upstream.
+ *
+ * <p>The snapshot is a header (magic, version, time written) followed by one
+ * record per entry: {@link CacheCodec} tag, key, wall-clock write time, read
+ * count and payload, and a zero byte after the last. Records are in order of
+ * read count, hottest first.</p>
+ *
+ * <p>Restoring happens while the application context starts, before the
+ * server accepts requests. Entries keep their age, so they go stale and
+ * expire when they would have without the restart; entries already past
+ * their hard ttl are skipped. Restoring stops at {@code restore-timeout},
+ * which leaves out only the coldest entries.</p>
+ */
+@Component
+public class CacheSnapshotter {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheSnapshotter.class);
+
+    private static final int MAGIC = 0x53504353; // "SPCS"
+    private static final int VERSION = 1;
+
+    private record Record(String key, CacheEntry entry, byte tag) {}
+
+    private final MarketDataCache cache;
+    private final CacheCodec codec = new CacheCodec();
+    private final boolean enabled;
+    private final Path file;
+    private final Duration restoreTimeout;
+    private final Clock clock;
+    // Held while writing, so a scheduled snapshot and the one on shutdown never interleave
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Autowired
+    public CacheSnapshotter(MarketDataCache cache, CacheProperties properties) {
+        this(cache, properties, Clock.systemUTC());
+    }
+
+    CacheSnapshotter(MarketDataCache cache, CacheProperties properties, Clock clock) {
+        this.cache = cache;
+        this.enabled = properties.getSnapshot().isEnabled();
+        this.file = properties.getSnapshot().getFile();
+        this.restoreTimeout = properties.getSnapshot().getRestoreTimeout();
+        this.clock = clock;
+    }
+
+    /**
+     * Loads the last snapshot, if there is one, into the cache. Keys already
+     * in the cache are left alone.
+     */
+    @PostConstruct
+    public void restore() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + restoreTimeout.toNanos();
+        int restored = 0;
+        int skipped = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                log.warn("Ignoring cache snapshot {}: unknown format", file);
+                return;
+            }
+            in.readLong(); // written at
+            long now = clock.millis();
+            byte tag;
+            while ((tag = in.readByte()) != CacheCodec.UNSUPPORTED) {
+                if (System.nanoTime() > deadline) {
+                    log.warn("Cache restore stopped after {}, leaving out the coldest entries", restoreTimeout);
+                    break;
+                }
+                String key = in.readUTF();
+                long writtenAt = in.readLong();
+                int hits = in.readInt();
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+
+                Object data = decode(key, tag, payload);
+                Duration age = Duration.ofMillis(Math.max(0, now - writtenAt));
+                if (data != null && cache.restore(key, data, age, hits)) {
+                    restored++;
+                } else {
+                    skipped++;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (EOFException e) {
+            log.warn("Cache snapshot {} is truncated, restored what it holds", file);
+        } catch (IOException e) {
+            log.warn("Cannot read cache snapshot {}: {}", file, e.getMessage());
+        }
+        log.info("Restored {} cache entries ({} expired or skipped) from {} in {} ms", restored, skipped, file,
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    /**
+     * Writes every cache entry it can encode to the snapshot file, replacing
+     * the previous snapshot.
+     */
+    @Scheduled(fixedDelayString = "${stockpilot.cache.snapshot.interval-ms:60000}",
+            initialDelayString = "${stockpilot.cache.snapshot.interval-ms:60000}")
+    public void save() {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            List<Record> records = new ArrayList<>();
+            cache.forEach((key, entry) -> {
+                byte tag = codec.tagOf(entry.getData());
+                if (tag != CacheCodec.UNSUPPORTED) {
+                    records.add(new Record(key, entry, tag));
+                }
+            });
+            records.sort(Comparator.comparingInt((Record record) -> record.entry().getHits()).reversed());
+            write(records);
+        } catch (IOException e) {
+            log.warn("Cannot write cache snapshot {}: {}", file, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        save();
+    }
+
+    private void write(List<Record> records) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            long now = clock.millis();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeLong(now);
+                for (Record record : records) {
+                    byte[] payload;
+                    try {
+                        payload = codec.encode(record.tag(), record.entry().getData());
+                    } catch (IOException | RuntimeException e) {
+                        log.debug("Cache entry {} left out of the snapshot: {}", record.key(), e.getMessage());
+                        continue;
+                    }
+                    out.writeByte(record.tag());
+                    out.writeUTF(record.key());
+                    out.writeLong(now - record.entry().getAge().toMillis());
+                    out.writeInt(record.entry().getHits());
+                    out.writeInt(payload.length);
+                    out.write(payload);
+                }
+                out.writeByte(CacheCodec.UNSUPPORTED);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Object decode(String key, byte tag, byte[] payload) {
+        try {
+            return codec.decode(tag, payload);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Cache entry {} in the snapshot cannot be decoded: {}", key, e.getMessage());
+            return null;
+        }
+    }
+}
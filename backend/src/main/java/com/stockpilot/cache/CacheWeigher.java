@@ -0,0 +1,90 @@
+package com.stockpilot.cache;
+
+import com.stockpilot.domain.*;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * Rough retained-heap estimates for cached market data, used as entry weights.
+ * The numbers assume a 64-bit JVM with compressed oops; they only need to be
+ * proportional to the real footprint for the size bound to be meaningful.
+ */
+final class CacheWeigher {
+
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int BIG_DECIMAL = 40;
+    private static final int BOXED_LONG = 16;
+    private static final int LOCAL_DATE = 24;
+    private static final int LOCAL_DATE_TIME = 48;
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final int UNKNOWN_VALUE = 256;
+
+    private CacheWeigher() {}
+
+    static int weigh(String key, Object value) {
+        long weight = ENTRY_OVERHEAD + string(key) + value(value);
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private static long value(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Collection<?> items) {
+            long weight = OBJECT_HEADER + 16 + (long) REFERENCE * items.size();
+            for (Object item : items) {
+                weight += value(item);
+            }
+            return weight;
+        }
+        if (value instanceof HistoricalPrice price) {
+            return OBJECT_HEADER + 6 * REFERENCE + LOCAL_DATE + BOXED_LONG
+                    + decimal(price.getOpen()) + decimal(price.getHigh())
+                    + decimal(price.getLow()) + decimal(price.getClose());
+        }
+        if (value instanceof PriceSeries series) {
+            // Six primitive columns of 8-byte values; a view retains all of them
+            return OBJECT_HEADER + 6 * REFERENCE + 6 * (OBJECT_HEADER + (long) Long.BYTES * series.capacity());
+        }
+        if (value instanceof PriceHistory history) {
+            // Range views are a few fields each over the same columns
+            return OBJECT_HEADER + 3 * REFERENCE + 64 + value(history.getSeries());
+        }
+        if (value instanceof StockQuote quote) {
+            return OBJECT_HEADER + 12 * REFERENCE + LOCAL_DATE_TIME + BOXED_LONG
+                    + string(quote.getSymbol()) + string(quote.getName()) + string(quote.getExchange())
+                    + decimal(quote.getPrice()) + decimal(quote.getChange()) + decimal(quote.getChangePercent())
+                    + decimal(quote.getOpen()) + decimal(quote.getHigh()) + decimal(quote.getLow())
+                    + decimal(quote.getPreviousClose());
+        }
+        if (value instanceof StockFundamentals f) {
+            return OBJECT_HEADER + 12 * REFERENCE
+                    + string(f.getSymbol()) + string(f.getName()) + string(f.getSector())
+                    + string(f.getIndustry()) + string(f.getDescription())
+                    + decimal(f.getMarketCap()) + decimal(f.getPeRatio()) + decimal(f.getEps())
+                    + decimal(f.getDividendYield()) + decimal(f.getBeta())
+                    + decimal(f.getFiftyTwoWeekHigh()) + decimal(f.getFiftyTwoWeekLow());
+        }
+        if (value instanceof NewsArticle article) {
+            return OBJECT_HEADER + 6 * REFERENCE + LOCAL_DATE_TIME
+                    + string(article.getTitle()) + string(article.getSummary()) + string(article.getUrl())
+                    + string(article.getSource()) + string(article.getImageUrl());
+        }
+        if (value instanceof StockSearchResult result) {
+            return OBJECT_HEADER + 5 * REFERENCE
+                    + string(result.getSymbol()) + string(result.getName()) + string(result.getExchange())
+                    + string(result.getType()) + string(result.getSector());
+        }
+        return UNKNOWN_VALUE;
+    }
+
+    private static long decimal(BigDecimal value) {
+        return value == null ? 0 : BIG_DECIMAL;
+    }
+
+    private static long string(String value) {
+        return value == null ? 0 : OBJECT_HEADER + 24 + value.length();
+    }
+}
@@ -0,0 +1,78 @@
+package com.stockpilot.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link SharedCacheStore} held in this JVM, for running a single instance
+ * with {@code stockpilot.cache.l2.store=memory} and for tests, where several
+ * caches sharing one instance stand in for replicas sharing Redis.
+ * Subscribers are called on the publishing thread.
+ */
+public class InMemorySharedCacheStore implements SharedCacheStore {
+
+    private record Value(byte[] bytes, long expiresAtNanos) {
+        boolean isLive() {
+            return System.nanoTime() - expiresAtNanos < 0;
+        }
+    }
+
+    private final Map<String, Value> values = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public byte[] get(String key) {
+        Value value = values.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (!value.isLive()) {
+            values.remove(key, value);
+            return null;
+        }
+        return value.bytes();
+    }
+
+    @Override
+    public void set(String key, byte[] value, Duration ttl) {
+        values.put(key, new Value(value, System.nanoTime() + ttl.toNanos()));
+    }
+
+    @Override
+    public void delete(String key) {
+        values.remove(key);
+    }
+
+    @Override
+    public boolean tryLock(String key, String token, Duration ttl) {
+        Value lock = new Value(token.getBytes(StandardCharsets.UTF_8), System.nanoTime() + ttl.toNanos());
+        return values.compute(key, (k, held) -> held != null && held.isLive() ? held : lock) == lock;
+    }
+
+    @Override
+    public void unlock(String key, String token) {
+        byte[] expected = token.getBytes(StandardCharsets.UTF_8);
+        values.computeIfPresent(key, (k, held) -> Arrays.equals(held.bytes(), expected) ? null : held);
+    }
+
+    @Override
+    public void publish(String message) {
+        listeners.forEach(listener -> listener.accept(message));
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        listeners.clear();
+    }
+}
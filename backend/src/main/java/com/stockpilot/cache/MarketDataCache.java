@@ -0,0 +1,347 @@
+package com.stockpilot.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache for market data responses.
+ *
+ * <p>Keys are namespaced by their prefix ({@code quote:AAPL} lives in the
+ * {@code quote} namespace). Every namespace is its own Caffeine cache with a
+ * maximum weight in estimated bytes, so a flood of distinct search keys can
+ * only evict other search results. Caffeine provides W-TinyLFU admission and
+ * eviction, and the system scheduler removes expired entries in the
+ * background instead of waiting for them to be read again.</p>
+ *
+ * <p>Entries carry a soft TTL (after which they are stale but still served)
+ * and a hard TTL (after which they are dropped); see {@link CacheEntry}.</p>
+ *
+ * <p>Bound to a meter registry, every namespace reports Caffeine's
+ * {@code cache.*} meters (gets by hit and miss, evictions, size) plus its
+ * weight, as cache {@code market-data} tagged with the namespace. Namespaces
+ * first used later are bound when they are created.</p>
+ *
+ * <p>With a {@link SharedCacheStore} configured ({@code stockpilot.cache.l2.*})
+ * the Caffeine caches become the first level of two. Every put is copied to
+ * the store, a local miss is looked up there before going upstream, and a put
+ * or invalidation on one replica drops the key from the others' first level.
+ * {@link #loadShared} keeps replicas from loading the same key upstream at
+ * the same time. See {@link SharedCacheTier}.</p>
+ */
+@Component
+public class MarketDataCache implements MeterBinder {
+
+    private static final String DEFAULT_NAMESPACE = "default";
+
+    private final CacheProperties properties;
+    private final Map<String, Cache<String, CacheEntry>> namespaces = new ConcurrentHashMap<>();
+    private final SharedCacheTier shared;
+    private volatile MeterRegistry registry;
+
+    public MarketDataCache(CacheProperties properties) {
+        this(properties, null, null);
+    }
+
+    @Autowired
+    public MarketDataCache(CacheProperties properties, ObjectProvider<SharedCacheStore> sharedStore) {
+        this(properties, sharedStore.getIfAvailable(), SharedCacheTier.defaultWriter());
+    }
+
+    MarketDataCache(CacheProperties properties, SharedCacheStore sharedStore, Executor sharedWriter) {
+        this.properties = properties;
+        this.shared = sharedStore == null ? null
+                : new SharedCacheTier(sharedStore, properties.getL2(), sharedWriter, this::invalidateLocal);
+    }
+
+    public Object get(String key) {
+        CacheEntry entry = getEntry(key);
+        return entry != null ? entry.getData() : null;
+    }
+
+    /**
+     * Returns the entry for {@code key}, fresh or stale, and counts the access
+     * towards refresh-ahead. A local miss is looked up in the shared level,
+     * which may block for up to {@code stockpilot.cache.l2.timeout}.
+     */
+    public CacheEntry getEntry(String key) {
+        CacheEntry entry = namespace(key).getIfPresent(key);
+        if (entry == null && shared != null) {
+            entry = fromShared(key);
+        }
+        if (entry != null) {
+            entry.recordHit();
+        }
+        return entry;
+    }
+
+    /**
+     * Like {@link #getEntry(String)} but never looks beyond this instance, for
+     * callers that must not block.
+     */
+    public CacheEntry getLocalEntry(String key) {
+        CacheEntry entry = namespace(key).getIfPresent(key);
+        if (entry != null) {
+            entry.recordHit();
+        }
+        return entry;
+    }
+
+    /**
+     * Like {@link #getEntry(String)} but without counting an access, nor a
+     * hit or miss.
+     */
+    public CacheEntry peekEntry(String key) {
+        return namespace(key).policy().getIfPresentQuietly(key);
+    }
+
+    public void put(String key, Object data) {
+        String namespace = namespaceOf(key);
+        CacheEntry entry = new CacheEntry(data, properties.ttlFor(namespace),
+                properties.staleTtlFor(namespace), CacheWeigher.weigh(key, data));
+        namespace(key).put(key, entry);
+        if (shared != null) {
+            shared.write(key, entry);
+        }
+    }
+
+    /**
+     * Runs {@code loader}, which is expected to load {@code key} upstream and
+     * put it. With a shared level, replicas take turns: while another replica
+     * loads the key this one waits for its value instead, as long as that is
+     * fresh and newer than {@code replacing}.
+     */
+    public <T> T loadShared(String key, CacheEntry replacing, Supplier<T> loader) {
+        if (shared == null) {
+            return loader.get();
+        }
+        return shared.singleFlight(key, loader, () -> {
+            SharedCacheTier.Shared found = shared.read(key);
+            if (found == null || (replacing != null && found.age().compareTo(replacing.getAge()) >= 0)) {
+                return null;
+            }
+            CacheEntry entry = entryFor(key, found.data(), found.age(), 0);
+            if (!entry.isFresh()) {
+                return null;
+            }
+            namespace(key).put(key, entry);
+            @SuppressWarnings("unchecked")
+            T data = (T) entry.getData();
+            return data;
+        });
+    }
+
+    /**
+     * {@link #loadShared} for keys {@code loader} loads together and puts,
+     * returning the values it loaded by key. With a shared level, keys
+     * another replica is loading are waited for, and a key another replica
+     * stored less than {@code maxAge} ago (or, for null, that is still fresh)
+     * is taken from the shared level instead of being loaded.
+     */
+    public <T> Map<String, T> loadSharedAll(List<String> keys, Function<String, Duration> maxAge,
+                                            Function<List<String>, Map<String, T>> loader) {
+        if (shared == null) {
+            return loader.apply(keys);
+        }
+        return shared.singleFlightAll(keys, loader, key -> {
+            SharedCacheTier.Shared found = shared.read(key);
+            if (found == null) {
+                return null;
+            }
+            CacheEntry entry = entryFor(key, found.data(), found.age(), 0);
+            Duration limit = maxAge.apply(key);
+            if (limit == null ? !entry.isFresh()
+                    : found.age().compareTo(limit) >= 0 || entry.getRemainingTtl().isZero()) {
+                return null;
+            }
+            namespace(key).put(key, entry);
+            @SuppressWarnings("unchecked")
+            T data = (T) entry.getData();
+            return data;
+        });
+    }
+
+    /**
+     * True when a fresh entry is popular enough, and close enough to going
+     * stale, that it should be reloaded before any caller sees it stale.
+     */
+    public boolean shouldRefreshAhead(CacheEntry entry) {
+        if (entry.getHits() < properties.getRefreshAheadHits()) {
+            return false;
+        }
+        long refreshAtNanos = (long) (entry.getTtl().toNanos() * properties.getRefreshAheadFraction());
+        return entry.getAge().toNanos() >= refreshAtNanos;
+    }
+
+    public void invalidate(String key) {
+        namespace(key).invalidate(key);
+        if (shared != null) {
+            shared.delete(key);
+        }
+    }
+
+    /**
+     * Visits every live entry, without counting accesses.
+     */
+    public void forEach(BiConsumer<String, CacheEntry> action) {
+        namespaces.values().forEach(cache -> cache.asMap().forEach(action));
+    }
+
+    /**
+     * Puts back an entry that was written {@code age} ago and read
+     * {@code hits} times, with the ttl of its namespace now. Returns false,
+     * leaving the cache as it is, if the entry would already have been
+     * dropped or the key has been written since.
+     */
+    public boolean restore(String key, Object data, Duration age, int hits) {
+        CacheEntry entry = entryFor(key, data, age, hits);
+        if (entry.getRemainingTtl().isZero()) {
+            return false;
+        }
+        return namespace(key).asMap().putIfAbsent(key, entry) == null;
+    }
+
+    /**
+     * Hit/miss/eviction counters and current size for every namespace in use.
+     */
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        namespaces.forEach((name, cache) -> {
+            CacheStats stats = cache.stats();
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("entries", cache.estimatedSize());
+            values.put("weightBytes", cache.policy().eviction()
+                    .map(eviction -> eviction.weightedSize().orElse(0L))
+                    .orElse(0L));
+            values.put("maxWeightBytes", properties.maxWeightFor(name).toBytes());
+            values.put("hits", stats.hitCount());
+            values.put("misses", stats.missCount());
+            values.put("evictions", stats.evictionCount());
+            values.put("hitRate", stats.hitRate());
+            result.put(name, values);
+        });
+        return result;
+    }
+
+    /**
+     * Counters for the shared level, or just {@code enabled=false}.
+     */
+    public Map<String, Object> sharedStats() {
+        return shared != null ? shared.stats() : Map.of("enabled", false);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (shared != null) {
+            shared.close();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        namespaces.forEach((name, cache) -> bind(registry, name, cache));
+    }
+
+    void cleanUp() {
+        namespaces.values().forEach(Cache::cleanUp);
+    }
+
+    public static String namespaceOf(String key) {
+        int separator = key.indexOf(':');
+        return separator > 0 ? key.substring(0, separator) : DEFAULT_NAMESPACE;
+    }
+
+    private CacheEntry fromShared(String key) {
+        SharedCacheTier.Shared found = shared.read(key);
+        if (found == null) {
+            return null;
+        }
+        CacheEntry entry = entryFor(key, found.data(), found.age(), 0);
+        if (entry.getRemainingTtl().isZero()) {
+            return null;
+        }
+        CacheEntry raced = namespace(key).asMap().putIfAbsent(key, entry);
+        return raced != null ? raced : entry;
+    }
+
+    private void invalidateLocal(String key) {
+        namespace(key).invalidate(key);
+    }
+
+    private CacheEntry entryFor(String key, Object data, Duration age, int hits) {
+        String namespace = namespaceOf(key);
+        return new CacheEntry(data, properties.ttlFor(namespace), properties.staleTtlFor(namespace),
+                CacheWeigher.weigh(key, data), age, hits);
+    }
+
+    private Cache<String, CacheEntry> namespace(String key) {
+        return namespaces.computeIfAbsent(namespaceOf(key), this::build);
+    }
+
+    private Cache<String, CacheEntry> build(String namespace) {
+        Cache<String, CacheEntry> cache = Caffeine.newBuilder()
+                .maximumWeight(properties.maxWeightFor(namespace).toBytes())
+                .weigher((String key, CacheEntry entry) -> entry.getWeight())
+                .expireAfter(new EntryExpiry())
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats()
+                .build();
+        MeterRegistry current = registry;
+        if (current != null) {
+            bind(current, namespace, cache);
+        }
+        return cache;
+    }
+
+    private static void bind(MeterRegistry registry, String namespace, Cache<String, CacheEntry> cache) {
+        Tags tags = Tags.of("namespace", namespace);
+        CaffeineCacheMetrics.monitor(registry, cache, "market-data", tags);
+        Gauge.builder("stockpilot.cache.weight", cache, c -> c.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0L))
+                        .orElse(0L))
+                .tags(tags)
+                .baseUnit("bytes")
+                .description("Estimated size of the namespace's entries")
+                .register(registry);
+    }
+
+    private static class EntryExpiry implements Expiry<String, CacheEntry> {
+        @Override
+        public long expireAfterCreate(String key, CacheEntry entry, long currentTime) {
+            return entry.getRemainingTtl().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CacheEntry entry, long currentTime, long currentDuration) {
+            return entry.getRemainingTtl().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CacheEntry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
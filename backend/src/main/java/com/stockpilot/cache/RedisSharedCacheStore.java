@@ -0,0 +1,107 @@
+package com.stockpilot.cache;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * {@link SharedCacheStore} on Redis, or anything speaking its protocol, via
+ * Lettuce. One connection carries every command; Lettuce pipelines commands
+ * from concurrent callers over it. Subscriptions use a second connection,
+ * as the protocol requires.
+ *
+ * <p>Commands give up after {@code timeout}, and fail at once while the
+ * connection is down rather than queueing until it is back; Lettuce
+ * reconnects in the background.</p>
+ */
+public class RedisSharedCacheStore implements SharedCacheStore {
+
+    private static final String UNLOCK_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+
+    private final RedisClient client;
+    private final StatefulRedisConnection<String, byte[]> connection;
+    private final RedisCommands<String, byte[]> commands;
+    private final StatefulRedisPubSubConnection<String, String> subscriptions;
+    private final String channel;
+
+    public RedisSharedCacheStore(String uri, Duration timeout, String channel) {
+        RedisURI redisUri = RedisURI.create(uri);
+        redisUri.setTimeout(timeout);
+        this.client = RedisClient.create(redisUri);
+        client.setOptions(ClientOptions.builder()
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .build());
+        this.connection = client.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+        this.commands = connection.sync();
+        this.subscriptions = client.connectPubSub();
+        this.channel = channel;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        return commands.get(key);
+    }
+
+    @Override
+    public void set(String key, byte[] value, Duration ttl) {
+        commands.set(key, value, SetArgs.Builder.px(ttl.toMillis()));
+    }
+
+    @Override
+    public void delete(String key) {
+        commands.del(key);
+    }
+
+    @Override
+    public boolean tryLock(String key, String token, Duration ttl) {
+        return "OK".equals(commands.set(key, bytes(token), SetArgs.Builder.nx().px(ttl.toMillis())));
+    }
+
+    @Override
+    public void unlock(String key, String token) {
+        commands.eval(UNLOCK_SCRIPT, ScriptOutputType.INTEGER, new String[]{key}, bytes(token));
+    }
+
+    @Override
+    public void publish(String message) {
+        commands.publish(channel, bytes(message));
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        subscriptions.addListener(new RedisPubSubAdapter<>() {
+            @Override
+            public void message(String from, String message) {
+                if (channel.equals(from)) {
+                    listener.accept(message);
+                }
+            }
+        });
+        subscriptions.sync().subscribe(channel);
+    }
+
+    @Override
+    public void close() {
+        subscriptions.close();
+        connection.close();
+        client.shutdown();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,46 @@
+package com.stockpilot.cache;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * A key-value store shared by every backend replica, used as the second
+ * level of the {@link MarketDataCache}.
+ *
+ * <p>Values are opaque bytes with a time-to-live. Locks are keys holding a
+ * caller-chosen token, so only the holder can release one, and they expire
+ * on their own if the holder dies. Messages published go to every
+ * subscriber, including the publisher's own.</p>
+ *
+ * <p>Implementations throw unchecked exceptions when the store cannot be
+ * reached; the cache then carries on with its local level alone.</p>
+ */
+public interface SharedCacheStore extends AutoCloseable {
+
+    /**
+     * The value stored under {@code key}, or null.
+     */
+    byte[] get(String key);
+
+    void set(String key, byte[] value, Duration ttl);
+
+    void delete(String key);
+
+    /**
+     * Stores {@code token} under {@code key} for {@code ttl} unless the key
+     * is already held. True if this call took the lock.
+     */
+    boolean tryLock(String key, String token, Duration ttl);
+
+    /**
+     * Releases {@code key} if it still holds {@code token}.
+     */
+    void unlock(String key, String token);
+
+    void publish(String message);
+
+    void subscribe(Consumer<String> listener);
+
+    @Override
+    void close();
+}
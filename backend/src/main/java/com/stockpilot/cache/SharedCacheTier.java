@@ -0,0 +1,366 @@
+package com.stockpilot.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The shared second level of the {@link MarketDataCache}, over a
+ * {@link SharedCacheStore}.
+ *
+ * <p>Values are stored as their {@link CacheCodec} tag, the wall-clock time
+ * they were written and the payload, until their hard ttl runs out. Writes
+ * and deletes go out on a single background thread, so callers never wait on
+ * the store for them; when the store falls behind, writes are dropped. After
+ * each one a message naming this instance and the key is published, and
+ * every other instance drops its local copy of the key.</p>
+ *
+ * <p>Any failure talking to the store counts as a miss: the cache keeps
+ * working from its local level and upstream.</p>
+ */
+final class SharedCacheTier {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedCacheTier.class);
+
+    /**
+     * A value read from the store and how long ago it was written.
+     */
+    record Shared(Object data, Duration age) {}
+
+    private final SharedCacheStore store;
+    private final CacheCodec codec = new CacheCodec();
+    private final String keyPrefix;
+    private final Duration lockTtl;
+    private final Duration lockWait;
+    private final Duration pollInterval;
+    private final Executor writer;
+    private final Clock clock;
+    private final String origin = UUID.randomUUID().toString();
+    private final AtomicLong tokens = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder lockWaits = new LongAdder();
+    private final LongAdder lockTimeouts = new LongAdder();
+    private final LongAdder loadedElsewhere = new LongAdder();
+
+    SharedCacheTier(SharedCacheStore store, CacheProperties.L2 properties, Executor writer,
+                    Consumer<String> invalidateLocal) {
+        this.store = store;
+        this.keyPrefix = properties.getKeyPrefix();
+        this.lockTtl = properties.getLockTtl();
+        this.lockWait = properties.getLockWait();
+        this.pollInterval = properties.getPollInterval();
+        this.writer = writer;
+        this.clock = Clock.systemUTC();
+        store.subscribe(message -> {
+            int separator = message.indexOf('\n');
+            if (separator > 0 && !message.startsWith(origin + "\n")) {
+                invalidations.increment();
+                invalidateLocal.accept(message.substring(separator + 1));
+            }
+        });
+    }
+
+    /**
+     * The writer for the store: one daemon thread with a bounded queue, which
+     * rejects new work when the queue is full.
+     */
+    static ExecutorService defaultWriter() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(10_000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-l2-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * The value stored for {@code key}, or null if there is none or the store
+     * cannot be read.
+     */
+    Shared read(String key) {
+        byte[] stored;
+        try {
+            stored = store.get(keyPrefix + key);
+        } catch (RuntimeException e) {
+            failed("read " + key, e);
+            return null;
+        }
+        if (stored == null || stored.length < 1 + Long.BYTES) {
+            misses.increment();
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.wrap(stored, 0, 1 + Long.BYTES);
+        byte tag = header.get();
+        long writtenAt = header.getLong();
+        try {
+            Object data = codec.decode(tag, Arrays.copyOfRange(stored, 1 + Long.BYTES, stored.length));
+            if (data == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return new Shared(data, Duration.ofMillis(Math.max(0, clock.millis() - writtenAt)));
+        } catch (IOException | RuntimeException e) {
+            log.debug("Shared cache entry {} cannot be decoded: {}", key, e.getMessage());
+            misses.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Stores {@code entry} for the rest of its hard ttl, then tells the other
+     * instances to drop their copies. Values the codec cannot encode stay
+     * local.
+     */
+    void write(String key, CacheEntry entry) {
+        byte tag = codec.tagOf(entry.getData());
+        if (tag == CacheCodec.UNSUPPORTED) {
+            return;
+        }
+        long writtenAt = clock.millis() - entry.getAge().toMillis();
+        submit(() -> {
+            Duration ttl = entry.getRemainingTtl();
+            if (ttl.toMillis() <= 0) {
+                return;
+            }
+            byte[] value;
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (DataOutputStream out = new DataOutputStream(bytes)) {
+                    out.writeByte(tag);
+                    out.writeLong(writtenAt);
+                    out.write(codec.encode(tag, entry.getData()));
+                }
+                value = bytes.toByteArray();
+            } catch (IOException | RuntimeException e) {
+                log.debug("Cache entry {} kept out of the shared cache: {}", key, e.getMessage());
+                return;
+            }
+            try {
+                store.set(keyPrefix + key, value, ttl);
+                store.publish(origin + "\n" + key);
+                writes.increment();
+            } catch (RuntimeException e) {
+                failed("write " + key, e);
+            }
+        });
+    }
+
+    void delete(String key) {
+        submit(() -> {
+            try {
+                store.delete(keyPrefix + key);
+                store.publish(origin + "\n" + key);
+            } catch (RuntimeException e) {
+                failed("delete " + key, e);
+            }
+        });
+    }
+
+    /**
+     * Runs {@code loader} for {@code key} on at most one instance at a time.
+     *
+     * <p>Whoever takes the key's lock first runs its loader. The others poll
+     * {@code published} until it returns the value the lock holder stored, for
+     * up to {@code lock-wait}, then run their loader anyway. The lock holder
+     * checks {@code published} as well before loading, in case another
+     * instance finished just before it took the lock. When the store cannot be
+     * reached the loader runs straight away.</p>
+     */
+    <T> T singleFlight(String key, Supplier<T> loader, Supplier<T> published) {
+        String lock = keyPrefix + "lock:" + key;
+        String token = origin + ":" + tokens.incrementAndGet();
+        long deadline = System.nanoTime() + lockWait.toNanos();
+        boolean waiting = false;
+        while (true) {
+            boolean locked;
+            try {
+                locked = store.tryLock(lock, token, lockTtl);
+            } catch (RuntimeException e) {
+                failed("lock " + key, e);
+                return loader.get();
+            }
+            if (locked) {
+                try {
+                    T done = published.get();
+                    return done != null ? done : loader.get();
+                } finally {
+                    // Queued behind the loader's write, so waiters find the value once the lock is free
+                    release(lock, token);
+                }
+            }
+
+            if (!waiting) {
+                waiting = true;
+                lockWaits.increment();
+            }
+            if (System.nanoTime() >= deadline) {
+                lockTimeouts.increment();
+                return loader.get();
+            }
+            LockSupport.parkNanos(pollInterval.toNanos());
+            if (Thread.currentThread().isInterrupted()) {
+                return loader.get();
+            }
+            T done = published.get();
+            if (done != null) {
+                loadedElsewhere.increment();
+                return done;
+            }
+        }
+    }
+
+    /**
+     * {@link #singleFlight} for keys loaded together, such as a batch of
+     * quotes. {@code loader} gets the keys this instance holds the lock for
+     * and nothing was published for yet, and returns what it found by key.
+     * Keys locked elsewhere are then waited for, and whatever did not turn
+     * up within {@code lock-wait} is loaded here after all.
+     */
+    <T> Map<String, T> singleFlightAll(List<String> keys, Function<List<String>, Map<String, T>> loader,
+                                       Function<String, T> published) {
+        Map<String, T> found = new HashMap<>();
+        List<String> mine = new ArrayList<>();
+        List<String> waiting = new ArrayList<>();
+        Map<String, String> held = new HashMap<>();
+        try {
+            for (String key : keys) {
+                String lock = keyPrefix + "lock:" + key;
+                String token = origin + ":" + tokens.incrementAndGet();
+                boolean locked;
+                try {
+                    locked = store.tryLock(lock, token, lockTtl);
+                    if (locked) {
+                        held.put(lock, token);
+                    }
+                } catch (RuntimeException e) {
+                    failed("lock " + key, e);
+                    locked = true;
+                }
+                if (!locked) {
+                    waiting.add(key);
+                    continue;
+                }
+                T done = published.apply(key);
+                if (done != null) {
+                    found.put(key, done);
+                } else {
+                    mine.add(key);
+                }
+            }
+            if (!mine.isEmpty()) {
+                found.putAll(loader.apply(mine));
+            }
+        } finally {
+            held.forEach(this::release);
+        }
+
+        if (waiting.isEmpty()) {
+            return found;
+        }
+        lockWaits.add(waiting.size());
+        long deadline = System.nanoTime() + lockWait.toNanos();
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(pollInterval.toNanos());
+            waiting.removeIf(key -> {
+                T done = published.apply(key);
+                if (done == null) {
+                    return false;
+                }
+                loadedElsewhere.increment();
+                found.put(key, done);
+                return true;
+            });
+            if (waiting.isEmpty()) {
+                return found;
+            }
+        }
+        lockTimeouts.add(waiting.size());
+        found.putAll(loader.apply(waiting));
+        return found;
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", true);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("writes", writes.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("errors", errors.sum());
+        stats.put("invalidationsReceived", invalidations.sum());
+        stats.put("lockWaits", lockWaits.sum());
+        stats.put("lockTimeouts", lockTimeouts.sum());
+        stats.put("loadedElsewhere", loadedElsewhere.sum());
+        return stats;
+    }
+
+    /**
+     * Lets queued writes finish, for a couple of seconds at most.
+     */
+    void close() {
+        if (writer instanceof ExecutorService service) {
+            service.shutdown();
+            try {
+                service.awaitTermination(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            writer.execute(task);
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+        }
+    }
+
+    private void release(String lock, String token) {
+        Runnable unlock = () -> {
+            try {
+                store.unlock(lock, token);
+            } catch (RuntimeException e) {
+                // The lock expires after lock-ttl
+                failed("unlock " + lock, e);
+            }
+        };
+        try {
+            writer.execute(unlock);
+        } catch (RejectedExecutionException e) {
+            unlock.run();
+        }
+    }
+
+    private void failed(String operation, RuntimeException e) {
+        errors.increment();
+        log.debug("Shared cache {} failed: {}", operation, e.getMessage());
+    }
+}
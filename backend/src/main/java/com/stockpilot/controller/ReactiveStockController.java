@@ -0,0 +1,199 @@
+package com.stockpilot.controller;
+
+import com.stockpilot.domain.*;
+import com.stockpilot.service.AnalysisEngine;
+import com.stockpilot.service.AnalysisMetric;
+import com.stockpilot.service.MarketDataService;
+import com.stockpilot.service.ReactiveMarketDataService;
+import com.stockpilot.service.RollingAnalytics;
+import com.stockpilot.stream.QuoteStreamHub;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * WebFlux equivalent of {@link StockController}, active under the
+ * {@code reactive} profile. Same paths, parameters and responses.
+ */
+@RestController
+@RequestMapping("/api/stocks")
+@CrossOrigin(origins = {"http://localhost:4200", "https://*.vercel.app"})
+@Profile("reactive")
+public class ReactiveStockController {
+
+    private static final int MAX_BATCH_SYMBOLS = 200;
+    // Events a stream client may fall behind by before it is disconnected
+    private static final int MAX_BUFFERED_EVENTS = 1024;
+
+    private final ReactiveMarketDataService marketDataService;
+    private final MarketDataService blockingMarketDataService;
+    private final AnalysisEngine analysisEngine;
+    private final RollingAnalytics rollingAnalytics;
+    private final QuoteStreamHub quoteStreamHub;
+
+    public ReactiveStockController(ReactiveMarketDataService marketDataService,
+                                   MarketDataService blockingMarketDataService,
+                                   AnalysisEngine analysisEngine, RollingAnalytics rollingAnalytics,
+                                   QuoteStreamHub quoteStreamHub) {
+        this.marketDataService = marketDataService;
+        this.blockingMarketDataService = blockingMarketDataService;
+        this.analysisEngine = analysisEngine;
+        this.rollingAnalytics = rollingAnalytics;
+        this.quoteStreamHub = quoteStreamHub;
+    }
+
+    @GetMapping("/search")
+    public Mono<ResponseEntity<List<StockSearchResult>>> searchStocks(
+            @RequestParam String query) {
+
+        if (query == null || query.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return marketDataService.searchSymbols(query).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/quote/{symbol}")
+    public Mono<ResponseEntity<StockQuote>> getQuote(@PathVariable String symbol) {
+        return marketDataService.getQuote(symbol)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/quotes")
+    public Mono<ResponseEntity<Map<String, StockQuote>>> getQuotes(@RequestBody List<String> symbols) {
+        if (symbols == null || symbols.isEmpty() || symbols.size() > MAX_BATCH_SYMBOLS) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return marketDataService.getQuotes(symbols).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Mono<ResponseEntity<Flux<ServerSentEvent<String>>>> streamQuotes(@RequestParam List<String> symbols) {
+        return Mono.fromCallable(() -> {
+                    Sinks.Many<ServerSentEvent<String>> events = Sinks.many().unicast()
+                            .onBackpressureBuffer(Queues.<ServerSentEvent<String>>get(MAX_BUFFERED_EVENTS).get());
+                    QuoteStreamHub.Subscription subscription = quoteStreamHub.subscribe(symbols, json -> {
+                        if (events.tryEmitNext(ServerSentEvent.builder(json).event("quote").build()).isFailure()) {
+                            IOException behind = new IOException("Stream client fell too far behind");
+                            events.tryEmitError(behind);
+                            throw behind;
+                        }
+                    });
+                    return ResponseEntity.ok(events.asFlux().doFinally(signal -> subscription.close()));
+                })
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()))
+                .onErrorResume(IllegalStateException.class,
+                        e -> Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build()))
+                // Subscribing may read quotes through the blocking service
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping("/historical/{symbol}")
+    public Mono<ResponseEntity<List<HistoricalPrice>>> getHistoricalData(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "1M") String range) {
+
+        return marketDataService.getPriceSeries(symbol, range)
+                .map(series -> ResponseEntity.ok(series.toHistoricalPrices()));
+    }
+
+    /**
+     * Columnar history, as JSON only: WebFlux has no CBOR encoder for
+     * response bodies yet.
+     */
+    @GetMapping(path = "/historical/{symbol}", produces = ColumnarPrices.MEDIA_TYPE)
+    public Mono<ResponseEntity<ColumnarPrices>> getHistoricalColumns(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "1M") String range) {
+
+        return marketDataService.getPriceSeries(symbol, range)
+                .map(series -> ResponseEntity.ok(ColumnarPrices.of(series)));
+    }
+
+    @GetMapping("/fundamentals/{symbol}")
+    public Mono<ResponseEntity<StockFundamentals>> getFundamentals(@PathVariable String symbol) {
+        return marketDataService.getFundamentals(symbol)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/news/{symbol}")
+    public Mono<ResponseEntity<List<NewsArticle>>> getNews(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        return marketDataService.getNews(symbol, Math.min(limit, 50)).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/analysis/{symbol}")
+    public Mono<ResponseEntity<Map<String, Object>>> getAnalysis(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "1Y") String range,
+            @RequestParam(required = false) String metrics) {
+
+        Set<AnalysisMetric> selected;
+        try {
+            selected = AnalysisMetric.parse(metrics);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        // History comes from the blocking service, so this runs off the event loop
+        return Mono.fromCallable(() -> analysisEngine.analyze(symbol, range, selected))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/rolling/{symbol}")
+    public Mono<ResponseEntity<RollingMetrics>> getRolling(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "1Y") String range,
+            @RequestParam(defaultValue = "20") int window) {
+
+        if (window < 2 || window > RollingAnalytics.MAX_WINDOW) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return Mono.fromCallable(() -> rollingAnalytics.rolling(symbol, range, window))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(blockingMarketDataService.getStats());
+    }
+
+    @GetMapping("/health")
+    public ResponseEntity<Map<String, String>> health() {
+        Map<String, String> response = new HashMap<>();
+        response.put("status", "UP");
+        response.put("service", "StockPilot API");
+        return ResponseEntity.ok(response);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, String>> handleException(Exception e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+    }
+}
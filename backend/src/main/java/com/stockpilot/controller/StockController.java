@@ -1,28 +1,46 @@
 ﻿package com.stockpilot.controller;
 
 import com.stockpilot.domain.*;
-import com.stockpilot.service.FinanceUtilsService;
+import com.stockpilot.service.AnalysisEngine;
+import com.stockpilot.service.AnalysisMetric;
 import com.stockpilot.service.MarketDataService;
+import com.stockpilot.service.RollingAnalytics;
+import com.stockpilot.stream.QuoteStreamHub;
+import com.stockpilot.stream.StreamProperties;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/stocks")
 @CrossOrigin(origins = {"http://localhost:4200", "https://*.vercel.app"})
+@Profile("!reactive")
 public class StockController {
 
-    private final MarketDataService marketDataService;
-    private final FinanceUtilsService financeUtils;
+    private static final int MAX_BATCH_SYMBOLS = 200;
 
-    public StockController(MarketDataService marketDataService, FinanceUtilsService financeUtils) {
+    private final MarketDataService marketDataService;
+    private final AnalysisEngine analysisEngine;
+    private final RollingAnalytics rollingAnalytics;
+    private final QuoteStreamHub quoteStreamHub;
+    private final StreamProperties streamProperties;
+
+    public StockController(MarketDataService marketDataService, AnalysisEngine analysisEngine,
+                           RollingAnalytics rollingAnalytics, QuoteStreamHub quoteStreamHub,
+                           StreamProperties streamProperties) {
         this.marketDataService = marketDataService;
-        this.financeUtils = financeUtils;
+        this.analysisEngine = analysisEngine;
+        this.rollingAnalytics = rollingAnalytics;
+        this.quoteStreamHub = quoteStreamHub;
+        this.streamProperties = streamProperties;
     }
 
     @GetMapping("/search")
@@ -48,6 +66,37 @@ public class StockController {
         return ResponseEntity.ok(quote);
     }
 
+    @PostMapping("/quotes")
+    public ResponseEntity<Map<String, StockQuote>> getQuotes(@RequestBody List<String> symbols) {
+        if (symbols == null || symbols.isEmpty() || symbols.size() > MAX_BATCH_SYMBOLS) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(marketDataService.getQuotes(symbols));
+    }
+
+    /**
+     * Server-Sent Events stream of {@code quote} events for the given
+     * symbols: the full quote of each first, then only the fields that changed.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamQuotes(@RequestParam List<String> symbols) {
+        SseEmitter emitter = new SseEmitter(streamProperties.getTimeout().toMillis());
+        QuoteStreamHub.Subscription subscription;
+        try {
+            subscription = quoteStreamHub.subscribe(symbols, json ->
+                    emitter.send(SseEmitter.event().name("quote").data(json, MediaType.APPLICATION_JSON)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        return ResponseEntity.ok(emitter);
+    }
+
     @GetMapping("/historical/{symbol}")
     public ResponseEntity<List<HistoricalPrice>> getHistoricalData(
             @PathVariable String symbol,
@@ -57,6 +106,20 @@ public class StockController {
         return ResponseEntity.ok(data);
     }
 
+    /**
+     * The same history as columns, for clients asking for
+     * {@value ColumnarPrices#MEDIA_TYPE} or CBOR. Clients accepting JSON or
+     * anything get the bar list above.
+     */
+    @GetMapping(path = "/historical/{symbol}",
+            produces = {ColumnarPrices.MEDIA_TYPE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<ColumnarPrices> getHistoricalColumns(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "1M") String range) {
+
+        return ResponseEntity.ok(ColumnarPrices.of(marketDataService.getPriceSeries(symbol, range)));
+    }
+
     @GetMapping("/fundamentals/{symbol}")
     public ResponseEntity<StockFundamentals> getFundamentals(@PathVariable String symbol) {
         StockFundamentals fundamentals = marketDataService.getFundamentals(symbol);
@@ -80,33 +143,47 @@ public class StockController {
     @GetMapping("/analysis/{symbol}")
     public ResponseEntity<Map<String, Object>> getAnalysis(
             @PathVariable String symbol,
-            @RequestParam(defaultValue = "1Y") String range) {
+            @RequestParam(defaultValue = "1Y") String range,
+            @RequestParam(required = false) String metrics) {
         
-        List<HistoricalPrice> prices = marketDataService.getHistoricalData(symbol, range);
+        Set<AnalysisMetric> selected;
+        try {
+            selected = AnalysisMetric.parse(metrics);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Map<String, Object> analysis = analysisEngine.analyze(symbol, range, selected);
         
-        if (prices == null || prices.isEmpty()) {
+        if (analysis == null) {
             return ResponseEntity.notFound().build();
         }
 
-        Map<String, Object> analysis = new HashMap<>();
+        return ResponseEntity.ok(analysis);
+    }
+
+    @GetMapping("/rolling/{symbol}")
+    public ResponseEntity<RollingMetrics> getRolling(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "1Y") String range,
+            @RequestParam(defaultValue = "20") int window) {
         
-        BigDecimal volatility = financeUtils.computeVolatility(prices);
-        BigDecimal maxDrawdown = financeUtils.computeMaxDrawdown(prices);
-        String riskLevel = financeUtils.classifyRisk(volatility);
-
-        analysis.put("volatility", volatility);
-        analysis.put("maxDrawdown", maxDrawdown);
-        analysis.put("riskLevel", riskLevel);
-        analysis.put("dataPoints", prices.size());
+        if (window < 2 || window > RollingAnalytics.MAX_WINDOW) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        RollingMetrics rolling = rollingAnalytics.rolling(symbol, range, window);
         
-        if (!prices.isEmpty()) {
-            BigDecimal startPrice = prices.get(0).getClose();
-            BigDecimal endPrice = prices.get(prices.size() - 1).getClose();
-            BigDecimal returns = financeUtils.computeReturns(startPrice, endPrice);
-            analysis.put("returns", returns);
+        if (rolling == null) {
+            return ResponseEntity.notFound().build();
         }
 
-        return ResponseEntity.ok(analysis);
+        return ResponseEntity.ok(rolling);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(marketDataService.getStats());
     }
 
     @GetMapping("/health")
@@ -0,0 +1,120 @@
+package com.stockpilot.domain;
+
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Compact form of a price history response, served for
+ * {@value #MEDIA_TYPE} and {@code application/cbor}: one array per field
+ * instead of one object per bar.
+ *
+ * <p>Dates are {@code firstDate} plus {@code dayDeltas}, the days since the
+ * previous bar (0 for the first). Prices are whole multiples of
+ * {@code 1 / priceScale}, each given as the change from the previous bar's
+ * value of the same field, so the first element is the price itself. Bar
+ * {@code i}'s close is the sum of {@code close[0..i]} divided by
+ * {@code priceScale}. Volumes are plain. Missing prices are zero, as in the
+ * {@link HistoricalPrice} form.</p>
+ *
+ * <p>{@code priceScale} is the smallest power of ten, up to
+ * 10<sup>{@value #MAX_DECIMALS}</sup>, that gives every price in the response
+ * exactly, so sub-cent prices decode to the same doubles as in the bar
+ * list.</p>
+ */
+public class ColumnarPrices {
+
+    public static final String MEDIA_TYPE = "application/vnd.stockpilot.columnar+json";
+    public static final int MAX_DECIMALS = 12;
+
+    // Largest magnitude a double holds as an exact integer
+    private static final double MAX_EXACT = 0x1p53;
+
+    private static final double[] POWERS = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12};
+
+    private String firstDate;
+    private int[] dayDeltas;
+    private long priceScale;
+    private long[] open;
+    private long[] high;
+    private long[] low;
+    private long[] close;
+    private long[] volume;
+
+    public ColumnarPrices() {}
+
+    public static ColumnarPrices of(PriceSeries series) {
+        int size = series.size();
+        ColumnarPrices prices = new ColumnarPrices();
+        prices.firstDate = size > 0 ? series.date(0).toString() : null;
+        prices.dayDeltas = new int[size];
+        for (int i = 1; i < size; i++) {
+            prices.dayDeltas[i] = Math.toIntExact(series.epochDay(i) - series.epochDay(i - 1));
+        }
+        int decimals = 0;
+        double largest = 0;
+        for (IntToDoubleFunction column : List.<IntToDoubleFunction>of(series::open, series::high, series::low,
+                series::close)) {
+            for (int i = 0; i < size; i++) {
+                double price = column.applyAsDouble(i);
+                if (Double.isNaN(price)) {
+                    continue;
+                }
+                largest = Math.max(largest, Math.abs(price));
+                while (decimals < MAX_DECIMALS && Math.rint(price * POWERS[decimals]) / POWERS[decimals] != price) {
+                    decimals++;
+                }
+            }
+        }
+        while (decimals > 0 && largest * POWERS[decimals] > MAX_EXACT) {
+            decimals--;
+        }
+        long scale = (long) POWERS[decimals];
+        prices.priceScale = scale;
+        prices.open = deltas(series::open, size, scale);
+        prices.high = deltas(series::high, size, scale);
+        prices.low = deltas(series::low, size, scale);
+        prices.close = deltas(series::close, size, scale);
+        prices.volume = new long[size];
+        for (int i = 0; i < size; i++) {
+            prices.volume[i] = series.volume(i);
+        }
+        return prices;
+    }
+
+    private static long[] deltas(IntToDoubleFunction column, int size, long scale) {
+        long[] deltas = new long[size];
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            double price = column.applyAsDouble(i);
+            long value = Double.isNaN(price) ? 0 : Math.round(price * scale);
+            deltas[i] = value - previous;
+            previous = value;
+        }
+        return deltas;
+    }
+
+    // Getters and Setters
+    public String getFirstDate() { return firstDate; }
+    public void setFirstDate(String firstDate) { this.firstDate = firstDate; }
+
+    public int[] getDayDeltas() { return dayDeltas; }
+    public void setDayDeltas(int[] dayDeltas) { this.dayDeltas = dayDeltas; }
+
+    public long getPriceScale() { return priceScale; }
+    public void setPriceScale(long priceScale) { this.priceScale = priceScale; }
+
+    public long[] getOpen() { return open; }
+    public void setOpen(long[] open) { this.open = open; }
+
+    public long[] getHigh() { return high; }
+    public void setHigh(long[] high) { this.high = high; }
+
+    public long[] getLow() { return low; }
+    public void setLow(long[] low) { this.low = low; }
+
+    public long[] getClose() { return close; }
+    public void setClose(long[] close) { this.close = close; }
+
+    public long[] getVolume() { return volume; }
+    public void setVolume(long[] volume) { this.volume = volume; }
+}
@@ -0,0 +1,42 @@
+package com.stockpilot.domain;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * The daily history held for one symbol: a single series from which every
+ * requested range is served as a view, and the earliest day it was fetched
+ * from. A symbol may not have traded on that day, so the series itself can
+ * start later; a range starting on or after {@link #getCoveredFrom()} needs
+ * no further upstream call.
+ *
+ * <p>Views are memoized per range, so repeated requests for one range get the
+ * same {@link PriceSeries} instance until the history is extended.</p>
+ */
+public final class PriceHistory {
+
+    private final long coveredFrom;
+    private final PriceSeries series;
+    private final Map<String, PriceSeries> views = new ConcurrentHashMap<>();
+
+    public PriceHistory(long coveredFrom, PriceSeries series) {
+        this.coveredFrom = coveredFrom;
+        this.series = series;
+    }
+
+    public long getCoveredFrom() { return coveredFrom; }
+
+    public PriceSeries getSeries() { return series; }
+
+    public boolean covers(long epochDay) {
+        return coveredFrom <= epochDay;
+    }
+
+    /**
+     * The view named {@code range}, made by {@code select} on first use.
+     */
+    public PriceSeries view(String range, UnaryOperator<PriceSeries> select) {
+        return views.computeIfAbsent(range, key -> select.apply(series));
+    }
+}
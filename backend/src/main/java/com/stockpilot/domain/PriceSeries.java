@@ -0,0 +1,207 @@
+package com.stockpilot.domain;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Daily OHLCV bars stored as parallel primitive columns, oldest first.
+ *
+ * <p>This is the form historical data is fetched, cached and analysed in; a
+ * bar is a few dozen bytes here against several hundred as a
+ * {@link HistoricalPrice}. Prices the upstream source did not report are
+ * {@code NaN}. Instances are immutable, and {@link #slice} and {@link #since}
+ * return views sharing the same columns. {@link #closes()} hands out the
+ * backing close column for the analytics kernels, which only read it.</p>
+ */
+public final class PriceSeries {
+
+    public static final PriceSeries EMPTY =
+            new PriceSeries(new long[0], new double[0], new double[0], new double[0], new double[0], new long[0]);
+
+    private final long[] epochDays;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final long[] volume;
+    private final int offset;
+    private final int size;
+
+    /**
+     * Takes ownership of the given arrays, which must all have the same length.
+     */
+    public PriceSeries(long[] epochDays, double[] open, double[] high,
+                       double[] low, double[] close, long[] volume) {
+        this(epochDays, open, high, low, close, volume, 0, epochDays.length);
+        int length = epochDays.length;
+        if (open.length != length || high.length != length || low.length != length
+                || close.length != length || volume.length != length) {
+            throw new IllegalArgumentException("Price columns must all have " + length + " values");
+        }
+    }
+
+    private PriceSeries(long[] epochDays, double[] open, double[] high, double[] low,
+                        double[] close, long[] volume, int offset, int size) {
+        this.epochDays = epochDays;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    public static PriceSeries of(List<HistoricalPrice> prices) {
+        if (prices == null || prices.isEmpty()) {
+            return EMPTY;
+        }
+        int size = prices.size();
+        long[] epochDays = new long[size];
+        double[] open = new double[size];
+        double[] high = new double[size];
+        double[] low = new double[size];
+        double[] close = new double[size];
+        long[] volume = new long[size];
+        for (int i = 0; i < size; i++) {
+            HistoricalPrice price = prices.get(i);
+            epochDays[i] = price.getDate() != null ? price.getDate().toEpochDay() : 0;
+            open[i] = toDouble(price.getOpen());
+            high[i] = toDouble(price.getHigh());
+            low[i] = toDouble(price.getLow());
+            close[i] = toDouble(price.getClose());
+            volume[i] = price.getVolume() != null ? price.getVolume() : 0;
+        }
+        return new PriceSeries(epochDays, open, high, low, close, volume);
+    }
+
+    /**
+     * {@code first} followed by the bars of {@code second} dated after it, in new columns.
+     */
+    public static PriceSeries concat(PriceSeries first, PriceSeries second) {
+        PriceSeries tail = first.isEmpty() ? second : second.since(first.lastDay() + 1);
+        if (tail.isEmpty()) {
+            return first;
+        }
+        if (first.isEmpty()) {
+            return tail;
+        }
+        int size = first.size + tail.size;
+        long[] epochDays = new long[size];
+        double[] open = new double[size];
+        double[] high = new double[size];
+        double[] low = new double[size];
+        double[] close = new double[size];
+        long[] volume = new long[size];
+        int at = 0;
+        for (PriceSeries part : new PriceSeries[]{first, tail}) {
+            System.arraycopy(part.epochDays, part.offset, epochDays, at, part.size);
+            System.arraycopy(part.open, part.offset, open, at, part.size);
+            System.arraycopy(part.high, part.offset, high, at, part.size);
+            System.arraycopy(part.low, part.offset, low, at, part.size);
+            System.arraycopy(part.close, part.offset, close, at, part.size);
+            System.arraycopy(part.volume, part.offset, volume, at, part.size);
+            at += part.size;
+        }
+        return new PriceSeries(epochDays, open, high, low, close, volume);
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public long epochDay(int index) { return epochDays[offset + index]; }
+
+    public LocalDate date(int index) { return LocalDate.ofEpochDay(epochDay(index)); }
+
+    public double open(int index) { return open[offset + index]; }
+
+    public double high(int index) { return high[offset + index]; }
+
+    public double low(int index) { return low[offset + index]; }
+
+    public double close(int index) { return close[offset + index]; }
+
+    public long volume(int index) { return volume[offset + index]; }
+
+    public long firstDay() { return epochDay(0); }
+
+    public long lastDay() { return epochDay(size - 1); }
+
+    /**
+     * Index of the bar for {@code epochDay}, or -1 if the series has none.
+     */
+    public int indexOf(long epochDay) {
+        int index = Arrays.binarySearch(epochDays, offset, offset + size, epochDay);
+        return index >= 0 ? index - offset : -1;
+    }
+
+    /**
+     * View of bars {@code [from, to)}, sharing this series' columns.
+     */
+    public PriceSeries slice(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("slice [" + from + ", " + to + ") of " + size);
+        }
+        if (from == 0 && to == size) {
+            return this;
+        }
+        return new PriceSeries(epochDays, open, high, low, close, volume, offset + from, to - from);
+    }
+
+    /**
+     * View of the bars dated on or after {@code epochDay}.
+     */
+    public PriceSeries since(long epochDay) {
+        return slice(lowerBound(epochDay), size);
+    }
+
+    /**
+     * View of the bars dated before {@code epochDay}.
+     */
+    public PriceSeries before(long epochDay) {
+        return slice(0, lowerBound(epochDay));
+    }
+
+    /**
+     * The backing close column, for read-only kernels: bar {@code i} is at
+     * {@code closes()[offset() + i]}. Must not be modified.
+     */
+    public double[] closes() { return close; }
+
+    public int offset() { return offset; }
+
+    /**
+     * Number of bars in the backing columns, which views share.
+     */
+    public int capacity() { return epochDays.length; }
+
+    /**
+     * Boxes the series for the JSON response. Missing prices become zero, as
+     * they always have in the API.
+     */
+    public List<HistoricalPrice> toHistoricalPrices() {
+        List<HistoricalPrice> prices = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            prices.add(new HistoricalPrice(date(i), decimal(open(i)), decimal(high(i)),
+                    decimal(low(i)), decimal(close(i)), volume(i)));
+        }
+        return prices;
+    }
+
+    private int lowerBound(long epochDay) {
+        int index = Arrays.binarySearch(epochDays, offset, offset + size, epochDay);
+        return (index >= 0 ? index : -index - 1) - offset;
+    }
+
+    private static double toDouble(BigDecimal value) {
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+
+    private static BigDecimal decimal(double value) {
+        return Double.isNaN(value) ? BigDecimal.ZERO : BigDecimal.valueOf(value);
+    }
+}
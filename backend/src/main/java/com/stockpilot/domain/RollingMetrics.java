@@ -0,0 +1,45 @@
+package com.stockpilot.domain;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Rolling-window analytics for one symbol: for each date, the annualised
+ * volatility of the previous {@code window} daily returns and the drawdown of
+ * the close from its maximum over the last {@code window} closes, both in
+ * percent. Dates without a full window are left out.
+ */
+public class RollingMetrics {
+    private String symbol;
+    private int window;
+    private List<LocalDate> dates;
+    private double[] volatility;
+    private double[] drawdown;
+
+    public RollingMetrics() {}
+
+    public RollingMetrics(String symbol, int window, List<LocalDate> dates,
+                          double[] volatility, double[] drawdown) {
+        this.symbol = symbol;
+        this.window = window;
+        this.dates = dates;
+        this.volatility = volatility;
+        this.drawdown = drawdown;
+    }
+
+    // Getters and Setters
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public int getWindow() { return window; }
+    public void setWindow(int window) { this.window = window; }
+
+    public List<LocalDate> getDates() { return dates; }
+    public void setDates(List<LocalDate> dates) { this.dates = dates; }
+
+    public double[] getVolatility() { return volatility; }
+    public void setVolatility(double[] volatility) { this.volatility = volatility; }
+
+    public double[] getDrawdown() { return drawdown; }
+    public void setDrawdown(double[] drawdown) { this.drawdown = drawdown; }
+}
@@ -0,0 +1,43 @@
+package com.stockpilot.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Path;
+
+/**
+ * Symbol search index settings, bound from {@code stockpilot.search.*}.
+ */
+@ConfigurationProperties(prefix = "stockpilot.search")
+public class SearchProperties {
+
+    private boolean enabled = true;
+    private Resource universe = new ClassPathResource("symbols.json");
+    private Path learnedFile = Path.of("data", "search", "learned-symbols.json");
+    private int maxLearned = 50_000;
+    private int maxResults = 10;
+    private int minResults = 1;
+    private double fuzzyThreshold = 0.5;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Resource getUniverse() { return universe; }
+    public void setUniverse(Resource universe) { this.universe = universe; }
+
+    public Path getLearnedFile() { return learnedFile; }
+    public void setLearnedFile(Path learnedFile) { this.learnedFile = learnedFile; }
+
+    public int getMaxLearned() { return maxLearned; }
+    public void setMaxLearned(int maxLearned) { this.maxLearned = maxLearned; }
+
+    public int getMaxResults() { return maxResults; }
+    public void setMaxResults(int maxResults) { this.maxResults = maxResults; }
+
+    public int getMinResults() { return minResults; }
+    public void setMinResults(int minResults) { this.minResults = minResults; }
+
+    public double getFuzzyThreshold() { return fuzzyThreshold; }
+    public void setFuzzyThreshold(double fuzzyThreshold) { this.fuzzyThreshold = fuzzyThreshold; }
+}
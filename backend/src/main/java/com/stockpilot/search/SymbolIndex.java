@@ -0,0 +1,468 @@
+package com.stockpilot.search;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.stockpilot.domain.StockSearchResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory symbol search over a known universe of symbols, so typeahead
+ * queries are answered in-process instead of one upstream search per
+ * keystroke.
+ *
+ * <p>The universe is read from {@code stockpilot.search.universe} (a JSON
+ * array of {@link StockSearchResult}, in rank order) and grows with every
+ * upstream search result, which is kept in {@code learned-file} across
+ * restarts. Symbols and the words of each name are kept in sorted arrays, so
+ * a prefix match is a binary search; results rank exact symbols first, then
+ * symbol prefixes, then names starting with the query, then names with a
+ * word starting with it, and by universe rank within each.</p>
+ *
+ * <p>A query with a symbol or name prefix match is answered from the index.
+ * Otherwise {@link #search} returns the closest names by shared bigrams, to
+ * catch typos, but marks the answer as not confident: the caller should ask
+ * upstream and fall back to it only when upstream has nothing.</p>
+ *
+ * <p>The index is rebuilt on every change and swapped in whole, so searches
+ * never lock. Changes are rare once the universe has been learned.</p>
+ */
+@Component
+public class SymbolIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SymbolIndex.class);
+
+    // Match kinds, best first
+    private static final int EXACT = 0;
+    private static final int SYMBOL_PREFIX = 1;
+    private static final int NAME_PREFIX = 2;
+    private static final int WORD_PREFIX = 3;
+
+    /**
+     * Results for a query. When not {@code confident} the results are only
+     * near matches, and the caller should prefer an upstream answer.
+     */
+    public record Match(List<StockSearchResult> results, boolean confident) {
+        static final Match NONE = new Match(List.of(), false);
+    }
+
+    private final boolean enabled;
+    private final Path learnedFile;
+    private final int maxLearned;
+    private final int maxResults;
+    private final int minResults;
+    private final double fuzzyThreshold;
+    private final ObjectMapper json = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final LongAdder answered = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+
+    private volatile Snapshot snapshot = Snapshot.build(List.of());
+    // Written under writeLock
+    private volatile int learned;
+    private boolean dirty;
+
+    public SymbolIndex(SearchProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.learnedFile = properties.getLearnedFile();
+        this.maxLearned = properties.getMaxLearned();
+        this.maxResults = properties.getMaxResults();
+        this.minResults = Math.max(1, properties.getMinResults());
+        this.fuzzyThreshold = properties.getFuzzyThreshold();
+        if (enabled) {
+            List<StockSearchResult> universe = readUniverse(properties.getUniverse());
+            List<StockSearchResult> known = readLearned();
+            writeLock.lock();
+            try {
+                List<StockSearchResult> entries = new ArrayList<>(universe.size() + known.size());
+                Set<String> symbols = new HashSet<>();
+                add(entries, symbols, universe, Integer.MAX_VALUE);
+                learned = add(entries, symbols, known, maxLearned);
+                snapshot = Snapshot.build(entries);
+            } finally {
+                writeLock.unlock();
+            }
+            log.info("Symbol index ready with {} symbols ({} learned)", snapshot.size(), learned);
+        }
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    public Match search(String query) {
+        if (!enabled || query == null) {
+            return Match.NONE;
+        }
+        String needle = query.trim().toUpperCase(Locale.ROOT);
+        if (needle.isEmpty()) {
+            return Match.NONE;
+        }
+        Snapshot current = snapshot;
+        List<StockSearchResult> results = current.prefixMatches(needle, maxResults);
+        boolean exact = !results.isEmpty() && normalizeSymbol(results.get(0).getSymbol()).equals(needle);
+        if (exact || results.size() >= Math.min(minResults, maxResults)) {
+            answered.increment();
+            return new Match(results, true);
+        }
+        deferred.increment();
+        return new Match(current.fuzzyMatches(needle, maxResults, fuzzyThreshold), false);
+    }
+
+    /**
+     * Adds the symbols in {@code results} that the index does not know yet.
+     * Returns {@code results}, so it can wrap an upstream call.
+     */
+    public List<StockSearchResult> learn(List<StockSearchResult> results) {
+        if (!enabled || results == null || results.isEmpty()) {
+            return results;
+        }
+        Snapshot current = snapshot;
+        if (results.stream().allMatch(result -> isBlank(result.getSymbol()) || current.contains(result.getSymbol()))) {
+            return results;
+        }
+        writeLock.lock();
+        try {
+            List<StockSearchResult> entries = new ArrayList<>(snapshot.entries());
+            Set<String> symbols = new HashSet<>();
+            entries.forEach(entry -> symbols.add(normalizeSymbol(entry.getSymbol())));
+            int added = add(entries, symbols, results, maxLearned - learned);
+            if (added > 0) {
+                learned += added;
+                dirty = true;
+                snapshot = Snapshot.build(entries);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return results;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("symbols", snapshot.size());
+        stats.put("learned", learned);
+        stats.put("answered", answered.sum());
+        stats.put("deferred", deferred.sum());
+        return stats;
+    }
+
+    /**
+     * Writes the learned symbols to {@code learned-file}, if any were added.
+     */
+    @PreDestroy
+    public void save() {
+        if (!enabled || learnedFile == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            List<StockSearchResult> entries = snapshot.entries();
+            replace(learnedFile, json.writeValueAsBytes(entries.subList(entries.size() - learned, entries.size())));
+            dirty = false;
+        } catch (IOException e) {
+            log.warn("Cannot save learned symbols to {}: {}", learnedFile, e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private List<StockSearchResult> readUniverse(Resource universe) {
+        if (universe == null || !universe.exists()) {
+            log.warn("Symbol universe {} not found, the index starts empty", universe);
+            return List.of();
+        }
+        try (InputStream in = universe.getInputStream()) {
+            return json.readValue(in, new TypeReference<>() {});
+        } catch (IOException e) {
+            log.warn("Cannot read symbol universe {}: {}", universe, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<StockSearchResult> readLearned() {
+        if (learnedFile == null) {
+            return List.of();
+        }
+        try {
+            return json.readValue(Files.readAllBytes(learnedFile), new TypeReference<>() {});
+        } catch (NoSuchFileException e) {
+            return List.of();
+        } catch (IOException e) {
+            log.warn("Cannot read learned symbols from {}: {}", learnedFile, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Appends up to {@code limit} of {@code results} whose symbols are not in
+     * {@code symbols} yet. Returns how many were added.
+     */
+    private static int add(List<StockSearchResult> entries, Set<String> symbols,
+                           List<StockSearchResult> results, int limit) {
+        int added = 0;
+        for (StockSearchResult result : results) {
+            if (added >= limit) {
+                break;
+            }
+            if (result != null && !isBlank(result.getSymbol()) && symbols.add(normalizeSymbol(result.getSymbol()))) {
+                entries.add(result);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private static void replace(Path file, byte[] content) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String normalizeSymbol(String symbol) {
+        return symbol == null ? "" : symbol.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Upper-cased words of {@code text}: runs of letters and digits.
+     */
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String upper = text.toUpperCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= upper.length(); i++) {
+            boolean letter = i < upper.length() && Character.isLetterOrDigit(upper.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                words.add(upper.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Bigrams of each word padded with a boundary marker, so "MSFT" gives
+     * "$M", "MS", "SF", "FT" and "T$".
+     */
+    private static Set<String> bigrams(List<String> words) {
+        Set<String> grams = new HashSet<>();
+        for (String word : words) {
+            String padded = "$" + word + "$";
+            for (int i = 0; i + 2 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 2));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * One immutable build of the index. Entries are in rank order; the sorted
+     * key arrays point into them.
+     */
+    private static final class Snapshot {
+
+        private final StockSearchResult[] entries;
+        private final String[] symbols;
+        private final int[] symbolEntry;
+        private final String[] words;
+        private final int[] wordEntry;
+        private final int[] wordPosition;
+        private final Map<String, int[]> bigrams;
+
+        private Snapshot(StockSearchResult[] entries, String[] symbols, int[] symbolEntry,
+                         String[] words, int[] wordEntry, int[] wordPosition, Map<String, int[]> bigrams) {
+            this.entries = entries;
+            this.symbols = symbols;
+            this.symbolEntry = symbolEntry;
+            this.words = words;
+            this.wordEntry = wordEntry;
+            this.wordPosition = wordPosition;
+            this.bigrams = bigrams;
+        }
+
+        private record Key(String text, int entry, int position) {}
+
+        static Snapshot build(List<StockSearchResult> list) {
+            StockSearchResult[] entries = list.toArray(new StockSearchResult[0]);
+            List<Key> symbolKeys = new ArrayList<>(entries.length);
+            List<Key> wordKeys = new ArrayList<>(entries.length * 3);
+            Map<String, List<Integer>> postings = new HashMap<>();
+            for (int i = 0; i < entries.length; i++) {
+                String symbol = normalizeSymbol(entries[i].getSymbol());
+                symbolKeys.add(new Key(symbol, i, 0));
+                List<String> nameWords = words(entries[i].getName());
+                for (int w = 0; w < nameWords.size(); w++) {
+                    wordKeys.add(new Key(nameWords.get(w), i, w));
+                }
+                List<String> all = new ArrayList<>(nameWords);
+                all.addAll(words(symbol));
+                for (String gram : bigrams(all)) {
+                    postings.computeIfAbsent(gram, g -> new ArrayList<>()).add(i);
+                }
+            }
+            Comparator<Key> order = Comparator.comparing(Key::text).thenComparingInt(Key::entry);
+            symbolKeys.sort(order);
+            wordKeys.sort(order);
+
+            String[] symbols = new String[symbolKeys.size()];
+            int[] symbolEntry = new int[symbolKeys.size()];
+            for (int i = 0; i < symbols.length; i++) {
+                symbols[i] = symbolKeys.get(i).text();
+                symbolEntry[i] = symbolKeys.get(i).entry();
+            }
+            String[] words = new String[wordKeys.size()];
+            int[] wordEntry = new int[wordKeys.size()];
+            int[] wordPosition = new int[wordKeys.size()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = wordKeys.get(i).text();
+                wordEntry[i] = wordKeys.get(i).entry();
+                wordPosition[i] = wordKeys.get(i).position();
+            }
+            Map<String, int[]> bigrams = new HashMap<>(postings.size() * 2);
+            postings.forEach((gram, ids) -> bigrams.put(gram, ids.stream().mapToInt(Integer::intValue).toArray()));
+            return new Snapshot(entries, symbols, symbolEntry, words, wordEntry, wordPosition, bigrams);
+        }
+
+        int size() { return entries.length; }
+
+        List<StockSearchResult> entries() { return Arrays.asList(entries); }
+
+        boolean contains(String symbol) {
+            String key = normalizeSymbol(symbol);
+            int at = lowerBound(symbols, key);
+            return at < symbols.length && symbols[at].equals(key);
+        }
+
+        /**
+         * Entries whose symbol starts with {@code needle}, or whose name has
+         * words starting with each word of {@code needle}, best first.
+         */
+        List<StockSearchResult> prefixMatches(String needle, int limit) {
+            // Best match kind per entry; the rank (entry order) breaks ties
+            Map<Integer, Integer> kinds = new HashMap<>();
+            for (int i = lowerBound(symbols, needle); i < symbols.length && symbols[i].startsWith(needle); i++) {
+                kinds.put(symbolEntry[i], symbols[i].length() == needle.length() ? EXACT : SYMBOL_PREFIX);
+            }
+
+            List<String> queryWords = words(needle);
+            if (!queryWords.isEmpty()) {
+                String first = queryWords.get(0);
+                for (int i = lowerBound(words, first); i < words.length && words[i].startsWith(first); i++) {
+                    int entry = wordEntry[i];
+                    if (kinds.containsKey(entry) && kinds.get(entry) <= NAME_PREFIX) {
+                        continue;
+                    }
+                    if (queryWords.size() > 1 && !hasWordsFrom(entry, queryWords, wordPosition[i])) {
+                        continue;
+                    }
+                    int kind = wordPosition[i] == 0 ? NAME_PREFIX : WORD_PREFIX;
+                    kinds.merge(entry, kind, Math::min);
+                }
+            }
+
+            return kinds.entrySet().stream()
+                    .sorted(Comparator.<Map.Entry<Integer, Integer>>comparingInt(Map.Entry::getValue)
+                            .thenComparingInt(Map.Entry::getKey))
+                    .limit(limit)
+                    .map(e -> entries[e.getKey()])
+                    .toList();
+        }
+
+        /**
+         * Whether the name of {@code entry} continues, after the word at
+         * {@code position}, with words starting with the rest of {@code query}.
+         */
+        private boolean hasWordsFrom(int entry, List<String> query, int position) {
+            List<String> name = words(entries[entry].getName());
+            if (position + query.size() > name.size()) {
+                return false;
+            }
+            for (int q = 1; q < query.size(); q++) {
+                if (!name.get(position + q).startsWith(query.get(q))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Entries sharing at least {@code threshold} of the query's bigrams,
+         * most similar first.
+         */
+        List<StockSearchResult> fuzzyMatches(String needle, int limit, double threshold) {
+            Set<String> grams = bigrams(words(needle));
+            if (grams.isEmpty() || entries.length == 0) {
+                return List.of();
+            }
+            int[] shared = new int[entries.length];
+            for (String gram : grams) {
+                int[] ids = bigrams.get(gram);
+                if (ids != null) {
+                    for (int id : ids) {
+                        shared[id]++;
+                    }
+                }
+            }
+            int needed = (int) Math.ceil(grams.size() * threshold);
+            List<Integer> candidates = new ArrayList<>();
+            for (int i = 0; i < shared.length; i++) {
+                if (shared[i] > 0 && shared[i] >= needed) {
+                    candidates.add(i);
+                }
+            }
+            return candidates.stream()
+                    .sorted(Comparator.<Integer>comparingInt(i -> -shared[i]).thenComparingInt(i -> i))
+                    .limit(limit)
+                    .map(i -> entries[i])
+                    .toList();
+        }
+
+        private static int lowerBound(String[] sorted, String key) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
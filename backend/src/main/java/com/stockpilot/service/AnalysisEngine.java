@@ -0,0 +1,238 @@
+package com.stockpilot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stockpilot.domain.PriceSeries;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Computes any set of {@link AnalysisMetric}s for a price series in one fused
+ * pass over its closes, so asking for more metrics does not add more passes.
+ *
+ * <p>Results are cached per series instance and metric set. The history cache
+ * hands out a new {@link PriceSeries} whenever it refreshes an entry, and the
+ * result cache holds series weakly, so results go away together with the
+ * history they were computed from.</p>
+ */
+@Service
+public class AnalysisEngine {
+
+    // One-day parametric VaR at 95% confidence
+    private static final double VAR_Z = 1.6448536269514722;
+    private static final double TRADING_DAYS = PriceKernels.TRADING_DAYS_PER_YEAR;
+    private static final double ANNUALIZATION = Math.sqrt(TRADING_DAYS);
+
+    private final MarketDataService marketDataService;
+    private final FinanceUtilsService financeUtils;
+    private final AnalysisProperties properties;
+
+    // Weak keys compare by identity: a refreshed history is a new key
+    private final Cache<PriceSeries, ConcurrentMap<Set<AnalysisMetric>, CachedAnalysis>> results = Caffeine.newBuilder()
+            .weakKeys()
+            .maximumSize(4_096)
+            .build();
+
+    public AnalysisEngine(MarketDataService marketDataService, FinanceUtilsService financeUtils,
+                          AnalysisProperties properties) {
+        this.marketDataService = marketDataService;
+        this.financeUtils = financeUtils;
+        this.properties = properties;
+    }
+
+    /**
+     * Analysis of {@code symbol} over {@code range}, or null when there is no
+     * history for it. Beta is measured against the configured benchmark symbol.
+     */
+    public Map<String, Object> analyze(String symbol, String range, Set<AnalysisMetric> metrics) {
+        PriceSeries series = marketDataService.getPriceSeries(symbol, range);
+        if (series.isEmpty()) {
+            return null;
+        }
+        PriceSeries benchmark = metrics.contains(AnalysisMetric.BETA)
+                ? marketDataService.getPriceSeries(properties.getBenchmarkSymbol(), range)
+                : null;
+        return analyze(series, benchmark, metrics);
+    }
+
+    /**
+     * Analysis of {@code series}; {@code benchmark} is only read for beta and
+     * may be null.
+     */
+    public Map<String, Object> analyze(PriceSeries series, PriceSeries benchmark, Set<AnalysisMetric> metrics) {
+        ConcurrentMap<Set<AnalysisMetric>, CachedAnalysis> bySet =
+                results.get(series, key -> new ConcurrentHashMap<>());
+        CachedAnalysis cached = bySet.get(metrics);
+        if (cached != null && cached.benchmark() == benchmark) {
+            return cached.result();
+        }
+        Map<String, Object> result = Collections.unmodifiableMap(compute(series, benchmark, metrics));
+        bySet.put(Set.copyOf(metrics), new CachedAnalysis(benchmark, result));
+        return result;
+    }
+
+    private record CachedAnalysis(PriceSeries benchmark, Map<String, Object> result) {}
+
+    private Map<String, Object> compute(PriceSeries series, PriceSeries benchmark, Set<AnalysisMetric> metrics) {
+        boolean withBeta = metrics.contains(AnalysisMetric.BETA) && benchmark != null && !benchmark.isEmpty();
+        double[] close = series.closes();
+        int offset = series.offset();
+        int size = series.size();
+
+        // Daily returns (Welford) and downside deviation
+        long count = 0;
+        double mean = 0;
+        double m2 = 0;
+        double downside = 0;
+        // Drawdown: the current peak-to-trough stretch and the worst one so far
+        double peak = 0;
+        double trough = 0;
+        int stretchPeak = -1;
+        int stretchTrough = -1;
+        double maxDrawdown = 0;
+        int drawdownPeak = -1;
+        int drawdownTrough = -1;
+        // Return over the range
+        int first = -1;
+        int last = -1;
+        // Beta: co-moment of returns on the days both series have a close
+        int b = 0;
+        double pairedPrev = Double.NaN;
+        double benchmarkPrev = Double.NaN;
+        long pairs = 0;
+        double pairedMean = 0;
+        double benchmarkMean = 0;
+        double coMoment = 0;
+        double benchmarkM2 = 0;
+
+        double prev = Double.NaN;
+        for (int i = 0; i < size; i++) {
+            double current = close[offset + i];
+            if (PriceKernels.isPrice(current)) {
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+
+                if (current > peak) {
+                    if (peak > 0 && (peak - trough) / peak > maxDrawdown) {
+                        maxDrawdown = (peak - trough) / peak;
+                        drawdownPeak = stretchPeak;
+                        drawdownTrough = stretchTrough;
+                    }
+                    peak = current;
+                    trough = current;
+                    stretchPeak = i;
+                    stretchTrough = i;
+                } else if (current < trough) {
+                    trough = current;
+                    stretchTrough = i;
+                }
+
+                if (PriceKernels.isPrice(prev)) {
+                    double ret = (current - prev) / prev;
+                    count++;
+                    double delta = ret - mean;
+                    mean += delta / count;
+                    m2 += delta * (ret - mean);
+                    if (ret < 0) {
+                        downside += ret * ret;
+                    }
+                }
+
+                if (withBeta) {
+                    long day = series.epochDay(i);
+                    while (b < benchmark.size() && benchmark.epochDay(b) < day) {
+                        b++;
+                    }
+                    if (b < benchmark.size() && benchmark.epochDay(b) == day
+                            && PriceKernels.isPrice(benchmark.close(b))) {
+                        double benchmarkClose = benchmark.close(b);
+                        if (PriceKernels.isPrice(pairedPrev)) {
+                            double ret = (current - pairedPrev) / pairedPrev;
+                            double benchmarkRet = (benchmarkClose - benchmarkPrev) / benchmarkPrev;
+                            pairs++;
+                            double delta = ret - pairedMean;
+                            pairedMean += delta / pairs;
+                            double benchmarkDelta = benchmarkRet - benchmarkMean;
+                            benchmarkMean += benchmarkDelta / pairs;
+                            coMoment += delta * (benchmarkRet - benchmarkMean);
+                            benchmarkM2 += benchmarkDelta * (benchmarkRet - benchmarkMean);
+                        }
+                        pairedPrev = current;
+                        benchmarkPrev = benchmarkClose;
+                    }
+                }
+            }
+            prev = current;
+        }
+        if (peak > 0 && (peak - trough) / peak > maxDrawdown) {
+            maxDrawdown = (peak - trough) / peak;
+            drawdownPeak = stretchPeak;
+            drawdownTrough = stretchTrough;
+        }
+
+        double volatility = count == 0 ? 0 : Math.sqrt(m2 / count);
+        double excessReturn = mean * TRADING_DAYS - properties.getRiskFreeRate();
+
+        Map<String, Object> analysis = new LinkedHashMap<>();
+        analysis.put("dataPoints", size);
+        if (metrics.contains(AnalysisMetric.VOLATILITY)) {
+            BigDecimal annualized = size < 2 ? BigDecimal.ZERO : percent(volatility * ANNUALIZATION, 2);
+            analysis.put(AnalysisMetric.VOLATILITY.getKey(), annualized);
+            analysis.put("riskLevel", financeUtils.classifyRisk(annualized));
+        }
+        if (metrics.contains(AnalysisMetric.MAX_DRAWDOWN)) {
+            analysis.put(AnalysisMetric.MAX_DRAWDOWN.getKey(), BigDecimal.valueOf(maxDrawdown)
+                    .setScale(4, RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.valueOf(100)));
+        }
+        if (metrics.contains(AnalysisMetric.MAX_DRAWDOWN_DATES)) {
+            analysis.put("maxDrawdownPeakDate", drawdownPeak >= 0 ? series.date(drawdownPeak) : null);
+            analysis.put("maxDrawdownTroughDate", drawdownTrough >= 0 ? series.date(drawdownTrough) : null);
+        }
+        if (metrics.contains(AnalysisMetric.RETURNS)) {
+            analysis.put(AnalysisMetric.RETURNS.getKey(), first >= 0 && first < last
+                    ? financeUtils.computeReturns(
+                            BigDecimal.valueOf(close[offset + first]), BigDecimal.valueOf(close[offset + last]))
+                    : BigDecimal.ZERO);
+        }
+        if (metrics.contains(AnalysisMetric.SHARPE)) {
+            analysis.put(AnalysisMetric.SHARPE.getKey(), ratio(excessReturn, volatility * ANNUALIZATION));
+        }
+        if (metrics.contains(AnalysisMetric.SORTINO)) {
+            double downsideDeviation = count == 0 ? 0 : Math.sqrt(downside / count);
+            analysis.put(AnalysisMetric.SORTINO.getKey(), ratio(excessReturn, downsideDeviation * ANNUALIZATION));
+        }
+        if (metrics.contains(AnalysisMetric.BETA)) {
+            analysis.put(AnalysisMetric.BETA.getKey(), pairs < 2 ? null : ratio(coMoment, benchmarkM2));
+            analysis.put("benchmark", properties.getBenchmarkSymbol());
+        }
+        if (metrics.contains(AnalysisMetric.VAR)) {
+            analysis.put(AnalysisMetric.VAR.getKey(), percent(Math.max(0, VAR_Z * volatility - mean), 2));
+        }
+        return analysis;
+    }
+
+    private static BigDecimal percent(double fraction, int scale) {
+        return BigDecimal.valueOf(fraction * 100).setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * {@code numerator / denominator} to two places, or null when undefined.
+     */
+    private static BigDecimal ratio(double numerator, double denominator) {
+        if (denominator == 0 || Double.isNaN(numerator / denominator)) {
+            return null;
+        }
+        return BigDecimal.valueOf(numerator / denominator).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,67 @@
+package com.stockpilot.service;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Metrics the {@link AnalysisEngine} can compute, named as they appear in the
+ * {@code metrics=} query parameter and in the analysis response.
+ */
+public enum AnalysisMetric {
+    VOLATILITY("volatility"),
+    MAX_DRAWDOWN("maxDrawdown"),
+    MAX_DRAWDOWN_DATES("maxDrawdownDates"),
+    RETURNS("returns"),
+    SHARPE("sharpe"),
+    SORTINO("sortino"),
+    BETA("beta"),
+    VAR("valueAtRisk");
+
+    /**
+     * What {@code /analysis} returned before metrics were selectable.
+     */
+    public static final Set<AnalysisMetric> DEFAULTS =
+            Collections.unmodifiableSet(EnumSet.of(VOLATILITY, MAX_DRAWDOWN, RETURNS));
+
+    private final String key;
+
+    AnalysisMetric(String key) {
+        this.key = key;
+    }
+
+    public String getKey() { return key; }
+
+    /**
+     * Parses a comma-separated list of metric keys (case-insensitive).
+     * Null or blank means {@link #DEFAULTS}; {@code all} selects every metric.
+     *
+     * @throws IllegalArgumentException for an unknown metric
+     */
+    public static Set<AnalysisMetric> parse(String metrics) {
+        if (metrics == null || metrics.isBlank()) {
+            return DEFAULTS;
+        }
+        EnumSet<AnalysisMetric> selected = EnumSet.noneOf(AnalysisMetric.class);
+        for (String name : metrics.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (trimmed.equalsIgnoreCase("all")) {
+                return EnumSet.allOf(AnalysisMetric.class);
+            }
+            selected.add(fromKey(trimmed));
+        }
+        return selected.isEmpty() ? DEFAULTS : selected;
+    }
+
+    private static AnalysisMetric fromKey(String key) {
+        for (AnalysisMetric metric : values()) {
+            if (metric.key.equalsIgnoreCase(key)) {
+                return metric;
+            }
+        }
+        throw new IllegalArgumentException("Unknown metric: " + key);
+    }
+}
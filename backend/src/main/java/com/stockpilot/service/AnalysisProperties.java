@@ -0,0 +1,21 @@
+package com.stockpilot.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for {@code /analysis}, bound from {@code stockpilot.analysis.*}.
+ */
+@ConfigurationProperties(prefix = "stockpilot.analysis")
+public class AnalysisProperties {
+
+    private String benchmarkSymbol = "SPY";
+    private double riskFreeRate = 0.0;
+
+    /** Symbol beta is measured against. */
+    public String getBenchmarkSymbol() { return benchmarkSymbol; }
+    public void setBenchmarkSymbol(String benchmarkSymbol) { this.benchmarkSymbol = benchmarkSymbol; }
+
+    /** Annual risk-free rate as a fraction, for Sharpe and Sortino. */
+    public double getRiskFreeRate() { return riskFreeRate; }
+    public void setRiskFreeRate(double riskFreeRate) { this.riskFreeRate = riskFreeRate; }
+}
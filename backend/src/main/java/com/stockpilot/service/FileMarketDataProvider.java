@@ -0,0 +1,179 @@
+package com.stockpilot.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.stockpilot.domain.*;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Serves market data from files under a local directory, in the layout
+ * described by {@link MarketDataRecordings}, so the service can run and be
+ * load tested without network access. The files can be written by hand or
+ * recorded from a live provider with
+ * {@code stockpilot.providers.record.enabled}. Enabled with
+ * {@code stockpilot.providers.file.enabled}; it is tried after Yahoo.
+ *
+ * <p>A missing file means no data. A file that cannot be read or parsed is
+ * an upstream failure. To make replays behave like a real upstream, every
+ * call waits {@code latency} plus a random part of {@code jitter}, and a
+ * random {@code error-rate} fraction of calls fail.</p>
+ */
+@Component
+@Order(10)
+@ConditionalOnProperty(prefix = "stockpilot.providers.file", name = "enabled", havingValue = "true")
+public class FileMarketDataProvider implements MarketDataProvider {
+
+    private static final int MAX_SEARCH_RESULTS = 10;
+
+    private final MarketDataRecordings recordings;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final double errorRate;
+
+    public FileMarketDataProvider(FileProviderProperties properties) {
+        this.recordings = new MarketDataRecordings(properties.getDirectory());
+        this.latencyNanos = properties.getLatency().toNanos();
+        this.jitterNanos = properties.getJitter().toNanos();
+        this.errorRate = properties.getErrorRate();
+    }
+
+    @Override
+    public List<StockSearchResult> searchSymbols(String query) {
+        List<StockSearchResult> all = read(recordings.symbols(), new TypeReference<>() {});
+        if (all == null) {
+            return new ArrayList<>();
+        }
+        String needle = query.trim().toUpperCase(Locale.ROOT);
+        return all.stream()
+                .filter(result -> matches(result.getSymbol(), needle) || matches(result.getName(), needle))
+                .limit(MAX_SEARCH_RESULTS)
+                .toList();
+    }
+
+    @Override
+    public StockQuote getQuote(String symbol) {
+        return read(recordings.quote(symbol), new TypeReference<>() {});
+    }
+
+    /**
+     * One upstream round trip for the whole batch, as a multi-symbol
+     * endpoint would take.
+     */
+    @Override
+    public Map<String, StockQuote> getQuotes(Collection<String> symbols) {
+        simulateUpstream();
+        Map<String, StockQuote> quotes = new LinkedHashMap<>();
+        for (String symbol : symbols) {
+            StockQuote quote = readStored(recordings.quote(symbol), new TypeReference<>() {});
+            if (quote != null) {
+                quotes.put(symbol, quote);
+            }
+        }
+        return quotes;
+    }
+
+    @Override
+    public List<HistoricalPrice> getHistoricalData(String symbol, String range) {
+        return getPriceSeries(symbol, range).toHistoricalPrices();
+    }
+
+    @Override
+    public PriceSeries getPriceSeries(String symbol, String range) {
+        HistoryRange parsed = HistoryRange.parse(range);
+        if (parsed == null) {
+            return PriceSeries.EMPTY;
+        }
+        LocalDate today = LocalDate.now();
+        return parsed.select(readHistory(symbol).since(parsed.start(today).toEpochDay()), today);
+    }
+
+    @Override
+    public PriceSeries getPriceSeries(String symbol, LocalDate from, LocalDate to) {
+        return readHistory(symbol).since(from.toEpochDay()).before(to.toEpochDay() + 1);
+    }
+
+    @Override
+    public StockFundamentals getFundamentals(String symbol) {
+        return read(recordings.fundamentals(symbol), new TypeReference<>() {});
+    }
+
+    @Override
+    public List<NewsArticle> getNews(String symbol, int limit) {
+        List<NewsArticle> articles = read(recordings.news(symbol), new TypeReference<>() {});
+        if (articles == null) {
+            return new ArrayList<>();
+        }
+        return articles.subList(0, Math.min(limit, articles.size()));
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return Files.isDirectory(recordings.directory());
+    }
+
+    @Override
+    public String getProviderName() {
+        return "Local files";
+    }
+
+    private <T> T read(Path file, TypeReference<T> type) {
+        simulateUpstream();
+        return readStored(file, type);
+    }
+
+    private <T> T readStored(Path file, TypeReference<T> type) {
+        try {
+            return recordings.readJson(file, type);
+        } catch (IOException e) {
+            throw failure(file, e);
+        }
+    }
+
+    private PriceSeries readHistory(String symbol) {
+        simulateUpstream();
+        Path file = recordings.history(symbol);
+        try {
+            return recordings.readHistory(file);
+        } catch (IOException e) {
+            throw failure(file, e);
+        }
+    }
+
+    private MarketDataException failure(Path file, IOException e) {
+        return new MarketDataException("Cannot read " + recordings.directory().relativize(file) + ": " + e.getMessage(), e);
+    }
+
+    private static boolean matches(String value, String needle) {
+        return value != null && value.toUpperCase(Locale.ROOT).contains(needle);
+    }
+
+    private void simulateUpstream() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyNanos + (jitterNanos > 0 ? random.nextLong(jitterNanos) : 0);
+        if (delay > 0) {
+            try {
+                Thread.sleep(Duration.ofNanos(delay));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MarketDataException("Local file read interrupted", e);
+            }
+        }
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            throw new MarketDataException("Injected failure");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.stockpilot.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for {@link FileMarketDataProvider}, bound from
+ * {@code stockpilot.providers.file.*}.
+ */
+@ConfigurationProperties(prefix = "stockpilot.providers.file")
+public class FileProviderProperties {
+
+    private boolean enabled = false;
+    private Path directory = Path.of("data/provider");
+    private Duration latency = Duration.ZERO;
+    private Duration jitter = Duration.ZERO;
+    private double errorRate = 0;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Path getDirectory() { return directory; }
+    public void setDirectory(Path directory) { this.directory = directory; }
+
+    public Duration getLatency() { return latency; }
+    public void setLatency(Duration latency) { this.latency = latency; }
+
+    public Duration getJitter() { return jitter; }
+    public void setJitter(Duration jitter) { this.jitter = jitter; }
+
+    public double getErrorRate() { return errorRate; }
+    public void setErrorRate(double errorRate) { this.errorRate = errorRate; }
+}
@@ -1,6 +1,7 @@
 ﻿package com.stockpilot.service;
 
 import com.stockpilot.domain.HistoricalPrice;
+import com.stockpilot.domain.PriceSeries;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -10,76 +11,61 @@ import java.util.List;
 @Service
 public class FinanceUtilsService {
 
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
     public BigDecimal computeReturns(BigDecimal startPrice, BigDecimal endPrice) {
         if (startPrice.compareTo(BigDecimal.ZERO) == 0) {
             return BigDecimal.ZERO;
         }
         return endPrice.subtract(startPrice)
                 .divide(startPrice, 4, RoundingMode.HALF_UP)
-                .multiply(new BigDecimal("100"));
+                .multiply(HUNDRED);
     }
 
-    public BigDecimal computeVolatility(List<HistoricalPrice> prices) {
-        if (prices == null || prices.size() < 2) {
+    /**
+     * Return from the first to the last reported close of the series.
+     */
+    public BigDecimal computeReturns(PriceSeries series) {
+        double[] close = series.closes();
+        int end = series.offset() + series.size();
+        int first = PriceKernels.firstPrice(close, series.offset(), end);
+        int last = PriceKernels.lastPrice(close, series.offset(), end);
+        if (first < 0 || first >= last) {
             return BigDecimal.ZERO;
         }
+        return computeReturns(BigDecimal.valueOf(close[first]), BigDecimal.valueOf(close[last]));
+    }
 
-        // Calculate daily returns
-        double[] returns = new double[prices.size() - 1];
-        for (int i = 1; i < prices.size(); i++) {
-            BigDecimal prev = prices.get(i - 1).getClose();
-            BigDecimal current = prices.get(i).getClose();
-            returns[i - 1] = current.subtract(prev)
-                    .divide(prev, 6, RoundingMode.HALF_UP)
-                    .doubleValue();
-        }
-
-        // Calculate standard deviation
-        double mean = 0;
-        for (double ret : returns) {
-            mean += ret;
-        }
-        mean /= returns.length;
-
-        double variance = 0;
-        for (double ret : returns) {
-            variance += Math.pow(ret - mean, 2);
-        }
-        variance /= returns.length;
-
-        double stdDev = Math.sqrt(variance);
-        
-        // Annualize (assuming 252 trading days)
-        double annualizedVolatility = stdDev * Math.sqrt(252) * 100;
-        
-        return BigDecimal.valueOf(annualizedVolatility).setScale(2, RoundingMode.HALF_UP);
+    public BigDecimal computeVolatility(List<HistoricalPrice> prices) {
+        return computeVolatility(PriceSeries.of(prices));
     }
 
-    public BigDecimal computeMaxDrawdown(List<HistoricalPrice> prices) {
-        if (prices == null || prices.isEmpty()) {
+    /**
+     * Annualised standard deviation of daily close-to-close returns, in
+     * percent. Days without a reported close are skipped.
+     */
+    public BigDecimal computeVolatility(PriceSeries series) {
+        if (series.size() < 2) {
             return BigDecimal.ZERO;
         }
+        double volatility = PriceKernels.annualizedVolatility(
+                series.closes(), series.offset(), series.offset() + series.size());
+        return BigDecimal.valueOf(volatility * 100).setScale(2, RoundingMode.HALF_UP);
+    }
 
-        BigDecimal maxPrice = prices.get(0).getClose();
-        BigDecimal maxDrawdown = BigDecimal.ZERO;
-
-        for (HistoricalPrice price : prices) {
-            BigDecimal currentPrice = price.getClose();
-            
-            if (currentPrice.compareTo(maxPrice) > 0) {
-                maxPrice = currentPrice;
-            }
-
-            BigDecimal drawdown = maxPrice.subtract(currentPrice)
-                    .divide(maxPrice, 4, RoundingMode.HALF_UP)
-                    .multiply(new BigDecimal("100"));
-
-            if (drawdown.compareTo(maxDrawdown) > 0) {
-                maxDrawdown = drawdown;
-            }
-        }
+    public BigDecimal computeMaxDrawdown(List<HistoricalPrice> prices) {
+        return computeMaxDrawdown(PriceSeries.of(prices));
+    }
 
-        return maxDrawdown;
+    /**
+     * Largest peak-to-trough fall of the close, in percent of the peak.
+     */
+    public BigDecimal computeMaxDrawdown(PriceSeries series) {
+        double maxDrawdown = PriceKernels.maxDrawdown(
+                series.closes(), series.offset(), series.offset() + series.size());
+        return BigDecimal.valueOf(maxDrawdown)
+                .setScale(4, RoundingMode.HALF_UP)
+                .multiply(HUNDRED);
     }
 
     public String classifyRisk(BigDecimal volatility) {
@@ -0,0 +1,102 @@
+package com.stockpilot.service;
+
+import com.stockpilot.domain.PriceSeries;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A history range code such as {@code 5D}, {@code 1M}, {@code 6mo},
+ * {@code 1Y}, {@code YTD} or {@code MAX}, turned into dates.
+ *
+ * <p>Day ranges count trading days, so they start far enough back to cover
+ * weekends and {@link #select} keeps the last N bars; the other units are
+ * calendar periods ending today.</p>
+ */
+public final class HistoryRange {
+
+    private static final Pattern CODE = Pattern.compile("(\\d{1,3})(d|m|mo|y)");
+
+    // Earliest date asked for by MAX; older than any listing
+    public static final LocalDate MAX_START = LocalDate.of(1900, 1, 1);
+
+    // Codes providers fetch by, shortest first. Day codes are left out: they
+    // give the last N bars, which need not reach back to the start date
+    private static final List<String> FETCH_CODES = List.of("1M", "3M", "6M", "1Y", "2Y", "5Y", "10Y", "MAX");
+
+    private enum Unit { DAYS, MONTHS, YEARS, YEAR_TO_DATE, MAX }
+
+    private final int amount;
+    private final Unit unit;
+
+    private HistoryRange(int amount, Unit unit) {
+        this.amount = amount;
+        this.unit = unit;
+    }
+
+    /**
+     * Parses a range code, case-insensitively. Returns null if it is not one.
+     */
+    public static HistoryRange parse(String range) {
+        if (range == null) {
+            return null;
+        }
+        String code = range.trim().toLowerCase(Locale.ROOT);
+        if (code.equals("ytd")) {
+            return new HistoryRange(0, Unit.YEAR_TO_DATE);
+        }
+        if (code.equals("max")) {
+            return new HistoryRange(0, Unit.MAX);
+        }
+        Matcher matcher = CODE.matcher(code);
+        if (!matcher.matches() || Integer.parseInt(matcher.group(1)) == 0) {
+            return null;
+        }
+        Unit unit = switch (matcher.group(2)) {
+            case "d" -> Unit.DAYS;
+            case "y" -> Unit.YEARS;
+            default -> Unit.MONTHS;
+        };
+        return new HistoryRange(Integer.parseInt(matcher.group(1)), unit);
+    }
+
+    /**
+     * The shortest range code whose bars reach back to {@code from}, for
+     * providers that can only fetch by range.
+     */
+    public static String covering(LocalDate from, LocalDate today) {
+        for (String code : FETCH_CODES) {
+            if (!parse(code).start(today).isAfter(from)) {
+                return code;
+            }
+        }
+        return "MAX";
+    }
+
+    /**
+     * First calendar day whose bar can belong to this range.
+     */
+    public LocalDate start(LocalDate today) {
+        return switch (unit) {
+            // Two weekend days per five trading days, plus room for holidays
+            case DAYS -> today.minusDays(amount + 2L * (amount / 5 + 1) + 3);
+            case MONTHS -> today.minusMonths(amount);
+            case YEARS -> today.minusYears(amount);
+            case YEAR_TO_DATE -> today.withDayOfYear(1);
+            case MAX -> MAX_START;
+        };
+    }
+
+    /**
+     * The part of {@code series} that falls in this range, as a view.
+     */
+    public PriceSeries select(PriceSeries series, LocalDate today) {
+        if (unit == Unit.DAYS) {
+            return series.slice(Math.max(0, series.size() - amount), series.size());
+        }
+        return series.since(start(today).toEpochDay());
+    }
+}
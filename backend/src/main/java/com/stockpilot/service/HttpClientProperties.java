@@ -0,0 +1,26 @@
+package com.stockpilot.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Upstream HTTP client settings for market data providers, bound from
+ * {@code stockpilot.providers.http.*}.
+ */
+@ConfigurationProperties(prefix = "stockpilot.providers.http")
+public class HttpClientProperties {
+
+    private Duration connectTimeout = Duration.ofSeconds(3);
+    private Duration requestTimeout = Duration.ofSeconds(10);
+    private int maxRequestsPerHost = 16;
+
+    public Duration getConnectTimeout() { return connectTimeout; }
+    public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+
+    public Duration getRequestTimeout() { return requestTimeout; }
+    public void setRequestTimeout(Duration requestTimeout) { this.requestTimeout = requestTimeout; }
+
+    public int getMaxRequestsPerHost() { return maxRequestsPerHost; }
+    public void setMaxRequestsPerHost(int maxRequestsPerHost) { this.maxRequestsPerHost = maxRequestsPerHost; }
+}
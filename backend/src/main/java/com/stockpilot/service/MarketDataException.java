@@ -0,0 +1,19 @@
+package com.stockpilot.service;
+
+/**
+ * Thrown by a {@link MarketDataProvider} when the upstream source itself failed
+ * (network error, timeout, 5xx, throttling), as opposed to simply having no
+ * data for the request. These failures count against the provider's health.
+ */
+public class MarketDataException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public MarketDataException(String message) {
+        super(message);
+    }
+
+    public MarketDataException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,114 @@
+package com.stockpilot.service;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pools used by the market data layer for work that runs off the
+ * request thread.
+ *
+ * <p>With {@code spring.threads.virtual.enabled}, which also moves Tomcat's
+ * request handling onto virtual threads, upstream work runs on virtual
+ * threads as well: fan-out and provider I/O get a thread per task, and
+ * background refreshes keep their bounded queue but no longer hold platform
+ * threads while waiting on the network.</p>
+ *
+ * <p>Tasks run with the context of the thread that submitted them, such as
+ * the current observation, so upstream calls made off the request thread
+ * still show up as part of the request's trace.</p>
+ */
+@Component
+public class MarketDataExecutors {
+
+    private static final int REFRESH_THREADS = 4;
+    private static final int REFRESH_QUEUE = 256;
+    private static final int FAN_OUT_THREADS = 32;
+
+    private static final ContextSnapshotFactory SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private final boolean virtualThreads;
+    private final ExecutorService refresh;
+    private final ExecutorService fanOut;
+
+    public MarketDataExecutors() {
+        this(false);
+    }
+
+    @Autowired
+    public MarketDataExecutors(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+
+        // Background refreshes are best effort: when the queue is full the entry
+        // simply stays stale until the next read tries again.
+        this.refresh = ContextExecutorService.wrap(new ThreadPoolExecutor(
+                REFRESH_THREADS, REFRESH_THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(REFRESH_QUEUE),
+                threads("market-data-refresh-"),
+                new ThreadPoolExecutor.AbortPolicy()), SNAPSHOTS::captureAll);
+
+        // Parallel upstream fan-out for batch requests. Virtual threads are simply one
+        // per task; on platform threads tasks may submit nested work, so a saturated
+        // pool runs tasks on the caller rather than queueing them.
+        this.fanOut = ContextExecutorService.wrap(virtualThreads
+                ? Executors.newThreadPerTaskExecutor(threads("market-data-fan-out-"))
+                : new ThreadPoolExecutor(
+                        0, FAN_OUT_THREADS, 60, TimeUnit.SECONDS,
+                        new SynchronousQueue<>(),
+                        threads("market-data-fan-out-"),
+                        new ThreadPoolExecutor.CallerRunsPolicy()), SNAPSHOTS::captureAll);
+    }
+
+    public ExecutorService refresh() {
+        return refresh;
+    }
+
+    public ExecutorService fanOut() {
+        return fanOut;
+    }
+
+    /**
+     * A new executor for blocking upstream I/O, such as a provider's HTTP
+     * client: a virtual thread per task in virtual-thread mode, otherwise a
+     * cached pool of daemon threads. The caller shuts it down.
+     */
+    public ExecutorService newIoExecutor(String prefix) {
+        return virtualThreads
+                ? Executors.newThreadPerTaskExecutor(threads(prefix))
+                : Executors.newCachedThreadPool(threads(prefix));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresh.shutdownNow();
+        fanOut.shutdownNow();
+    }
+
+    private ThreadFactory threads(String prefix) {
+        if (virtualThreads) {
+            return Thread.ofVirtual().name(prefix, 1).factory();
+        }
+        return daemonThreads(prefix);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,8 +1,24 @@
 ﻿package com.stockpilot.service;
 
 import com.stockpilot.domain.*;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
+/**
+ * A source of market data. Implementations return null or an empty list when
+ * they have no data for a request, and throw {@link MarketDataException} when
+ * the upstream source itself is failing.
+ *
+ * <p>Each call also has an {@code ...Async} form whose future completes the
+ * same way. The defaults run the blocking call on the caller's thread;
+ * providers with non-blocking I/O override them so callers can overlap
+ * requests.</p>
+ */
 public interface MarketDataProvider {
     
     /**
@@ -15,12 +31,47 @@ public interface MarketDataProvider {
      */
     StockQuote getQuote(String symbol);
     
+    /**
+     * Get quotes for several symbols, keyed by symbol. Providers with a
+     * multi-symbol endpoint should override this; symbols without a quote are
+     * simply absent from the result.
+     */
+    default Map<String, StockQuote> getQuotes(Collection<String> symbols) {
+        Map<String, StockQuote> quotes = new LinkedHashMap<>();
+        for (String symbol : symbols) {
+            StockQuote quote = getQuote(symbol);
+            if (quote != null) {
+                quotes.put(symbol, quote);
+            }
+        }
+        return quotes;
+    }
+    
     /**
      * Get historical price data
      * @param range: 1D, 5D, 1M, 6M, 1Y, 5Y
      */
     List<HistoricalPrice> getHistoricalData(String symbol, String range);
     
+    /**
+     * Get historical price data in columnar form. Providers that can decode
+     * straight into a {@link PriceSeries} should override this.
+     */
+    default PriceSeries getPriceSeries(String symbol, String range) {
+        return PriceSeries.of(getHistoricalData(symbol, range));
+    }
+    
+    /**
+     * Get daily bars dated {@code from} through {@code to}, inclusive. Used to
+     * fetch only the days missing from stored history; providers that can
+     * query by date should override this. The default fetches the shortest
+     * range reaching back to {@code from} and cuts it down.
+     */
+    default PriceSeries getPriceSeries(String symbol, LocalDate from, LocalDate to) {
+        return getPriceSeries(symbol, HistoryRange.covering(from, LocalDate.now()))
+                .since(from.toEpochDay()).before(to.toEpochDay() + 1);
+    }
+    
     /**
      * Get fundamental data for a symbol
      */
@@ -31,8 +82,41 @@ public interface MarketDataProvider {
      */
     List<NewsArticle> getNews(String symbol, int limit);
     
+    default CompletableFuture<List<StockSearchResult>> searchSymbolsAsync(String query) {
+        return onCaller(() -> searchSymbols(query));
+    }
+    
+    default CompletableFuture<StockQuote> getQuoteAsync(String symbol) {
+        return onCaller(() -> getQuote(symbol));
+    }
+    
+    default CompletableFuture<Map<String, StockQuote>> getQuotesAsync(Collection<String> symbols) {
+        return onCaller(() -> getQuotes(symbols));
+    }
+    
+    default CompletableFuture<List<HistoricalPrice>> getHistoricalDataAsync(String symbol, String range) {
+        return getPriceSeriesAsync(symbol, range).thenApply(PriceSeries::toHistoricalPrices);
+    }
+    
+    default CompletableFuture<PriceSeries> getPriceSeriesAsync(String symbol, String range) {
+        return onCaller(() -> getPriceSeries(symbol, range));
+    }
+    
+    default CompletableFuture<PriceSeries> getPriceSeriesAsync(String symbol, LocalDate from, LocalDate to) {
+        return onCaller(() -> getPriceSeries(symbol, from, to));
+    }
+    
+    default CompletableFuture<StockFundamentals> getFundamentalsAsync(String symbol) {
+        return onCaller(() -> getFundamentals(symbol));
+    }
+    
+    default CompletableFuture<List<NewsArticle>> getNewsAsync(String symbol, int limit) {
+        return onCaller(() -> getNews(symbol, limit));
+    }
+    
     /**
-     * Check if this provider is available
+     * Check if this provider is available. Only used by the background health
+     * probe, never on the request path.
      */
     boolean isAvailable();
     
@@ -40,4 +124,8 @@ public interface MarketDataProvider {
      * Get provider name
      */
     String getProviderName();
+    
+    private static <T> CompletableFuture<T> onCaller(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, Runnable::run);
+    }
 }
@@ -0,0 +1,151 @@
+package com.stockpilot.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.stockpilot.domain.PriceSeries;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The on-disk layout shared by {@link RecordingMarketDataProvider}, which
+ * writes it, and {@link FileMarketDataProvider}, which serves it:
+ *
+ * <pre>
+ * symbols.json           search results, a JSON array of StockSearchResult
+ * quotes/AAPL.json       StockQuote
+ * history/AAPL.csv       date,open,high,low,close,volume with a header line
+ * fundamentals/AAPL.json StockFundamentals
+ * news/AAPL.json         a JSON array of NewsArticle
+ * </pre>
+ *
+ * <p>Files are replaced atomically, so a reader never sees half of one.</p>
+ */
+final class MarketDataRecordings {
+
+    private static final String HISTORY_HEADER = "date,open,high,low,close,volume";
+
+    private final Path directory;
+    private final ObjectMapper json = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    MarketDataRecordings(Path directory) {
+        this.directory = directory;
+    }
+
+    Path directory() { return directory; }
+
+    Path symbols() { return directory.resolve("symbols.json"); }
+
+    Path quote(String symbol) { return file("quotes", symbol, ".json"); }
+
+    Path history(String symbol) { return file("history", symbol, ".csv"); }
+
+    Path fundamentals(String symbol) { return file("fundamentals", symbol, ".json"); }
+
+    Path news(String symbol) { return file("news", symbol, ".json"); }
+
+    /**
+     * The value stored in {@code file}, or null if there is no such file.
+     */
+    <T> T readJson(Path file, TypeReference<T> type) throws IOException {
+        try {
+            return json.readValue(Files.readAllBytes(file), type);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    void writeJson(Path file, Object value) throws IOException {
+        replace(file, json.writeValueAsBytes(value));
+    }
+
+    /**
+     * Bars stored in {@code file}, sorted by date; empty if there is no such
+     * file. Rows that are not bars fail with {@link MarketDataException}.
+     */
+    PriceSeries readHistory(Path file) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            reader.readLine(); // header
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    rows.add(line.split(","));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return PriceSeries.EMPTY;
+        }
+
+        rows.sort((a, b) -> a[0].trim().compareTo(b[0].trim()));
+        int size = rows.size();
+        long[] epochDays = new long[size];
+        double[] open = new double[size];
+        double[] high = new double[size];
+        double[] low = new double[size];
+        double[] close = new double[size];
+        long[] volume = new long[size];
+        int i = 0;
+        try {
+            for (; i < size; i++) {
+                String[] row = rows.get(i);
+                epochDays[i] = LocalDate.parse(row[0].trim()).toEpochDay();
+                open[i] = Double.parseDouble(row[1].trim());
+                high[i] = Double.parseDouble(row[2].trim());
+                low[i] = Double.parseDouble(row[3].trim());
+                close[i] = Double.parseDouble(row[4].trim());
+                volume[i] = Long.parseLong(row[5].trim());
+            }
+        } catch (RuntimeException e) {
+            throw new MarketDataException("Malformed history in " + directory.relativize(file)
+                    + ": " + String.join(",", rows.get(i)), e);
+        }
+        return new PriceSeries(epochDays, open, high, low, close, volume);
+    }
+
+    void writeHistory(Path file, PriceSeries bars) throws IOException {
+        StringBuilder csv = new StringBuilder(HISTORY_HEADER).append('\n');
+        for (int i = 0; i < bars.size(); i++) {
+            csv.append(bars.date(i)).append(',')
+                    .append(bars.open(i)).append(',')
+                    .append(bars.high(i)).append(',')
+                    .append(bars.low(i)).append(',')
+                    .append(bars.close(i)).append(',')
+                    .append(bars.volume(i)).append('\n');
+        }
+        replace(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path file(String kind, String symbol, String suffix) {
+        // Same rule as the history store: nothing path-like gets through
+        String name = symbol.trim().toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9.^=_-]", "_");
+        return directory.resolve(kind).resolve(name + suffix);
+    }
+
+    private static void replace(Path file, byte[] content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
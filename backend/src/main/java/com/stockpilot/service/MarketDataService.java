@@ -1,179 +1,459 @@
 ﻿package com.stockpilot.service;
 
+import com.stockpilot.cache.CacheEntry;
+import com.stockpilot.cache.MarketDataCache;
 import com.stockpilot.domain.*;
+import com.stockpilot.search.SymbolIndex;
+import com.stockpilot.store.HistoryStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Service
 public class MarketDataService {
 
-    private final List<MarketDataProvider> providers;
-    private final Map<String, CachedData<?>> cache = new ConcurrentHashMap<>();
-    private static final int CACHE_TTL_MINUTES = 5;
+    private static final Logger log = LoggerFactory.getLogger(MarketDataService.class);
 
-    public MarketDataService(List<MarketDataProvider> providers) {
-        this.providers = providers;
+    // Symbols per upstream batch request
+    private static final int QUOTE_BATCH_SIZE = 50;
+    // Quote request counts fall to 1/e after this long without requests
+    private static final long DEMAND_DECAY_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final MarketDataCache cache;
+    private final MarketDataExecutors executors;
+    private final ProviderHealthRegistry health;
+    private final UpstreamRateLimiter rateLimiter;
+    private final HistoryStore store;
+    private final ProviderRouter router;
+    private final SymbolIndex symbolIndex;
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final QuoteDemand demand = new QuoteDemand(DEMAND_DECAY_NANOS);
+
+    public MarketDataService(List<MarketDataProvider> providers, MarketDataCache cache,
+                             MarketDataExecutors executors, ProviderHealthRegistry health,
+                             HistoryStore store, ProviderRoutingProperties routing, UpstreamRateLimiter rateLimiter,
+                             SymbolIndex symbolIndex) {
+        this.cache = cache;
+        this.executors = executors;
+        this.health = health;
+        this.rateLimiter = rateLimiter;
+        this.store = store;
+        this.router = new ProviderRouter(providers, health, executors, routing, rateLimiter);
+        this.symbolIndex = symbolIndex;
     }
 
+    /**
+     * Answers from the {@link SymbolIndex} when it has prefix matches for
+     * {@code query}; otherwise searches upstream, teaching the index whatever
+     * comes back, and falls back to the index's near matches if upstream
+     * finds nothing.
+     */
     public List<StockSearchResult> searchSymbols(String query) {
-        String cacheKey = "search:" + query.toLowerCase();
-        
-        @SuppressWarnings("unchecked")
-        List<StockSearchResult> cached = (List<StockSearchResult>) getCached(cacheKey);
-        if (cached != null) {
-            return cached;
-        }
-
-        for (MarketDataProvider provider : providers) {
-            try {
-                if (provider.isAvailable()) {
-                    List<StockSearchResult> results = provider.searchSymbols(query);
-                    if (results != null && !results.isEmpty()) {
-                        putCache(cacheKey, results);
-                        return results;
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Provider " + provider.getProviderName() + " failed: " + e.getMessage());
-            }
+        SymbolIndex.Match local = symbolIndex.search(query);
+        if (local.confident()) {
+            return local.results();
         }
-
-        return Collections.emptyList();
+        String cacheKey = "search:" + query.toLowerCase();
+        List<StockSearchResult> upstream = fetch(cacheKey, provider -> symbolIndex.learn(provider.searchSymbols(query)),
+                MarketDataService::notEmpty, Collections.emptyList());
+        return upstream.isEmpty() ? local.results() : upstream;
     }
 
     public StockQuote getQuote(String symbol) {
+        recordQuoteDemand(symbol.toUpperCase());
         String cacheKey = "quote:" + symbol.toUpperCase();
-        
-        StockQuote cached = (StockQuote) getCached(cacheKey);
-        if (cached != null) {
-            return cached;
-        }
+        return fetch(cacheKey, provider -> provider.getQuote(symbol), Objects::nonNull, null);
+    }
 
-        for (MarketDataProvider provider : providers) {
-            try {
-                if (provider.isAvailable()) {
-                    StockQuote quote = provider.getQuote(symbol);
-                    if (quote != null) {
-                        putCache(cacheKey, quote);
-                        return quote;
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Provider " + provider.getProviderName() + " failed: " + e.getMessage());
+    /**
+     * Quotes for many symbols in one call. Cache hits are served directly; the
+     * misses are fetched in multi-symbol upstream batches that run in parallel,
+     * and whatever a batch did not return is fetched symbol by symbol.
+     * Symbols without a quote are left out of the result.
+     */
+    public Map<String, StockQuote> getQuotes(Collection<String> symbols) {
+        Map<String, StockQuote> quotes = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String symbol : symbols) {
+            String normalized = symbol.trim().toUpperCase();
+            if (normalized.isEmpty() || quotes.containsKey(normalized)) {
+                continue;
+            }
+            recordQuoteDemand(normalized);
+            String cacheKey = "quote:" + normalized;
+            CacheEntry entry = cache.getEntry(cacheKey);
+            if (entry != null) {
+                quotes.put(normalized, serve(cacheKey, entry, provider -> provider.getQuote(normalized), Objects::nonNull));
+            } else {
+                quotes.put(normalized, null);
+                misses.add(normalized);
             }
         }
 
-        return null;
+        quotes.putAll(loadQuoteBatches(misses, symbol -> null, UpstreamPriority.INTERACTIVE));
+        quotes.values().removeIf(Objects::isNull);
+        return quotes;
+    }
+
+    /**
+     * Fetches current quotes upstream for the symbols in {@code intervals},
+     * ignoring what is cached, in the same multi-symbol batches as
+     * {@link #getQuotes}. The results are cached for everyone else. For
+     * pollers that must see every change rather than whatever is cached. The
+     * upstream requests go at background priority.
+     *
+     * <p>With a shared cache level, replicas refresh a symbol in turn: a quote
+     * another replica stored less than the symbol's interval ago is taken
+     * from there instead of being fetched again.</p>
+     */
+    public Map<String, StockQuote> refreshQuotes(Map<String, Duration> intervals) {
+        Map<String, Duration> normalized = new LinkedHashMap<>();
+        intervals.forEach((symbol, interval) -> {
+            String key = symbol.trim().toUpperCase();
+            if (!key.isEmpty()) {
+                normalized.putIfAbsent(key, interval);
+            }
+        });
+        return loadQuoteBatches(List.copyOf(normalized.keySet()),
+                symbol -> normalized.get(symbol), UpstreamPriority.BACKGROUND);
+    }
+
+    /**
+     * Counts a client request for {@code symbol}'s quote (upper case) in
+     * {@link #getQuoteDemand}. For the reactive service, which serves quotes
+     * without going through this one.
+     */
+    public void recordQuoteDemand(String symbol) {
+        demand.record(symbol, System.nanoTime());
+    }
+
+    /**
+     * Recent quote requests per minute, for every symbol asked for at least
+     * {@code minPerMinute} times a minute. {@link #refreshQuotes} does not count.
+     */
+    public Map<String, Double> getQuoteDemand(double minPerMinute) {
+        return demand.perMinute(minPerMinute, System.nanoTime());
     }
 
     public List<HistoricalPrice> getHistoricalData(String symbol, String range) {
-        String cacheKey = "historical:" + symbol.toUpperCase() + ":" + range;
-        
-        @SuppressWarnings("unchecked")
-        List<HistoricalPrice> cached = (List<HistoricalPrice>) getCached(cacheKey);
-        if (cached != null) {
-            return cached;
+        return getPriceSeries(symbol, range).toHistoricalPrices();
+    }
+
+    /**
+     * Daily history in the columnar form it is cached in. Analytics should use
+     * this rather than {@link #getHistoricalData}, which boxes every bar.
+     *
+     * <p>Each symbol has one cached {@link PriceHistory}, and every range is a
+     * view of it. A range reaching further back than the history widens it;
+     * refreshes only fetch the days since its last bar. Range codes that are
+     * not dates are cached and fetched on their own.</p>
+     */
+    public PriceSeries getPriceSeries(String symbol, String range) {
+        HistoryRange parsed = HistoryRange.parse(range);
+        if (parsed == null) {
+            String cacheKey = "historical:" + symbol.toUpperCase() + ":" + range;
+            return fetch(cacheKey, provider -> provider.getPriceSeries(symbol, range),
+                    series -> series != null && !series.isEmpty(), PriceSeries.EMPTY);
         }
 
-        for (MarketDataProvider provider : providers) {
-            try {
-                if (provider.isAvailable()) {
-                    List<HistoricalPrice> data = provider.getHistoricalData(symbol, range);
-                    if (data != null && !data.isEmpty()) {
-                        putCache(cacheKey, data);
-                        return data;
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Provider " + provider.getProviderName() + " failed: " + e.getMessage());
+        LocalDate today = LocalDate.now();
+        long from = parsed.start(today).toEpochDay();
+        String cacheKey = "historical:" + symbol.toUpperCase();
+        Function<MarketDataProvider, PriceHistory> call = provider -> loadHistory(provider, symbol, from, today,
+                (PriceHistory) Optional.ofNullable(cache.peekEntry(cacheKey)).map(CacheEntry::getData).orElse(null));
+        Predicate<PriceHistory> usable = history -> history != null && !history.getSeries().isEmpty();
+
+        CacheEntry entry = cache.getEntry(cacheKey);
+        PriceHistory history;
+        if (entry != null && ((PriceHistory) entry.getData()).covers(from)) {
+            history = serve(cacheKey, entry, call, usable);
+        } else {
+            history = load(cacheKey, entry, call, usable, UpstreamPriority.HISTORY);
+            if (history != null && !history.covers(from)) {
+                // We joined a narrower load that was already in flight
+                history = load(cacheKey, cache.peekEntry(cacheKey), call, usable, UpstreamPriority.HISTORY);
             }
         }
-
-        return Collections.emptyList();
+        if (history == null) {
+            return PriceSeries.EMPTY;
+        }
+        return history.view(range.toUpperCase(), series -> parsed.select(series, today));
     }
 
-    public StockFundamentals getFundamentals(String symbol) {
-        String cacheKey = "fundamentals:" + symbol.toUpperCase();
-        
-        StockFundamentals cached = (StockFundamentals) getCached(cacheKey);
-        if (cached != null) {
-            return cached;
+    /**
+     * Extends {@code current} to cover {@code from} and brings it up to date.
+     *
+     * <p>A history not reaching back far enough is widened. With the history
+     * store enabled, the store fetches the whole wider span in one request and
+     * keeps it for the next start; otherwise only the missing days before it
+     * are fetched and put in front, and the tail fetch that follows takes a
+     * request token of its own. A provider with no bars before the history's
+     * first one answered all the same (the symbol was not listed yet), so the
+     * history covers {@code from} from then on; a failure arrives as an
+     * exception and leaves the cached history alone.</p>
+     *
+     * <p>The last bar, which may have been today's partial one, and anything
+     * after it are fetched again; the last bar is only replaced when the
+     * provider returned it, so a failed or empty refresh leaves the history
+     * as it was.</p>
+     */
+    private PriceHistory loadHistory(MarketDataProvider provider, String symbol, long from, LocalDate today,
+                                     PriceHistory current) {
+        if (current == null || current.getSeries().isEmpty()) {
+            return new PriceHistory(from, fetchDays(provider, symbol, from, today));
         }
-
-        for (MarketDataProvider provider : providers) {
-            try {
-                if (provider.isAvailable()) {
-                    StockFundamentals fundamentals = provider.getFundamentals(symbol);
-                    if (fundamentals != null) {
-                        putCache(cacheKey, fundamentals);
-                        return fundamentals;
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Provider " + provider.getProviderName() + " failed: " + e.getMessage());
+        PriceSeries series = current.getSeries();
+        long coveredFrom = current.getCoveredFrom();
+        if (from < coveredFrom) {
+            if (store.isEnabled()) {
+                PriceSeries widened = fetchDays(provider, symbol, from, today);
+                return widened.isEmpty() ? current : new PriceHistory(from, widened);
             }
+            PriceSeries head = provider.getPriceSeries(symbol, LocalDate.ofEpochDay(from),
+                    LocalDate.ofEpochDay(coveredFrom - 1)).before(series.firstDay());
+            series = PriceSeries.concat(head, series);
+            coveredFrom = from;
+            // The router's token paid for the head; widening only happens on a foreground load
+            rateLimiter.acquire(provider, UpstreamPriority.HISTORY);
         }
 
-        return null;
+        long tailFrom = series.lastDay();
+        PriceSeries tail = fetchDays(provider, symbol, tailFrom, today);
+        if (!tail.isEmpty() && tail.firstDay() <= tailFrom) {
+            series = PriceSeries.concat(series.before(tailFrom), tail);
+        } else {
+            series = PriceSeries.concat(series, tail);
+        }
+        return new PriceHistory(coveredFrom, series);
+    }
+
+    /**
+     * Bars from {@code fromDay} through today, from the history store when it
+     * is enabled and otherwise straight from {@code provider}.
+     */
+    private PriceSeries fetchDays(MarketDataProvider provider, String symbol, long fromDay, LocalDate today) {
+        if (!store.isEnabled()) {
+            return provider.getPriceSeries(symbol, LocalDate.ofEpochDay(fromDay), today);
+        }
+        return store.load(symbol, fromDay, today.toEpochDay(),
+                day -> provider.getPriceSeries(symbol, LocalDate.ofEpochDay(day), today));
+    }
+
+    public StockFundamentals getFundamentals(String symbol) {
+        String cacheKey = "fundamentals:" + symbol.toUpperCase();
+        return fetch(cacheKey, provider -> provider.getFundamentals(symbol), Objects::nonNull, null);
     }
 
     public List<NewsArticle> getNews(String symbol, int limit) {
         String cacheKey = "news:" + symbol.toUpperCase() + ":" + limit;
-        
+        return fetch(cacheKey, provider -> provider.getNews(symbol, limit),
+                MarketDataService::notEmpty, Collections.emptyList());
+    }
+
+    /**
+     * Cache and request-coalescing counters keyed by cache namespace, plus
+     * provider health, request budgets and the symbol index.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cache", cache.stats());
+        stats.put("sharedCache", cache.sharedStats());
+        stats.put("coalescing", coalescer.stats());
+        stats.put("inFlight", coalescer.inFlightCount());
+        stats.put("providers", health.snapshot());
+        stats.put("rateLimits", rateLimiter.snapshot());
+        stats.put("search", symbolIndex.stats());
+        return stats;
+    }
+
+    /**
+     * How providers are ranked and hedged, for the reactive service.
+     */
+    ProviderRouter router() {
+        return router;
+    }
+
+    /**
+     * Serves {@code cacheKey} from the cache, or loads it from the first provider
+     * returning a usable result. Concurrent misses for the same key share a
+     * single upstream load.
+     *
+     * <p>Stale entries are returned immediately while a background refresh
+     * replaces them; hot entries are refreshed shortly before going stale.</p>
+     */
+    private <T> T fetch(String cacheKey, Function<MarketDataProvider, T> call,
+                        Predicate<T> usable, T fallback) {
+        CacheEntry entry = cache.getEntry(cacheKey);
+        if (entry != null) {
+            return serve(cacheKey, entry, call, usable);
+        }
+
+        T loaded = load(cacheKey, null, call, usable, UpstreamPriority.forCacheKey(cacheKey));
+        return loaded != null ? loaded : fallback;
+    }
+
+    private <T> T serve(String cacheKey, CacheEntry entry,
+                        Function<MarketDataProvider, T> call, Predicate<T> usable) {
+        if (!entry.isFresh() || cache.shouldRefreshAhead(entry)) {
+            refreshInBackground(cacheKey, entry, call, usable);
+        }
         @SuppressWarnings("unchecked")
-        List<NewsArticle> cached = (List<NewsArticle>) getCached(cacheKey);
-        if (cached != null) {
-            return cached;
+        T cached = (T) entry.getData();
+        return cached;
+    }
+
+    /**
+     * @param sharedMaxAge per symbol, how recently another replica must have
+     *                     stored its quote for it to be used instead; null
+     *                     means while fresh
+     */
+    private Map<String, StockQuote> loadQuoteBatches(List<String> symbols, Function<String, Duration> sharedMaxAge,
+                                                     UpstreamPriority priority) {
+        List<CompletableFuture<Map<String, StockQuote>>> batches = new ArrayList<>();
+        for (int i = 0; i < symbols.size(); i += QUOTE_BATCH_SIZE) {
+            List<String> batch = symbols.subList(i, Math.min(i + QUOTE_BATCH_SIZE, symbols.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> loadQuotes(batch, sharedMaxAge, priority),
+                    executors.fanOut()));
+        }
+        Map<String, StockQuote> quotes = new HashMap<>();
+        for (CompletableFuture<Map<String, StockQuote>> batch : batches) {
+            quotes.putAll(batch.join());
         }
+        return quotes;
+    }
 
-        for (MarketDataProvider provider : providers) {
+    /**
+     * Loads one batch of uncached quotes, sharing any that are already in
+     * flight here or, with a shared cache level, on another replica.
+     */
+    private Map<String, StockQuote> loadQuotes(List<String> symbols, Function<String, Duration> sharedMaxAge,
+                                               UpstreamPriority priority) {
+        List<String> cacheKeys = symbols.stream().map(symbol -> "quote:" + symbol).toList();
+        Map<String, StockQuote> byKey = coalescer.loadAll(cacheKeys, keys -> cache.loadSharedAll(keys,
+                key -> sharedMaxAge.apply(key.substring("quote:".length())),
+                missing -> fetchQuotes(missing, priority)));
+
+        Map<String, StockQuote> bySymbol = new HashMap<>();
+        byKey.forEach((key, quote) -> bySymbol.put(key.substring("quote:".length()), quote));
+        return bySymbol;
+    }
+
+    /**
+     * Fetches the quotes for {@code keys} upstream and caches them, by key.
+     */
+    private Map<String, StockQuote> fetchQuotes(List<String> keys, UpstreamPriority priority) {
+        List<String> pending = new ArrayList<>(keys.stream().map(key -> key.substring("quote:".length())).toList());
+        Map<String, StockQuote> loaded = new HashMap<>();
+
+        for (MarketDataProvider provider : router.ranked()) {
+            if (pending.isEmpty()) {
+                break;
+            }
+            if (!health.allowRequest(provider)) {
+                continue;
+            }
+            try {
+                rateLimiter.acquire(provider, priority);
+            } catch (MarketDataException e) {
+                log.debug("Provider {} skipped: {}", provider.getProviderName(), e.getMessage());
+                continue;
+            }
+            long start = System.nanoTime();
             try {
-                if (provider.isAvailable()) {
-                    List<NewsArticle> news = provider.getNews(symbol, limit);
-                    if (news != null && !news.isEmpty()) {
-                        putCache(cacheKey, news);
-                        return news;
+                Map<String, StockQuote> found = provider.getQuotes(pending);
+                health.recordSuccess(provider, System.nanoTime() - start);
+                found.forEach((symbol, quote) -> {
+                    String normalized = symbol.toUpperCase();
+                    if (quote != null && pending.remove(normalized)) {
+                        putCache("quote:" + normalized, quote);
+                        loaded.put("quote:" + normalized, quote);
                     }
-                }
+                });
             } catch (Exception e) {
-                System.err.println("Provider " + provider.getProviderName() + " failed: " + e.getMessage());
+                health.recordFailure(provider, System.nanoTime() - start, e);
+                log.warn("Provider {} failed: {}", provider.getProviderName(), e.getMessage());
             }
         }
 
-        return Collections.emptyList();
-    }
-
-    private Object getCached(String key) {
-        CachedData<?> cached = cache.get(key);
-        if (cached != null && !cached.isExpired()) {
-            return cached.getData();
+        // Whatever the batch endpoints missed is fetched one symbol at a time, in parallel
+        List<CompletableFuture<StockQuote>> singles = pending.stream()
+                .map(symbol -> CompletableFuture.supplyAsync(() -> loadFromProviders(
+                        "quote:" + symbol, provider -> provider.getQuote(symbol), Objects::nonNull, priority),
+                        executors.fanOut()))
+                .toList();
+        for (int i = 0; i < pending.size(); i++) {
+            StockQuote quote = singles.get(i).join();
+            if (quote != null) {
+                loaded.put("quote:" + pending.get(i), quote);
+            }
         }
-        cache.remove(key);
-        return null;
+        return loaded;
     }
 
-    private void putCache(String key, Object data) {
-        cache.put(key, new CachedData<>(data, CACHE_TTL_MINUTES));
+    /**
+     * Loads {@code cacheKey} upstream unless another caller already stored a
+     * fresh entry other than {@code replacing} while we were queueing up.
+     * Callers joining a load in flight share the leader's priority, and with
+     * a shared cache level only one replica loads the key at a time.
+     */
+    private <T> T load(String cacheKey, CacheEntry replacing, Function<MarketDataProvider, T> call,
+                       Predicate<T> usable, UpstreamPriority priority) {
+        return coalescer.load(cacheKey, () -> {
+            CacheEntry current = cache.peekEntry(cacheKey);
+            if (current != null && current != replacing && current.isFresh()) {
+                @SuppressWarnings("unchecked")
+                T data = (T) current.getData();
+                return data;
+            }
+            return cache.loadShared(cacheKey, replacing, () -> loadFromProviders(cacheKey, call, usable, priority));
+        });
     }
 
-    private static class CachedData<T> {
-        private final T data;
-        private final LocalDateTime expiresAt;
-
-        public CachedData(T data, int ttlMinutes) {
-            this.data = data;
-            this.expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+    private <T> void refreshInBackground(String cacheKey, CacheEntry entry,
+                                         Function<MarketDataProvider, T> call, Predicate<T> usable) {
+        if (!entry.tryStartRefresh()) {
+            return;
         }
-
-        public T getData() {
-            return data;
+        try {
+            executors.refresh().execute(() -> {
+                T refreshed = null;
+                try {
+                    refreshed = load(cacheKey, entry, call, usable, UpstreamPriority.BACKGROUND);
+                } finally {
+                    if (refreshed == null) {
+                        // Keep serving the old value and let a later read retry
+                        entry.refreshFailed();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.refreshFailed();
         }
+    }
 
-        public boolean isExpired() {
-            return LocalDateTime.now().isAfter(expiresAt);
+    private <T> T loadFromProviders(String cacheKey, Function<MarketDataProvider, T> call,
+                                    Predicate<T> usable, UpstreamPriority priority) {
+        T result = router.call(call, usable, priority);
+        if (result != null) {
+            putCache(cacheKey, result);
         }
+        return result;
+    }
+
+    private static boolean notEmpty(List<?> results) {
+        return results != null && !results.isEmpty();
+    }
+
+    private void putCache(String key, Object data) {
+        cache.put(key, data);
     }
 }
@@ -0,0 +1,98 @@
+package com.stockpilot.service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Regular trading sessions by exchange, keyed by the codes Yahoo reports in
+ * {@code StockQuote.exchange}. A session is taken to run from the open to
+ * {@code closeGrace} after the close, so the closing prints are picked up.
+ * Weekends are closed; exchange holidays and lunch breaks are not modelled.
+ * An exchange that is missing or not listed here, such as crypto or
+ * currencies, counts as always open.
+ */
+final class MarketHours {
+
+    private record Session(ZoneId zone, LocalTime open, LocalTime close) {}
+
+    private static final Map<String, Session> SESSIONS = new HashMap<>();
+
+    static {
+        sessions(List.of("NMS", "NGM", "NCM", "NAS", "NYQ", "NYS", "ASE", "PCX", "BTS", "PNK"),
+                "America/New_York", "09:30", "16:00");
+        sessions(List.of("TOR", "VAN"), "America/Toronto", "09:30", "16:00");
+        sessions(List.of("SAO"), "America/Sao_Paulo", "10:00", "17:00");
+        sessions(List.of("LSE"), "Europe/London", "08:00", "16:30");
+        sessions(List.of("GER"), "Europe/Berlin", "09:00", "17:30");
+        sessions(List.of("FRA"), "Europe/Berlin", "08:00", "22:00");
+        sessions(List.of("PAR"), "Europe/Paris", "09:00", "17:30");
+        sessions(List.of("AMS"), "Europe/Amsterdam", "09:00", "17:30");
+        sessions(List.of("MIL"), "Europe/Rome", "09:00", "17:30");
+        sessions(List.of("MCE"), "Europe/Madrid", "09:00", "17:30");
+        sessions(List.of("EBS"), "Europe/Zurich", "09:00", "17:30");
+        sessions(List.of("STO"), "Europe/Stockholm", "09:00", "17:30");
+        sessions(List.of("JPX"), "Asia/Tokyo", "09:00", "15:30");
+        sessions(List.of("HKG"), "Asia/Hong_Kong", "09:30", "16:00");
+        sessions(List.of("SHH", "SHZ"), "Asia/Shanghai", "09:30", "15:00");
+        sessions(List.of("KSC"), "Asia/Seoul", "09:00", "15:30");
+        sessions(List.of("NSI"), "Asia/Kolkata", "09:15", "15:30");
+        sessions(List.of("ASX"), "Australia/Sydney", "10:00", "16:00");
+    }
+
+    private static void sessions(List<String> exchanges, String zone, String open, String close) {
+        Session session = new Session(ZoneId.of(zone), LocalTime.parse(open), LocalTime.parse(close));
+        exchanges.forEach(exchange -> SESSIONS.put(exchange, session));
+    }
+
+    private final Duration closeGrace;
+
+    MarketHours(Duration closeGrace) {
+        this.closeGrace = closeGrace;
+    }
+
+    boolean isOpen(String exchange, Instant now) {
+        Session session = exchange != null ? SESSIONS.get(exchange) : null;
+        if (session == null) {
+            return true;
+        }
+        ZonedDateTime local = now.atZone(session.zone());
+        if (isWeekend(local.toLocalDate())) {
+            return false;
+        }
+        ZonedDateTime open = local.toLocalDate().atTime(session.open()).atZone(session.zone());
+        ZonedDateTime close = local.toLocalDate().atTime(session.close()).atZone(session.zone()).plus(closeGrace);
+        return !local.isBefore(open) && local.isBefore(close);
+    }
+
+    /**
+     * {@code now} if the exchange is open, otherwise the start of its next session.
+     */
+    Instant nextOpen(String exchange, Instant now) {
+        if (isOpen(exchange, now)) {
+            return now;
+        }
+        Session session = SESSIONS.get(exchange);
+        LocalDate day = now.atZone(session.zone()).toLocalDate();
+        while (true) {
+            if (!isWeekend(day)) {
+                Instant open = day.atTime(session.open()).atZone(session.zone()).toInstant();
+                if (open.isAfter(now)) {
+                    return open;
+                }
+            }
+            day = day.plusDays(1);
+        }
+    }
+
+    private static boolean isWeekend(LocalDate day) {
+        return day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY;
+    }
+}
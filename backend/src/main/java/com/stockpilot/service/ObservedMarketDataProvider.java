@@ -0,0 +1,247 @@
+package com.stockpilot.service;
+
+import com.stockpilot.domain.*;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.OrderUtils;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Wraps a provider and observes every call it serves as
+ * {@code stockpilot.provider}, tagged with the provider, the operation and
+ * the outcome: {@code success}, {@code empty} (no data), {@code error} or
+ * {@code cancelled} (a hedged call that lost, or a caller that gave up). A
+ * blocking call that lost a hedge is interrupted, and providers pass that on
+ * as a {@link MarketDataException} caused by {@link InterruptedException};
+ * such calls count as cancelled too.
+ * Each observation is a timer and, with tracing on, a span under whatever
+ * request made the call; the symbol or query is recorded on the span only.
+ *
+ * <p>Async calls are observed until the wrapped provider's future
+ * completes, and hand back that same future so cancelling it still reaches
+ * the upstream request.</p>
+ */
+@SuppressWarnings("try") // close() passes on whatever the wrapped provider throws
+public class ObservedMarketDataProvider implements MarketDataProvider, Ordered, AutoCloseable {
+
+    static final String OBSERVATION = "stockpilot.provider";
+
+    private final MarketDataProvider delegate;
+    private final Supplier<ObservationRegistry> registrySupplier;
+    private volatile ObservationRegistry registry;
+
+    public ObservedMarketDataProvider(MarketDataProvider delegate, ObservationRegistry registry) {
+        this(delegate, () -> registry);
+    }
+
+    /**
+     * Looks the registry up on first use, for wrappers created before it exists.
+     */
+    ObservedMarketDataProvider(MarketDataProvider delegate, Supplier<ObservationRegistry> registry) {
+        this.delegate = delegate;
+        this.registrySupplier = registry;
+    }
+
+    public MarketDataProvider getDelegate() { return delegate; }
+
+    @Override
+    public List<StockSearchResult> searchSymbols(String query) {
+        return observed("search", query, () -> delegate.searchSymbols(query));
+    }
+
+    @Override
+    public StockQuote getQuote(String symbol) {
+        return observed("quote", symbol, () -> delegate.getQuote(symbol));
+    }
+
+    @Override
+    public Map<String, StockQuote> getQuotes(Collection<String> symbols) {
+        return observed("quotes", String.join(",", symbols), () -> delegate.getQuotes(symbols));
+    }
+
+    @Override
+    public List<HistoricalPrice> getHistoricalData(String symbol, String range) {
+        return observed("historical", symbol, () -> delegate.getHistoricalData(symbol, range));
+    }
+
+    @Override
+    public PriceSeries getPriceSeries(String symbol, String range) {
+        return observed("historical", symbol, () -> delegate.getPriceSeries(symbol, range));
+    }
+
+    @Override
+    public PriceSeries getPriceSeries(String symbol, LocalDate from, LocalDate to) {
+        return observed("historical", symbol, () -> delegate.getPriceSeries(symbol, from, to));
+    }
+
+    @Override
+    public StockFundamentals getFundamentals(String symbol) {
+        return observed("fundamentals", symbol, () -> delegate.getFundamentals(symbol));
+    }
+
+    @Override
+    public List<NewsArticle> getNews(String symbol, int limit) {
+        return observed("news", symbol, () -> delegate.getNews(symbol, limit));
+    }
+
+    @Override
+    public CompletableFuture<List<StockSearchResult>> searchSymbolsAsync(String query) {
+        return observedAsync("search", query, () -> delegate.searchSymbolsAsync(query));
+    }
+
+    @Override
+    public CompletableFuture<StockQuote> getQuoteAsync(String symbol) {
+        return observedAsync("quote", symbol, () -> delegate.getQuoteAsync(symbol));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, StockQuote>> getQuotesAsync(Collection<String> symbols) {
+        return observedAsync("quotes", String.join(",", symbols), () -> delegate.getQuotesAsync(symbols));
+    }
+
+    @Override
+    public CompletableFuture<List<HistoricalPrice>> getHistoricalDataAsync(String symbol, String range) {
+        return observedAsync("historical", symbol, () -> delegate.getHistoricalDataAsync(symbol, range));
+    }
+
+    @Override
+    public CompletableFuture<PriceSeries> getPriceSeriesAsync(String symbol, String range) {
+        return observedAsync("historical", symbol, () -> delegate.getPriceSeriesAsync(symbol, range));
+    }
+
+    @Override
+    public CompletableFuture<PriceSeries> getPriceSeriesAsync(String symbol, LocalDate from, LocalDate to) {
+        return observedAsync("historical", symbol, () -> delegate.getPriceSeriesAsync(symbol, from, to));
+    }
+
+    @Override
+    public CompletableFuture<StockFundamentals> getFundamentalsAsync(String symbol) {
+        return observedAsync("fundamentals", symbol, () -> delegate.getFundamentalsAsync(symbol));
+    }
+
+    @Override
+    public CompletableFuture<List<NewsArticle>> getNewsAsync(String symbol, int limit) {
+        return observedAsync("news", symbol, () -> delegate.getNewsAsync(symbol, limit));
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return delegate.isAvailable();
+    }
+
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+
+    /**
+     * Keeps the wrapped provider's place in the fallback order.
+     */
+    @Override
+    public int getOrder() {
+        if (delegate instanceof Ordered ordered) {
+            return ordered.getOrder();
+        }
+        return OrderUtils.getOrder(delegate.getClass(), Ordered.LOWEST_PRECEDENCE);
+    }
+
+    /**
+     * Closes the wrapped provider along with this bean.
+     */
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private <T> T observed(String operation, String subject, Supplier<T> call) {
+        Observation observation = start(operation, subject);
+        try {
+            T result = observation.scoped(call);
+            observation.lowCardinalityKeyValue("outcome", outcome(result));
+            return result;
+        } catch (RuntimeException e) {
+            failed(observation, e, Thread.currentThread().isInterrupted());
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    private <T> CompletableFuture<T> observedAsync(String operation, String subject,
+                                                   Supplier<CompletableFuture<T>> call) {
+        Observation observation = start(operation, subject);
+        CompletableFuture<T> future;
+        try {
+            future = observation.scoped(call);
+        } catch (RuntimeException e) {
+            failed(observation, e, Thread.currentThread().isInterrupted());
+            observation.stop();
+            throw e;
+        }
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                failed(observation, error, false);
+            } else {
+                observation.lowCardinalityKeyValue("outcome", outcome(result));
+            }
+            observation.stop();
+        });
+        return future;
+    }
+
+    private Observation start(String operation, String subject) {
+        return Observation.createNotStarted(OBSERVATION, registry())
+                .contextualName(operation + " " + delegate.getProviderName())
+                .lowCardinalityKeyValue("provider", delegate.getProviderName())
+                .lowCardinalityKeyValue("operation", operation)
+                .highCardinalityKeyValue("subject", subject)
+                .start();
+    }
+
+    private static void failed(Observation observation, Throwable error, boolean interrupted) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (interrupted || cancelled(cause)) {
+            observation.lowCardinalityKeyValue("outcome", "cancelled");
+            return;
+        }
+        observation.lowCardinalityKeyValue("outcome", "error");
+        observation.error(cause);
+    }
+
+    private static boolean cancelled(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CancellationException || cause instanceof InterruptedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String outcome(Object result) {
+        boolean empty = result == null
+                || result instanceof Collection<?> collection && collection.isEmpty()
+                || result instanceof Map<?, ?> map && map.isEmpty()
+                || result instanceof PriceSeries series && series.isEmpty();
+        return empty ? "empty" : "success";
+    }
+
+    private ObservationRegistry registry() {
+        ObservationRegistry current = registry;
+        if (current == null) {
+            current = registrySupplier.get();
+            registry = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,327 @@
+package com.stockpilot.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Shared upstream HTTP client for a market data provider: one JDK
+ * {@link HttpClient} (HTTP/2 where the server offers it, pooled keep-alive
+ * connections otherwise), gzip responses, a connect timeout, a timeout on the
+ * whole exchange, and a cap on concurrent requests per host so a fan-out
+ * cannot open an unbounded number of connections to one upstream.
+ *
+ * <p>Requests over the cap wait in a per-host queue without holding a
+ * thread. Response bodies are streamed into a {@link BodyParser} on the
+ * client's own threads; the time spent parsing and the decoded payload size
+ * are recorded as {@code stockpilot.provider.parse} and
+ * {@code stockpilot.provider.payload}, by provider and operation.</p>
+ */
+public class PooledHttpClient implements AutoCloseable {
+
+    /**
+     * Reads a response body; the stream is closed afterwards.
+     */
+    @FunctionalInterface
+    public interface BodyParser<T> {
+        T parse(InputStream body) throws IOException;
+    }
+
+    private final String name;
+    private final Duration requestTimeout;
+    private final int maxRequestsPerHost;
+    private final ExecutorService executor;
+    private final HttpClient client;
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, HostLimiter> hosts = new ConcurrentHashMap<>();
+
+    public PooledHttpClient(String name, HttpClientProperties properties) {
+        this(name, properties, Executors.newCachedThreadPool(daemonThreads(name.toLowerCase().replace(' ', '-') + "-http-")),
+                Metrics.globalRegistry);
+    }
+
+    /**
+     * Runs the client and body parsing on {@code executor}, which is shut down
+     * by {@link #close}, and records parse metrics in {@code registry}.
+     */
+    public PooledHttpClient(String name, HttpClientProperties properties, ExecutorService executor,
+                            MeterRegistry registry) {
+        this.name = name;
+        this.registry = registry;
+        this.requestTimeout = properties.getRequestTimeout();
+        this.maxRequestsPerHost = properties.getMaxRequestsPerHost();
+        this.executor = executor;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(properties.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * GETs {@code url} and parses the body. Completes with null when the
+     * upstream has no data for the request (a 4xx other than 429), and
+     * exceptionally with {@link MarketDataException} when the upstream itself
+     * failed or timed out, so that only real outages count against provider
+     * health. Cancelling the returned future aborts the exchange, or drops
+     * the request if it is still queued for the host.
+     */
+    public <T> CompletableFuture<T> getAsync(String url, BodyParser<T> bodyParser) {
+        return getAsync(url, "request", bodyParser);
+    }
+
+    /**
+     * {@link #getAsync(String, BodyParser)}, with parse metrics tagged with
+     * {@code operation}.
+     */
+    public <T> CompletableFuture<T> getAsync(String url, String operation, BodyParser<T> bodyParser) {
+        URI uri = UriComponentsBuilder.fromUriString(url).build().encode().toUri();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<InputStream> body = new AtomicReference<>();
+        AtomicReference<CompletableFuture<?>> exchange = new AtomicReference<>();
+        HostLimiter limiter = hosts.computeIfAbsent(uri.getHost(), host -> new HostLimiter(maxRequestsPerHost));
+        limiter.submit(() -> {
+            if (result.isDone()) {
+                // Timed out or cancelled while queued for the host
+                limiter.release();
+                return;
+            }
+            CompletableFuture<HttpResponse<InputStream>> sent =
+                    client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+            exchange.set(sent);
+            if (result.isCancelled()) {
+                sent.cancel(true);
+            }
+            sent.thenApplyAsync(response -> {
+                body.set(response.body());
+                return read(uri, response, operation, bodyParser);
+            }, executor).whenComplete((value, error) -> {
+                limiter.release();
+                if (error != null) {
+                    result.completeExceptionally(translate(uri, error));
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+
+        // The request timeout only covers the response headers; a body that
+        // stalls half way is cut off by closing its stream
+        CompletableFuture<T> returned = result.orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((value, error) -> {
+                    if (error == null) {
+                        return value;
+                    }
+                    if (error instanceof TimeoutException) {
+                        closeQuietly(body.get());
+                        throw new MarketDataException(name + " timed out for " + uri.getPath(), error);
+                    }
+                    throw error instanceof RuntimeException runtime ? runtime : new CompletionException(error);
+                });
+        returned.whenComplete((value, error) -> {
+            if (returned.isCancelled()) {
+                result.cancel(false);
+                CompletableFuture<?> sent = exchange.get();
+                if (sent != null) {
+                    sent.cancel(true);
+                }
+                closeQuietly(body.get());
+            }
+        });
+        return returned;
+    }
+
+    /**
+     * Blocking form of {@link #getAsync}.
+     */
+    public <T> T get(String url, BodyParser<T> bodyParser) {
+        try {
+            return getAsync(url, bodyParser).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        client.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private <T> T read(URI uri, HttpResponse<InputStream> response, String operation, BodyParser<T> bodyParser) {
+        int status = response.statusCode();
+        if (status >= 400) {
+            closeQuietly(response.body());
+            if (status < 500 && status != 429) {
+                return null;
+            }
+            throw new MarketDataException(name + " returned " + status + " for " + uri.getPath());
+        }
+        long start = System.nanoTime();
+        try (CountingInputStream body = new CountingInputStream(decoded(response))) {
+            T parsed = bodyParser.parse(body);
+            Timer.builder("stockpilot.provider.parse")
+                    .description("Time to parse an upstream response body, including reading it")
+                    .tags("provider", name, "operation", operation)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("stockpilot.provider.payload")
+                    .description("Decoded size of an upstream response body")
+                    .baseUnit("bytes")
+                    .tags("provider", name, "operation", operation)
+                    .register(registry)
+                    .record(body.count);
+            return parsed;
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static InputStream decoded(HttpResponse<InputStream> response) throws IOException {
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map("gzip"::equalsIgnoreCase)
+                .orElse(false);
+        return gzip ? new GZIPInputStream(response.body()) : response.body();
+    }
+
+    private Throwable translate(URI uri, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof HttpTimeoutException) {
+            return new MarketDataException(name + " timed out for " + uri.getPath(), cause);
+        }
+        if (cause instanceof IOException) {
+            String detail = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+            return new MarketDataException(name + " request failed: " + detail, cause);
+        }
+        return cause;
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        if (stream == null) {
+            return;
+        }
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+            // Already failing the request
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    /**
+     * Admits up to {@code max} requests to one host at a time and queues the
+     * rest, starting the next one as each finishes.
+     */
+    private static final class HostLimiter {
+
+        private final int max;
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+        private int active;
+
+        HostLimiter(int max) {
+            this.max = max;
+        }
+
+        void submit(Runnable request) {
+            synchronized (this) {
+                if (active >= max) {
+                    waiting.add(request);
+                    return;
+                }
+                active++;
+            }
+            request.run();
+        }
+
+        void release() {
+            Runnable next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    active--;
+                }
+            }
+            if (next != null) {
+                next.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.stockpilot.service;
+
+/**
+ * Allocation-free analytics over a column of closing prices.
+ *
+ * <p>Every kernel works on {@code close[from, to)} in a single pass and
+ * returns a plain {@code double}; {@link FinanceUtilsService} rounds the
+ * results into the {@code BigDecimal}s the API returns. Closes that are NaN
+ * or not positive mark days without a price and are skipped, along with the
+ * returns into and out of them.</p>
+ */
+public final class PriceKernels {
+
+    public static final int TRADING_DAYS_PER_YEAR = 252;
+
+    private static final double ANNUALIZATION = Math.sqrt(TRADING_DAYS_PER_YEAR);
+
+    private PriceKernels() {}
+
+    /**
+     * Population standard deviation of daily close-to-close returns, scaled to
+     * a year, as a fraction. Uses Welford's update so the mean and variance
+     * come out of one pass without cancellation. Zero with fewer than one return.
+     */
+    public static double annualizedVolatility(double[] close, int from, int to) {
+        long count = 0;
+        double mean = 0;
+        double m2 = 0;
+        double prev = Double.NaN;
+        for (int i = from; i < to; i++) {
+            double current = close[i];
+            if (isPrice(prev) && isPrice(current)) {
+                double ret = (current - prev) / prev;
+                count++;
+                double delta = ret - mean;
+                mean += delta / count;
+                m2 += delta * (ret - mean);
+            }
+            prev = current;
+        }
+        return count == 0 ? 0 : Math.sqrt(m2 / count) * ANNUALIZATION;
+    }
+
+    /**
+     * Largest fall from a running peak close, as a fraction of that peak.
+     * Tracks the lowest close since the current peak and only divides when a
+     * new peak closes out the previous stretch.
+     */
+    public static double maxDrawdown(double[] close, int from, int to) {
+        double peak = 0;
+        double trough = 0;
+        double maxDrawdown = 0;
+        for (int i = from; i < to; i++) {
+            double current = close[i];
+            if (!isPrice(current)) {
+                continue;
+            }
+            if (current > peak) {
+                if (peak > 0) {
+                    maxDrawdown = Math.max(maxDrawdown, (peak - trough) / peak);
+                }
+                peak = current;
+                trough = current;
+            } else if (current < trough) {
+                trough = current;
+            }
+        }
+        return peak > 0 ? Math.max(maxDrawdown, (peak - trough) / peak) : maxDrawdown;
+    }
+
+    /**
+     * Index of the first priced close in {@code [from, to)}, or -1.
+     */
+    public static int firstPrice(double[] close, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (isPrice(close[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Index of the last priced close in {@code [from, to)}, or -1.
+     */
+    public static int lastPrice(double[] close, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (isPrice(close[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static boolean isPrice(double value) {
+        return value > 0 && value != Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,134 @@
+package com.stockpilot.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call outcomes and circuit breaker state for a single provider.
+ *
+ * <p>CLOSED: calls flow normally. After {@code failureThreshold} consecutive
+ * failures the circuit OPENs and calls are skipped. Once the open duration has
+ * passed, a background probe moves it to HALF_OPEN and runs one trial request;
+ * success closes the circuit, failure opens it again.</p>
+ *
+ * <p>Besides a smoothed average, the latencies of the last
+ * {@value #LATENCY_WINDOW} successful calls are kept for percentiles.</p>
+ */
+public class ProviderHealth {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+    private static final int LATENCY_WINDOW = 256;
+
+    private final String providerName;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAtNanos = new AtomicLong();
+    private final AtomicLong averageLatencyNanos = new AtomicLong();
+    private final AtomicLongArray recentLatencyNanos = new AtomicLongArray(LATENCY_WINDOW);
+    private final AtomicLong latencySamples = new AtomicLong();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile String lastError;
+
+    public ProviderHealth(String providerName) {
+        this.providerName = providerName;
+    }
+
+    public String getProviderName() { return providerName; }
+
+    public State getState() { return state.get(); }
+
+    public Duration getAverageLatency() { return Duration.ofNanos(averageLatencyNanos.get()); }
+
+    /**
+     * Number of successful calls whose latency is in the percentile window.
+     */
+    public int getLatencySamples() { return (int) Math.min(latencySamples.get(), LATENCY_WINDOW); }
+
+    /**
+     * The given percentile (0 to 1) of recent successful call latencies, or
+     * {@link Duration#ZERO} before the first one.
+     */
+    public Duration latencyPercentile(double percentile) {
+        int count = getLatencySamples();
+        if (count == 0) {
+            return Duration.ZERO;
+        }
+        long[] samples = new long[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = recentLatencyNanos.get(i);
+        }
+        Arrays.sort(samples);
+        int index = (int) Math.ceil(Math.min(Math.max(percentile, 0), 1) * count) - 1;
+        return Duration.ofNanos(samples[Math.max(index, 0)]);
+    }
+
+    public boolean allowRequest() {
+        if (state.get() == State.CLOSED) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    public void recordSuccess(long latencyNanos) {
+        successes.increment();
+        updateLatency(latencyNanos);
+        recentLatencyNanos.set((int) (latencySamples.getAndIncrement() % LATENCY_WINDOW), latencyNanos);
+        consecutiveFailures.set(0);
+        state.set(State.CLOSED);
+    }
+
+    public void recordFailure(long latencyNanos, Throwable error, int failureThreshold) {
+        failures.increment();
+        updateLatency(latencyNanos);
+        lastError = error.getMessage();
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold || state.get() == State.HALF_OPEN) {
+            open();
+        }
+    }
+
+    /**
+     * Moves an OPEN circuit whose cool-down has passed to HALF_OPEN. Returns
+     * true for exactly one caller, which then owns the trial request.
+     */
+    public boolean tryStartTrial(Duration openDuration) {
+        return state.get() == State.OPEN
+                && System.nanoTime() - openedAtNanos.get() >= openDuration.toNanos()
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("state", state.get());
+        values.put("consecutiveFailures", consecutiveFailures.get());
+        values.put("successes", successes.sum());
+        values.put("failures", failures.sum());
+        values.put("rejected", rejected.sum());
+        values.put("averageLatencyMs", averageLatencyNanos.get() / 1_000_000.0);
+        values.put("p95LatencyMs", latencyPercentile(0.95).toNanos() / 1_000_000.0);
+        values.put("lastError", lastError);
+        return values;
+    }
+
+    private void open() {
+        openedAtNanos.set(System.nanoTime());
+        state.set(State.OPEN);
+    }
+
+    private void updateLatency(long latencyNanos) {
+        averageLatencyNanos.accumulateAndGet(latencyNanos, (average, sample) -> average == 0
+                ? sample
+                : (long) (average + LATENCY_SMOOTHING * (sample - average)));
+    }
+}
@@ -0,0 +1,22 @@
+package com.stockpilot.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker settings for market data providers, bound from
+ * {@code stockpilot.providers.health.*}.
+ */
+@ConfigurationProperties(prefix = "stockpilot.providers.health")
+public class ProviderHealthProperties {
+
+    private int failureThreshold = 5;
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    public int getFailureThreshold() { return failureThreshold; }
+    public void setFailureThreshold(int failureThreshold) { this.failureThreshold = failureThreshold; }
+
+    public Duration getOpenDuration() { return openDuration; }
+    public void setOpenDuration(Duration openDuration) { this.openDuration = openDuration; }
+}
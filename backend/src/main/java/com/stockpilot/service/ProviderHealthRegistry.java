@@ -0,0 +1,76 @@
+package com.stockpilot.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the health of every {@link MarketDataProvider} from the outcome of
+ * real calls, so the fallback loop can skip a failing provider immediately
+ * instead of paying for an availability check or a timeout on every request.
+ */
+@Component
+public class ProviderHealthRegistry {
+
+    private final List<MarketDataProvider> providers;
+    private final ProviderHealthProperties properties;
+    private final Map<String, ProviderHealth> health = new ConcurrentHashMap<>();
+
+    public ProviderHealthRegistry(List<MarketDataProvider> providers, ProviderHealthProperties properties) {
+        this.providers = providers;
+        this.properties = properties;
+    }
+
+    public boolean allowRequest(MarketDataProvider provider) {
+        return healthOf(provider).allowRequest();
+    }
+
+    public void recordSuccess(MarketDataProvider provider, long latencyNanos) {
+        healthOf(provider).recordSuccess(latencyNanos);
+    }
+
+    public void recordFailure(MarketDataProvider provider, long latencyNanos, Throwable error) {
+        healthOf(provider).recordFailure(latencyNanos, error, properties.getFailureThreshold());
+    }
+
+    public ProviderHealth healthOf(MarketDataProvider provider) {
+        return health.computeIfAbsent(provider.getProviderName(), ProviderHealth::new);
+    }
+
+    /**
+     * Runs a half-open trial against every provider whose circuit has been open
+     * for long enough, off the request path.
+     */
+    @Scheduled(fixedDelayString = "${stockpilot.providers.health.probe-interval-ms:5000}")
+    public void probeOpenCircuits() {
+        for (MarketDataProvider provider : providers) {
+            ProviderHealth providerHealth = healthOf(provider);
+            if (!providerHealth.tryStartTrial(properties.getOpenDuration())) {
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                if (provider.isAvailable()) {
+                    providerHealth.recordSuccess(System.nanoTime() - start);
+                } else {
+                    providerHealth.recordFailure(System.nanoTime() - start,
+                            new MarketDataException("availability probe failed"), properties.getFailureThreshold());
+                }
+            } catch (Exception e) {
+                providerHealth.recordFailure(System.nanoTime() - start, e, properties.getFailureThreshold());
+            }
+        }
+    }
+
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (MarketDataProvider provider : providers) {
+            result.put(provider.getProviderName(), healthOf(provider).snapshot());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,42 @@
+package com.stockpilot.service;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps every {@link MarketDataProvider} bean in an
+ * {@link ObservedMarketDataProvider}, outside any recording wrapper, so all
+ * upstream calls are timed and traced whoever makes them.
+ *
+ * <p>The observation registry is looked up on first use rather than
+ * injected: a post-processor is created before other beans, and depending
+ * on the registry would take it out of post-processing.</p>
+ */
+@Component
+public class ProviderObservationPostProcessor implements BeanPostProcessor, BeanFactoryAware, Ordered {
+
+    private BeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof MarketDataProvider provider) || bean instanceof ObservedMarketDataProvider) {
+            return bean;
+        }
+        return new ObservedMarketDataProvider(provider, () -> beanFactory.getBeanProvider(ObservationRegistry.class)
+                .getIfAvailable(() -> ObservationRegistry.NOOP));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,50 @@
+package com.stockpilot.service;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * With {@code stockpilot.providers.record.enabled}, wraps every
+ * {@link MarketDataProvider} bean in a {@link RecordingMarketDataProvider},
+ * so a normal run against the live providers captures what they return.
+ * The replaying {@link FileMarketDataProvider} is left alone.
+ *
+ * <p>Settings are bound straight from the environment: a post-processor is
+ * created before other beans, and depending on the properties bean would
+ * take it out of post-processing.</p>
+ */
+@Component
+public class ProviderRecordingPostProcessor implements BeanPostProcessor, EnvironmentAware, Ordered {
+
+    private RecordingProperties properties = new RecordingProperties();
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        properties = Binder.get(environment)
+                .bindOrCreate("stockpilot.providers.record", RecordingProperties.class);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!properties.isEnabled()
+                || !(bean instanceof MarketDataProvider provider)
+                || bean instanceof FileMarketDataProvider
+                || bean instanceof RecordingMarketDataProvider) {
+            return bean;
+        }
+        return new RecordingMarketDataProvider(provider, properties.getDirectory());
+    }
+
+    /**
+     * Runs before {@link ProviderObservationPostProcessor}, which would hide
+     * the provider's type.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+}
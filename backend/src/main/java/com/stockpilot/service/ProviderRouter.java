@@ -0,0 +1,195 @@
+package com.stockpilot.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Asks the market data providers for one result, in fallback order, and
+ * records every outcome in {@link ProviderHealthRegistry}. Providers with an
+ * open circuit are skipped.
+ *
+ * <p>SEQUENTIAL waits for each provider before trying the next. HEDGED runs
+ * providers on the fan-out executor and, when one has been outstanding for
+ * longer than its usual latency (a percentile of its recent successful
+ * calls), starts the next one alongside it. The first usable answer wins and
+ * the calls still running are cancelled. In both modes a provider that fails
+ * or has no data hands over immediately.</p>
+ *
+ * <p>With LATENCY ranking the fallback order is by average observed latency
+ * instead of bean order, so a consistently faster provider moves to the
+ * front. Providers without samples yet sort first, so they get some.</p>
+ *
+ * <p>Every attempt first takes a token from the provider's request budget in
+ * {@link UpstreamRateLimiter}. A shed request moves on to the next provider
+ * and, as nothing was sent, does not count against the provider's health.</p>
+ */
+class ProviderRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderRouter.class);
+
+    private record Outcome<T>(T result) {}
+
+    private final List<MarketDataProvider> providers;
+    private final ProviderHealthRegistry health;
+    private final MarketDataExecutors executors;
+    private final ProviderRoutingProperties properties;
+    private final UpstreamRateLimiter rateLimiter;
+
+    ProviderRouter(List<MarketDataProvider> providers, ProviderHealthRegistry health, MarketDataExecutors executors,
+                   ProviderRoutingProperties properties, UpstreamRateLimiter rateLimiter) {
+        this.providers = providers;
+        this.health = health;
+        this.executors = executors;
+        this.properties = properties;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Providers in the order they should be tried.
+     */
+    List<MarketDataProvider> ranked() {
+        if (properties.getRanking() != ProviderRoutingProperties.Ranking.LATENCY) {
+            return providers;
+        }
+        List<MarketDataProvider> ranked = new ArrayList<>(providers);
+        ranked.sort(Comparator.comparing(provider -> health.healthOf(provider).getAverageLatency()));
+        return ranked;
+    }
+
+    /**
+     * Whether a slow provider should have the next one started alongside it.
+     */
+    boolean isHedged() {
+        return properties.getStrategy() == ProviderRoutingProperties.Strategy.HEDGED;
+    }
+
+    /**
+     * The first usable result of {@code call}, or null if no provider had one.
+     * Upstream requests queue for their budget at {@code priority}.
+     */
+    <T> T call(Function<MarketDataProvider, T> call, Predicate<T> usable, UpstreamPriority priority) {
+        List<MarketDataProvider> candidates = ranked().stream().filter(health::allowRequest).toList();
+        if (isHedged() && candidates.size() > 1) {
+            return hedged(candidates, call, usable, priority);
+        }
+        for (MarketDataProvider provider : candidates) {
+            T result = attempt(provider, call, priority, null);
+            if (usable.test(result)) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * How long {@code provider} may take before the next one is started: its
+     * configured percentile latency once there are enough samples, otherwise
+     * the default hedge delay.
+     */
+    Duration hedgeDelay(MarketDataProvider provider) {
+        ProviderHealth providerHealth = health.healthOf(provider);
+        if (providerHealth.getLatencySamples() < properties.getMinLatencySamples()) {
+            return properties.getHedgeDelay();
+        }
+        Duration percentile = providerHealth.latencyPercentile(properties.getHedgePercentile());
+        return percentile.compareTo(properties.getMinHedgeDelay()) < 0 ? properties.getMinHedgeDelay() : percentile;
+    }
+
+    private <T> T hedged(List<MarketDataProvider> candidates, Function<MarketDataProvider, T> call,
+                         Predicate<T> usable, UpstreamPriority priority) {
+        BlockingQueue<Outcome<T>> outcomes = new LinkedBlockingQueue<>();
+        AtomicBoolean decided = new AtomicBoolean();
+        List<Future<?>> running = new ArrayList<>();
+        int started = 0;
+        int finished = 0;
+        try {
+            start(candidates.get(started++), call, priority, decided, outcomes, running);
+            while (finished < started) {
+                Outcome<T> outcome;
+                if (started < candidates.size()) {
+                    long delay = hedgeDelay(candidates.get(started - 1)).toNanos();
+                    outcome = outcomes.poll(delay, TimeUnit.NANOSECONDS);
+                    if (outcome == null) {
+                        // Slower than usual: race the next provider against it
+                        start(candidates.get(started++), call, priority, decided, outcomes, running);
+                        continue;
+                    }
+                } else {
+                    outcome = outcomes.take();
+                }
+                finished++;
+                if (usable.test(outcome.result())) {
+                    return outcome.result();
+                }
+                if (started < candidates.size()) {
+                    start(candidates.get(started++), call, priority, decided, outcomes, running);
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            decided.set(true);
+            running.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private <T> void start(MarketDataProvider provider, Function<MarketDataProvider, T> call,
+                           UpstreamPriority priority, AtomicBoolean decided,
+                           BlockingQueue<Outcome<T>> outcomes, List<Future<?>> running) {
+        Runnable task = () -> outcomes.add(new Outcome<>(attempt(provider, call, priority, decided)));
+        try {
+            // A saturated platform pool runs the call here, which just makes this attempt sequential
+            running.add(executors.fanOut().submit(task));
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * One call to {@code provider}, or null if it failed or was shed. Calls
+     * cancelled because another provider answered first are not held
+     * against it.
+     */
+    private <T> T attempt(MarketDataProvider provider, Function<MarketDataProvider, T> call,
+                          UpstreamPriority priority, AtomicBoolean decided) {
+        try {
+            rateLimiter.acquire(provider, priority);
+        } catch (MarketDataException e) {
+            if (decided == null || !decided.get()) {
+                log.debug("Provider {} skipped: {}", provider.getProviderName(), e.getMessage());
+            }
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            T result = call.apply(provider);
+            health.recordSuccess(provider, System.nanoTime() - start);
+            return result;
+        } catch (RateLimitedException e) {
+            // A further request inside the call was shed
+            log.debug("Provider {} skipped: {}", provider.getProviderName(), e.getMessage());
+            return null;
+        } catch (Exception e) {
+            if (decided == null || !decided.get()) {
+                health.recordFailure(provider, System.nanoTime() - start, e);
+                log.warn("Provider {} failed: {}", provider.getProviderName(), e.getMessage());
+            }
+            return null;
+        }
+    }
+}
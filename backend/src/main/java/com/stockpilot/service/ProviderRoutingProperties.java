@@ -0,0 +1,52 @@
+package com.stockpilot.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * How a request is spread over the market data providers, bound from
+ * {@code stockpilot.providers.routing.*}.
+ */
+@ConfigurationProperties(prefix = "stockpilot.providers.routing")
+public class ProviderRoutingProperties {
+
+    public enum Strategy {
+        /** Wait for each provider in turn; the next one is only tried after a failure or no data. */
+        SEQUENTIAL,
+        /** Also start the next provider when the current one is slower than usual. */
+        HEDGED
+    }
+
+    public enum Ranking {
+        /** Providers are tried in bean order. */
+        CONFIGURED,
+        /** Providers are tried fastest first, by average observed latency. */
+        LATENCY
+    }
+
+    private Strategy strategy = Strategy.SEQUENTIAL;
+    private Ranking ranking = Ranking.CONFIGURED;
+    private double hedgePercentile = 0.95;
+    private Duration hedgeDelay = Duration.ofMillis(500);
+    private Duration minHedgeDelay = Duration.ofMillis(20);
+    private int minLatencySamples = 20;
+
+    public Strategy getStrategy() { return strategy; }
+    public void setStrategy(Strategy strategy) { this.strategy = strategy; }
+
+    public Ranking getRanking() { return ranking; }
+    public void setRanking(Ranking ranking) { this.ranking = ranking; }
+
+    public double getHedgePercentile() { return hedgePercentile; }
+    public void setHedgePercentile(double hedgePercentile) { this.hedgePercentile = hedgePercentile; }
+
+    public Duration getHedgeDelay() { return hedgeDelay; }
+    public void setHedgeDelay(Duration hedgeDelay) { this.hedgeDelay = hedgeDelay; }
+
+    public Duration getMinHedgeDelay() { return minHedgeDelay; }
+    public void setMinHedgeDelay(Duration minHedgeDelay) { this.minHedgeDelay = minHedgeDelay; }
+
+    public int getMinLatencySamples() { return minLatencySamples; }
+    public void setMinLatencySamples(int minLatencySamples) { this.minLatencySamples = minLatencySamples; }
+}
@@ -0,0 +1,82 @@
+package com.stockpilot.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Recent quote requests per symbol, as exponentially decaying counts: a
+ * symbol requested at a steady rate settles at that rate, and one nobody
+ * asks for any more fades out and is dropped. Tracks at most
+ * {@value #MAX_SYMBOLS} symbols; requests for others are not counted while
+ * it is full.
+ */
+final class QuoteDemand {
+
+    static final int MAX_SYMBOLS = 10_000;
+
+    // Counts below this are forgotten
+    private static final double NEGLIGIBLE = 0.05;
+
+    private final double decayNanos;
+    private final ConcurrentMap<String, Rate> rates = new ConcurrentHashMap<>();
+
+    /**
+     * @param decayNanos time for a count to fall to 1/e of its value
+     */
+    QuoteDemand(long decayNanos) {
+        this.decayNanos = decayNanos;
+    }
+
+    void record(String symbol, long nowNanos) {
+        Rate rate = rates.get(symbol);
+        if (rate == null) {
+            if (rates.size() >= MAX_SYMBOLS) {
+                return;
+            }
+            rate = rates.computeIfAbsent(symbol, key -> new Rate(nowNanos));
+        }
+        rate.add(nowNanos, decayNanos);
+    }
+
+    /**
+     * Requests per minute for every symbol asked for at least
+     * {@code minPerMinute} times a minute. Symbols whose count has decayed
+     * away are dropped on the way.
+     */
+    Map<String, Double> perMinute(double minPerMinute, long nowNanos) {
+        Map<String, Double> result = new HashMap<>();
+        rates.forEach((symbol, rate) -> {
+            double count = rate.count(nowNanos, decayNanos);
+            if (count < NEGLIGIBLE) {
+                rates.remove(symbol, rate);
+                return;
+            }
+            double perMinute = count / decayNanos * 60e9;
+            if (perMinute >= minPerMinute) {
+                result.put(symbol, perMinute);
+            }
+        });
+        return result;
+    }
+
+    private static final class Rate {
+        private double count;
+        private long updated;
+
+        Rate(long nowNanos) {
+            this.updated = nowNanos;
+        }
+
+        synchronized void add(long nowNanos, double decayNanos) {
+            count = count(nowNanos, decayNanos) + 1;
+            updated = Math.max(updated, nowNanos);
+        }
+
+        synchronized double count(long nowNanos, double decayNanos) {
+            long elapsed = Math.max(0, nowNanos - updated);
+            return count * Math.exp(-elapsed / decayNanos);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.stockpilot.service;
+
+import com.stockpilot.domain.StockQuote;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Refreshes quotes server-side, each symbol at its own interval. Symbols
+ * are refreshed while they have streaming subscribers or are requested at
+ * least {@code min-request-rate} times a minute. A symbol's interval
+ * shortens with demand (subscribers plus requests per minute) and with its
+ * recent volatility, between {@code min-interval} and {@code max-interval};
+ * while its exchange is closed it is not refreshed at all.
+ *
+ * <p>Due symbols are fetched together in multi-symbol batches, at most
+ * {@code max-symbols-per-second} of them on average, so upstream usage stays
+ * flat however many symbols are tracked. When more are due than the budget
+ * allows, those most overdue relative to their interval go first. Refreshed
+ * quotes are cached and handed to every listener.</p>
+ *
+ * <p>With a shared cache level, a symbol another replica refreshed within
+ * its interval is taken from there, so replicas share the upstream work for
+ * the symbols they all track rather than each polling them.</p>
+ */
+@Component
+public class QuoteRefreshScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(QuoteRefreshScheduler.class);
+
+    // Unused budget carries over for at most this many seconds
+    private static final double MAX_BURST_SECONDS = 2;
+    private static final String VOLATILITY_RANGE = "1M";
+
+    private final MarketDataService marketDataService;
+    private final FinanceUtilsService financeUtils;
+    private final Executor background;
+    private final RefreshProperties properties;
+    private final MarketHours marketHours;
+    private final Clock clock;
+    private final ConcurrentMap<String, Tracked> tracked = new ConcurrentHashMap<>();
+    private final List<Consumer<Map<String, StockQuote>>> listeners = new CopyOnWriteArrayList<>();
+
+    // Only touched by refreshDue, which runs on one thread at a time
+    private double credits;
+    private Instant lastTick;
+
+    @Autowired
+    public QuoteRefreshScheduler(MarketDataService marketDataService, FinanceUtilsService financeUtils,
+                                 MarketDataExecutors executors, RefreshProperties properties) {
+        this(marketDataService, financeUtils, executors.refresh(), properties, Clock.systemUTC());
+    }
+
+    QuoteRefreshScheduler(MarketDataService marketDataService, FinanceUtilsService financeUtils,
+                          Executor background, RefreshProperties properties, Clock clock) {
+        this.marketDataService = marketDataService;
+        this.financeUtils = financeUtils;
+        this.background = background;
+        this.properties = properties;
+        this.marketHours = new MarketHours(properties.getCloseGrace());
+        this.clock = clock;
+    }
+
+    /**
+     * Registers {@code listener} for every batch of refreshed quotes, keyed
+     * by symbol. Listeners run on the scheduler thread.
+     */
+    public void addListener(Consumer<Map<String, StockQuote>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Counts a streaming subscriber of {@code symbol}. A symbol that gains
+     * subscribers is brought forward to its shorter interval straight away.
+     */
+    public void addSubscriber(String symbol) {
+        tracked.compute(symbol, (key, state) -> {
+            if (state == null) {
+                Tracked subscribed = new Tracked();
+                subscribed.subscribers.incrementAndGet();
+                return track(subscribed, 0);
+            }
+            state.subscribers.incrementAndGet();
+            Duration interval = interval(state, 0);
+            if (interval.compareTo(state.interval) < 0) {
+                Instant sooner = state.dueAt.minus(state.interval).plus(interval);
+                if (sooner.isBefore(state.dueAt)) {
+                    state.dueAt = sooner;
+                }
+                state.interval = interval;
+            }
+            return state;
+        });
+    }
+
+    public void removeSubscriber(String symbol) {
+        Tracked state = tracked.get(symbol);
+        if (state != null) {
+            state.subscribers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Fetches the symbols that are due, within the rate budget.
+     */
+    @Scheduled(fixedDelayString = "${stockpilot.refresh.tick-ms:1000}")
+    public void refreshDue() {
+        Instant now = clock.instant();
+        Map<String, Double> demand = marketDataService.getQuoteDemand(properties.getMinRequestRate());
+        demand.forEach((symbol, rate) -> tracked.computeIfAbsent(symbol, key -> track(new Tracked(), rate)));
+        for (String symbol : List.copyOf(tracked.keySet())) {
+            tracked.computeIfPresent(symbol, (key, state) ->
+                    state.subscribers.get() > 0 || demand.containsKey(key) ? state : null);
+        }
+
+        double rate = properties.getMaxSymbolsPerSecond();
+        double elapsed = lastTick == null ? 1 : Duration.between(lastTick, now).toNanos() / 1e9;
+        credits = Math.min(Math.max(rate * MAX_BURST_SECONDS, 1), credits + rate * elapsed);
+        lastTick = now;
+
+        List<Map.Entry<String, Tracked>> due = new ArrayList<>();
+        for (Map.Entry<String, Tracked> entry : tracked.entrySet()) {
+            Tracked state = entry.getValue();
+            if (state.dueAt.isAfter(now)) {
+                continue;
+            }
+            if (!marketHours.isOpen(state.exchange, now)) {
+                state.dueAt = marketHours.nextOpen(state.exchange, now);
+                continue;
+            }
+            due.add(entry);
+        }
+        int budget = (int) credits;
+        if (due.isEmpty() || budget == 0) {
+            return;
+        }
+        due.sort(Comparator.comparingDouble(
+                (Map.Entry<String, Tracked> entry) -> entry.getValue().overdue(now)).reversed());
+        Map<String, Duration> batch = new LinkedHashMap<>();
+        due.subList(0, Math.min(budget, due.size()))
+                .forEach(entry -> batch.put(entry.getKey(), entry.getValue().interval));
+        credits -= batch.size();
+
+        Map<String, StockQuote> quotes;
+        try {
+            quotes = marketDataService.refreshQuotes(batch);
+        } catch (Exception e) {
+            log.warn("Quote refresh failed: {}", e.getMessage());
+            quotes = Map.of();
+        }
+
+        for (String symbol : batch.keySet()) {
+            Tracked state = tracked.get(symbol);
+            if (state == null) {
+                continue;
+            }
+            StockQuote quote = quotes.get(symbol);
+            if (quote != null && quote.getExchange() != null && !quote.getExchange().isBlank()) {
+                state.exchange = quote.getExchange();
+            }
+            state.interval = interval(state, demand.getOrDefault(symbol, 0.0));
+            // Symbols without a quote are tried again at the slowest rate
+            state.dueAt = now.plus(quote != null ? state.interval : properties.getMaxInterval());
+            updateVolatility(symbol, state, now);
+        }
+
+        if (!quotes.isEmpty()) {
+            for (Consumer<Map<String, StockQuote>> listener : listeners) {
+                try {
+                    listener.accept(quotes);
+                } catch (RuntimeException e) {
+                    log.warn("Quote refresh listener failed", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@code base-interval} divided by a demand factor, which grows with the
+     * logarithm of subscribers plus requests per minute, and by a volatility
+     * factor, which is the symbol's volatility relative to
+     * {@code reference-volatility} (between 0.5 and 2, and 1 while unknown).
+     */
+    Duration interval(Tracked state, double requestsPerMinute) {
+        double demand = Math.max(0, state.subscribers.get()) + requestsPerMinute;
+        double factor = 1 + Math.log1p(demand) / Math.log(2);
+        Double volatility = state.volatility;
+        if (volatility != null && properties.getReferenceVolatility() > 0) {
+            factor *= Math.min(2, Math.max(0.5, volatility / properties.getReferenceVolatility()));
+        }
+        long millis = (long) (properties.getBaseInterval().toMillis() / factor);
+        return Duration.ofMillis(Math.min(properties.getMaxInterval().toMillis(),
+                Math.max(properties.getMinInterval().toMillis(), millis)));
+    }
+
+    private Tracked track(Tracked state, double requestsPerMinute) {
+        state.interval = interval(state, requestsPerMinute);
+        // Whoever asked has just been served a quote; the first refresh is one interval away
+        state.dueAt = clock.instant().plus(state.interval);
+        return state;
+    }
+
+    /**
+     * Recomputes the symbol's volatility in the background when it is
+     * unknown or older than {@code volatility-ttl}.
+     */
+    private void updateVolatility(String symbol, Tracked state, Instant now) {
+        if (state.volatilityAt != null && state.volatilityAt.plus(properties.getVolatilityTtl()).isAfter(now)) {
+            return;
+        }
+        if (!state.loadingVolatility.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            background.execute(() -> {
+                try {
+                    state.volatility = financeUtils.computeVolatility(
+                            marketDataService.getPriceSeries(symbol, VOLATILITY_RANGE)).doubleValue();
+                    state.volatilityAt = clock.instant();
+                } catch (Exception e) {
+                    log.warn("Volatility of {} unavailable: {}", symbol, e.getMessage());
+                } finally {
+                    state.loadingVolatility.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Busy; tried again after the next refresh
+            state.loadingVolatility.set(false);
+        }
+    }
+
+    static final class Tracked {
+        final AtomicInteger subscribers = new AtomicInteger();
+        final AtomicBoolean loadingVolatility = new AtomicBoolean();
+        volatile String exchange;
+        volatile Double volatility;
+        volatile Instant volatilityAt;
+        volatile Duration interval;
+        volatile Instant dueAt;
+
+        /**
+         * Time since the last refresh, in intervals.
+         */
+        double overdue(Instant now) {
+            long sinceRefresh = Duration.between(dueAt.minus(interval), now).toMillis();
+            return (double) sinceRefresh / Math.max(1, interval.toMillis());
+        }
+    }
+}
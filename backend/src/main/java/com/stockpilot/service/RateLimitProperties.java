@@ -0,0 +1,59 @@
+package com.stockpilot.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Outbound request budgets, bound from
+ * {@code stockpilot.providers.rate-limit.*}. The default budget applies to
+ * every provider; {@code providers.<name>} overrides it for one, keyed by
+ * provider name in lower case with dashes, e.g. {@code yahoo-finance}.
+ */
+@ConfigurationProperties(prefix = "stockpilot.providers.rate-limit")
+public class RateLimitProperties {
+
+    public static class Budget {
+        private double permitsPerSecond = 10;
+        private int burst = 20;
+
+        public double getPermitsPerSecond() { return permitsPerSecond; }
+        public void setPermitsPerSecond(double permitsPerSecond) { this.permitsPerSecond = permitsPerSecond; }
+
+        public int getBurst() { return burst; }
+        public void setBurst(int burst) { this.burst = burst; }
+    }
+
+    private boolean enabled = true;
+    private double permitsPerSecond = 10;
+    private int burst = 20;
+    private int maxQueue = 200;
+    private Map<String, Budget> providers = new HashMap<>();
+    private Map<UpstreamPriority, Duration> maxWait = new EnumMap<>(Map.of(
+            UpstreamPriority.INTERACTIVE, Duration.ofSeconds(2),
+            UpstreamPriority.HISTORY, Duration.ofSeconds(5),
+            UpstreamPriority.NEWS, Duration.ofSeconds(3),
+            UpstreamPriority.SEARCH, Duration.ofSeconds(1),
+            UpstreamPriority.BACKGROUND, Duration.ofSeconds(10)));
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public double getPermitsPerSecond() { return permitsPerSecond; }
+    public void setPermitsPerSecond(double permitsPerSecond) { this.permitsPerSecond = permitsPerSecond; }
+
+    public int getBurst() { return burst; }
+    public void setBurst(int burst) { this.burst = burst; }
+
+    public int getMaxQueue() { return maxQueue; }
+    public void setMaxQueue(int maxQueue) { this.maxQueue = maxQueue; }
+
+    public Map<String, Budget> getProviders() { return providers; }
+    public void setProviders(Map<String, Budget> providers) { this.providers = providers; }
+
+    public Map<UpstreamPriority, Duration> getMaxWait() { return maxWait; }
+    public void setMaxWait(Map<UpstreamPriority, Duration> maxWait) { this.maxWait = maxWait; }
+}
@@ -0,0 +1,15 @@
+package com.stockpilot.service;
+
+/**
+ * Thrown when a request was shed by the {@link UpstreamRateLimiter} without
+ * reaching the provider. Unlike other {@link MarketDataException}s it says
+ * nothing about the provider's health.
+ */
+public class RateLimitedException extends MarketDataException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RateLimitedException(String message) {
+        super(message);
+    }
+}
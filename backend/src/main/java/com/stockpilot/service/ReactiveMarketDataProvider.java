@@ -0,0 +1,92 @@
+package com.stockpilot.service;
+
+import com.stockpilot.domain.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Non-blocking form of {@link MarketDataProvider}. Publishers are lazy: nothing
+ * goes upstream until they are subscribed to. "No data" is an empty
+ * publisher, and an upstream failure is an error signal carrying
+ * {@link MarketDataException}.
+ */
+public interface ReactiveMarketDataProvider {
+
+    Flux<StockSearchResult> searchSymbols(String query);
+
+    Mono<StockQuote> getQuote(String symbol);
+
+    /**
+     * Quotes for several symbols, keyed by symbol; symbols without a quote are
+     * absent.
+     */
+    Mono<Map<String, StockQuote>> getQuotes(Collection<String> symbols);
+
+    Mono<PriceSeries> getPriceSeries(String symbol, String range);
+
+    Mono<PriceSeries> getPriceSeries(String symbol, LocalDate from, LocalDate to);
+
+    Mono<StockFundamentals> getFundamentals(String symbol);
+
+    Flux<NewsArticle> getNews(String symbol, int limit);
+
+    String getProviderName();
+
+    /**
+     * {@code provider} itself if it is reactive, otherwise a view over its
+     * {@code ...Async} methods. That view is only non-blocking if the provider
+     * overrides them with real asynchronous I/O, as Yahoo does.
+     */
+    static ReactiveMarketDataProvider of(MarketDataProvider provider) {
+        if (provider instanceof ReactiveMarketDataProvider reactive) {
+            return reactive;
+        }
+        return new ReactiveMarketDataProvider() {
+            @Override
+            public Flux<StockSearchResult> searchSymbols(String query) {
+                return Mono.fromFuture(() -> provider.searchSymbolsAsync(query)).flatMapIterable(results -> results);
+            }
+
+            @Override
+            public Mono<StockQuote> getQuote(String symbol) {
+                return Mono.fromFuture(() -> provider.getQuoteAsync(symbol));
+            }
+
+            @Override
+            public Mono<Map<String, StockQuote>> getQuotes(Collection<String> symbols) {
+                return Mono.fromFuture(() -> provider.getQuotesAsync(symbols));
+            }
+
+            @Override
+            public Mono<PriceSeries> getPriceSeries(String symbol, String range) {
+                return Mono.fromFuture(() -> provider.getPriceSeriesAsync(symbol, range))
+                        .filter(series -> !series.isEmpty());
+            }
+
+            @Override
+            public Mono<PriceSeries> getPriceSeries(String symbol, LocalDate from, LocalDate to) {
+                return Mono.fromFuture(() -> provider.getPriceSeriesAsync(symbol, from, to))
+                        .filter(series -> !series.isEmpty());
+            }
+
+            @Override
+            public Mono<StockFundamentals> getFundamentals(String symbol) {
+                return Mono.fromFuture(() -> provider.getFundamentalsAsync(symbol));
+            }
+
+            @Override
+            public Flux<NewsArticle> getNews(String symbol, int limit) {
+                return Mono.fromFuture(() -> provider.getNewsAsync(symbol, limit)).flatMapIterable(articles -> articles);
+            }
+
+            @Override
+            public String getProviderName() {
+                return provider.getProviderName();
+            }
+        };
+    }
+}
@@ -0,0 +1,331 @@
+package com.stockpilot.service;
+
+import com.stockpilot.cache.CacheEntry;
+import com.stockpilot.cache.MarketDataCache;
+import com.stockpilot.domain.*;
+import com.stockpilot.search.SymbolIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Reactive counterpart of {@link MarketDataService} for the {@code reactive}
+ * profile. Each operation is a lazy pipeline: cache lookup, then a coalesced
+ * upstream fetch that tries providers in order, then the transform. It shares
+ * the cache and provider health with the servlet service, so both stacks can
+ * run against the same entries.
+ *
+ * <p>Batch quotes fan out with bounded concurrency, so a large watchlist
+ * cannot flood upstream. History and the analytics built on it still go
+ * through {@link MarketDataService} on the bounded-elastic scheduler: the
+ * on-disk history store reads files and widens the per-symbol history under
+ * a lock, and neither is non-blocking.</p>
+ *
+ * <p>Providers are ranked and hedged by the same {@link ProviderRouter} as
+ * the servlet service's, so {@code stockpilot.providers.routing.*} applies
+ * to both stacks; a hedge waits on a timer instead of a thread.</p>
+ *
+ * <p>Upstream calls take a token from {@link UpstreamRateLimiter} like the
+ * servlet service's. A free token is taken in place; waiting for one in the
+ * queue happens on the bounded-elastic scheduler.</p>
+ *
+ * <p>Quote requests count towards the demand the adaptive refresh schedule
+ * reads from {@link MarketDataService#getQuoteDemand}, as on the servlet
+ * stack.</p>
+ *
+ * <p>Cache lookups here read only this instance's level of the cache. The
+ * shared level, when configured, is a blocking call, and the event loop must
+ * not wait on it.</p>
+ */
+@Service
+@Profile("reactive")
+public class ReactiveMarketDataService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveMarketDataService.class);
+
+    // Symbols per upstream batch request, and batches / single quotes in flight per call
+    private static final int QUOTE_BATCH_SIZE = 50;
+    private static final int BATCH_CONCURRENCY = 4;
+    private static final int SINGLE_CONCURRENCY = 16;
+
+    private final List<MarketDataProvider> providers;
+    private final Map<MarketDataProvider, ReactiveMarketDataProvider> reactiveProviders = new IdentityHashMap<>();
+    private final MarketDataCache cache;
+    private final ProviderHealthRegistry health;
+    private final UpstreamRateLimiter rateLimiter;
+    private final SymbolIndex symbolIndex;
+    private final MarketDataService marketDataService;
+    private final ProviderRouter router;
+    private final Map<String, Mono<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public ReactiveMarketDataService(List<MarketDataProvider> providers, MarketDataCache cache,
+                                     ProviderHealthRegistry health, UpstreamRateLimiter rateLimiter,
+                                     SymbolIndex symbolIndex, MarketDataService marketDataService) {
+        this.providers = providers;
+        this.cache = cache;
+        this.health = health;
+        this.rateLimiter = rateLimiter;
+        this.symbolIndex = symbolIndex;
+        this.marketDataService = marketDataService;
+        this.router = marketDataService.router();
+        providers.forEach(provider -> reactiveProviders.put(provider, ReactiveMarketDataProvider.of(provider)));
+    }
+
+    /**
+     * Answers from the {@link SymbolIndex} when it can, like
+     * {@link MarketDataService#searchSymbols}.
+     */
+    public Mono<List<StockSearchResult>> searchSymbols(String query) {
+        return Mono.defer(() -> {
+            SymbolIndex.Match local = symbolIndex.search(query);
+            if (local.confident()) {
+                return Mono.just(local.results());
+            }
+            String cacheKey = "search:" + query.toLowerCase();
+            return fetch(cacheKey, provider -> provider.searchSymbols(query).collectList().map(symbolIndex::learn),
+                    ReactiveMarketDataService::notEmpty)
+                    .defaultIfEmpty(local.results());
+        });
+    }
+
+    public Mono<StockQuote> getQuote(String symbol) {
+        return Mono.defer(() -> {
+            marketDataService.recordQuoteDemand(symbol.toUpperCase());
+            return quote(symbol);
+        });
+    }
+
+    private Mono<StockQuote> quote(String symbol) {
+        String cacheKey = "quote:" + symbol.toUpperCase();
+        return fetch(cacheKey, provider -> provider.getQuote(symbol), Objects::nonNull);
+    }
+
+    /**
+     * Quotes for many symbols, in request order. Cache hits are served
+     * directly; misses go upstream in multi-symbol batches, and whatever a
+     * batch did not return is fetched symbol by symbol. Symbols without a
+     * quote are left out.
+     */
+    public Mono<Map<String, StockQuote>> getQuotes(Collection<String> symbols) {
+        List<String> normalized = symbols.stream()
+                .map(symbol -> symbol.trim().toUpperCase())
+                .filter(symbol -> !symbol.isEmpty())
+                .distinct()
+                .toList();
+        return Mono.defer(() -> {
+            Map<String, StockQuote> found = new ConcurrentHashMap<>();
+            List<String> misses = new ArrayList<>();
+            for (String symbol : normalized) {
+                marketDataService.recordQuoteDemand(symbol);
+                String cacheKey = "quote:" + symbol;
+                CacheEntry entry = cache.getLocalEntry(cacheKey);
+                if (entry != null) {
+                    StockQuote cached = serve(cacheKey, entry, provider -> provider.getQuote(symbol), Objects::nonNull);
+                    found.put(symbol, cached);
+                } else {
+                    misses.add(symbol);
+                }
+            }
+
+            return Flux.fromIterable(misses)
+                    .buffer(QUOTE_BATCH_SIZE)
+                    .flatMap(this::loadQuoteBatch, BATCH_CONCURRENCY)
+                    .doOnNext(found::putAll)
+                    .thenMany(Flux.fromIterable(misses))
+                    .filter(symbol -> !found.containsKey(symbol))
+                    .flatMap(symbol -> quote(symbol).doOnNext(quote -> found.put(symbol, quote)),
+                            SINGLE_CONCURRENCY)
+                    .then(Mono.fromSupplier(() -> {
+                        Map<String, StockQuote> quotes = new LinkedHashMap<>();
+                        for (String symbol : normalized) {
+                            StockQuote quote = found.get(symbol);
+                            if (quote != null) {
+                                quotes.put(symbol, quote);
+                            }
+                        }
+                        return quotes;
+                    }));
+        });
+    }
+
+    public Mono<PriceSeries> getPriceSeries(String symbol, String range) {
+        return Mono.fromCallable(() -> marketDataService.getPriceSeries(symbol, range))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<StockFundamentals> getFundamentals(String symbol) {
+        String cacheKey = "fundamentals:" + symbol.toUpperCase();
+        return fetch(cacheKey, provider -> provider.getFundamentals(symbol), Objects::nonNull);
+    }
+
+    public Mono<List<NewsArticle>> getNews(String symbol, int limit) {
+        String cacheKey = "news:" + symbol.toUpperCase() + ":" + limit;
+        return fetch(cacheKey, provider -> provider.getNews(symbol, limit).collectList(),
+                ReactiveMarketDataService::notEmpty)
+                .defaultIfEmpty(Collections.emptyList());
+    }
+
+    /**
+     * Serves {@code cacheKey} from the cache, or loads it from the first
+     * provider with a usable result; concurrent misses share one load. Stale
+     * entries are served while a background refresh replaces them.
+     */
+    private <T> Mono<T> fetch(String cacheKey, Function<ReactiveMarketDataProvider, Mono<T>> call,
+                              Predicate<T> usable) {
+        return Mono.defer(() -> {
+            CacheEntry entry = cache.getLocalEntry(cacheKey);
+            if (entry == null) {
+                return load(cacheKey, null, call, usable, UpstreamPriority.forCacheKey(cacheKey));
+            }
+            return Mono.justOrEmpty(serve(cacheKey, entry, call, usable));
+        });
+    }
+
+    private <T> T serve(String cacheKey, CacheEntry entry,
+                        Function<ReactiveMarketDataProvider, Mono<T>> call, Predicate<T> usable) {
+        if (!entry.isFresh() || cache.shouldRefreshAhead(entry)) {
+            refreshInBackground(cacheKey, entry, call, usable);
+        }
+        @SuppressWarnings("unchecked")
+        T cached = (T) entry.getData();
+        return cached;
+    }
+
+    /**
+     * Loads {@code cacheKey} upstream unless another caller stored a fresh
+     * entry other than {@code replacing} meanwhile. The first subscriber
+     * starts the load, at {@code priority}; later ones join it until it
+     * completes.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> load(String cacheKey, CacheEntry replacing, Function<ReactiveMarketDataProvider, Mono<T>> call,
+                             Predicate<T> usable, UpstreamPriority priority) {
+        return Mono.defer(() -> {
+            CacheEntry current = cache.peekEntry(cacheKey);
+            if (current != null && current != replacing && current.isFresh()) {
+                return Mono.justOrEmpty((T) current.getData());
+            }
+            return (Mono<T>) inFlight.computeIfAbsent(cacheKey, key -> {
+                AtomicReference<Mono<Object>> self = new AtomicReference<>();
+                Mono<Object> shared = loadFromProviders(call, usable, priority)
+                        .doOnNext(value -> cache.put(key, value))
+                        .map(value -> (Object) value)
+                        .doFinally(signal -> inFlight.remove(key, self.get()))
+                        .cache();
+                self.set(shared);
+                return shared;
+            });
+        });
+    }
+
+    private <T> void refreshInBackground(String cacheKey, CacheEntry entry,
+                                         Function<ReactiveMarketDataProvider, Mono<T>> call, Predicate<T> usable) {
+        if (!entry.tryStartRefresh()) {
+            return;
+        }
+        // Keep serving the old value and let a later read retry
+        load(cacheKey, entry, call, usable, UpstreamPriority.BACKGROUND)
+                .switchIfEmpty(Mono.fromRunnable(entry::refreshFailed))
+                .subscribe(value -> {}, error -> entry.refreshFailed());
+    }
+
+    /**
+     * The first usable result of {@code call}, routed like
+     * {@link ProviderRouter#call}: providers in ranked order, and with the
+     * hedged strategy the next one is started once the current one has been
+     * outstanding longer than {@link ProviderRouter#hedgeDelay}, or as soon as
+     * it had nothing. Calls still running when one wins are cancelled.
+     */
+    private <T> Mono<T> loadFromProviders(Function<ReactiveMarketDataProvider, Mono<T>> call, Predicate<T> usable,
+                                          UpstreamPriority priority) {
+        return Mono.defer(() -> {
+            List<MarketDataProvider> candidates = router.ranked().stream().filter(health::allowRequest).toList();
+            if (router.isHedged() && candidates.size() > 1) {
+                return hedged(candidates, 0, call, usable, priority)
+                        .onErrorResume(NoSuchElementException.class, e -> Mono.empty());
+            }
+            return Flux.fromIterable(candidates)
+                    .concatMap(provider -> attempt(provider, call, priority))
+                    .filter(usable)
+                    .next();
+        });
+    }
+
+    private <T> Mono<T> hedged(List<MarketDataProvider> candidates, int index,
+                               Function<ReactiveMarketDataProvider, Mono<T>> call, Predicate<T> usable,
+                               UpstreamPriority priority) {
+        MarketDataProvider provider = candidates.get(index);
+        if (index == candidates.size() - 1) {
+            return attempt(provider, call, priority).filter(usable);
+        }
+        return Mono.defer(() -> {
+            Sinks.Empty<Void> done = Sinks.empty();
+            Mono<T> current = attempt(provider, call, priority)
+                    .filter(usable)
+                    .switchIfEmpty(Mono.fromRunnable(done::tryEmitEmpty));
+            Mono<T> next = Mono.firstWithSignal(Mono.delay(router.hedgeDelay(provider)).then(), done.asMono())
+                    .then(Mono.defer(() -> hedged(candidates, index + 1, call, usable, priority)));
+            return Mono.firstWithValue(current, next);
+        });
+    }
+
+    private <T> Mono<T> attempt(MarketDataProvider provider, Function<ReactiveMarketDataProvider, Mono<T>> call,
+                                UpstreamPriority priority) {
+        return permit(provider, priority)
+                .then(Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return call.apply(reactiveProviders.get(provider))
+                            .doOnSuccess(result -> health.recordSuccess(provider, System.nanoTime() - start))
+                            .onErrorResume(e -> {
+                                health.recordFailure(provider, System.nanoTime() - start, e);
+                                log.warn("Provider {} failed: {}", provider.getProviderName(), e.getMessage());
+                                return Mono.empty();
+                            });
+                }))
+                .onErrorResume(MarketDataException.class, e -> {
+                    // Shed before reaching the provider, so not a health failure
+                    log.debug("Provider {} skipped: {}", provider.getProviderName(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> permit(MarketDataProvider provider, UpstreamPriority priority) {
+        return Mono.defer(() -> rateLimiter.tryAcquire(provider, priority)
+                ? Mono.<Void>empty()
+                : Mono.<Void>fromRunnable(() -> rateLimiter.acquire(provider, priority))
+                        .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    /**
+     * One multi-symbol request to the first provider that will take it.
+     */
+    private Mono<Map<String, StockQuote>> loadQuoteBatch(List<String> symbols) {
+        return loadFromProviders(provider -> provider.getQuotes(symbols), Objects::nonNull, UpstreamPriority.INTERACTIVE)
+                .map(quotes -> {
+                    Map<String, StockQuote> bySymbol = new HashMap<>();
+                    quotes.forEach((symbol, quote) -> {
+                        String normalized = symbol.toUpperCase();
+                        if (quote != null && symbols.contains(normalized)) {
+                            cache.put("quote:" + normalized, quote);
+                            bySymbol.put(normalized, quote);
+                        }
+                    });
+                    return bySymbol;
+                });
+    }
+
+    private static boolean notEmpty(List<?> results) {
+        return results != null && !results.isEmpty();
+    }
+}
@@ -0,0 +1,249 @@
+package com.stockpilot.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.stockpilot.domain.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.OrderUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Wraps a provider and writes every answer it gives to disk, in the layout
+ * {@link FileMarketDataProvider} replays. Quotes, fundamentals and news
+ * replace the previous recording for their symbol; history bars and search
+ * results are merged into what is already there, so a recording session
+ * accumulates coverage.
+ *
+ * <p>The blocking methods record on the calling thread before returning;
+ * the async ones record when the wrapped provider's future completes. A
+ * failed write is logged and never fails the call.</p>
+ */
+@SuppressWarnings("try") // close() passes on whatever the wrapped provider throws
+public class RecordingMarketDataProvider implements MarketDataProvider, Ordered, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordingMarketDataProvider.class);
+
+    private final MarketDataProvider delegate;
+    private final MarketDataRecordings recordings;
+    // Writers of the same file take turns; ReentrantLock so virtual threads do not pin
+    private final ConcurrentMap<Path, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    public RecordingMarketDataProvider(MarketDataProvider delegate, Path directory) {
+        this.delegate = delegate;
+        this.recordings = new MarketDataRecordings(directory);
+    }
+
+    public MarketDataProvider getDelegate() { return delegate; }
+
+    @Override
+    public List<StockSearchResult> searchSymbols(String query) {
+        return recorded(delegate.searchSymbols(query), this::recordSearch);
+    }
+
+    @Override
+    public StockQuote getQuote(String symbol) {
+        return recorded(delegate.getQuote(symbol), quote -> recordQuote(symbol, quote));
+    }
+
+    @Override
+    public Map<String, StockQuote> getQuotes(Collection<String> symbols) {
+        return recorded(delegate.getQuotes(symbols), this::recordQuotes);
+    }
+
+    @Override
+    public List<HistoricalPrice> getHistoricalData(String symbol, String range) {
+        return recorded(delegate.getHistoricalData(symbol, range), prices -> recordPrices(symbol, prices));
+    }
+
+    @Override
+    public PriceSeries getPriceSeries(String symbol, String range) {
+        return recorded(delegate.getPriceSeries(symbol, range), series -> recordHistory(symbol, series));
+    }
+
+    @Override
+    public PriceSeries getPriceSeries(String symbol, LocalDate from, LocalDate to) {
+        return recorded(delegate.getPriceSeries(symbol, from, to), series -> recordHistory(symbol, series));
+    }
+
+    @Override
+    public StockFundamentals getFundamentals(String symbol) {
+        return recorded(delegate.getFundamentals(symbol), fundamentals -> recordFundamentals(symbol, fundamentals));
+    }
+
+    @Override
+    public List<NewsArticle> getNews(String symbol, int limit) {
+        return recorded(delegate.getNews(symbol, limit), articles -> recordNews(symbol, articles));
+    }
+
+    // The async forms hand back the wrapped provider's own future, so that
+    // cancelling it still reaches the upstream request
+
+    @Override
+    public CompletableFuture<List<StockSearchResult>> searchSymbolsAsync(String query) {
+        return recordedAsync(delegate.searchSymbolsAsync(query), this::recordSearch);
+    }
+
+    @Override
+    public CompletableFuture<StockQuote> getQuoteAsync(String symbol) {
+        return recordedAsync(delegate.getQuoteAsync(symbol), quote -> recordQuote(symbol, quote));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, StockQuote>> getQuotesAsync(Collection<String> symbols) {
+        return recordedAsync(delegate.getQuotesAsync(symbols), this::recordQuotes);
+    }
+
+    @Override
+    public CompletableFuture<List<HistoricalPrice>> getHistoricalDataAsync(String symbol, String range) {
+        return recordedAsync(delegate.getHistoricalDataAsync(symbol, range),
+                prices -> recordPrices(symbol, prices));
+    }
+
+    @Override
+    public CompletableFuture<PriceSeries> getPriceSeriesAsync(String symbol, String range) {
+        return recordedAsync(delegate.getPriceSeriesAsync(symbol, range), series -> recordHistory(symbol, series));
+    }
+
+    @Override
+    public CompletableFuture<PriceSeries> getPriceSeriesAsync(String symbol, LocalDate from, LocalDate to) {
+        return recordedAsync(delegate.getPriceSeriesAsync(symbol, from, to), series -> recordHistory(symbol, series));
+    }
+
+    @Override
+    public CompletableFuture<StockFundamentals> getFundamentalsAsync(String symbol) {
+        return recordedAsync(delegate.getFundamentalsAsync(symbol), fundamentals -> recordFundamentals(symbol, fundamentals));
+    }
+
+    @Override
+    public CompletableFuture<List<NewsArticle>> getNewsAsync(String symbol, int limit) {
+        return recordedAsync(delegate.getNewsAsync(symbol, limit), articles -> recordNews(symbol, articles));
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return delegate.isAvailable();
+    }
+
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+
+    /**
+     * Keeps the wrapped provider's place in the fallback order.
+     */
+    @Override
+    public int getOrder() {
+        if (delegate instanceof Ordered ordered) {
+            return ordered.getOrder();
+        }
+        return OrderUtils.getOrder(delegate.getClass(), Ordered.LOWEST_PRECEDENCE);
+    }
+
+    /**
+     * Closes the wrapped provider along with this bean.
+     */
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void recordSearch(List<StockSearchResult> results) {
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+        update(recordings.symbols(), file -> {
+            List<StockSearchResult> known = recordings.readJson(file, new TypeReference<>() {});
+            Map<String, StockSearchResult> bySymbol = new LinkedHashMap<>();
+            if (known != null) {
+                known.forEach(result -> bySymbol.put(result.getSymbol(), result));
+            }
+            results.forEach(result -> bySymbol.put(result.getSymbol(), result));
+            recordings.writeJson(file, List.copyOf(bySymbol.values()));
+        });
+    }
+
+    private void recordQuote(String symbol, StockQuote quote) {
+        if (quote != null) {
+            update(recordings.quote(symbol), file -> recordings.writeJson(file, quote));
+        }
+    }
+
+    private void recordQuotes(Map<String, StockQuote> quotes) {
+        if (quotes != null) {
+            quotes.forEach(this::recordQuote);
+        }
+    }
+
+    private void recordHistory(String symbol, PriceSeries bars) {
+        if (bars == null || bars.isEmpty()) {
+            return;
+        }
+        update(recordings.history(symbol), file -> {
+            // Recorded bars outside the new span are kept; the new ones win where they overlap
+            PriceSeries known = recordings.readHistory(file);
+            PriceSeries merged = PriceSeries.concat(
+                    PriceSeries.concat(known.before(bars.firstDay()), bars), known.since(bars.lastDay() + 1));
+            recordings.writeHistory(file, merged);
+        });
+    }
+
+    private void recordPrices(String symbol, List<HistoricalPrice> prices) {
+        if (prices != null) {
+            recordHistory(symbol, PriceSeries.of(prices));
+        }
+    }
+
+    private void recordFundamentals(String symbol, StockFundamentals fundamentals) {
+        if (fundamentals != null) {
+            update(recordings.fundamentals(symbol), file -> recordings.writeJson(file, fundamentals));
+        }
+    }
+
+    private void recordNews(String symbol, List<NewsArticle> articles) {
+        if (articles != null && !articles.isEmpty()) {
+            update(recordings.news(symbol), file -> recordings.writeJson(file, articles));
+        }
+    }
+
+    private interface FileUpdate {
+        void apply(Path file) throws IOException;
+    }
+
+    private void update(Path file, FileUpdate update) {
+        ReentrantLock lock = locks.computeIfAbsent(file, path -> new ReentrantLock());
+        lock.lock();
+        try {
+            update.apply(file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Recording {} failed: {}", recordings.directory().relativize(file), e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static <T> T recorded(T result, Consumer<T> record) {
+        record.accept(result);
+        return result;
+    }
+
+    private static <T> CompletableFuture<T> recordedAsync(CompletableFuture<T> future, Consumer<T> record) {
+        future.thenAccept(record);
+        return future;
+    }
+}
@@ -0,0 +1,23 @@
+package com.stockpilot.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * Recording of provider answers for later replay, bound from
+ * {@code stockpilot.providers.record.*}. The default directory is the one
+ * {@link FileMarketDataProvider} replays from.
+ */
+@ConfigurationProperties(prefix = "stockpilot.providers.record")
+public class RecordingProperties {
+
+    private boolean enabled = false;
+    private Path directory = Path.of("data/provider");
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Path getDirectory() { return directory; }
+    public void setDirectory(Path directory) { this.directory = directory; }
+}
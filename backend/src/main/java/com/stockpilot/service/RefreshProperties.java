@@ -0,0 +1,47 @@
+package com.stockpilot.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Server-side quote refresh settings, bound from {@code stockpilot.refresh.*}.
+ * How often the scheduler looks for due symbols is read separately as
+ * {@code stockpilot.refresh.tick-ms}.
+ */
+@ConfigurationProperties(prefix = "stockpilot.refresh")
+public class RefreshProperties {
+
+    private Duration baseInterval = Duration.ofSeconds(30);
+    private Duration minInterval = Duration.ofSeconds(2);
+    private Duration maxInterval = Duration.ofMinutes(5);
+    private double maxSymbolsPerSecond = 20;
+    private double minRequestRate = 1;
+    private double referenceVolatility = 30;
+    private Duration volatilityTtl = Duration.ofHours(6);
+    private Duration closeGrace = Duration.ofMinutes(5);
+
+    public Duration getBaseInterval() { return baseInterval; }
+    public void setBaseInterval(Duration baseInterval) { this.baseInterval = baseInterval; }
+
+    public Duration getMinInterval() { return minInterval; }
+    public void setMinInterval(Duration minInterval) { this.minInterval = minInterval; }
+
+    public Duration getMaxInterval() { return maxInterval; }
+    public void setMaxInterval(Duration maxInterval) { this.maxInterval = maxInterval; }
+
+    public double getMaxSymbolsPerSecond() { return maxSymbolsPerSecond; }
+    public void setMaxSymbolsPerSecond(double maxSymbolsPerSecond) { this.maxSymbolsPerSecond = maxSymbolsPerSecond; }
+
+    public double getMinRequestRate() { return minRequestRate; }
+    public void setMinRequestRate(double minRequestRate) { this.minRequestRate = minRequestRate; }
+
+    public double getReferenceVolatility() { return referenceVolatility; }
+    public void setReferenceVolatility(double referenceVolatility) { this.referenceVolatility = referenceVolatility; }
+
+    public Duration getVolatilityTtl() { return volatilityTtl; }
+    public void setVolatilityTtl(Duration volatilityTtl) { this.volatilityTtl = volatilityTtl; }
+
+    public Duration getCloseGrace() { return closeGrace; }
+    public void setCloseGrace(Duration closeGrace) { this.closeGrace = closeGrace; }
+}
@@ -0,0 +1,135 @@
+package com.stockpilot.service;
+
+import com.stockpilot.cache.MarketDataCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight registry: concurrent callers asking for the same key share one
+ * in-flight load instead of each going upstream. The first caller (the leader)
+ * runs the loader on its own thread; everyone arriving while it runs waits on
+ * the leader's future.
+ */
+public class RequestCoalescer {
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T load(String key, Supplier<T> loader) {
+        Counters namespaceCounters = counters.computeIfAbsent(MarketDataCache.namespaceOf(key), k -> new Counters());
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            namespaceCounters.coalesced.increment();
+            return (T) await(existing);
+        }
+
+        namespaceCounters.leaders.increment();
+        try {
+            T value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Batch variant of {@link #load}: keys already in flight are awaited, and
+     * the remaining keys are loaded together by one call to {@code batchLoader}.
+     * Keys the loader does not return, or whose shared load failed, map to null.
+     */
+    public <T> Map<String, T> loadAll(Collection<String> keys, Function<List<String>, Map<String, T>> batchLoader) {
+        Map<String, CompletableFuture<Object>> led = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Object>> joined = new LinkedHashMap<>();
+        for (String key : keys) {
+            Counters namespaceCounters = counters.computeIfAbsent(MarketDataCache.namespaceOf(key), k -> new Counters());
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+            if (existing != null) {
+                namespaceCounters.coalesced.increment();
+                joined.put(key, existing);
+            } else {
+                namespaceCounters.leaders.increment();
+                led.put(key, future);
+            }
+        }
+
+        Map<String, T> result = new LinkedHashMap<>();
+        try {
+            if (!led.isEmpty()) {
+                Map<String, T> loaded = batchLoader.apply(new ArrayList<>(led.keySet()));
+                led.forEach((key, future) -> future.complete(loaded.get(key)));
+                result.putAll(loaded);
+            }
+        } catch (RuntimeException | Error e) {
+            led.values().forEach(future -> future.completeExceptionally(e));
+            throw e;
+        } finally {
+            led.forEach(inFlight::remove);
+        }
+
+        joined.forEach((key, future) -> {
+            try {
+                @SuppressWarnings("unchecked")
+                T value = (T) await(future);
+                result.put(key, value);
+            } catch (RuntimeException e) {
+                result.put(key, null);
+            }
+        });
+        return result;
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Per-namespace count of loads that went upstream ({@code leaders}) and of
+     * requests that piggybacked on one already in flight ({@code coalesced}).
+     */
+    public Map<String, Map<String, Long>> stats() {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        counters.forEach((namespace, c) -> result.put(namespace, Map.of(
+                "leaders", c.leaders.sum(),
+                "coalesced", c.coalesced.sum())));
+        return result;
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight request", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    private static class Counters {
+        private final LongAdder leaders = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+    }
+}
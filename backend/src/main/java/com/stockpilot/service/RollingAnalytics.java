@@ -0,0 +1,240 @@
+package com.stockpilot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stockpilot.domain.PriceSeries;
+import com.stockpilot.domain.RollingMetrics;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rolling-window volatility and drawdown, kept up to date incrementally.
+ *
+ * <p>Each (symbol, range, window) has a {@link RollingState} holding the
+ * window accumulators and the values computed so far. When the history cache
+ * hands out a new series for the key, only the bars after the last one fed
+ * are pushed through the accumulators, at O(1) each, though building the
+ * response still copies every retained value; asking again for the same
+ * series reuses the previous result.</p>
+ *
+ * <p>The result never depends on what was fed before: dates whose window
+ * would reach back past the first bar of the series are left out, just as
+ * they are when the state is built from that series alone.</p>
+ */
+@Service
+public class RollingAnalytics {
+
+    public static final int MAX_WINDOW = 260;
+
+    private final MarketDataService marketDataService;
+    private final Cache<String, RollingState> states = Caffeine.newBuilder()
+            .maximumSize(1_024)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    public RollingAnalytics(MarketDataService marketDataService) {
+        this.marketDataService = marketDataService;
+    }
+
+    /**
+     * Rolling metrics over {@code range}, or null when there is no history.
+     */
+    public RollingMetrics rolling(String symbol, String range, int window) {
+        PriceSeries series = marketDataService.getPriceSeries(symbol, range);
+        if (series.isEmpty()) {
+            return null;
+        }
+        String normalized = symbol.toUpperCase();
+        return states.get(normalized + ":" + range + ":" + window, key -> new RollingState(normalized, window))
+                .update(series);
+    }
+
+    /**
+     * Accumulators and output columns for one key. Bars must be fed in date order.
+     */
+    static final class RollingState {
+        private static final double ANNUALIZATION = Math.sqrt(PriceKernels.TRADING_DAYS_PER_YEAR);
+
+        private final String symbol;
+        private final int window;
+
+        private RollingStats returns;
+        private RollingMax closes;
+        private double prevClose;
+        private long lastDay;
+        private double lastClose;
+
+        // Output columns; values before "start" fell out of the requested range
+        private long[] days = new long[64];
+        private double[] volatility = new double[64];
+        private double[] drawdown = new double[64];
+        private int start;
+        private int size;
+
+        private PriceSeries source;
+        private RollingMetrics result;
+        private int barsFed;
+
+        RollingState(String symbol, int window) {
+            this.symbol = symbol;
+            this.window = window;
+            reset();
+        }
+
+        synchronized RollingMetrics update(PriceSeries series) {
+            if (series == source) {
+                return result;
+            }
+            int from = resumeIndex(series);
+            if (from < 0) {
+                reset();
+                from = 0;
+            }
+            for (int i = from; i < series.size(); i++) {
+                feed(series.epochDay(i), series.close(i));
+            }
+            source = series;
+            result = snapshot(series.epochDay(0), firstFullDay(series));
+            return result;
+        }
+
+        /**
+         * Bars fed since the state was created or last reset, for tests.
+         */
+        synchronized int barsFed() {
+            return barsFed;
+        }
+
+        /**
+         * Where to continue feeding {@code series}, or -1 if it does not extend
+         * what has been fed so far (history was revised or moved past it).
+         */
+        private int resumeIndex(PriceSeries series) {
+            if (barsFed == 0) {
+                return -1;
+            }
+            int last = series.indexOf(lastDay);
+            if (last < 0 || Double.compare(series.close(last), lastClose) != 0) {
+                return -1;
+            }
+            return last + 1;
+        }
+
+        private void reset() {
+            returns = new RollingStats(window);
+            closes = new RollingMax(window);
+            prevClose = Double.NaN;
+            lastDay = Long.MIN_VALUE;
+            lastClose = Double.NaN;
+            start = 0;
+            size = 0;
+            barsFed = 0;
+        }
+
+        private void feed(long day, double close) {
+            barsFed++;
+            lastDay = day;
+            lastClose = close;
+            if (!PriceKernels.isPrice(close)) {
+                // No return into or out of a day without a close
+                prevClose = Double.NaN;
+                return;
+            }
+            if (PriceKernels.isPrice(prevClose)) {
+                returns.add((close - prevClose) / prevClose);
+            }
+            closes.add(close);
+            prevClose = close;
+
+            if (returns.isFull() && closes.isFull()) {
+                double max = closes.max();
+                append(day, Math.sqrt(returns.variance()) * ANNUALIZATION * 100, (max - close) / max * 100);
+            }
+        }
+
+        private void append(long day, double vol, double dd) {
+            if (size == days.length) {
+                // Reclaim the dropped prefix before growing
+                int live = size - start;
+                int capacity = live * 2 > days.length ? days.length * 2 : days.length;
+                days = compact(days, capacity);
+                volatility = compact(volatility, capacity);
+                drawdown = compact(drawdown, capacity);
+                start = 0;
+                size = live;
+            }
+            days[size] = day;
+            volatility[size] = vol;
+            drawdown[size] = dd;
+            size++;
+        }
+
+        private long[] compact(long[] column, int capacity) {
+            long[] copy = new long[capacity];
+            System.arraycopy(column, start, copy, 0, size - start);
+            return copy;
+        }
+
+        private double[] compact(double[] column, int capacity) {
+            double[] copy = new double[capacity];
+            System.arraycopy(column, start, copy, 0, size - start);
+            return copy;
+        }
+
+        /**
+         * Day of the first bar of {@code series} with a full window of returns
+         * and closes inside the series, counted the way {@link #feed} counts
+         * them. From there on the windows hold only bars of the series, so
+         * values match those of a state fed from its first bar.
+         */
+        private long firstFullDay(PriceSeries series) {
+            int returnCount = 0;
+            int closeCount = 0;
+            double prev = Double.NaN;
+            for (int i = 0; i < series.size(); i++) {
+                double close = series.close(i);
+                if (!PriceKernels.isPrice(close)) {
+                    prev = Double.NaN;
+                    continue;
+                }
+                if (PriceKernels.isPrice(prev)) {
+                    returnCount++;
+                }
+                closeCount++;
+                prev = close;
+                if (returnCount >= window && closeCount >= window) {
+                    return series.epochDay(i);
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        private RollingMetrics snapshot(long fromDay, long firstFullDay) {
+            while (start < size && days[start] < fromDay) {
+                start++;
+            }
+            int first = start;
+            while (first < size && days[first] < firstFullDay) {
+                first++;
+            }
+            int count = size - first;
+            List<LocalDate> dates = new ArrayList<>(count);
+            double[] vol = new double[count];
+            double[] dd = new double[count];
+            for (int i = 0; i < count; i++) {
+                dates.add(LocalDate.ofEpochDay(days[first + i]));
+                vol[i] = round(volatility[first + i]);
+                dd[i] = round(drawdown[first + i]);
+            }
+            return new RollingMetrics(symbol, window, dates, vol, dd);
+        }
+
+        private static double round(double percent) {
+            return Math.round(percent * 100) / 100.0;
+        }
+    }
+}
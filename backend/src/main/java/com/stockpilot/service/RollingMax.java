@@ -0,0 +1,54 @@
+package com.stockpilot.service;
+
+/**
+ * Maximum of the last {@code window} values in amortised O(1) per value,
+ * using a monotonic deque of candidate maxima. Not thread-safe.
+ */
+public final class RollingMax {
+
+    private final int window;
+    // Ring buffer deque of (sequence, value), values strictly decreasing from head to tail
+    private final long[] sequences;
+    private final double[] values;
+    private int head;
+    private int size;
+    private long next;
+
+    public RollingMax(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1");
+        }
+        this.window = window;
+        this.sequences = new long[window];
+        this.values = new double[window];
+    }
+
+    public void add(double value) {
+        // Candidates no larger than the new value can never be the max again
+        while (size > 0 && values[tail()] <= value) {
+            size--;
+        }
+        // The oldest candidate leaves once it falls out of the window
+        if (size > 0 && sequences[head] <= next - window) {
+            head = (head + 1) % window;
+            size--;
+        }
+        int slot = (head + size) % window;
+        sequences[slot] = next++;
+        values[slot] = value;
+        size++;
+    }
+
+    /**
+     * Largest of the last {@code window} values added, or NaN if none were.
+     */
+    public double max() {
+        return size == 0 ? Double.NaN : values[head];
+    }
+
+    public boolean isFull() { return next >= window; }
+
+    private int tail() {
+        return (head + size - 1) % window;
+    }
+}
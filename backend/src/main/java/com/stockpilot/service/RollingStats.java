@@ -0,0 +1,54 @@
+package com.stockpilot.service;
+
+/**
+ * Mean and population variance of the last {@code window} values, updated in
+ * O(1) per value: adding to a full window evicts the oldest value by running
+ * Welford's update backwards. Not thread-safe.
+ */
+public final class RollingStats {
+
+    private final double[] values;
+    private int head;
+    private int count;
+    private double mean;
+    private double m2;
+
+    public RollingStats(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1");
+        }
+        this.values = new double[window];
+    }
+
+    public void add(double value) {
+        if (count == values.length) {
+            double oldest = values[head];
+            if (count == 1) {
+                mean = 0;
+                m2 = 0;
+            } else {
+                double meanWithout = (count * mean - oldest) / (count - 1);
+                m2 -= (oldest - mean) * (oldest - meanWithout);
+                mean = meanWithout;
+            }
+            count--;
+        }
+        values[head] = value;
+        head = (head + 1) % values.length;
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+
+    public boolean isFull() { return count == values.length; }
+
+    public int count() { return count; }
+
+    public double mean() { return mean; }
+
+    public double variance() {
+        // Eviction can leave a tiny negative residue when the window is flat
+        return count == 0 ? 0 : Math.max(0, m2 / count);
+    }
+}
@@ -0,0 +1,241 @@
+package com.stockpilot.service;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A token bucket whose waiters queue by {@link UpstreamPriority}. Tokens
+ * accrue at {@code permitsPerSecond} up to {@code burst}; a request takes one
+ * straight away when no waiter of the same or a higher priority is queued,
+ * and otherwise waits its turn until its deadline.
+ *
+ * <p>A request is shed instead of queued when the tokens it would wait for
+ * are not due before its deadline. When the queue is full the lowest-priority
+ * waiter is shed to make room, or the newcomer if nothing queued ranks below
+ * it.</p>
+ */
+final class TokenBucket {
+
+    private static final class Waiter {
+        final UpstreamPriority priority;
+        final long sequence;
+        final Condition turn;
+        boolean shed;
+
+        Waiter(UpstreamPriority priority, long sequence, Condition turn) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.turn = turn;
+        }
+    }
+
+    private static final Comparator<Waiter> ORDER = Comparator
+            .comparing((Waiter waiter) -> waiter.priority)
+            .thenComparingLong(waiter -> waiter.sequence);
+
+    private static final int PRIORITIES = UpstreamPriority.values().length;
+
+    private final double permitsPerNano;
+    private final double burst;
+    private final int maxQueue;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(ORDER);
+
+    // Guarded by lock
+    private double tokens;
+    private long refilledAt;
+    private long sequence;
+    private int maxQueued;
+    private final long[] granted = new long[PRIORITIES];
+    private final long[] shed = new long[PRIORITIES];
+    private final long[] waitNanos = new long[PRIORITIES];
+    private final long[] maxWaitNanos = new long[PRIORITIES];
+
+    TokenBucket(double permitsPerSecond, int burst, int maxQueue) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate limit needs a positive rate and a burst of at least 1");
+        }
+        this.permitsPerNano = permitsPerSecond / 1e9;
+        this.burst = burst;
+        this.maxQueue = Math.max(0, maxQueue);
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Takes a token, waiting at most {@code maxWaitNanos} behind higher and
+     * earlier requests. Returns false if the request was shed.
+     */
+    boolean acquire(UpstreamPriority priority, long maxWaitNanos) throws InterruptedException {
+        long arrived = System.nanoTime();
+        lock.lock();
+        try {
+            refill(arrived);
+            if (tokens >= 1 && outranks(priority)) {
+                tokens -= 1;
+                recordGranted(priority, 0);
+                return true;
+            }
+            // Tokens needed for everyone served first, plus this one
+            double needed = queuedAtOrAbove(priority) + 1 - tokens;
+            if (needed / permitsPerNano > maxWaitNanos || !makeRoom(priority)) {
+                shed[priority.ordinal()]++;
+                return false;
+            }
+
+            Waiter waiter = new Waiter(priority, sequence++, lock.newCondition());
+            waiters.add(waiter);
+            maxQueued = Math.max(maxQueued, waiters.size());
+            long deadline = arrived + maxWaitNanos;
+            try {
+                while (true) {
+                    if (waiter.shed) {
+                        shed[priority.ordinal()]++;
+                        return false;
+                    }
+                    long now = System.nanoTime();
+                    refill(now);
+                    boolean head = waiters.peek() == waiter;
+                    if (head && tokens >= 1) {
+                        tokens -= 1;
+                        waiters.poll();
+                        recordGranted(priority, now - arrived);
+                        signalHead();
+                        return true;
+                    }
+                    long remaining = deadline - now;
+                    if (remaining <= 0) {
+                        waiters.remove(waiter);
+                        shed[priority.ordinal()]++;
+                        signalHead();
+                        return false;
+                    }
+                    // The head sleeps until its token is due; the rest until they move up
+                    long sleep = head ? Math.min(remaining, (long) Math.ceil((1 - tokens) / permitsPerNano)) : remaining;
+                    waiter.turn.awaitNanos(Math.max(1, sleep));
+                }
+            } catch (InterruptedException e) {
+                if (waiters.remove(waiter)) {
+                    signalHead();
+                }
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a token only if one is free for {@code priority} right now.
+     */
+    boolean tryAcquire(UpstreamPriority priority) {
+        lock.lock();
+        try {
+            refill(System.nanoTime());
+            if (tokens >= 1 && outranks(priority)) {
+                tokens -= 1;
+                recordGranted(priority, 0);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int queued() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Map<String, Object> snapshot() {
+        lock.lock();
+        try {
+            refill(System.nanoTime());
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("permitsPerSecond", permitsPerNano * 1e9);
+            values.put("burst", (int) burst);
+            values.put("tokens", Math.floor(tokens * 100) / 100);
+            values.put("queued", waiters.size());
+            values.put("maxQueued", maxQueued);
+            Map<String, Object> byPriority = new LinkedHashMap<>();
+            for (UpstreamPriority priority : UpstreamPriority.values()) {
+                int i = priority.ordinal();
+                Map<String, Object> counts = new LinkedHashMap<>();
+                counts.put("granted", granted[i]);
+                counts.put("shed", shed[i]);
+                counts.put("averageWaitMs", granted[i] == 0 ? 0.0 : waitNanos[i] / (double) granted[i] / 1_000_000.0);
+                counts.put("maxWaitMs", maxWaitNanos[i] / 1_000_000.0);
+                byPriority.put(priority.name().toLowerCase(), counts);
+            }
+            values.put("priorities", byPriority);
+            return values;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+    }
+
+    /**
+     * Whether {@code priority} goes ahead of everyone queued.
+     */
+    private boolean outranks(UpstreamPriority priority) {
+        Waiter head = waiters.peek();
+        return head == null || head.priority.compareTo(priority) > 0;
+    }
+
+    private int queuedAtOrAbove(UpstreamPriority priority) {
+        int count = 0;
+        for (Waiter waiter : waiters) {
+            if (waiter.priority.compareTo(priority) <= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Frees a queue slot for {@code priority} by shedding the lowest-priority,
+     * most recent waiter below it. False if the queue is full of requests at
+     * least as important.
+     */
+    private boolean makeRoom(UpstreamPriority priority) {
+        if (waiters.size() < maxQueue) {
+            return true;
+        }
+        Waiter lowest = waiters.stream().max(ORDER).orElse(null);
+        if (lowest == null || lowest.priority.compareTo(priority) <= 0) {
+            return false;
+        }
+        waiters.remove(lowest);
+        lowest.shed = true;
+        lowest.turn.signal();
+        return true;
+    }
+
+    private void signalHead() {
+        Waiter head = waiters.peek();
+        if (head != null) {
+            head.turn.signal();
+        }
+    }
+
+    private void recordGranted(UpstreamPriority priority, long waited) {
+        int i = priority.ordinal();
+        granted[i]++;
+        waitNanos[i] += waited;
+        maxWaitNanos[i] = Math.max(maxWaitNanos[i], waited);
+    }
+}
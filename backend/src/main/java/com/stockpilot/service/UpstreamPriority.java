@@ -0,0 +1,34 @@
+package com.stockpilot.service;
+
+import com.stockpilot.cache.MarketDataCache;
+
+/**
+ * Priority classes for upstream requests, highest first. When a provider's
+ * request budget is exhausted, queued requests are served in this order and
+ * the lowest are shed first.
+ */
+public enum UpstreamPriority {
+    /** Quotes a client is waiting for. */
+    INTERACTIVE,
+    /** Price history, including backfills into the history store. */
+    HISTORY,
+    /** News and fundamentals. */
+    NEWS,
+    /** Symbol search. */
+    SEARCH,
+    /** Refresh-ahead, stale-entry refreshes and scheduled quote refreshes. */
+    BACKGROUND;
+
+    /**
+     * The priority of a foreground load of {@code cacheKey}, by its namespace.
+     */
+    public static UpstreamPriority forCacheKey(String cacheKey) {
+        return switch (MarketDataCache.namespaceOf(cacheKey)) {
+            case "quote" -> INTERACTIVE;
+            case "historical" -> HISTORY;
+            case "news", "fundamentals" -> NEWS;
+            case "search" -> SEARCH;
+            default -> BACKGROUND;
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.stockpilot.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps outbound calls within each provider's request budget: one
+ * {@link TokenBucket} per provider, configured by
+ * {@link RateLimitProperties}. Every upstream call takes a token first, so
+ * throttling is avoided instead of discovered through provider errors.
+ *
+ * <p>When the budget runs out, requests queue by {@link UpstreamPriority}
+ * and each class waits at most its {@code max-wait}. A burst of background
+ * refreshes therefore delays itself, not the interactive quotes behind it,
+ * and is what gets shed when the queue fills up.</p>
+ */
+@Component
+public class UpstreamRateLimiter {
+
+    private final RateLimitProperties properties;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public UpstreamRateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Waits for a token to call {@code provider}.
+     *
+     * @throws RateLimitedException if the request was shed
+     */
+    public void acquire(MarketDataProvider provider, UpstreamPriority priority) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Duration maxWait = properties.getMaxWait().getOrDefault(priority, Duration.ZERO);
+        try {
+            if (!bucketOf(provider).acquire(priority, maxWait.toNanos())) {
+                throw new RateLimitedException("Request budget of " + provider.getProviderName()
+                        + " exhausted, " + priority.name().toLowerCase() + " request shed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MarketDataException("Interrupted waiting for " + provider.getProviderName(), e);
+        }
+    }
+
+    /**
+     * Takes a token to call {@code provider} only if one is free right now.
+     */
+    public boolean tryAcquire(MarketDataProvider provider, UpstreamPriority priority) {
+        return !properties.isEnabled() || bucketOf(provider).tryAcquire(priority);
+    }
+
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        buckets.forEach((name, bucket) -> result.put(name, bucket.snapshot()));
+        return result;
+    }
+
+    private TokenBucket bucketOf(MarketDataProvider provider) {
+        return buckets.computeIfAbsent(key(provider.getProviderName()), name -> {
+            RateLimitProperties.Budget budget = properties.getProviders().get(name);
+            return budget != null
+                    ? new TokenBucket(budget.getPermitsPerSecond(), budget.getBurst(), properties.getMaxQueue())
+                    : new TokenBucket(properties.getPermitsPerSecond(), properties.getBurst(), properties.getMaxQueue());
+        });
+    }
+
+    /**
+     * {@code Yahoo Finance} becomes {@code yahoo-finance}, the form used in
+     * property keys.
+     */
+    static String key(String providerName) {
+        return providerName.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+    }
+}
@@ -1,230 +1,190 @@
 ﻿package com.stockpilot.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stockpilot.domain.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
-import java.math.BigDecimal;
-import java.time.Instant;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Component
-public class YahooFinanceProvider implements MarketDataProvider {
+@Order(0)
+@ConditionalOnProperty(prefix = "stockpilot.providers.yahoo", name = "enabled", matchIfMissing = true)
+public class YahooFinanceProvider implements MarketDataProvider, AutoCloseable {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Logger log = LoggerFactory.getLogger(YahooFinanceProvider.class);
+
+    private final PooledHttpClient http;
+    private final YahooResponseParser parser = new YahooResponseParser();
+
+    // The v7 multi-symbol endpoint sometimes rejects anonymous requests; when it
+    // does we stop trying it for a while and let callers fetch symbols one by one.
+    private static final long BATCH_RETRY_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private volatile long batchDisabledUntil = System.nanoTime();
+
+    public YahooFinanceProvider(HttpClientProperties properties, MarketDataExecutors executors,
+                                MeterRegistry registry) {
+        this.http = new PooledHttpClient("Yahoo Finance", properties, executors.newIoExecutor("yahoo-http-"), registry);
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        http.close();
+    }
 
     @Override
     public List<StockSearchResult> searchSymbols(String query) {
-        List<StockSearchResult> results = new ArrayList<>();
-        
-        try {
-            String url = String.format(
-                "https://query2.finance.yahoo.com/v1/finance/search?q=%s&quotesCount=10&newsCount=0",
-                query
-            );
-            
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
-            JsonNode quotes = root.path("quotes");
-            
-            for (JsonNode quote : quotes) {
-                StockSearchResult result = new StockSearchResult();
-                result.setSymbol(quote.path("symbol").asText());
-                result.setName(quote.path("shortname").asText());
-                result.setExchange(quote.path("exchange").asText());
-                result.setType(quote.path("quoteType").asText());
-                results.add(result);
-            }
-        } catch (Exception e) {
-            System.err.println("Yahoo Finance search error: " + e.getMessage());
-        }
+        return await(searchSymbolsAsync(query));
+    }
+
+    @Override
+    public CompletableFuture<List<StockSearchResult>> searchSymbolsAsync(String query) {
+        String url = String.format(
+            "https://query2.finance.yahoo.com/v1/finance/search?q=%s&quotesCount=10&newsCount=0",
+            query
+        );
         
-        return results;
+        return request(url, parser::parseSearch, "search", ArrayList::new);
     }
 
     @Override
     public StockQuote getQuote(String symbol) {
-        try {
-            String url = String.format(
-                "https://query2.finance.yahoo.com/v8/finance/chart/%s?interval=1d&range=1d",
-                symbol
-            );
-            
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
-            JsonNode result = root.path("chart").path("result").get(0);
-            JsonNode meta = result.path("meta");
-            JsonNode quote = result.path("indicators").path("quote").get(0);
-            
-            StockQuote stockQuote = new StockQuote();
-            stockQuote.setSymbol(symbol);
-            stockQuote.setName(meta.path("longName").asText(symbol));
-            stockQuote.setExchange(meta.path("exchangeName").asText());
-            
-            BigDecimal currentPrice = new BigDecimal(meta.path("regularMarketPrice").asText());
-            BigDecimal previousClose = new BigDecimal(meta.path("previousClose").asText());
-            
-            stockQuote.setPrice(currentPrice);
-            stockQuote.setPreviousClose(previousClose);
-            stockQuote.setChange(currentPrice.subtract(previousClose));
-            stockQuote.setChangePercent(
-                currentPrice.subtract(previousClose)
-                    .divide(previousClose, 4, BigDecimal.ROUND_HALF_UP)
-                    .multiply(new BigDecimal("100"))
-            );
-            
-            stockQuote.setOpen(new BigDecimal(meta.path("regularMarketOpen").asText("0")));
-            stockQuote.setHigh(new BigDecimal(meta.path("regularMarketDayHigh").asText("0")));
-            stockQuote.setLow(new BigDecimal(meta.path("regularMarketDayLow").asText("0")));
-            stockQuote.setVolume(meta.path("regularMarketVolume").asLong(0));
-            stockQuote.setTimestamp(LocalDateTime.now());
-            
-            return stockQuote;
-        } catch (Exception e) {
-            System.err.println("Yahoo Finance quote error: " + e.getMessage());
-            return null;
+        return await(getQuoteAsync(symbol));
+    }
+
+    @Override
+    public CompletableFuture<StockQuote> getQuoteAsync(String symbol) {
+        String url = String.format(
+            "https://query2.finance.yahoo.com/v8/finance/chart/%s?interval=1d&range=1d",
+            symbol
+        );
+        
+        return request(url, body -> parser.parseChartQuote(body, symbol), "quote", () -> null);
+    }
+
+    @Override
+    public Map<String, StockQuote> getQuotes(Collection<String> symbols) {
+        return await(getQuotesAsync(symbols));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, StockQuote>> getQuotesAsync(Collection<String> symbols) {
+        if (symbols.isEmpty() || System.nanoTime() - batchDisabledUntil < 0) {
+            return CompletableFuture.completedFuture(new LinkedHashMap<>());
         }
+        
+        String url = String.format(
+            "https://query1.finance.yahoo.com/v7/finance/quote?symbols=%s",
+            String.join(",", symbols)
+        );
+        
+        return http.getAsync(url, "quotes", parser::parseQuotes).handle((quotes, error) -> {
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                if (cause instanceof MarketDataException e) {
+                    throw e;
+                }
+                log.warn("Yahoo Finance batch quote error: {}", cause.getMessage());
+                return new LinkedHashMap<>();
+            }
+            if (quotes == null) {
+                batchDisabledUntil = System.nanoTime() + BATCH_RETRY_NANOS;
+                return new LinkedHashMap<>();
+            }
+            return quotes;
+        });
     }
 
     @Override
     public List<HistoricalPrice> getHistoricalData(String symbol, String range) {
-        List<HistoricalPrice> prices = new ArrayList<>();
+        return getPriceSeries(symbol, range).toHistoricalPrices();
+    }
+
+    @Override
+    public PriceSeries getPriceSeries(String symbol, String range) {
+        return await(getPriceSeriesAsync(symbol, range));
+    }
+
+    @Override
+    public CompletableFuture<PriceSeries> getPriceSeriesAsync(String symbol, String range) {
+        String url = String.format(
+            "https://query2.finance.yahoo.com/v8/finance/chart/%s?interval=1d&range=%s",
+            symbol, yahooRange(range)
+        );
         
-        try {
-            String url = String.format(
-                "https://query2.finance.yahoo.com/v8/finance/chart/%s?interval=1d&range=%s",
-                symbol, range.toLowerCase()
-            );
-            
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
-            JsonNode result = root.path("chart").path("result").get(0);
-            JsonNode timestamps = result.path("timestamp");
-            JsonNode quote = result.path("indicators").path("quote").get(0);
-            
-            JsonNode opens = quote.path("open");
-            JsonNode highs = quote.path("high");
-            JsonNode lows = quote.path("low");
-            JsonNode closes = quote.path("close");
-            JsonNode volumes = quote.path("volume");
-            
-            for (int i = 0; i < timestamps.size(); i++) {
-                long timestamp = timestamps.get(i).asLong();
-                LocalDate date = Instant.ofEpochSecond(timestamp)
-                    .atZone(ZoneId.systemDefault())
-                    .toLocalDate();
-                
-                HistoricalPrice price = new HistoricalPrice();
-                price.setDate(date);
-                price.setOpen(getBigDecimal(opens, i));
-                price.setHigh(getBigDecimal(highs, i));
-                price.setLow(getBigDecimal(lows, i));
-                price.setClose(getBigDecimal(closes, i));
-                price.setVolume(volumes.get(i).asLong(0));
-                
-                prices.add(price);
-            }
-        } catch (Exception e) {
-            System.err.println("Yahoo Finance historical error: " + e.getMessage());
+        return request(url, parser::parseChart, "historical", () -> PriceSeries.EMPTY);
+    }
+
+    @Override
+    public PriceSeries getPriceSeries(String symbol, LocalDate from, LocalDate to) {
+        return await(getPriceSeriesAsync(symbol, from, to));
+    }
+
+    @Override
+    public CompletableFuture<PriceSeries> getPriceSeriesAsync(String symbol, LocalDate from, LocalDate to) {
+        if (from.isBefore(LocalDate.EPOCH)) {
+            return getPriceSeriesAsync(symbol, "max").thenApply(series -> series.before(to.toEpochDay() + 1));
         }
+        String url = String.format(
+            "https://query2.finance.yahoo.com/v8/finance/chart/%s?interval=1d&period1=%d&period2=%d",
+            symbol, from.atStartOfDay(ZoneOffset.UTC).toEpochSecond(),
+            to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toEpochSecond()
+        );
         
-        return prices;
+        return request(url, parser::parseChart, "historical", () -> PriceSeries.EMPTY);
     }
 
     @Override
     public StockFundamentals getFundamentals(String symbol) {
-        try {
-            String url = String.format(
-                "https://query2.finance.yahoo.com/v10/finance/quoteSummary/%s?modules=summaryDetail,price,defaultKeyStatistics,assetProfile",
-                symbol
-            );
-            
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
-            JsonNode result = root.path("quoteSummary").path("result").get(0);
-            
-            StockFundamentals fundamentals = new StockFundamentals();
-            fundamentals.setSymbol(symbol);
-            
-            JsonNode price = result.path("price");
-            fundamentals.setName(price.path("longName").asText(symbol));
-            
-            JsonNode summaryDetail = result.path("summaryDetail");
-            fundamentals.setMarketCap(getBigDecimalFromRaw(summaryDetail.path("marketCap")));
-            fundamentals.setPeRatio(getBigDecimalFromRaw(summaryDetail.path("trailingPE")));
-            fundamentals.setDividendYield(getBigDecimalFromRaw(summaryDetail.path("dividendYield")));
-            fundamentals.setBeta(getBigDecimalFromRaw(summaryDetail.path("beta")));
-            fundamentals.setFiftyTwoWeekHigh(getBigDecimalFromRaw(summaryDetail.path("fiftyTwoWeekHigh")));
-            fundamentals.setFiftyTwoWeekLow(getBigDecimalFromRaw(summaryDetail.path("fiftyTwoWeekLow")));
-            
-            JsonNode keyStats = result.path("defaultKeyStatistics");
-            fundamentals.setEps(getBigDecimalFromRaw(keyStats.path("trailingEps")));
-            
-            JsonNode assetProfile = result.path("assetProfile");
-            fundamentals.setSector(assetProfile.path("sector").asText());
-            fundamentals.setIndustry(assetProfile.path("industry").asText());
-            fundamentals.setDescription(assetProfile.path("longBusinessSummary").asText());
-            
-            return fundamentals;
-        } catch (Exception e) {
-            System.err.println("Yahoo Finance fundamentals error: " + e.getMessage());
-            return null;
-        }
+        return await(getFundamentalsAsync(symbol));
     }
 
     @Override
-    public List<NewsArticle> getNews(String symbol, int limit) {
-        List<NewsArticle> articles = new ArrayList<>();
+    public CompletableFuture<StockFundamentals> getFundamentalsAsync(String symbol) {
+        String url = String.format(
+            "https://query2.finance.yahoo.com/v10/finance/quoteSummary/%s?modules=summaryDetail,price,defaultKeyStatistics,assetProfile",
+            symbol
+        );
         
-        try {
-            String url = String.format(
-                "https://query2.finance.yahoo.com/v1/finance/search?q=%s&quotesCount=0&newsCount=%d",
-                symbol, limit
-            );
-            
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
-            JsonNode news = root.path("news");
-            
-            for (JsonNode item : news) {
-                NewsArticle article = new NewsArticle();
-                article.setTitle(item.path("title").asText());
-                article.setSummary(item.path("summary").asText());
-                article.setUrl(item.path("link").asText());
-                article.setSource(item.path("publisher").asText());
-                
-                long timestamp = item.path("providerPublishTime").asLong();
-                article.setPublishedAt(
-                    LocalDateTime.ofInstant(Instant.ofEpochSecond(timestamp), ZoneId.systemDefault())
-                );
-                
-                JsonNode thumbnail = item.path("thumbnail");
-                if (!thumbnail.isMissingNode()) {
-                    article.setImageUrl(thumbnail.path("resolutions").get(0).path("url").asText());
-                }
-                
-                articles.add(article);
-            }
-        } catch (Exception e) {
-            System.err.println("Yahoo Finance news error: " + e.getMessage());
-        }
+        return request(url, body -> parser.parseFundamentals(body, symbol), "fundamentals", () -> null);
+    }
+
+    @Override
+    public List<NewsArticle> getNews(String symbol, int limit) {
+        return await(getNewsAsync(symbol, limit));
+    }
+
+    @Override
+    public CompletableFuture<List<NewsArticle>> getNewsAsync(String symbol, int limit) {
+        String url = String.format(
+            "https://query2.finance.yahoo.com/v1/finance/search?q=%s&quotesCount=0&newsCount=%d",
+            symbol, limit
+        );
         
-        return articles;
+        return request(url, parser::parseNews, "news", ArrayList::new);
     }
 
     @Override
     public boolean isAvailable() {
         try {
             String url = "https://query2.finance.yahoo.com/v1/finance/search?q=AAPL&quotesCount=1";
-            restTemplate.getForObject(url, String.class);
-            return true;
+            return http.get(url, body -> Boolean.TRUE) != null;
         } catch (Exception e) {
             return false;
         }
@@ -235,22 +195,65 @@ public class YahooFinanceProvider implements MarketDataProvider {
         return "Yahoo Finance";
     }
 
-    private BigDecimal getBigDecimal(JsonNode array, int index) {
-        JsonNode node = array.get(index);
-        if (node == null || node.isNull()) {
-            return BigDecimal.ZERO;
-        }
-        return new BigDecimal(node.asText("0"));
+    /**
+     * Maps our range codes (1D, 5D, 1M, 6M, 1Y, 5Y) onto Yahoo's, where months
+     * are "mo" and a bare "m" means minutes. Yahoo-style values pass through.
+     */
+    static String yahooRange(String range) {
+        String lower = range.toLowerCase();
+        return lower.endsWith("m") ? lower + "o" : lower;
     }
 
-    private BigDecimal getBigDecimalFromRaw(JsonNode node) {
-        if (node.isMissingNode() || node.isNull()) {
-            return null;
-        }
-        JsonNode raw = node.path("raw");
-        if (raw.isMissingNode()) {
-            return null;
+    /**
+     * GETs {@code url} and streams the body into {@code bodyParser}. When Yahoo
+     * has no data, or the response cannot be used, the future completes with
+     * {@code fallback}; when Yahoo itself failed it completes with
+     * {@link MarketDataException}, so that only real outages count against
+     * provider health.
+     */
+    private <T> CompletableFuture<T> request(String url, PooledHttpClient.BodyParser<T> bodyParser,
+                                             String operation, Supplier<T> fallback) {
+        CompletableFuture<T> response = http.getAsync(url, operation, bodyParser);
+        CompletableFuture<T> handled = response.handle((result, error) -> {
+            if (error == null) {
+                return result != null ? result : fallback.get();
+            }
+            Throwable cause = unwrap(error);
+            if (cause instanceof MarketDataException e) {
+                throw e;
+            }
+            log.warn("Yahoo Finance {} error: {}", operation, cause.getMessage());
+            return fallback.get();
+        });
+        // A caller that gives up on the result also gives up the HTTP exchange
+        handled.whenComplete((result, error) -> {
+            if (handled.isCancelled()) {
+                response.cancel(true);
+            }
+        });
+        return handled;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Waits for {@code future}. An interrupted caller, such as a hedged call
+     * that lost, cancels it rather than waiting it out.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new MarketDataException("Yahoo Finance request interrupted", e);
         }
-        return new BigDecimal(raw.asText("0"));
     }
 }
@@ -0,0 +1,485 @@
+package com.stockpilot.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.stockpilot.domain.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming parsers for Yahoo Finance responses.
+ *
+ * <p>Each method reads the response body token by token with a Jackson
+ * {@link JsonParser} and decodes only the fields we use, so no intermediate
+ * String or {@code JsonNode} tree is built. Chart arrays are decoded straight
+ * into primitive columns. Fields the parsers do not know about are skipped,
+ * so field order in the payload does not matter.</p>
+ */
+public class YahooResponseParser {
+
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    private final JsonFactory jsonFactory;
+
+    /**
+     * Uses Jackson's fast double parser: chart prices arrive with up to 17
+     * significant digits, which the JDK parser handles on a slow path.
+     */
+    public YahooResponseParser() {
+        this(JsonFactory.builder().enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER).build());
+    }
+
+    public YahooResponseParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    public List<StockSearchResult> parseSearch(InputStream body) throws IOException {
+        List<StockSearchResult> results = new ArrayList<>();
+        try (JsonParser parser = open(body)) {
+            readObject(parser, (name, p) -> {
+                if (!"quotes".equals(name)) {
+                    p.skipChildren();
+                    return;
+                }
+                readArray(p, item -> {
+                    Map<String, String> fields = readScalars(item);
+                    StockSearchResult result = new StockSearchResult();
+                    result.setSymbol(fields.getOrDefault("symbol", ""));
+                    result.setName(fields.getOrDefault("shortname", ""));
+                    result.setExchange(fields.getOrDefault("exchange", ""));
+                    result.setType(fields.getOrDefault("quoteType", ""));
+                    results.add(result);
+                });
+            });
+        }
+        return results;
+    }
+
+    /**
+     * Builds a quote from the {@code meta} block of a v8 chart response.
+     * Returns null when the response carries no market price.
+     */
+    public StockQuote parseChartQuote(InputStream body, String symbol) throws IOException {
+        Map<String, String> meta = new HashMap<>();
+        try (JsonParser parser = open(body)) {
+            readChartResult(parser, (name, p) -> {
+                if ("meta".equals(name)) {
+                    meta.putAll(readScalars(p));
+                } else {
+                    p.skipChildren();
+                }
+            });
+        }
+        if (!meta.containsKey("regularMarketPrice") || !meta.containsKey("previousClose")) {
+            return null;
+        }
+
+        StockQuote stockQuote = new StockQuote();
+        stockQuote.setSymbol(symbol);
+        stockQuote.setName(meta.getOrDefault("longName", symbol));
+        stockQuote.setExchange(meta.getOrDefault("exchangeName", ""));
+        fillPrices(stockQuote, meta.get("regularMarketPrice"), meta.get("previousClose"));
+        stockQuote.setOpen(decimal(meta.get("regularMarketOpen")));
+        stockQuote.setHigh(decimal(meta.get("regularMarketDayHigh")));
+        stockQuote.setLow(decimal(meta.get("regularMarketDayLow")));
+        stockQuote.setVolume(longValue(meta.get("regularMarketVolume")));
+        stockQuote.setTimestamp(LocalDateTime.now());
+        return stockQuote;
+    }
+
+    /**
+     * Parses a v7 multi-symbol quote response, keyed by symbol.
+     */
+    public Map<String, StockQuote> parseQuotes(InputStream body) throws IOException {
+        Map<String, StockQuote> quotes = new LinkedHashMap<>();
+        try (JsonParser parser = open(body)) {
+            readObject(parser, (name, p) -> {
+                if (!"quoteResponse".equals(name)) {
+                    p.skipChildren();
+                    return;
+                }
+                readObject(p, (field, r) -> {
+                    if (!"result".equals(field)) {
+                        r.skipChildren();
+                        return;
+                    }
+                    readArray(r, item -> {
+                        Map<String, String> fields = readScalars(item);
+                        String symbol = fields.get("symbol");
+                        if (symbol == null || symbol.isEmpty() || !fields.containsKey("regularMarketPrice")) {
+                            return;
+                        }
+                        StockQuote stockQuote = new StockQuote();
+                        stockQuote.setSymbol(symbol);
+                        stockQuote.setName(fields.getOrDefault("longName", fields.getOrDefault("shortName", symbol)));
+                        stockQuote.setExchange(fields.getOrDefault("exchange", ""));
+                        fillPrices(stockQuote, fields.get("regularMarketPrice"),
+                                fields.getOrDefault("regularMarketPreviousClose", "0"));
+                        stockQuote.setOpen(decimal(fields.get("regularMarketOpen")));
+                        stockQuote.setHigh(decimal(fields.get("regularMarketDayHigh")));
+                        stockQuote.setLow(decimal(fields.get("regularMarketDayLow")));
+                        stockQuote.setVolume(longValue(fields.get("regularMarketVolume")));
+                        stockQuote.setTimestamp(LocalDateTime.now());
+                        quotes.put(symbol, stockQuote);
+                    });
+                });
+            });
+        }
+        return quotes;
+    }
+
+    /**
+     * Decodes the timestamp and OHLCV arrays of a v8 chart response in one pass,
+     * straight into a columnar {@link PriceSeries}. Timestamps are mapped to
+     * calendar days in the server's time zone.
+     */
+    public PriceSeries parseChart(InputStream body) throws IOException {
+        LongColumn timestamps = new LongColumn();
+        DoubleColumn open = new DoubleColumn();
+        DoubleColumn high = new DoubleColumn();
+        DoubleColumn low = new DoubleColumn();
+        DoubleColumn close = new DoubleColumn();
+        LongColumn volume = new LongColumn();
+
+        try (JsonParser parser = open(body)) {
+            readChartResult(parser, (name, p) -> {
+                switch (name) {
+                    case "timestamp" -> readLongs(p, timestamps);
+                    case "indicators" -> readObject(p, (indicator, q) -> {
+                        if (!"quote".equals(indicator)) {
+                            q.skipChildren();
+                            return;
+                        }
+                        readFirst(q, first -> readObject(first, (column, c) -> {
+                            switch (column) {
+                                case "open" -> readDoubles(c, open);
+                                case "high" -> readDoubles(c, high);
+                                case "low" -> readDoubles(c, low);
+                                case "close" -> readDoubles(c, close);
+                                case "volume" -> readLongs(c, volume);
+                                default -> c.skipChildren();
+                            }
+                        }));
+                    });
+                    default -> p.skipChildren();
+                }
+            });
+        }
+
+        int size = timestamps.size;
+        long[] epochDays = timestamps.toArray(size);
+        ZoneRules zone = ZoneId.systemDefault().getRules();
+        for (int i = 0; i < size; i++) {
+            long seconds = epochDays[i];
+            int offset = zone.getOffset(Instant.ofEpochSecond(seconds)).getTotalSeconds();
+            epochDays[i] = Math.floorDiv(seconds + offset, SECONDS_PER_DAY);
+        }
+        return new PriceSeries(epochDays, open.toArray(size), high.toArray(size),
+                low.toArray(size), close.toArray(size), volume.toArray(size));
+    }
+
+    /**
+     * Parses a v10 quoteSummary response. Returns null when it has no result.
+     */
+    public StockFundamentals parseFundamentals(InputStream body, String symbol) throws IOException {
+        StockFundamentals fundamentals = new StockFundamentals();
+        fundamentals.setSymbol(symbol);
+        fundamentals.setName(symbol);
+        boolean[] found = new boolean[1];
+
+        try (JsonParser parser = open(body)) {
+            readObject(parser, (name, p) -> {
+                if (!"quoteSummary".equals(name)) {
+                    p.skipChildren();
+                    return;
+                }
+                readObject(p, (field, r) -> {
+                    if (!"result".equals(field)) {
+                        r.skipChildren();
+                        return;
+                    }
+                    readFirst(r, result -> {
+                        found[0] = true;
+                        readObject(result, (module, m) -> {
+                            switch (module) {
+                                case "price" -> {
+                                    String longName = readScalars(m).get("longName");
+                                    if (longName != null) {
+                                        fundamentals.setName(longName);
+                                    }
+                                }
+                                case "summaryDetail" -> {
+                                    Map<String, String> raw = readRawValues(m);
+                                    fundamentals.setMarketCap(rawDecimal(raw, "marketCap"));
+                                    fundamentals.setPeRatio(rawDecimal(raw, "trailingPE"));
+                                    fundamentals.setDividendYield(rawDecimal(raw, "dividendYield"));
+                                    fundamentals.setBeta(rawDecimal(raw, "beta"));
+                                    fundamentals.setFiftyTwoWeekHigh(rawDecimal(raw, "fiftyTwoWeekHigh"));
+                                    fundamentals.setFiftyTwoWeekLow(rawDecimal(raw, "fiftyTwoWeekLow"));
+                                }
+                                case "defaultKeyStatistics" ->
+                                        fundamentals.setEps(rawDecimal(readRawValues(m), "trailingEps"));
+                                case "assetProfile" -> {
+                                    Map<String, String> profile = readScalars(m);
+                                    fundamentals.setSector(profile.getOrDefault("sector", ""));
+                                    fundamentals.setIndustry(profile.getOrDefault("industry", ""));
+                                    fundamentals.setDescription(profile.getOrDefault("longBusinessSummary", ""));
+                                }
+                                default -> m.skipChildren();
+                            }
+                        });
+                    });
+                });
+            });
+        }
+        return found[0] ? fundamentals : null;
+    }
+
+    public List<NewsArticle> parseNews(InputStream body) throws IOException {
+        List<NewsArticle> articles = new ArrayList<>();
+        ZoneId zone = ZoneId.systemDefault();
+        try (JsonParser parser = open(body)) {
+            readObject(parser, (name, p) -> {
+                if (!"news".equals(name)) {
+                    p.skipChildren();
+                    return;
+                }
+                readArray(p, item -> {
+                    NewsArticle article = new NewsArticle();
+                    String[] imageUrl = new String[1];
+                    Map<String, String> fields = new HashMap<>();
+                    readObject(item, (field, f) -> {
+                        if ("thumbnail".equals(field)) {
+                            readObject(f, (thumbField, t) -> {
+                                if ("resolutions".equals(thumbField)) {
+                                    readFirst(t, resolution -> imageUrl[0] = readScalars(resolution).getOrDefault("url", ""));
+                                } else {
+                                    t.skipChildren();
+                                }
+                            });
+                        } else if (f.currentToken().isScalarValue()) {
+                            fields.put(field, f.getText());
+                        } else {
+                            f.skipChildren();
+                        }
+                    });
+                    article.setTitle(fields.getOrDefault("title", ""));
+                    article.setSummary(fields.getOrDefault("summary", ""));
+                    article.setUrl(fields.getOrDefault("link", ""));
+                    article.setSource(fields.getOrDefault("publisher", ""));
+                    article.setPublishedAt(LocalDateTime.ofInstant(
+                            Instant.ofEpochSecond(longValue(fields.get("providerPublishTime"))), zone));
+                    article.setImageUrl(imageUrl[0]);
+                    articles.add(article);
+                });
+            });
+        }
+        return articles;
+    }
+
+    private JsonParser open(InputStream body) throws IOException {
+        JsonParser parser = jsonFactory.createParser(body);
+        parser.nextToken();
+        return parser;
+    }
+
+    /**
+     * Visits the fields of {@code chart.result[0]}.
+     */
+    private static void readChartResult(JsonParser parser, FieldVisitor visitor) throws IOException {
+        readObject(parser, (name, p) -> {
+            if (!"chart".equals(name)) {
+                p.skipChildren();
+                return;
+            }
+            readObject(p, (field, r) -> {
+                if ("result".equals(field)) {
+                    readFirst(r, result -> readObject(result, visitor));
+                } else {
+                    r.skipChildren();
+                }
+            });
+        });
+    }
+
+    // --- token-level helpers; each is entered on the value's first token and
+    // --- leaves the parser on the value's last token.
+
+    @FunctionalInterface
+    private interface FieldVisitor {
+        void visit(String name, JsonParser parser) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ElementVisitor {
+        void visit(JsonParser parser) throws IOException;
+    }
+
+    private static void readObject(JsonParser parser, FieldVisitor visitor) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            visitor.visit(name, parser);
+        }
+    }
+
+    private static void readArray(JsonParser parser, ElementVisitor visitor) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            visitor.visit(parser);
+        }
+    }
+
+    private static void readFirst(JsonParser parser, ElementVisitor visitor) throws IOException {
+        boolean[] first = {true};
+        readArray(parser, element -> {
+            if (first[0]) {
+                first[0] = false;
+                visitor.visit(element);
+            } else {
+                element.skipChildren();
+            }
+        });
+    }
+
+    /**
+     * Collects the scalar fields of an object as text, skipping nested values.
+     */
+    private static Map<String, String> readScalars(JsonParser parser) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        readObject(parser, (name, p) -> {
+            JsonToken token = p.currentToken();
+            if (token.isScalarValue()) {
+                if (token != JsonToken.VALUE_NULL) {
+                    fields.put(name, p.getText());
+                }
+            } else {
+                p.skipChildren();
+            }
+        });
+        return fields;
+    }
+
+    /**
+     * Collects {@code field.raw} for every field of a quoteSummary module.
+     */
+    private static Map<String, String> readRawValues(JsonParser parser) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        readObject(parser, (name, p) -> {
+            if (p.currentToken() == JsonToken.START_OBJECT) {
+                String raw = readScalars(p).get("raw");
+                if (raw != null) {
+                    values.put(name, raw);
+                }
+            } else {
+                p.skipChildren();
+            }
+        });
+        return values;
+    }
+
+    private static void readDoubles(JsonParser parser, DoubleColumn column) throws IOException {
+        readArray(parser, p -> column.add(p.currentToken() == JsonToken.VALUE_NULL ? Double.NaN : p.getDoubleValue()));
+    }
+
+    private static void readLongs(JsonParser parser, LongColumn column) throws IOException {
+        readArray(parser, p -> column.add(p.currentToken() == JsonToken.VALUE_NULL ? 0 : p.getLongValue()));
+    }
+
+    private static void fillPrices(StockQuote stockQuote, String price, String previous) {
+        BigDecimal currentPrice = new BigDecimal(price);
+        BigDecimal previousClose = new BigDecimal(previous);
+        stockQuote.setPrice(currentPrice);
+        stockQuote.setPreviousClose(previousClose);
+        stockQuote.setChange(currentPrice.subtract(previousClose));
+        if (previousClose.signum() != 0) {
+            stockQuote.setChangePercent(currentPrice.subtract(previousClose)
+                    .divide(previousClose, 4, RoundingMode.HALF_UP)
+                    .multiply(new BigDecimal("100")));
+        }
+    }
+
+    private static BigDecimal decimal(String text) {
+        return text == null ? BigDecimal.ZERO : new BigDecimal(text);
+    }
+
+    private static BigDecimal rawDecimal(Map<String, String> raw, String field) {
+        String value = raw.get(field);
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    private static long longValue(String text) {
+        if (text == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return (long) Double.parseDouble(text);
+        }
+    }
+
+    private static class DoubleColumn {
+        private double[] values = new double[256];
+        private int size;
+
+        void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * The first {@code length} values, padded with NaN if the column is short.
+         */
+        double[] toArray(int length) {
+            double[] array = Arrays.copyOf(values, length);
+            if (size < length) {
+                Arrays.fill(array, size, length, Double.NaN);
+            }
+            return array;
+        }
+    }
+
+    private static class LongColumn {
+        private long[] values = new long[256];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * The first {@code length} values, padded with zeros if the column is short.
+         */
+        long[] toArray(int length) {
+            return Arrays.copyOf(values, length);
+        }
+    }
+}
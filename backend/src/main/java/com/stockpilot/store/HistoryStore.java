@@ -0,0 +1,205 @@
+package com.stockpilot.store;
+
+import com.stockpilot.domain.PriceSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only store of completed daily bars, one file per symbol.
+ *
+ * <p>A file is a 16-byte header (magic, record size, and the earliest day
+ * that has been fetched for the symbol) followed by fixed-width 48-byte
+ * records: epoch day, open, high, low, close and volume. Files are read by
+ * mapping them with {@link FileChannel#map} and decoding the records straight
+ * into {@link PriceSeries} columns, and grow only by appending days that have
+ * ended. Today's bar is still moving, so it is always fetched and never stored.</p>
+ */
+@Component
+public class HistoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryStore.class);
+
+    private static final int MAGIC = 0x53504831; // "SPH1"
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 48;
+    private static final String SUFFIX = ".bars";
+
+    /**
+     * Fetches upstream bars dated {@code fromDay} (an epoch day) through today.
+     */
+    @FunctionalInterface
+    public interface Fetcher {
+        PriceSeries fetch(long fromDay);
+    }
+
+    private record Stored(long coveredFrom, PriceSeries bars) {}
+
+    private final boolean enabled;
+    private final Path directory;
+    // Held across the upstream fetch, so not a monitor: a virtual thread
+    // blocking inside synchronized would pin its carrier
+    private final ConcurrentMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    public HistoryStore(StoreProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.directory = properties.getDirectory();
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    /**
+     * Bars for {@code symbol} from {@code fromDay} through {@code today}. Stored
+     * days are read from disk and only the days after the last stored one are
+     * fetched; if the store does not reach back to {@code fromDay} yet, the
+     * whole span is fetched and the file rewritten. Newly completed days are
+     * persisted. Exceptions from {@code fetcher} propagate.
+     */
+    public PriceSeries load(String symbol, long fromDay, long today, Fetcher fetcher) {
+        String key = symbol.toUpperCase(Locale.ROOT);
+        ReentrantLock lock = locks.computeIfAbsent(key, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            Path file = fileFor(key);
+            Stored stored;
+            try {
+                stored = read(file);
+            } catch (IOException e) {
+                log.warn("History store read failed for {}: {}", key, e.getMessage());
+                stored = null;
+            }
+
+            if (stored == null || stored.coveredFrom() > fromDay) {
+                PriceSeries fetched = fetcher.fetch(fromDay);
+                if (!fetched.isEmpty()) {
+                    write(file, fromDay, fetched.before(today));
+                }
+                return fetched.since(fromDay);
+            }
+
+            PriceSeries bars = stored.bars();
+            long tailFrom = bars.isEmpty() ? stored.coveredFrom() : bars.lastDay() + 1;
+            PriceSeries tail = tailFrom <= today ? fetcher.fetch(tailFrom).since(tailFrom) : PriceSeries.EMPTY;
+            PriceSeries completed = tail.before(today);
+            if (!completed.isEmpty()) {
+                append(file, stored, completed);
+            }
+            return PriceSeries.concat(bars, tail).since(fromDay);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stored bars for {@code symbol}, or null if there are none.
+     */
+    public PriceSeries read(String symbol) {
+        try {
+            Stored stored = read(fileFor(symbol.toUpperCase(Locale.ROOT)));
+            return stored != null ? stored.bars() : null;
+        } catch (IOException e) {
+            log.warn("History store read failed for {}: {}", symbol, e.getMessage());
+            return null;
+        }
+    }
+
+    private Stored read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != RECORD_SIZE) {
+                throw new IOException("Not a history file: " + file);
+            }
+            long coveredFrom = buffer.getLong(8);
+
+            // A torn final record from an interrupted append is ignored
+            int count = (int) ((length - HEADER_SIZE) / RECORD_SIZE);
+            long[] epochDays = new long[count];
+            double[] open = new double[count];
+            double[] high = new double[count];
+            double[] low = new double[count];
+            double[] close = new double[count];
+            long[] volume = new long[count];
+            int position = HEADER_SIZE;
+            for (int i = 0; i < count; i++, position += RECORD_SIZE) {
+                epochDays[i] = buffer.getLong(position);
+                open[i] = buffer.getDouble(position + 8);
+                high[i] = buffer.getDouble(position + 16);
+                low[i] = buffer.getDouble(position + 24);
+                close[i] = buffer.getDouble(position + 32);
+                volume[i] = buffer.getLong(position + 40);
+            }
+            return new Stored(coveredFrom, new PriceSeries(epochDays, open, high, low, close, volume));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void append(Path file, Stored stored, PriceSeries bars) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            long end = HEADER_SIZE + (long) stored.bars().size() * RECORD_SIZE;
+            channel.truncate(end);
+            channel.position(end);
+            writeFully(channel, records(bars));
+        } catch (IOException e) {
+            log.warn("History store append failed for {}: {}", file.getFileName(), e.getMessage());
+        }
+    }
+
+    private void write(Path file, long coveredFrom, PriceSeries bars) {
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                        .putInt(MAGIC).putInt(RECORD_SIZE).putLong(coveredFrom).flip();
+                writeFully(channel, header);
+                writeFully(channel, records(bars));
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("History store write failed for {}: {}", file.getFileName(), e.getMessage());
+        }
+    }
+
+    private static ByteBuffer records(PriceSeries bars) {
+        ByteBuffer buffer = ByteBuffer.allocate(bars.size() * RECORD_SIZE);
+        for (int i = 0; i < bars.size(); i++) {
+            buffer.putLong(bars.epochDay(i))
+                    .putDouble(bars.open(i))
+                    .putDouble(bars.high(i))
+                    .putDouble(bars.low(i))
+                    .putDouble(bars.close(i))
+                    .putLong(bars.volume(i));
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private Path fileFor(String symbol) {
+        // Symbols like ^GSPC or BRK-B are kept readable; anything path-like is not
+        return directory.resolve(symbol.replaceAll("[^A-Z0-9.^=_-]", "_") + SUFFIX);
+    }
+}
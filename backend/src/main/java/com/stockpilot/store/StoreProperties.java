@@ -0,0 +1,21 @@
+package com.stockpilot.store;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * On-disk history store settings, bound from {@code stockpilot.store.*}.
+ */
+@ConfigurationProperties(prefix = "stockpilot.store")
+public class StoreProperties {
+
+    private boolean enabled = true;
+    private Path directory = Path.of("data", "history");
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Path getDirectory() { return directory; }
+    public void setDirectory(Path directory) { this.directory = directory; }
+}
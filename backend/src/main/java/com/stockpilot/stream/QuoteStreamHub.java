@@ -0,0 +1,361 @@
+package com.stockpilot.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpilot.domain.StockQuote;
+import com.stockpilot.service.MarketDataExecutors;
+import com.stockpilot.service.MarketDataService;
+import com.stockpilot.service.QuoteRefreshScheduler;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Live quotes for streaming clients. A client subscribes to a set of
+ * symbols and first receives the current quote for each. From then on the
+ * symbols are refreshed upstream by the {@link QuoteRefreshScheduler}, at a
+ * rate that follows their number of subscribers; each refreshed quote is
+ * compared with the previous one and only the fields that changed are sent
+ * to that symbol's subscribers. Upstream cost depends on the watched
+ * symbols, not the number of clients, and each change is serialized once
+ * whatever the number of subscribers.
+ *
+ * <p>Updates are written to clients off the scheduler thread, one writer per
+ * client at a time. Updates for a client that falls behind are merged per
+ * symbol, newest values winning, so a slow client holds at most one pending
+ * update per symbol it watches.</p>
+ */
+@Component
+public class QuoteStreamHub {
+
+    /**
+     * Where a subscriber's updates go: one JSON object per call. Throwing
+     * ends the subscription.
+     */
+    public interface Sink {
+        void send(String json) throws IOException;
+    }
+
+    private record Field(String name, Function<StockQuote, Object> value) {}
+
+    // Sent when they change; the timestamp goes along with any change
+    private static final List<Field> FIELDS = List.of(
+            new Field("name", StockQuote::getName),
+            new Field("price", StockQuote::getPrice),
+            new Field("change", StockQuote::getChange),
+            new Field("changePercent", StockQuote::getChangePercent),
+            new Field("volume", StockQuote::getVolume),
+            new Field("open", StockQuote::getOpen),
+            new Field("high", StockQuote::getHigh),
+            new Field("low", StockQuote::getLow),
+            new Field("previousClose", StockQuote::getPreviousClose),
+            new Field("exchange", StockQuote::getExchange));
+
+    private final MarketDataService marketDataService;
+    private final QuoteRefreshScheduler scheduler;
+    private final Executor delivery;
+    private final StreamProperties properties;
+    private final ObjectMapper mapper;
+    private final ConcurrentMap<String, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    @Autowired
+    public QuoteStreamHub(MarketDataService marketDataService, QuoteRefreshScheduler scheduler,
+                          MarketDataExecutors executors, StreamProperties properties, ObjectMapper mapper) {
+        this(marketDataService, scheduler, executors.newIoExecutor("quote-stream-"), properties, mapper);
+    }
+
+    QuoteStreamHub(MarketDataService marketDataService, QuoteRefreshScheduler scheduler, Executor delivery,
+                   StreamProperties properties, ObjectMapper mapper) {
+        this.marketDataService = marketDataService;
+        this.scheduler = scheduler;
+        this.delivery = delivery;
+        this.properties = properties;
+        this.mapper = mapper;
+        scheduler.addListener(this::publish);
+    }
+
+    /**
+     * Subscribes {@code sink} to {@code symbols}.
+     *
+     * @throws IllegalArgumentException if there are no symbols or more than
+     *         {@code max-symbols} of them
+     * @throws IllegalStateException if {@code max-subscribers} clients are
+     *         already subscribed
+     */
+    public Subscription subscribe(Collection<String> symbols, Sink sink) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String symbol : symbols) {
+            if (!symbol.isBlank()) {
+                normalized.add(symbol.trim().toUpperCase());
+            }
+        }
+        if (normalized.isEmpty() || normalized.size() > properties.getMaxSymbols()) {
+            throw new IllegalArgumentException("Between 1 and " + properties.getMaxSymbols() + " symbols required");
+        }
+        if (subscriberCount.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many streaming clients");
+        }
+
+        Subscription subscription = new Subscription(normalized, sink);
+        for (String symbol : normalized) {
+            channels.compute(symbol, (key, channel) -> {
+                Channel joined = channel != null ? channel : new Channel();
+                if (joined.subscribers.add(subscription)) {
+                    scheduler.addSubscriber(key);
+                }
+                return joined;
+            });
+        }
+
+        // The first quote of a symbol nobody watched yet comes from the cache, like any other read
+        List<String> unknown = normalized.stream().filter(symbol -> channelLast(symbol) == null).toList();
+        Map<String, StockQuote> loaded;
+        try {
+            loaded = unknown.isEmpty() ? Map.of() : marketDataService.getQuotes(unknown);
+        } catch (RuntimeException e) {
+            subscription.close();
+            throw e;
+        }
+        for (String symbol : normalized) {
+            Channel channel = channels.get(symbol);
+            if (channel == null) {
+                continue;
+            }
+            if (channel.last == null) {
+                channel.last = loaded.get(symbol);
+            }
+            StockQuote current = channel.last;
+            if (current != null) {
+                subscription.offer(new Update(symbol, changes(null, current), null));
+            }
+        }
+        return subscription;
+    }
+
+    /**
+     * Sends what changed in freshly fetched {@code quotes} to the subscribers
+     * of each symbol.
+     */
+    private void publish(Map<String, StockQuote> quotes) {
+        quotes.forEach((symbol, quote) -> {
+            Channel channel = channels.get(symbol);
+            if (channel == null || quote == null) {
+                return;
+            }
+            Map<String, Object> changes = changes(channel.last, quote);
+            // Set before fanning out, so a client subscribing meanwhile either
+            // starts from this quote or is sent this update
+            channel.last = quote;
+            if (changes.isEmpty()) {
+                return;
+            }
+            Update update = new Update(symbol, changes, toJson(changes));
+            for (Subscription subscription : channel.subscribers) {
+                subscription.offer(update);
+            }
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public Set<String> getWatchedSymbols() {
+        return Set.copyOf(channels.keySet());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (delivery instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The fields of {@code current} that differ from {@code previous}, led by
+     * the symbol; all of them when there is no previous quote, and none when
+     * nothing changed.
+     */
+    static Map<String, Object> changes(StockQuote previous, StockQuote current) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        for (Field field : FIELDS) {
+            Object value = field.value().apply(current);
+            if (value != null && (previous == null || !same(field.value().apply(previous), value))) {
+                changes.put(field.name(), value);
+            }
+        }
+        if (changes.isEmpty()) {
+            return changes;
+        }
+        Map<String, Object> update = new LinkedHashMap<>();
+        update.put("symbol", current.getSymbol());
+        update.putAll(changes);
+        if (current.getTimestamp() != null) {
+            update.put("timestamp", current.getTimestamp());
+        }
+        return update;
+    }
+
+    private static boolean same(Object previous, Object current) {
+        if (previous instanceof BigDecimal a && current instanceof BigDecimal b) {
+            return a.compareTo(b) == 0;
+        }
+        return Objects.equals(previous, current);
+    }
+
+    private StockQuote channelLast(String symbol) {
+        Channel channel = channels.get(symbol);
+        return channel != null ? channel.last : null;
+    }
+
+    private String toJson(Map<String, Object> fields) {
+        try {
+            return mapper.writeValueAsString(fields);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize quote update", e);
+        }
+    }
+
+    private void leave(Subscription subscription) {
+        for (String symbol : subscription.symbols) {
+            channels.computeIfPresent(symbol, (key, channel) -> {
+                if (channel.subscribers.remove(subscription)) {
+                    scheduler.removeSubscriber(key);
+                }
+                return channel.subscribers.isEmpty() ? null : channel;
+            });
+        }
+        subscriberCount.decrementAndGet();
+    }
+
+    /**
+     * A watched symbol: its subscribers and the quote they were last sent.
+     */
+    private static final class Channel {
+        final Set<Subscription> subscribers = ConcurrentHashMap.newKeySet();
+        volatile StockQuote last;
+    }
+
+    /**
+     * Changed fields of one symbol. {@code json} is shared by every
+     * subscriber; a merged update has none and is serialized when sent.
+     */
+    private record Update(String symbol, Map<String, Object> fields, String json) {
+
+        Update then(Update newer) {
+            Map<String, Object> merged = new LinkedHashMap<>(fields);
+            merged.putAll(newer.fields);
+            return new Update(symbol, merged, null);
+        }
+    }
+
+    /**
+     * One client's subscription. Closing it stops its updates and frees its
+     * place; it is closed automatically when its sink fails.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final Set<String> symbols;
+        private final Sink sink;
+        // ReentrantLock rather than synchronized so virtual threads do not pin
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Update> pending = new LinkedHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscription(Set<String> symbols, Sink sink) {
+            this.symbols = symbols;
+            this.sink = sink;
+        }
+
+        public Set<String> getSymbols() {
+            return Collections.unmodifiableSet(symbols);
+        }
+
+        public boolean isClosed() {
+            return closed.get();
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                leave(this);
+            }
+        }
+
+        private void offer(Update update) {
+            if (closed.get()) {
+                return;
+            }
+            lock.lock();
+            try {
+                pending.merge(update.symbol(), update, Update::then);
+            } finally {
+                lock.unlock();
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    delivery.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    close();
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                for (Update update : takePending()) {
+                    if (closed.get()) {
+                        return;
+                    }
+                    try {
+                        sink.send(update.json() != null ? update.json() : toJson(update.fields()));
+                    } catch (IOException | RuntimeException e) {
+                        close();
+                        return;
+                    }
+                }
+                draining.set(false);
+                // An offer that found us still draining left its update for us
+                if (!hasPending() || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        private List<Update> takePending() {
+            lock.lock();
+            try {
+                List<Update> updates = new ArrayList<>(pending.values());
+                pending.clear();
+                return updates;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean hasPending() {
+            lock.lock();
+            try {
+                return !pending.isEmpty();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
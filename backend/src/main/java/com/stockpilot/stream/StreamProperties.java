@@ -0,0 +1,27 @@
+package com.stockpilot.stream;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Live quote streaming settings, bound from {@code stockpilot.stream.*}.
+ * How often streamed symbols are refreshed is up to
+ * {@code stockpilot.refresh.*}.
+ */
+@ConfigurationProperties(prefix = "stockpilot.stream")
+public class StreamProperties {
+
+    private int maxSymbols = 50;
+    private int maxSubscribers = 10_000;
+    private Duration timeout = Duration.ofMinutes(30);
+
+    public int getMaxSymbols() { return maxSymbols; }
+    public void setMaxSymbols(int maxSymbols) { this.maxSymbols = maxSymbols; }
+
+    public int getMaxSubscribers() { return maxSubscribers; }
+    public void setMaxSubscribers(int maxSubscribers) { this.maxSubscribers = maxSubscribers; }
+
+    public Duration getTimeout() { return timeout; }
+    public void setTimeout(Duration timeout) { this.timeout = timeout; }
+}
@@ -0,0 +1,105 @@
+package com.stockpilot.cache;
+
+import com.stockpilot.domain.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheSnapshotterTest {
+
+    @TempDir
+    Path directory;
+
+    private CacheProperties properties;
+    private MarketDataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CacheProperties();
+        CacheProperties.Namespace quote = new CacheProperties.Namespace();
+        quote.setTtl(Duration.ofMinutes(1));
+        quote.setStaleTtl(Duration.ofMinutes(1));
+        properties.getNamespaces().put("quote", quote);
+        properties.getSnapshot().setFile(directory.resolve("cache.snapshot"));
+        cache = new MarketDataCache(properties);
+    }
+
+    @Test
+    void testEntriesSurviveARestart() {
+        StockQuote quote = new StockQuote("AAPL", "Apple Inc.", new BigDecimal("190.12"));
+        quote.setTimestamp(LocalDateTime.of(2024, 1, 2, 15, 30));
+        PriceSeries bars = new PriceSeries(new long[]{19_000, 19_001, 19_004},
+                new double[]{1, 2, 3}, new double[]{2, 3, 4}, new double[]{0.5, 1.5, 2.5},
+                new double[]{1.5, 2.5, 3.5}, new long[]{100, 200, 300});
+        cache.put("quote:AAPL", quote);
+        cache.put("historical:AAPL", new PriceHistory(18_990, bars));
+        cache.put("search:app", List.of(new StockSearchResult("AAPL", "Apple Inc.", "NMS")));
+        cache.put("news:AAPL:5", List.of(new NewsArticle("Title", "Summary", "https://example.com")));
+        cache.put("unsupported:key", new Object());
+        cache.getEntry("quote:AAPL");
+        cache.getEntry("quote:AAPL");
+        new CacheSnapshotter(cache, properties).save();
+
+        MarketDataCache restarted = new MarketDataCache(properties);
+        new CacheSnapshotter(restarted, properties).restore();
+
+        CacheEntry restoredQuote = restarted.peekEntry("quote:AAPL");
+        assertEquals(new BigDecimal("190.12"), ((StockQuote) restoredQuote.getData()).getPrice());
+        assertEquals(quote.getTimestamp(), ((StockQuote) restoredQuote.getData()).getTimestamp());
+        assertEquals(2, restoredQuote.getHits());
+        assertTrue(restoredQuote.isFresh());
+
+        PriceHistory history = (PriceHistory) restarted.get("historical:AAPL");
+        assertEquals(18_990, history.getCoveredFrom());
+        assertEquals(19_004, history.getSeries().lastDay());
+        assertArrayEquals(bars.closes(), history.getSeries().closes());
+        assertEquals(300, history.getSeries().volume(2));
+
+        List<?> results = assertInstanceOf(List.class, restarted.get("search:app"));
+        assertEquals("AAPL", assertInstanceOf(StockSearchResult.class, results.get(0)).getSymbol());
+        List<?> articles = assertInstanceOf(List.class, restarted.get("news:AAPL:5"));
+        assertEquals("Title", assertInstanceOf(NewsArticle.class, articles.get(0)).getTitle());
+        assertNull(restarted.get("unsupported:key"));
+    }
+
+    @Test
+    void testEntriesKeepTheirAge() {
+        cache.put("quote:AAPL", new StockQuote("AAPL", "Apple Inc.", BigDecimal.ONE));
+        cache.put("fundamentals:AAPL", new StockFundamentals());
+        new CacheSnapshotter(cache, properties).save();
+
+        MarketDataCache restarted = new MarketDataCache(properties);
+        Clock later = Clock.offset(Clock.systemUTC(), Duration.ofSeconds(90));
+        new CacheSnapshotter(restarted, properties, later).restore();
+
+        // The quote is past its ttl but within its stale ttl; fundamentals are still fresh
+        assertFalse(restarted.peekEntry("quote:AAPL").isFresh());
+        assertTrue(restarted.peekEntry("fundamentals:AAPL").isFresh());
+
+        MarketDataCache muchLater = new MarketDataCache(properties);
+        new CacheSnapshotter(muchLater, properties, Clock.offset(Clock.systemUTC(), Duration.ofMinutes(3))).restore();
+        assertNull(muchLater.peekEntry("quote:AAPL"));
+        assertNotNull(muchLater.peekEntry("fundamentals:AAPL"));
+    }
+
+    @Test
+    void testUnreadableSnapshotIsIgnored() throws Exception {
+        Files.write(properties.getSnapshot().getFile(), new byte[]{1, 2, 3});
+        cache.put("quote:AAPL", new StockQuote("AAPL", "Apple Inc.", BigDecimal.ONE));
+
+        new CacheSnapshotter(cache, properties).restore();
+
+        assertNotNull(cache.get("quote:AAPL"));
+        assertEquals(1L, cache.stats().get("quote").get("entries"));
+    }
+}
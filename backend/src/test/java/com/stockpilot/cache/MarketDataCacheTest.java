@@ -0,0 +1,87 @@
+package com.stockpilot.cache;
+
+import com.stockpilot.domain.StockQuote;
+import com.stockpilot.domain.StockSearchResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataCacheTest {
+
+    private MarketDataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        CacheProperties properties = new CacheProperties();
+        CacheProperties.Namespace search = new CacheProperties.Namespace();
+        search.setMaxWeight(DataSize.ofKilobytes(8));
+        properties.getNamespaces().put("search", search);
+        cache = new MarketDataCache(properties);
+    }
+
+    @Test
+    void testPutAndGet() {
+        StockQuote quote = new StockQuote("AAPL", "Apple Inc.", new BigDecimal("190.12"));
+        cache.put("quote:AAPL", quote);
+
+        assertSame(quote, cache.get("quote:AAPL"));
+        assertNull(cache.get("quote:MSFT"));
+    }
+
+    @Test
+    void testNamespaceOf() {
+        assertEquals("quote", MarketDataCache.namespaceOf("quote:AAPL"));
+        assertEquals("historical", MarketDataCache.namespaceOf("historical:AAPL:1Y"));
+        assertEquals("default", MarketDataCache.namespaceOf("nocolon"));
+    }
+
+    @Test
+    void testSearchFloodDoesNotEvictQuotes() {
+        cache.put("quote:AAPL", new StockQuote("AAPL", "Apple Inc.", new BigDecimal("190.12")));
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("search:query" + i, List.of(new StockSearchResult("SYM" + i, "Company " + i, "NMS")));
+        }
+        cache.cleanUp();
+
+        Map<String, Object> searchStats = cache.stats().get("search");
+        assertTrue((Long) searchStats.get("weightBytes") <= DataSize.ofKilobytes(8).toBytes());
+        assertTrue((Long) searchStats.get("entries") < 1_000);
+        assertNotNull(cache.get("quote:AAPL"));
+    }
+
+    @Test
+    void testInvalidate() {
+        cache.put("news:AAPL:10", List.of());
+        cache.invalidate("news:AAPL:10");
+
+        assertNull(cache.get("news:AAPL:10"));
+    }
+
+    @Test
+    void testNamespacesReportMetrics() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        cache.put("quote:AAPL", new StockQuote("AAPL", "Apple Inc.", new BigDecimal("190.12")));
+        cache.bindTo(registry);
+        cache.put("news:AAPL:10", List.of());
+
+        cache.get("quote:AAPL");
+        cache.get("quote:MSFT");
+        cache.peekEntry("quote:GOOG");
+        cache.get("news:AAPL:10");
+
+        assertEquals(1, registry.get("cache.gets").tags("namespace", "quote", "result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("namespace", "quote", "result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("namespace", "news", "result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.size").tags("namespace", "quote").gauge().value());
+        assertTrue(registry.get("stockpilot.cache.weight").tags("namespace", "quote").gauge().value() > 0);
+    }
+}
@@ -0,0 +1,123 @@
+package com.stockpilot.cache;
+
+import com.stockpilot.domain.PriceHistory;
+import com.stockpilot.domain.PriceSeries;
+import com.stockpilot.domain.StockQuote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedCacheTierTest {
+
+    private CacheProperties properties;
+    private InMemorySharedCacheStore store;
+    private MarketDataCache replicaA;
+    private MarketDataCache replicaB;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CacheProperties();
+        properties.getL2().setPollInterval(Duration.ofMillis(5));
+        store = new InMemorySharedCacheStore();
+        replicaA = new MarketDataCache(properties, store, Runnable::run);
+        replicaB = new MarketDataCache(properties, store, Runnable::run);
+    }
+
+    @Test
+    void testReplicasShareEntries() {
+        PriceSeries bars = new PriceSeries(new long[]{19_000, 19_001},
+                new double[]{1, 2}, new double[]{2, 3}, new double[]{0.5, 1.5},
+                new double[]{1.5, 2.5}, new long[]{100, 200});
+        replicaA.put("quote:AAPL", new StockQuote("AAPL", "Apple Inc.", new BigDecimal("190.12")));
+        replicaA.put("historical:AAPL", new PriceHistory(18_990, bars));
+
+        CacheEntry quote = replicaB.getEntry("quote:AAPL");
+        assertEquals(new BigDecimal("190.12"), ((StockQuote) quote.getData()).getPrice());
+        assertTrue(quote.isFresh());
+        assertSame(quote, replicaB.peekEntry("quote:AAPL"));
+        assertArrayEquals(bars.closes(), ((PriceHistory) replicaB.get("historical:AAPL")).getSeries().closes());
+        assertEquals(2L, replicaB.sharedStats().get("hits"));
+    }
+
+    @Test
+    void testWritesInvalidateOtherReplicas() {
+        replicaA.put("quote:AAPL", new StockQuote("AAPL", "Apple Inc.", BigDecimal.ONE));
+        assertNotNull(replicaB.get("quote:AAPL"));
+
+        replicaA.put("quote:AAPL", new StockQuote("AAPL", "Apple Inc.", BigDecimal.TEN));
+        assertNull(replicaB.peekEntry("quote:AAPL"));
+        assertEquals(BigDecimal.TEN, ((StockQuote) replicaB.get("quote:AAPL")).getPrice());
+
+        replicaB.invalidate("quote:AAPL");
+        assertNull(replicaA.peekEntry("quote:AAPL"));
+        assertNull(replicaA.get("quote:AAPL"));
+    }
+
+    @Test
+    void testOnlyOneReplicaLoadsAKey() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<StockQuote> leader = CompletableFuture.supplyAsync(() ->
+                replicaA.loadShared("quote:AAPL", null, () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    await(release);
+                    StockQuote quote = new StockQuote("AAPL", "Apple Inc.", BigDecimal.ONE);
+                    replicaA.put("quote:AAPL", quote);
+                    return quote;
+                }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<StockQuote> follower = CompletableFuture.supplyAsync(() ->
+                replicaB.loadShared("quote:AAPL", null, () -> {
+                    loads.incrementAndGet();
+                    return new StockQuote("AAPL", "Apple Inc.", BigDecimal.TEN);
+                }));
+        Thread.sleep(50);
+        release.countDown();
+
+        assertEquals(BigDecimal.ONE, leader.get(5, TimeUnit.SECONDS).getPrice());
+        assertEquals(BigDecimal.ONE, follower.get(5, TimeUnit.SECONDS).getPrice());
+        assertEquals(1, loads.get());
+        assertEquals(1L, replicaB.sharedStats().get("loadedElsewhere"));
+        assertNotNull(replicaB.peekEntry("quote:AAPL"));
+    }
+
+    @Test
+    void testUnreachableStoreFallsBackToLocal() {
+        SharedCacheStore down = new InMemorySharedCacheStore() {
+            @Override
+            public byte[] get(String key) { throw new IllegalStateException("down"); }
+
+            @Override
+            public void set(String key, byte[] value, Duration ttl) { throw new IllegalStateException("down"); }
+
+            @Override
+            public boolean tryLock(String key, String token, Duration ttl) { throw new IllegalStateException("down"); }
+        };
+        MarketDataCache cache = new MarketDataCache(properties, down, Runnable::run);
+
+        cache.put("quote:AAPL", new StockQuote("AAPL", "Apple Inc.", BigDecimal.ONE));
+        assertNotNull(cache.get("quote:AAPL"));
+        assertNull(cache.get("quote:MSFT"));
+        assertEquals("loaded", cache.loadShared("quote:MSFT", null, () -> "loaded"));
+        assertEquals(3L, cache.sharedStats().get("errors"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.stockpilot.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarPricesTest {
+
+    @Test
+    void testColumnsDecodeBackToTheSeries() {
+        PriceSeries series = new PriceSeries(new long[]{19_723, 19_724, 19_727},
+                new double[]{185.5, 186.25, 184.0}, new double[]{187.0, 188.125, 186.5},
+                new double[]{184.75, 185.0, 183.25}, new double[]{186.1234, 187.3, 185.0},
+                new long[]{1_000, 2_000, 3_000});
+
+        ColumnarPrices prices = ColumnarPrices.of(series);
+
+        assertEquals(LocalDate.ofEpochDay(19_723).toString(), prices.getFirstDate());
+        assertEquals(10_000, prices.getPriceScale());
+        assertArrayEquals(new int[]{0, 1, 3}, prices.getDayDeltas());
+        assertArrayEquals(new long[]{1_861_234, 11_766, -23_000}, prices.getClose());
+        assertArrayEquals(new long[]{1_000, 2_000, 3_000}, prices.getVolume());
+
+        long close = 0;
+        long day = LocalDate.parse(prices.getFirstDate()).toEpochDay();
+        for (int i = 0; i < series.size(); i++) {
+            close += prices.getClose()[i];
+            day += prices.getDayDeltas()[i];
+            assertEquals(series.close(i), (double) close / prices.getPriceScale(), 1e-9);
+            assertEquals(series.epochDay(i), day);
+        }
+    }
+
+    @Test
+    void testSubCentPricesDecodeExactly() {
+        double[] close = {0.00001234, 0.00001301, 0.000009876};
+        PriceSeries series = new PriceSeries(new long[]{19_723, 19_724, 19_725},
+                close, close, close, close, new long[3]);
+
+        ColumnarPrices prices = ColumnarPrices.of(series);
+
+        assertEquals(1_000_000_000L, prices.getPriceScale());
+        long sum = 0;
+        for (int i = 0; i < close.length; i++) {
+            sum += prices.getClose()[i];
+            assertEquals(close[i], (double) sum / prices.getPriceScale());
+        }
+    }
+
+    @Test
+    void testMissingPricesAreZero() {
+        PriceSeries series = new PriceSeries(new long[]{19_723, 19_724},
+                new double[]{Double.NaN, 2}, new double[]{1, 2}, new double[]{1, 2},
+                new double[]{1, 2}, new long[]{0, 0});
+
+        assertArrayEquals(new long[]{0, 2}, ColumnarPrices.of(series).getOpen());
+        assertEquals(1, ColumnarPrices.of(series).getPriceScale());
+        assertNull(ColumnarPrices.of(PriceSeries.EMPTY).getFirstDate());
+        assertEquals(0, ColumnarPrices.of(PriceSeries.EMPTY).getClose().length);
+    }
+}
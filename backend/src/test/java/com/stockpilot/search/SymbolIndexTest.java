@@ -0,0 +1,97 @@
+package com.stockpilot.search;
+
+import com.stockpilot.domain.StockSearchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolIndexTest {
+
+    private static final String UNIVERSE = """
+            [
+              {"symbol": "AAPL", "name": "Apple Inc.", "exchange": "NMS"},
+              {"symbol": "MSFT", "name": "Microsoft Corporation", "exchange": "NMS"},
+              {"symbol": "AMZN", "name": "Amazon.com, Inc.", "exchange": "NMS"},
+              {"symbol": "AMD", "name": "Advanced Micro Devices, Inc.", "exchange": "NMS"},
+              {"symbol": "AMAT", "name": "Applied Materials, Inc.", "exchange": "NMS"}
+            ]
+            """;
+
+    @TempDir
+    Path directory;
+
+    private SearchProperties properties;
+    private SymbolIndex index;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SearchProperties();
+        properties.setUniverse(new ByteArrayResource(UNIVERSE.getBytes(StandardCharsets.UTF_8)));
+        properties.setLearnedFile(directory.resolve("learned.json"));
+        index = new SymbolIndex(properties);
+    }
+
+    @Test
+    void testPrefixQueriesAreAnsweredLocally() {
+        SymbolIndex.Match match = index.search("am");
+
+        assertTrue(match.confident());
+        assertEquals(List.of("AMZN", "AMD", "AMAT"), symbols(match));
+        assertEquals(List.of("AAPL", "AMAT"), symbols(index.search("ap")));
+        assertEquals("AMD", index.search("AMD").results().get(0).getSymbol());
+    }
+
+    @Test
+    void testNamesMatchByWordPrefix() {
+        assertEquals(List.of("MSFT", "AMD"), symbols(index.search("micro")));
+        assertEquals(List.of("AMD"), symbols(index.search("Micro Dev")));
+        assertFalse(index.search("micro inc").confident());
+    }
+
+    @Test
+    void testTyposFallBackToNearMatches() {
+        SymbolIndex.Match match = index.search("microsfot");
+
+        assertFalse(match.confident());
+        assertEquals("MSFT", match.results().get(0).getSymbol());
+        assertTrue(index.search("zzzz").results().isEmpty());
+    }
+
+    @Test
+    void testLearnedSymbolsAreIndexedAndKept() throws Exception {
+        assertFalse(index.search("rivn").confident());
+
+        index.learn(List.of(new StockSearchResult("RIVN", "Rivian Automotive, Inc.", "NMS"),
+                new StockSearchResult("AAPL", "Apple Inc.", "NMS")));
+
+        assertEquals(List.of("RIVN"), symbols(index.search("riv")));
+        assertEquals(1, index.stats().get("learned"));
+        index.save();
+        assertTrue(Files.readString(directory.resolve("learned.json")).contains("RIVN"));
+
+        SymbolIndex restarted = new SymbolIndex(properties);
+        assertTrue(restarted.search("rivian").confident());
+        assertEquals(6, restarted.stats().get("symbols"));
+    }
+
+    @Test
+    void testDisabledIndexDefersEverything() {
+        properties.setEnabled(false);
+        SymbolIndex disabled = new SymbolIndex(properties);
+
+        assertFalse(disabled.search("aapl").confident());
+        assertTrue(disabled.search("aapl").results().isEmpty());
+    }
+
+    private static List<String> symbols(SymbolIndex.Match match) {
+        return match.results().stream().map(StockSearchResult::getSymbol).toList();
+    }
+}
@@ -0,0 +1,110 @@
+package com.stockpilot.service;
+
+import com.stockpilot.domain.PriceSeries;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisEngineTest {
+
+    private final FinanceUtilsService financeUtils = new FinanceUtilsService();
+    private final AnalysisEngine engine = new AnalysisEngine(null, financeUtils, new AnalysisProperties());
+
+    @Test
+    void testDefaultsMatchSeparateComputations() {
+        PriceSeries series = series(0, 100, 120, 90, 110, 105, 130);
+
+        Map<String, Object> analysis = engine.analyze(series, null, AnalysisMetric.DEFAULTS);
+
+        assertEquals(financeUtils.computeVolatility(series), analysis.get("volatility"));
+        assertEquals(financeUtils.computeMaxDrawdown(series), analysis.get("maxDrawdown"));
+        assertEquals(financeUtils.computeReturns(series), analysis.get("returns"));
+        assertEquals("HIGH", analysis.get("riskLevel"));
+        assertEquals(6, analysis.get("dataPoints"));
+        assertFalse(analysis.containsKey("maxDrawdownPeakDate"));
+        assertFalse(analysis.containsKey("beta"));
+    }
+
+    @Test
+    void testDrawdownDatesOnRequest() {
+        PriceSeries series = series(0, 100, 120, 90, 110, 105, 130);
+
+        Map<String, Object> analysis = engine.analyze(series, null, AnalysisMetric.parse("maxDrawdownDates"));
+
+        assertEquals(LocalDate.ofEpochDay(1), analysis.get("maxDrawdownPeakDate"));
+        assertEquals(LocalDate.ofEpochDay(2), analysis.get("maxDrawdownTroughDate"));
+        assertFalse(analysis.containsKey("maxDrawdown"));
+    }
+
+    @Test
+    void testBetaAgainstBenchmarkOnSharedDays() {
+        double[] benchmarkClose = {100, 101, 99, 102, 100};
+        PriceSeries benchmark = new PriceSeries(new long[]{0, 1, 2, 4, 5},
+                benchmarkClose, benchmarkClose, benchmarkClose, benchmarkClose, new long[5]);
+        // Twice the benchmark's moves between shared days, plus a day 3 the benchmark lacks
+        double[] close = new double[6];
+        close[0] = 100;
+        close[1] = close[0] * (1 + 2 * (101.0 / 100 - 1));
+        close[2] = close[1] * (1 + 2 * (99.0 / 101 - 1));
+        close[3] = 50;
+        close[4] = close[2] * (1 + 2 * (102.0 / 99 - 1));
+        close[5] = close[4] * (1 + 2 * (100.0 / 102 - 1));
+        PriceSeries leveraged = new PriceSeries(new long[]{0, 1, 2, 3, 4, 5},
+                close, close, close, close, new long[6]);
+
+        Map<String, Object> analysis = engine.analyze(leveraged, benchmark, EnumSet.of(AnalysisMetric.BETA));
+
+        assertEquals(0, new BigDecimal("2.00").compareTo((BigDecimal) analysis.get("beta")));
+        assertEquals("SPY", analysis.get("benchmark"));
+        assertFalse(analysis.containsKey("volatility"));
+    }
+
+    @Test
+    void testRiskRatiosAndValueAtRisk() {
+        PriceSeries flat = series(0, 100, 100, 100, 100);
+        PriceSeries noisy = series(0, 100, 104, 99, 103, 98, 104);
+        Set<AnalysisMetric> all = AnalysisMetric.parse("all");
+
+        Map<String, Object> steady = engine.analyze(flat, null, all);
+        assertNull(steady.get("sharpe"));
+        assertNull(steady.get("sortino"));
+        assertEquals(0, BigDecimal.ZERO.compareTo((BigDecimal) steady.get("valueAtRisk")));
+        assertNull(steady.get("beta"));
+
+        Map<String, Object> noisyAnalysis = engine.analyze(noisy, null, all);
+        assertNotNull(noisyAnalysis.get("sharpe"));
+        assertTrue(((BigDecimal) noisyAnalysis.get("sortino")).compareTo((BigDecimal) noisyAnalysis.get("sharpe")) > 0);
+        assertTrue(((BigDecimal) noisyAnalysis.get("valueAtRisk")).signum() > 0);
+    }
+
+    @Test
+    void testResultsAreCachedPerSeriesInstanceAndMetricSet() {
+        PriceSeries series = series(0, 100, 120, 90);
+
+        Map<String, Object> first = engine.analyze(series, null, AnalysisMetric.parse("volatility,returns"));
+
+        assertSame(first, engine.analyze(series, null, AnalysisMetric.parse("RETURNS, volatility")));
+        assertNotSame(first, engine.analyze(series, null, AnalysisMetric.parse("returns")));
+        assertNotSame(first, engine.analyze(series(0, 100, 120, 90), null, AnalysisMetric.parse("volatility,returns")));
+    }
+
+    @Test
+    void testParseRejectsUnknownMetrics() {
+        assertEquals(AnalysisMetric.DEFAULTS, AnalysisMetric.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> AnalysisMetric.parse("volatility,alpha"));
+    }
+
+    private static PriceSeries series(long firstDay, double... close) {
+        long[] days = new long[close.length];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = firstDay + i;
+        }
+        return new PriceSeries(days, close, close, close, close, new long[close.length]);
+    }
+}
@@ -0,0 +1,93 @@
+package com.stockpilot.service;
+
+import com.stockpilot.domain.PriceSeries;
+import com.stockpilot.domain.StockQuote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileMarketDataProviderTest {
+
+    @TempDir
+    Path directory;
+
+    private FileMarketDataProvider provider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(directory.resolve("quotes"));
+        Files.createDirectories(directory.resolve("history"));
+        Files.writeString(directory.resolve("quotes/AAPL.json"), """
+                {"symbol": "AAPL", "name": "Apple Inc.", "price": 189.5,
+                 "timestamp": "2024-01-05T16:00:00", "somethingNew": true}
+                """);
+        Files.writeString(directory.resolve("history/AAPL.csv"), """
+                date,open,high,low,close,volume
+                2024-01-04,182.1,183.0,180.9,181.9,71983600
+                2024-01-02,187.1,188.4,183.9,185.6,82488700
+                2024-01-03,184.2,185.9,183.4,184.3,58414500
+                """);
+        Files.writeString(directory.resolve("symbols.json"), """
+                [{"symbol": "AAPL", "name": "Apple Inc.", "exchange": "NMS"},
+                 {"symbol": "MSFT", "name": "Microsoft Corporation", "exchange": "NMS"}]
+                """);
+
+        FileProviderProperties properties = new FileProviderProperties();
+        properties.setDirectory(directory);
+        provider = new FileMarketDataProvider(properties);
+    }
+
+    @Test
+    void testQuoteIsReadFromJson() {
+        StockQuote quote = provider.getQuote("aapl");
+
+        assertEquals("Apple Inc.", quote.getName());
+        assertEquals(0, new BigDecimal("189.5").compareTo(quote.getPrice()));
+        assertNull(provider.getQuote("MSFT"));
+    }
+
+    @Test
+    void testHistoryIsSortedAndCutToDates() {
+        PriceSeries series = provider.getPriceSeries("AAPL", LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 4));
+
+        assertEquals(2, series.size());
+        assertEquals(LocalDate.of(2024, 1, 3), series.date(0));
+        assertEquals(181.9, series.close(1), 1e-9);
+        assertEquals(71983600L, series.volume(1));
+        assertTrue(provider.getPriceSeries("MSFT", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)).isEmpty());
+    }
+
+    @Test
+    void testSearchMatchesSymbolOrName() {
+        assertEquals("MSFT", provider.searchSymbols("micro").get(0).getSymbol());
+        assertEquals(1, provider.searchSymbols("aap").size());
+        assertTrue(provider.searchSymbols("zzz").isEmpty());
+    }
+
+    @Test
+    void testInjectedErrorsFailCalls() {
+        FileProviderProperties properties = new FileProviderProperties();
+        properties.setDirectory(directory);
+        properties.setErrorRate(1.0);
+        FileMarketDataProvider failing = new FileMarketDataProvider(properties);
+
+        MarketDataException e = assertThrows(MarketDataException.class, () -> failing.getQuote("AAPL"));
+        assertEquals("Injected failure", e.getMessage());
+    }
+
+    @Test
+    void testMalformedFileIsAFailure() throws IOException {
+        Files.writeString(directory.resolve("history/BAD.csv"), "date,open,high,low,close,volume\nyesterday,1,2,3,4,5\n");
+
+        assertThrows(MarketDataException.class,
+                () -> provider.getPriceSeries("BAD", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)));
+    }
+}
@@ -1,6 +1,7 @@
 package com.stockpilot.service;
 
 import com.stockpilot.domain.HistoricalPrice;
+import com.stockpilot.domain.PriceSeries;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 
@@ -69,6 +70,17 @@ class FinanceUtilsServiceTest {
         assertTrue(maxDrawdown.compareTo(BigDecimal.ZERO) >= 0);
     }
 
+    @Test
+    void testSeriesAnalyticsSkipMissingCloses() {
+        double[] close = {100, 120, Double.NaN, 90, 110};
+        PriceSeries series = new PriceSeries(new long[]{1, 2, 3, 4, 5}, close, close, close, close, new long[5]);
+
+        assertEquals(new BigDecimal("25.0000"), financeUtils.computeMaxDrawdown(series));
+        assertEquals(new BigDecimal("10.0000"), financeUtils.computeReturns(series));
+        assertTrue(financeUtils.computeVolatility(series).compareTo(BigDecimal.ZERO) > 0);
+        assertEquals(BigDecimal.ZERO, financeUtils.computeVolatility(PriceSeries.EMPTY));
+    }
+
     @Test
     void testClassifyRisk() {
         assertEquals("LOW", financeUtils.classifyRisk(new BigDecimal("10")));
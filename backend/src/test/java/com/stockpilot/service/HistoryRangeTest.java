@@ -0,0 +1,22 @@
+package com.stockpilot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryRangeTest {
+
+    @Test
+    void testCoveringPicksTheShortestRangeReachingBack() {
+        LocalDate today = LocalDate.of(2024, 6, 14);
+
+        assertEquals("1M", HistoryRange.covering(today.minusDays(3), today));
+        assertEquals("1M", HistoryRange.covering(today.minusMonths(1), today));
+        assertEquals("3M", HistoryRange.covering(today.minusMonths(1).minusDays(1), today));
+        assertEquals("2Y", HistoryRange.covering(today.minusMonths(13), today));
+        assertEquals("MAX", HistoryRange.covering(today.minusYears(11), today));
+        assertEquals("MAX", HistoryRange.covering(HistoryRange.MAX_START, today));
+    }
+}
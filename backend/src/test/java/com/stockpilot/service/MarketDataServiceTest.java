@@ -0,0 +1,292 @@
+package com.stockpilot.service;
+
+import com.stockpilot.cache.CacheProperties;
+import com.stockpilot.cache.InMemorySharedCacheStore;
+import com.stockpilot.cache.MarketDataCache;
+import com.stockpilot.cache.SharedCacheStore;
+import com.stockpilot.domain.*;
+import com.stockpilot.search.SearchProperties;
+import com.stockpilot.search.SymbolIndex;
+import com.stockpilot.store.HistoryStore;
+import com.stockpilot.store.StoreProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataServiceTest {
+
+    private StubProvider provider;
+    private MarketDataExecutors executors;
+    private MarketDataService service;
+
+    @TempDir
+    Path storeDirectory;
+
+    @BeforeEach
+    void setUp() {
+        CacheProperties properties = new CacheProperties();
+        CacheProperties.Namespace quote = new CacheProperties.Namespace();
+        quote.setTtl(Duration.ofMillis(50));
+        quote.setStaleTtl(Duration.ofMinutes(1));
+        properties.getNamespaces().put("quote", quote);
+
+        provider = new StubProvider();
+        executors = new MarketDataExecutors();
+        service = newService(properties, true);
+    }
+
+    private MarketDataService newService(CacheProperties properties, boolean store) {
+        return newService(new MarketDataCache(properties), store);
+    }
+
+    private MarketDataService newService(MarketDataCache cache, boolean store) {
+        StoreProperties storeProperties = new StoreProperties();
+        storeProperties.setDirectory(storeDirectory);
+        storeProperties.setEnabled(store);
+        RateLimitProperties limits = new RateLimitProperties();
+        limits.setEnabled(false);
+        SearchProperties search = new SearchProperties();
+        search.setEnabled(false);
+        return new MarketDataService(List.of(provider), cache, executors,
+                new ProviderHealthRegistry(List.of(provider), new ProviderHealthProperties()),
+                new HistoryStore(storeProperties), new ProviderRoutingProperties(), new UpstreamRateLimiter(limits),
+                new SymbolIndex(search));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executors.shutdown();
+    }
+
+    @Test
+    void testCachedQuoteIsServedWithoutUpstreamCall() {
+        StockQuote first = service.getQuote("aapl");
+        StockQuote second = service.getQuote("AAPL");
+
+        assertSame(first, second);
+        assertEquals(1, provider.quoteCalls.get());
+    }
+
+    @Test
+    void testStaleQuoteIsServedWhileRefreshingInBackground() throws InterruptedException {
+        StockQuote first = service.getQuote("AAPL");
+        Thread.sleep(100);
+
+        StockQuote stale = service.getQuote("AAPL");
+        assertSame(first, stale);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (provider.quoteCalls.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, provider.quoteCalls.get());
+        while (service.getQuote("AAPL") == first && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotSame(first, service.getQuote("AAPL"));
+    }
+
+    @Test
+    void testBatchQuotesServeHitsAndBatchMisses() {
+        StockQuote cached = service.getQuote("AAPL");
+
+        Map<String, StockQuote> quotes = service.getQuotes(List.of("aapl", "MSFT", "GOOG", "MSFT", "MISSING"));
+
+        assertEquals(List.of("AAPL", "MSFT", "GOOG"), List.copyOf(quotes.keySet()));
+        assertSame(cached, quotes.get("AAPL"));
+        assertEquals(1, provider.batchCalls.get());
+        assertSame(quotes.get("MSFT"), service.getQuote("MSFT"));
+    }
+
+    @Test
+    void testReplicasTakeTurnsRefreshingQuotes() {
+        SharedCacheStore store = new InMemorySharedCacheStore();
+        ObjectProvider<SharedCacheStore> shared = new StaticListableBeanFactory(Map.of("store", store))
+                .getBeanProvider(SharedCacheStore.class);
+        MarketDataCache cacheA = new MarketDataCache(new CacheProperties(), shared);
+        MarketDataCache cacheB = new MarketDataCache(new CacheProperties(), shared);
+        MarketDataService replicaA = newService(cacheA, false);
+        MarketDataService replicaB = newService(cacheB, false);
+        Map<String, Duration> due = Map.of("AAPL", Duration.ofMinutes(1), "MSFT", Duration.ofMinutes(1));
+
+        Map<String, StockQuote> first = replicaA.refreshQuotes(due);
+        Map<String, StockQuote> second = replicaB.refreshQuotes(due);
+
+        assertEquals(1, provider.batchCalls.get());
+        assertEquals(Set.of("AAPL", "MSFT"), second.keySet());
+        assertEquals(first.get("AAPL").getPrice(), second.get("AAPL").getPrice());
+        assertEquals(first.get("MSFT").getPrice(), ((StockQuote) cacheB.peekEntry("quote:MSFT").getData()).getPrice());
+
+        // Past its interval the quote is fetched again
+        replicaB.refreshQuotes(Map.of("AAPL", Duration.ZERO));
+        assertEquals(2, provider.batchCalls.get());
+        cacheA.close();
+        cacheB.close();
+    }
+
+    @Test
+    void testRangesAreViewsOfOneHistory() {
+        PriceSeries month = service.getPriceSeries("AAPL", "1M");
+        PriceSeries week = service.getPriceSeries("aapl", "5D");
+
+        assertEquals(1, provider.historyFrom.size());
+        assertSame(month, service.getPriceSeries("AAPL", "1M"));
+        assertEquals(5, week.size());
+        assertEquals(month.lastDay(), week.lastDay());
+        assertSame(month.closes(), week.closes());
+
+        // The store widens in one request and keeps the wider span
+        PriceSeries year = service.getPriceSeries("AAPL", "1Y");
+        LocalDate today = LocalDate.now();
+        assertEquals(List.of(today.minusMonths(1), today.minusYears(1)), provider.historyFrom);
+        assertEquals(today.minusYears(1).toEpochDay(), year.firstDay());
+        assertEquals(today.toEpochDay(), year.lastDay());
+        assertEquals(month.size(), service.getPriceSeries("AAPL", "1M").size());
+
+        // After a restart only today's bar is fetched
+        PriceSeries restarted = newService(new CacheProperties(), true).getPriceSeries("AAPL", "1Y");
+        assertEquals(List.of(today.minusMonths(1), today.minusYears(1), today), provider.historyFrom);
+        assertEquals(year.size(), restarted.size());
+    }
+
+    @Test
+    void testWideningWithoutStoreFetchesOnlyTheMissingDays() {
+        MarketDataService service = newService(new CacheProperties(), false);
+        PriceSeries month = service.getPriceSeries("AAPL", "1M");
+
+        PriceSeries year = service.getPriceSeries("AAPL", "1Y");
+        LocalDate today = LocalDate.now();
+        assertEquals(List.of(today.minusMonths(1), today.minusYears(1), today), provider.historyFrom);
+        assertEquals(today.minusMonths(1).minusDays(1), provider.historyTo.get(1));
+        assertEquals(today.minusYears(1).toEpochDay(), year.firstDay());
+        assertEquals(today.toEpochDay(), year.lastDay());
+        assertEquals(month.size(), service.getPriceSeries("AAPL", "1M").size());
+    }
+
+    @Test
+    void testEmptyTailKeepsTheLastBar() {
+        MarketDataService service = newService(new CacheProperties(), false);
+        PriceSeries month = service.getPriceSeries("AAPL", "1M");
+        provider.emptyTail = true;
+
+        PriceSeries year = service.getPriceSeries("AAPL", "1Y");
+
+        assertEquals(LocalDate.now().minusYears(1).toEpochDay(), year.firstDay());
+        assertEquals(month.lastDay(), year.lastDay());
+        assertEquals(month.close(month.size() - 1), year.close(year.size() - 1));
+        assertEquals(month.size(), service.getPriceSeries("AAPL", "1M").size());
+    }
+
+    @Test
+    void testNoBarsBeforeListingStillCoverTheRange() {
+        LocalDate today = LocalDate.now();
+        provider.listed = today.minusMonths(4);
+        MarketDataService service = newService(new CacheProperties(), false);
+        service.getPriceSeries("NEW", "6M");
+
+        PriceSeries year = service.getPriceSeries("NEW", "1Y");
+        int fetches = provider.historyFrom.size();
+
+        assertEquals(provider.listed.toEpochDay(), year.firstDay());
+        assertSame(year, service.getPriceSeries("NEW", "1Y"));
+        assertEquals(fetches, provider.historyFrom.size());
+    }
+
+    static class StubProvider implements MarketDataProvider {
+        final AtomicInteger quoteCalls = new AtomicInteger();
+        final AtomicInteger batchCalls = new AtomicInteger();
+        final List<LocalDate> historyFrom = new CopyOnWriteArrayList<>();
+        final List<LocalDate> historyTo = new CopyOnWriteArrayList<>();
+        volatile String exchange;
+        // Answer fetches reaching today with no bars, as a provider does on errors
+        volatile boolean emptyTail;
+        // No bars before this day
+        volatile LocalDate listed = LocalDate.MIN;
+
+        @Override
+        public List<StockSearchResult> searchSymbols(String query) {
+            return List.of(new StockSearchResult(query.toUpperCase(), query, "NMS"));
+        }
+
+        @Override
+        public StockQuote getQuote(String symbol) {
+            if (symbol.equals("MISSING")) {
+                return null;
+            }
+            int call = quoteCalls.incrementAndGet();
+            StockQuote quote = new StockQuote(symbol, symbol + " Inc.", new BigDecimal(100 + call));
+            quote.setExchange(exchange);
+            return quote;
+        }
+
+        @Override
+        public Map<String, StockQuote> getQuotes(Collection<String> symbols) {
+            batchCalls.incrementAndGet();
+            return MarketDataProvider.super.getQuotes(symbols);
+        }
+
+        @Override
+        public List<HistoricalPrice> getHistoricalData(String symbol, String range) {
+            return List.of();
+        }
+
+        @Override
+        public PriceSeries getPriceSeries(String symbol, LocalDate from, LocalDate to) {
+            historyFrom.add(from);
+            historyTo.add(to);
+            if (emptyTail && to.equals(LocalDate.now())) {
+                return PriceSeries.EMPTY;
+            }
+            if (from.isBefore(listed)) {
+                from = listed;
+            }
+            if (from.isAfter(to)) {
+                return PriceSeries.EMPTY;
+            }
+            int size = (int) (to.toEpochDay() - from.toEpochDay() + 1);
+            long[] days = new long[size];
+            double[] close = new double[size];
+            for (int i = 0; i < size; i++) {
+                days[i] = from.toEpochDay() + i;
+                close[i] = 100 + i;
+            }
+            return new PriceSeries(days, close.clone(), close.clone(), close.clone(), close, new long[size]);
+        }
+
+        @Override
+        public StockFundamentals getFundamentals(String symbol) {
+            return null;
+        }
+
+        @Override
+        public List<NewsArticle> getNews(String symbol, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public String getProviderName() {
+            return "Stub";
+        }
+    }
+}
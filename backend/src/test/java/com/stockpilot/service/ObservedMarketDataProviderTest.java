@@ -0,0 +1,119 @@
+package com.stockpilot.service;
+
+import com.stockpilot.domain.StockQuote;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObservedMarketDataProviderTest {
+
+    private MeterRegistry meters;
+    private FlakyProvider delegate;
+    private ObservedMarketDataProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        meters = new SimpleMeterRegistry();
+        ObservationRegistry observations = ObservationRegistry.create();
+        observations.observationConfig().observationHandler(new DefaultMeterObservationHandler(meters));
+        delegate = new FlakyProvider();
+        provider = new ObservedMarketDataProvider(delegate, observations);
+    }
+
+    @Test
+    void testCallsAreTimedByOperationAndOutcome() {
+        provider.getQuote("AAPL");
+        provider.getQuote("AAPL");
+        provider.getQuote("MISSING");
+        provider.getNews("AAPL", 5);
+        assertThrows(MarketDataException.class, () -> provider.getQuote("FAIL"));
+
+        assertEquals(2, calls("quote", "success"));
+        assertEquals(1, calls("quote", "empty"));
+        assertEquals(1, calls("news", "empty"));
+        assertEquals(1, calls("quote", "error"));
+    }
+
+    @Test
+    void testAsyncCallsAreTimedUntilTheyComplete() {
+        CompletableFuture<StockQuote> pending = new CompletableFuture<>();
+        delegate.pending = pending;
+
+        CompletableFuture<StockQuote> returned = provider.getQuoteAsync("AAPL");
+        assertSame(pending, returned);
+        assertEquals(0, calls("quote", "cancelled"));
+
+        returned.cancel(true);
+        assertEquals(1, calls("quote", "cancelled"));
+        assertEquals(2, provider.getQuotesAsync(List.of("AAPL", "MSFT")).join().size());
+        assertEquals(1, calls("quotes", "success"));
+    }
+
+    @Test
+    void testInterruptedCallsAreCancelledNotFailed() throws InterruptedException {
+        Thread caller = new Thread(() -> assertThrows(MarketDataException.class, () -> provider.getQuote("SLOW")));
+        caller.start();
+        assertTrue(delegate.slowStarted.await(5, TimeUnit.SECONDS));
+
+        caller.interrupt();
+        caller.join(5_000);
+        assertEquals(1, calls("quote", "cancelled"));
+        assertEquals(0, calls("quote", "error"));
+    }
+
+    @Test
+    void testWrapperKeepsTheProviderIdentity() {
+        assertEquals("Stub", provider.getProviderName());
+        assertSame(delegate, provider.getDelegate());
+    }
+
+    private long calls(String operation, String outcome) {
+        Timer timer = meters.find(ObservedMarketDataProvider.OBSERVATION)
+                .tags("provider", "Stub", "operation", operation, "outcome", outcome)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    /**
+     * Fails quotes for FAIL, blocks on SLOW until interrupted, and hands out
+     * {@link #pending} for async quotes when it is set.
+     */
+    private static class FlakyProvider extends MarketDataServiceTest.StubProvider {
+        final CountDownLatch slowStarted = new CountDownLatch(1);
+        volatile CompletableFuture<StockQuote> pending;
+
+        @Override
+        public StockQuote getQuote(String symbol) {
+            if (symbol.equals("FAIL")) {
+                throw new MarketDataException("upstream down");
+            }
+            if (symbol.equals("SLOW")) {
+                slowStarted.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    // As the blocking providers do
+                    Thread.currentThread().interrupt();
+                    throw new MarketDataException("Interrupted", e);
+                }
+            }
+            return super.getQuote(symbol);
+        }
+
+        @Override
+        public CompletableFuture<StockQuote> getQuoteAsync(String symbol) {
+            return pending != null ? pending : super.getQuoteAsync(symbol);
+        }
+    }
+}
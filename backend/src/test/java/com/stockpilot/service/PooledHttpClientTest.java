@@ -0,0 +1,143 @@
+package com.stockpilot.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledHttpClientTest {
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private PooledHttpClient client;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/text", exchange -> respond(exchange, 200, "hello", false));
+        server.createContext("/gzip", exchange -> respond(exchange, 200, "compressed", true));
+        server.createContext("/missing", exchange -> respond(exchange, 404, "", false));
+        server.createContext("/broken", exchange -> respond(exchange, 503, "", false));
+        server.createContext("/slow", exchange -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            active.decrementAndGet();
+            respond(exchange, 200, "slow", false);
+        });
+        server.createContext("/stalled", exchange -> {
+            try {
+                Thread.sleep(2_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "late", false);
+        });
+        server.start();
+
+        HttpClientProperties properties = new HttpClientProperties();
+        properties.setRequestTimeout(Duration.ofMillis(500));
+        properties.setMaxRequestsPerHost(2);
+        client = new PooledHttpClient("Test", properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void testPlainAndGzipBodies() {
+        assertEquals("hello", client.get(url("/text"), PooledHttpClientTest::text));
+        assertEquals("compressed", client.get(url("/gzip"), PooledHttpClientTest::text));
+    }
+
+    @Test
+    void testClientErrorIsNoDataAndServerErrorIsFailure() {
+        assertNull(client.get(url("/missing"), PooledHttpClientTest::text));
+        MarketDataException e = assertThrows(MarketDataException.class,
+                () -> client.get(url("/broken"), PooledHttpClientTest::text));
+        assertTrue(e.getMessage().contains("503"));
+    }
+
+    @Test
+    void testStalledRequestTimesOut() {
+        assertThrows(MarketDataException.class, () -> client.get(url("/stalled"), PooledHttpClientTest::text));
+    }
+
+    @Test
+    void testConcurrentRequestsPerHostAreCapped() {
+        List<CompletableFuture<String>> requests = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            requests.add(client.getAsync(url("/slow"), PooledHttpClientTest::text));
+        }
+        for (CompletableFuture<String> request : requests) {
+            assertEquals("slow", request.join());
+        }
+        assertEquals(2, maxActive.get());
+    }
+
+    @Test
+    void testCancelledRequestsFreeTheirHostSlots() throws Exception {
+        List<CompletableFuture<String>> stalled = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            stalled.add(client.getAsync(url("/stalled"), PooledHttpClientTest::text));
+        }
+        stalled.forEach(request -> request.cancel(true));
+
+        // Well inside the 500 ms timeout that would otherwise free the slots
+        assertEquals("hello", client.getAsync(url("/text"), PooledHttpClientTest::text).get(300, TimeUnit.MILLISECONDS));
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static String text(InputStream body) throws IOException {
+        return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body, boolean gzip) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (gzip) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.stockpilot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceKernelsTest {
+
+    @Test
+    void testVolatilityMatchesTwoPassReference() {
+        Random random = new Random(7);
+        double[] close = new double[1_260];
+        close[0] = 100;
+        for (int i = 1; i < close.length; i++) {
+            close[i] = close[i - 1] * (1 + random.nextGaussian() * 0.02);
+        }
+
+        double[] returns = new double[close.length - 1];
+        double mean = 0;
+        for (int i = 1; i < close.length; i++) {
+            returns[i - 1] = (close[i] - close[i - 1]) / close[i - 1];
+            mean += returns[i - 1];
+        }
+        mean /= returns.length;
+        double variance = 0;
+        for (double ret : returns) {
+            variance += (ret - mean) * (ret - mean);
+        }
+        double expected = Math.sqrt(variance / returns.length) * Math.sqrt(252);
+
+        assertEquals(expected, PriceKernels.annualizedVolatility(close, 0, close.length), 1e-12);
+    }
+
+    @Test
+    void testVolatilitySkipsReturnsAroundMissingCloses() {
+        double[] withGap = {100, 110, Double.NaN, 0, 121, 133.1};
+        double[] steady = {121, 133.1};
+
+        assertEquals(0, PriceKernels.annualizedVolatility(withGap, 2, 5));
+        assertEquals(0, PriceKernels.annualizedVolatility(steady, 0, 2));
+        // Only 100 -> 110 and 121 -> 133.1 count: both +10%
+        assertEquals(0, PriceKernels.annualizedVolatility(withGap, 0, withGap.length), 1e-12);
+    }
+
+    @Test
+    void testMaxDrawdown() {
+        double[] close = {100, 120, 90, Double.NaN, 110, 60, 130};
+
+        assertEquals(0.5, PriceKernels.maxDrawdown(close, 0, close.length), 1e-12);
+        assertEquals(0.25, PriceKernels.maxDrawdown(close, 0, 5), 1e-12);
+        assertEquals(0, PriceKernels.maxDrawdown(close, 5, 7));
+    }
+
+    @Test
+    void testFirstAndLastPrice() {
+        double[] close = {Double.NaN, 0, 50, 51, Double.NaN};
+
+        assertEquals(2, PriceKernels.firstPrice(close, 0, close.length));
+        assertEquals(3, PriceKernels.lastPrice(close, 0, close.length));
+        assertEquals(-1, PriceKernels.firstPrice(close, 4, close.length));
+    }
+}
@@ -0,0 +1,62 @@
+package com.stockpilot.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderHealthRegistryTest {
+
+    private MarketDataServiceTest.StubProvider provider;
+    private ProviderHealthRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        ProviderHealthProperties properties = new ProviderHealthProperties();
+        properties.setFailureThreshold(3);
+        properties.setOpenDuration(Duration.ofMillis(20));
+        provider = new MarketDataServiceTest.StubProvider();
+        registry = new ProviderHealthRegistry(List.of(provider), properties);
+    }
+
+    @Test
+    void testCircuitOpensAfterConsecutiveFailures() {
+        for (int i = 0; i < 2; i++) {
+            registry.recordFailure(provider, 1_000_000, new MarketDataException("timeout"));
+        }
+        assertTrue(registry.allowRequest(provider));
+
+        registry.recordFailure(provider, 1_000_000, new MarketDataException("timeout"));
+
+        assertEquals(ProviderHealth.State.OPEN, registry.healthOf(provider).getState());
+        assertFalse(registry.allowRequest(provider));
+    }
+
+    @Test
+    void testSuccessResetsFailureCount() {
+        registry.recordFailure(provider, 1_000_000, new MarketDataException("timeout"));
+        registry.recordFailure(provider, 1_000_000, new MarketDataException("timeout"));
+        registry.recordSuccess(provider, 1_000_000);
+        registry.recordFailure(provider, 1_000_000, new MarketDataException("timeout"));
+
+        assertEquals(ProviderHealth.State.CLOSED, registry.healthOf(provider).getState());
+    }
+
+    @Test
+    void testProbeClosesCircuitAfterOpenDuration() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            registry.recordFailure(provider, 1_000_000, new MarketDataException("timeout"));
+        }
+
+        registry.probeOpenCircuits();
+        assertEquals(ProviderHealth.State.OPEN, registry.healthOf(provider).getState());
+
+        Thread.sleep(30);
+        registry.probeOpenCircuits();
+        assertEquals(ProviderHealth.State.CLOSED, registry.healthOf(provider).getState());
+        assertTrue(registry.allowRequest(provider));
+    }
+}
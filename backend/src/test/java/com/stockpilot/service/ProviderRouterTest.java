@@ -0,0 +1,166 @@
+package com.stockpilot.service;
+
+import com.stockpilot.domain.StockQuote;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderRouterTest {
+
+    private TimedProvider slow;
+    private TimedProvider fast;
+    private ProviderRoutingProperties properties;
+    private RateLimitProperties limits;
+    private ProviderHealthRegistry health;
+    private MarketDataExecutors executors;
+    private ProviderRouter router;
+
+    @BeforeEach
+    void setUp() {
+        slow = new TimedProvider("Slow", 2_000);
+        fast = new TimedProvider("Fast", 10);
+        properties = new ProviderRoutingProperties();
+        properties.setStrategy(ProviderRoutingProperties.Strategy.HEDGED);
+        properties.setHedgeDelay(Duration.ofMillis(50));
+        limits = new RateLimitProperties();
+        health = new ProviderHealthRegistry(List.of(slow, fast), new ProviderHealthProperties());
+        executors = new MarketDataExecutors();
+        router = new ProviderRouter(List.of(slow, fast), health, executors, properties, new UpstreamRateLimiter(limits));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executors.shutdown();
+    }
+
+    @Test
+    void testSlowProviderIsHedgedAndCancelled() throws InterruptedException {
+        long start = System.nanoTime();
+        StockQuote quote = router.call(provider -> provider.getQuote("AAPL"), Objects::nonNull, UpstreamPriority.INTERACTIVE);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("Fast", quote.getName());
+        assertTrue(elapsedMillis < 1_000, "took " + elapsedMillis + " ms");
+        assertTrue(slow.interrupted.await(5, TimeUnit.SECONDS));
+        // Losing the race is not a failure
+        assertEquals(0L, health.healthOf(slow).snapshot().get("failures"));
+        assertEquals(1L, health.healthOf(fast).snapshot().get("successes"));
+    }
+
+    @Test
+    void testSequentialStrategyWaitsForEachProvider() {
+        properties.setStrategy(ProviderRoutingProperties.Strategy.SEQUENTIAL);
+        slow.delayMillis = 200;
+
+        StockQuote quote = router.call(provider -> provider.getQuote("AAPL"), Objects::nonNull, UpstreamPriority.INTERACTIVE);
+
+        assertEquals("Slow", quote.getName());
+        assertEquals(0, fast.quoteCalls.get());
+    }
+
+    @Test
+    void testFailureHandsOverWithoutWaitingForHedgeDelay() {
+        properties.setHedgeDelay(Duration.ofSeconds(5));
+        slow.fail = true;
+
+        long start = System.nanoTime();
+        StockQuote quote = router.call(provider -> provider.getQuote("AAPL"), Objects::nonNull, UpstreamPriority.INTERACTIVE);
+
+        assertEquals("Fast", quote.getName());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1L, health.healthOf(slow).snapshot().get("failures"));
+    }
+
+    @Test
+    void testProviderOverBudgetIsSkippedWithoutCountingAgainstIt() {
+        properties.setStrategy(ProviderRoutingProperties.Strategy.SEQUENTIAL);
+        RateLimitProperties.Budget budget = new RateLimitProperties.Budget();
+        budget.setPermitsPerSecond(0.01);
+        budget.setBurst(1);
+        limits.getProviders().put("slow", budget);
+        UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter(limits);
+        router = new ProviderRouter(List.of(slow, fast), health, executors, properties, rateLimiter);
+        assertTrue(rateLimiter.tryAcquire(slow, UpstreamPriority.BACKGROUND));
+
+        StockQuote quote = router.call(provider -> provider.getQuote("AAPL"), Objects::nonNull,
+                UpstreamPriority.INTERACTIVE);
+
+        assertEquals("Fast", quote.getName());
+        assertEquals(0, slow.quoteCalls.get());
+        assertEquals(0L, health.healthOf(slow).snapshot().get("failures"));
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> priorities =
+                (Map<String, Map<String, Object>>) rateLimiter.snapshot().get("slow").get("priorities");
+        assertEquals(1L, priorities.get("interactive").get("shed"));
+    }
+
+    @Test
+    void testHedgeDelayFollowsObservedPercentile() {
+        properties.setMinLatencySamples(10);
+        for (int i = 1; i <= 9; i++) {
+            health.recordSuccess(fast, TimeUnit.MILLISECONDS.toNanos(i * 100L));
+        }
+        assertEquals(Duration.ofMillis(50), router.hedgeDelay(fast));
+
+        health.recordSuccess(fast, TimeUnit.MILLISECONDS.toNanos(1_000));
+        assertEquals(Duration.ofMillis(1_000), router.hedgeDelay(fast));
+        properties.setHedgePercentile(0.5);
+        assertEquals(Duration.ofMillis(500), router.hedgeDelay(fast));
+    }
+
+    @Test
+    void testLatencyRankingPutsFastestFirst() {
+        health.recordSuccess(slow, TimeUnit.MILLISECONDS.toNanos(800));
+        health.recordSuccess(fast, TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(List.of(slow, fast), router.ranked());
+
+        properties.setRanking(ProviderRoutingProperties.Ranking.LATENCY);
+        assertEquals(List.of(fast, slow), router.ranked());
+    }
+
+    /**
+     * Answers quotes under its own name after a delay, noting when it was
+     * interrupted mid-call.
+     */
+    private static class TimedProvider extends MarketDataServiceTest.StubProvider {
+        private final String name;
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        volatile long delayMillis;
+        volatile boolean fail;
+
+        TimedProvider(String name, long delayMillis) {
+            this.name = name;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public StockQuote getQuote(String symbol) {
+            if (fail) {
+                throw new MarketDataException(name + " is down");
+            }
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new MarketDataException(name + " interrupted", e);
+            }
+            StockQuote quote = super.getQuote(symbol);
+            quote.setName(name);
+            return quote;
+        }
+
+        @Override
+        public String getProviderName() {
+            return name;
+        }
+    }
+}
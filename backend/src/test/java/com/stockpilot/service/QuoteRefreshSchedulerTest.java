@@ -0,0 +1,192 @@
+package com.stockpilot.service;
+
+import com.stockpilot.cache.CacheProperties;
+import com.stockpilot.cache.MarketDataCache;
+import com.stockpilot.domain.StockQuote;
+import com.stockpilot.search.SearchProperties;
+import com.stockpilot.search.SymbolIndex;
+import com.stockpilot.store.HistoryStore;
+import com.stockpilot.store.StoreProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteRefreshSchedulerTest {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    private MarketDataServiceTest.StubProvider provider;
+    private MarketDataExecutors executors;
+    private MarketDataService service;
+    private RefreshProperties properties;
+    private TestClock clock;
+    private QuoteRefreshScheduler scheduler;
+    private final List<Map<String, StockQuote>> refreshed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        StoreProperties store = new StoreProperties();
+        store.setEnabled(false);
+        RateLimitProperties limits = new RateLimitProperties();
+        limits.setEnabled(false);
+        SearchProperties search = new SearchProperties();
+        search.setEnabled(false);
+        provider = new MarketDataServiceTest.StubProvider();
+        executors = new MarketDataExecutors();
+        service = new MarketDataService(List.of(provider), new MarketDataCache(new CacheProperties()), executors,
+                new ProviderHealthRegistry(List.of(provider), new ProviderHealthProperties()),
+                new HistoryStore(store), new ProviderRoutingProperties(), new UpstreamRateLimiter(limits),
+                new SymbolIndex(search));
+
+        properties = new RefreshProperties();
+        properties.setReferenceVolatility(0);
+        // Friday, 11:00 in New York
+        clock = new TestClock(ZonedDateTime.of(2024, 1, 5, 11, 0, 0, 0, NEW_YORK).toInstant());
+        scheduler = new QuoteRefreshScheduler(service, new FinanceUtilsService(), Runnable::run, properties, clock);
+        scheduler.addListener(refreshed::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executors.shutdown();
+    }
+
+    @Test
+    void testIntervalShortensWithDemandAndVolatility() {
+        QuoteRefreshScheduler.Tracked state = new QuoteRefreshScheduler.Tracked();
+        assertEquals(Duration.ofSeconds(30), scheduler.interval(state, 0));
+        state.subscribers.set(1);
+        assertEquals(Duration.ofSeconds(15), scheduler.interval(state, 0));
+        assertEquals(Duration.ofSeconds(10), scheduler.interval(state, 2));
+        assertEquals(Duration.ofSeconds(2), scheduler.interval(state, 1_000_000));
+
+        properties.setReferenceVolatility(30);
+        state.volatility = 60.0;
+        assertEquals(Duration.ofMillis(7500), scheduler.interval(state, 0));
+        state.volatility = 1.0;
+        assertEquals(Duration.ofSeconds(30), scheduler.interval(state, 0));
+    }
+
+    @Test
+    void testDueSymbolsAreBatchedWithinTheBudget() {
+        properties.setMaxSymbolsPerSecond(2);
+        List.of("A", "B", "C", "D", "E").forEach(scheduler::addSubscriber);
+
+        scheduler.refreshDue();
+        assertTrue(refreshed.isEmpty());
+
+        // All five are due; the budget carries over for two seconds, so four go now
+        clock.advance(Duration.ofSeconds(15));
+        scheduler.refreshDue();
+        assertEquals(1, provider.batchCalls.get());
+        assertEquals(4, refreshed.get(0).size());
+
+        clock.advance(Duration.ofSeconds(1));
+        scheduler.refreshDue();
+        assertEquals(2, provider.batchCalls.get());
+        assertEquals(1, refreshed.get(1).size());
+    }
+
+    @Test
+    void testNothingIsRefreshedWhileTheExchangeIsClosed() {
+        provider.exchange = "NMS";
+        scheduler.addSubscriber("AAPL");
+        clock.advance(Duration.ofSeconds(15));
+        scheduler.refreshDue();
+        assertEquals(1, refreshed.size());
+
+        // Saturday
+        clock.set(ZonedDateTime.of(2024, 1, 6, 12, 0, 0, 0, NEW_YORK).toInstant());
+        scheduler.refreshDue();
+        clock.set(ZonedDateTime.of(2024, 1, 8, 9, 29, 0, 0, NEW_YORK).toInstant());
+        scheduler.refreshDue();
+        assertEquals(1, refreshed.size());
+
+        clock.set(ZonedDateTime.of(2024, 1, 8, 9, 30, 0, 0, NEW_YORK).toInstant());
+        scheduler.refreshDue();
+        assertEquals(2, refreshed.size());
+    }
+
+    @Test
+    void testFrequentlyRequestedSymbolsAreRefreshedUntilForgotten() {
+        for (int i = 0; i < 10; i++) {
+            service.getQuote("MSFT");
+        }
+        scheduler.refreshDue();
+        clock.advance(properties.getMaxInterval());
+        scheduler.refreshDue();
+        assertEquals(1, refreshed.size());
+        assertEquals(Set.of("MSFT"), refreshed.get(0).keySet());
+
+        scheduler.addSubscriber("AAPL");
+        scheduler.removeSubscriber("AAPL");
+        properties.setMinRequestRate(1_000);
+        clock.advance(properties.getMaxInterval());
+        scheduler.refreshDue();
+        assertEquals(1, refreshed.size());
+    }
+
+    @Test
+    void testMarketHours() {
+        MarketHours hours = new MarketHours(Duration.ofMinutes(5));
+        Instant monday = ZonedDateTime.of(2024, 1, 8, 10, 0, 0, 0, NEW_YORK).toInstant();
+
+        assertTrue(hours.isOpen("NMS", monday));
+        assertTrue(hours.isOpen("NYQ", monday.plus(Duration.ofMinutes(6 * 60 + 4))));
+        assertFalse(hours.isOpen("NYQ", monday.plus(Duration.ofMinutes(6 * 60 + 5))));
+        assertFalse(hours.isOpen("NMS", monday.minus(Duration.ofDays(1))));
+        assertTrue(hours.isOpen("CCC", monday.minus(Duration.ofDays(1))));
+        assertTrue(hours.isOpen(null, monday.minus(Duration.ofDays(1))));
+
+        Instant fridayEvening = ZonedDateTime.of(2024, 1, 5, 18, 0, 0, 0, NEW_YORK).toInstant();
+        assertEquals(ZonedDateTime.of(2024, 1, 8, 9, 30, 0, 0, NEW_YORK).toInstant(),
+                hours.nextOpen("NMS", fridayEvening));
+        assertEquals(ZonedDateTime.of(2024, 1, 8, 8, 0, 0, 0, ZoneId.of("Europe/London")).toInstant(),
+                hours.nextOpen("LSE", fridayEvening));
+        assertEquals(monday, hours.nextOpen("NMS", monday));
+    }
+
+    private static final class TestClock extends Clock {
+        private Instant now;
+
+        TestClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        void set(Instant instant) {
+            now = instant;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.stockpilot.service;
+
+import com.stockpilot.cache.CacheProperties;
+import com.stockpilot.cache.MarketDataCache;
+import com.stockpilot.domain.StockQuote;
+import com.stockpilot.search.SearchProperties;
+import com.stockpilot.search.SymbolIndex;
+import com.stockpilot.store.HistoryStore;
+import com.stockpilot.store.StoreProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveMarketDataServiceTest {
+
+    private GatedProvider provider;
+    private MarketDataExecutors executors;
+    private MarketDataService marketDataService;
+    private ProviderHealthRegistry health;
+    private ReactiveMarketDataService service;
+
+    @BeforeEach
+    void setUp() {
+        provider = new GatedProvider();
+        executors = new MarketDataExecutors();
+        service = newService(List.of(provider), new ProviderRoutingProperties());
+    }
+
+    private ReactiveMarketDataService newService(List<MarketDataProvider> providers, ProviderRoutingProperties routing) {
+        StoreProperties store = new StoreProperties();
+        store.setEnabled(false);
+        RateLimitProperties limits = new RateLimitProperties();
+        limits.setEnabled(false);
+        SearchProperties search = new SearchProperties();
+        search.setEnabled(false);
+        UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter(limits);
+        SymbolIndex symbolIndex = new SymbolIndex(search);
+        MarketDataCache cache = new MarketDataCache(new CacheProperties());
+        health = new ProviderHealthRegistry(providers, new ProviderHealthProperties());
+        marketDataService = new MarketDataService(providers, cache, executors, health, new HistoryStore(store),
+                routing, rateLimiter, symbolIndex);
+        return new ReactiveMarketDataService(providers, cache, health, rateLimiter, symbolIndex, marketDataService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executors.shutdown();
+    }
+
+    @Test
+    void testNothingHappensUntilSubscribed() {
+        Mono<StockQuote> quote = service.getQuote("AAPL");
+        assertEquals(0, provider.quoteCalls.get());
+
+        provider.release.countDown();
+        assertEquals("AAPL", quote.block().getSymbol());
+        assertEquals(1, provider.quoteCalls.get());
+    }
+
+    @Test
+    void testConcurrentMissesShareOneUpstreamCall() throws InterruptedException {
+        CompletableFuture<List<StockQuote>> pending = Flux.range(0, 8)
+                .flatMap(i -> service.getQuote("MSFT"))
+                .collectList()
+                .toFuture();
+        assertTrue(provider.started.await(5, TimeUnit.SECONDS));
+        provider.release.countDown();
+
+        List<StockQuote> shared = pending.join();
+        assertEquals(8, shared.size());
+        assertTrue(shared.stream().allMatch(quote -> quote == shared.get(0)));
+        assertSame(shared.get(0), service.getQuote("MSFT").block());
+        assertEquals(1, provider.quoteCalls.get());
+    }
+
+    @Test
+    void testBatchQuotesKeepRequestOrderAndDropMissing() {
+        provider.release.countDown();
+        StockQuote cached = service.getQuote("GOOG").block();
+
+        Map<String, StockQuote> quotes = service.getQuotes(List.of("msft", "GOOG", "MISSING", "AAPL", "MSFT")).block();
+
+        assertEquals(List.of("MSFT", "GOOG", "AAPL"), List.copyOf(quotes.keySet()));
+        assertSame(cached, quotes.get("GOOG"));
+        assertEquals(1, provider.batchCalls.get());
+
+        Map<String, Double> demand = marketDataService.getQuoteDemand(0);
+        assertEquals(Set.of("MSFT", "GOOG", "MISSING", "AAPL"), demand.keySet());
+        assertTrue(demand.get("GOOG") > demand.get("MSFT"));
+    }
+
+    @Test
+    void testSlowProviderIsHedgedAndCancelled() {
+        CompletableFuture<StockQuote> hanging = new CompletableFuture<>();
+        MarketDataServiceTest.StubProvider slow = new MarketDataServiceTest.StubProvider() {
+            @Override
+            public CompletableFuture<StockQuote> getQuoteAsync(String symbol) {
+                return hanging;
+            }
+        };
+        MarketDataServiceTest.StubProvider fast = new MarketDataServiceTest.StubProvider();
+        ProviderRoutingProperties routing = new ProviderRoutingProperties();
+        routing.setStrategy(ProviderRoutingProperties.Strategy.HEDGED);
+        routing.setHedgeDelay(Duration.ofMillis(50));
+        ReactiveMarketDataService hedged = newService(List.of(slow, fast), routing);
+
+        assertEquals("AAPL", hedged.getQuote("AAPL").block(Duration.ofSeconds(5)).getSymbol());
+        assertEquals(1, fast.quoteCalls.get());
+        assertTrue(hanging.isCancelled());
+        // Losing the race is not a failure
+        assertEquals(0L, health.healthOf(slow).snapshot().get("failures"));
+    }
+
+    /**
+     * Holds quote calls until {@link #release} opens, so that callers pile up
+     * behind the first one.
+     */
+    private static class GatedProvider extends MarketDataServiceTest.StubProvider {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public StockQuote getQuote(String symbol) {
+            started.countDown();
+            try {
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.getQuote(symbol);
+        }
+
+        @Override
+        public CompletableFuture<StockQuote> getQuoteAsync(String symbol) {
+            return CompletableFuture.supplyAsync(() -> getQuote(symbol));
+        }
+    }
+}
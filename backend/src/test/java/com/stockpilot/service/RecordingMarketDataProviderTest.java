@@ -0,0 +1,79 @@
+package com.stockpilot.service;
+
+import com.stockpilot.domain.PriceSeries;
+import com.stockpilot.domain.StockQuote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordingMarketDataProviderTest {
+
+    @TempDir
+    Path directory;
+
+    private RecordingMarketDataProvider recorder;
+    private FileMarketDataProvider replay;
+
+    @BeforeEach
+    void setUp() {
+        recorder = new RecordingMarketDataProvider(new MarketDataServiceTest.StubProvider(), directory);
+        FileProviderProperties properties = new FileProviderProperties();
+        properties.setDirectory(directory);
+        replay = new FileMarketDataProvider(properties);
+    }
+
+    @Test
+    void testRecordedAnswersAreReplayed() {
+        StockQuote live = recorder.getQuote("AAPL");
+        recorder.searchSymbols("msft");
+        recorder.searchSymbols("aapl");
+
+        StockQuote replayed = replay.getQuote("AAPL");
+        assertEquals(live.getName(), replayed.getName());
+        assertEquals(0, live.getPrice().compareTo(replayed.getPrice()));
+        assertEquals(live.getTimestamp(), replayed.getTimestamp());
+        assertEquals(List.of("AAPL"), replay.searchSymbols("AA").stream().map(result -> result.getSymbol()).toList());
+        assertEquals(2, replay.searchSymbols("").size());
+        assertNull(replay.getQuote("MISSING"));
+    }
+
+    @Test
+    void testHistorySpansAreMerged() {
+        LocalDate start = LocalDate.of(2024, 3, 1);
+        recorder.getPriceSeries("AAPL", start.plusDays(5), start.plusDays(9));
+        recorder.getPriceSeries("AAPL", start, start.plusDays(6));
+
+        PriceSeries replayed = replay.getPriceSeries("AAPL", start, start.plusDays(30));
+        assertEquals(10, replayed.size());
+        assertEquals(start, replayed.date(0));
+        assertEquals(start.plusDays(9), replayed.date(9));
+        // The later recording wins where the spans overlap
+        assertEquals(106, replayed.close(6), 1e-9);
+        assertEquals(104, replayed.close(9), 1e-9);
+    }
+
+    @Test
+    void testPostProcessorWrapsLiveProvidersOnlyWhenEnabled() {
+        MarketDataServiceTest.StubProvider live = new MarketDataServiceTest.StubProvider();
+        ProviderRecordingPostProcessor disabled = new ProviderRecordingPostProcessor();
+        disabled.setEnvironment(new MockEnvironment());
+        assertSame(live, disabled.postProcessAfterInitialization(live, "stub"));
+
+        ProviderRecordingPostProcessor enabled = new ProviderRecordingPostProcessor();
+        enabled.setEnvironment(new MockEnvironment()
+                .withProperty("stockpilot.providers.record.enabled", "true")
+                .withProperty("stockpilot.providers.record.directory", directory.toString()));
+        Object wrapped = enabled.postProcessAfterInitialization(live, "stub");
+        assertInstanceOf(RecordingMarketDataProvider.class, wrapped);
+        assertSame(live, ((RecordingMarketDataProvider) wrapped).getDelegate());
+        assertSame(replay, enabled.postProcessAfterInitialization(replay, "files"));
+        assertSame(wrapped, enabled.postProcessAfterInitialization(wrapped, "stub"));
+    }
+}
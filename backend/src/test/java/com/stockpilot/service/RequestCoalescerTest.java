@@ -0,0 +1,76 @@
+package com.stockpilot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+
+    @Test
+    void testConcurrentCallersShareOneLoad() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> coalescer.load("quote:AAPL", () -> {
+                upstreamCalls.incrementAndGet();
+                leaderStarted.countDown();
+                await(release);
+                return "AAPL";
+            })));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> coalescer.load("quote:AAPL", () -> {
+                    upstreamCalls.incrementAndGet();
+                    return "unexpected";
+                })));
+            }
+            while (coalescer.stats().get("quote").get("coalesced") < 7) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("AAPL", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1L, coalescer.stats().get("quote").get("leaders"));
+        assertEquals(0, coalescer.inFlightCount());
+    }
+
+    @Test
+    void testFailureIsSharedAndNotRemembered() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+
+        assertThrows(IllegalStateException.class, () -> coalescer.load("news:AAPL:10", () -> {
+            throw new IllegalStateException("upstream down");
+        }));
+        assertEquals("ok", coalescer.load("news:AAPL:10", () -> "ok"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.stockpilot.service;
+
+import com.stockpilot.domain.PriceSeries;
+import com.stockpilot.domain.RollingMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingAnalyticsTest {
+
+    @Test
+    void testRollingStatsMatchesRecomputation() {
+        Random random = new Random(3);
+        double[] values = new double[500];
+        RollingStats stats = new RollingStats(20);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 0.02;
+            stats.add(values[i]);
+
+            double[] window = Arrays.copyOfRange(values, Math.max(0, i - 19), i + 1);
+            double mean = Arrays.stream(window).average().orElse(0);
+            double variance = Arrays.stream(window).map(v -> (v - mean) * (v - mean)).sum() / window.length;
+            assertEquals(mean, stats.mean(), 1e-12);
+            assertEquals(variance, stats.variance(), 1e-12);
+        }
+        assertTrue(stats.isFull());
+    }
+
+    @Test
+    void testRollingMaxMatchesRecomputation() {
+        Random random = new Random(5);
+        double[] values = new double[500];
+        RollingMax max = new RollingMax(7);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(50);
+            max.add(values[i]);
+
+            double expected = Arrays.stream(values, Math.max(0, i - 6), i + 1).max().orElseThrow();
+            assertEquals(expected, max.max());
+        }
+    }
+
+    @Test
+    void testStateFeedsOnlyNewBars() {
+        PriceSeries history = series(300, 0);
+        PriceSeries extended = series(301, 0);
+        RollingAnalytics.RollingState state = new RollingAnalytics.RollingState("AAPL", 20);
+
+        RollingMetrics first = state.update(history);
+        assertSame(first, state.update(history));
+        assertEquals(300, state.barsFed());
+
+        RollingMetrics updated = state.update(extended);
+        assertEquals(301, state.barsFed());
+        assertEquals(first.getDates().size() + 1, updated.getDates().size());
+
+        RollingMetrics fresh = new RollingAnalytics.RollingState("AAPL", 20).update(extended);
+        assertArrayEquals(fresh.getVolatility(), updated.getVolatility());
+        assertArrayEquals(fresh.getDrawdown(), updated.getDrawdown());
+    }
+
+    @Test
+    void testStateTrimsToRangeAndRebuildsOnRevision() {
+        RollingAnalytics.RollingState state = new RollingAnalytics.RollingState("AAPL", 20);
+        state.update(series(300, 0));
+
+        // The range moved forward by 50 days; dates without a full window
+        // inside the range are left out, as when starting from scratch
+        RollingMetrics moved = state.update(series(300, 50));
+        assertEquals(350, state.barsFed());
+        assertEquals(LocalDate.ofEpochDay(70), moved.getDates().get(0));
+        RollingMetrics fresh = new RollingAnalytics.RollingState("AAPL", 20).update(series(300, 50));
+        assertEquals(fresh.getDates(), moved.getDates());
+        assertArrayEquals(fresh.getVolatility(), moved.getVolatility());
+        assertArrayEquals(fresh.getDrawdown(), moved.getDrawdown());
+
+        // An upstream revision of the last bar forces a rebuild
+        PriceSeries revised = series(300, 50);
+        revised.closes()[299] += 1;
+        state.update(revised);
+        assertEquals(300, state.barsFed());
+    }
+
+    /**
+     * {@code size} bars from epoch day {@code firstDay}; the same day always
+     * has the same close.
+     */
+    private static PriceSeries series(int size, int firstDay) {
+        long[] days = new long[size];
+        double[] close = new double[size];
+        for (int i = 0; i < size; i++) {
+            int day = firstDay + i;
+            days[i] = day;
+            close[i] = 100 + 10 * Math.sin(day / 7.0) + day * 0.05;
+        }
+        return new PriceSeries(days, close, close, close, close, new long[size]);
+    }
+}
@@ -0,0 +1,93 @@
+package com.stockpilot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final List<UpstreamPriority> granted = new CopyOnWriteArrayList<>();
+
+    @Test
+    void testBurstIsAvailableImmediately() {
+        TokenBucket bucket = new TokenBucket(0.1, 2, 10);
+
+        assertTrue(bucket.tryAcquire(UpstreamPriority.BACKGROUND));
+        assertTrue(bucket.tryAcquire(UpstreamPriority.BACKGROUND));
+        assertFalse(bucket.tryAcquire(UpstreamPriority.INTERACTIVE));
+    }
+
+    @Test
+    void testRequestIsShedWhenItCannotBeServedBeforeItsDeadline() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 1, 10);
+        assertTrue(bucket.tryAcquire(UpstreamPriority.INTERACTIVE));
+
+        long start = System.nanoTime();
+        assertFalse(bucket.acquire(UpstreamPriority.INTERACTIVE, SECOND / 10));
+        assertTrue(System.nanoTime() - start < SECOND / 10);
+        assertEquals(0, bucket.queued());
+    }
+
+    @Test
+    void testHigherPriorityIsServedFirst() {
+        TokenBucket bucket = new TokenBucket(4, 1, 10);
+        assertTrue(bucket.tryAcquire(UpstreamPriority.INTERACTIVE));
+
+        CompletableFuture<Boolean> background = acquire(bucket, UpstreamPriority.BACKGROUND, 5 * SECOND);
+        await(() -> bucket.queued() == 1);
+        CompletableFuture<Boolean> interactive = acquire(bucket, UpstreamPriority.INTERACTIVE, 5 * SECOND);
+
+        assertTrue(interactive.join());
+        assertTrue(background.join());
+        assertEquals(List.of(UpstreamPriority.INTERACTIVE, UpstreamPriority.BACKGROUND), granted);
+    }
+
+    @Test
+    void testLowestPriorityIsShedWhenTheQueueIsFull() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(0.5, 1, 1);
+        assertTrue(bucket.tryAcquire(UpstreamPriority.INTERACTIVE));
+
+        CompletableFuture<Boolean> background = acquire(bucket, UpstreamPriority.BACKGROUND, 10 * SECOND);
+        await(() -> bucket.queued() == 1);
+        CompletableFuture<Boolean> interactive = acquire(bucket, UpstreamPriority.INTERACTIVE, 5 * SECOND);
+
+        assertFalse(background.join());
+        // Nothing queued ranks below search, so search is the one shed
+        assertFalse(bucket.acquire(UpstreamPriority.SEARCH, 10 * SECOND));
+        assertTrue(interactive.join());
+        assertEquals(List.of(UpstreamPriority.INTERACTIVE), granted);
+    }
+
+    private CompletableFuture<Boolean> acquire(TokenBucket bucket, UpstreamPriority priority, long maxWaitNanos) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        Thread.ofPlatform().start(() -> {
+            try {
+                boolean acquired = bucket.acquire(priority, maxWaitNanos);
+                if (acquired) {
+                    granted.add(priority);
+                }
+                result.complete(acquired);
+            } catch (InterruptedException e) {
+                result.completeExceptionally(new CompletionException(e));
+            }
+        });
+        return result;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 5 * SECOND;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.onSpinWait();
+        }
+    }
+}
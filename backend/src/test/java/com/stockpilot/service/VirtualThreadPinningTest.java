@@ -0,0 +1,99 @@
+package com.stockpilot.service;
+
+import com.stockpilot.cache.CacheProperties;
+import com.stockpilot.cache.MarketDataCache;
+import com.stockpilot.domain.PriceSeries;
+import com.stockpilot.domain.StockQuote;
+import com.stockpilot.search.SearchProperties;
+import com.stockpilot.search.SymbolIndex;
+import com.stockpilot.store.HistoryStore;
+import com.stockpilot.store.StoreProperties;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the market data path against pinning: a virtual thread that blocks
+ * while holding a monitor keeps its carrier thread, which quietly undoes
+ * virtual-thread mode. Concurrent requests whose upstream calls block must
+ * not produce any {@code jdk.VirtualThreadPinned} events.
+ */
+class VirtualThreadPinningTest {
+
+    @TempDir
+    Path storeDirectory;
+
+    @Test
+    void testBlockingUpstreamCallsDoNotPinCarriers() throws Exception {
+        StoreProperties storeProperties = new StoreProperties();
+        storeProperties.setDirectory(storeDirectory);
+        RateLimitProperties limits = new RateLimitProperties();
+        limits.setEnabled(false);
+        SearchProperties search = new SearchProperties();
+        search.setEnabled(false);
+        SlowProvider provider = new SlowProvider();
+        MarketDataExecutors executors = new MarketDataExecutors(true);
+        MarketDataService service = new MarketDataService(List.of(provider),
+                new MarketDataCache(new CacheProperties()), executors,
+                new ProviderHealthRegistry(List.of(provider), new ProviderHealthProperties()),
+                new HistoryStore(storeProperties), new ProviderRoutingProperties(), new UpstreamRateLimiter(limits),
+                new SymbolIndex(search));
+
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream();
+             ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            for (int i = 0; i < 32; i++) {
+                String symbol = "SYM" + (i % 4);
+                requests.submit(() -> service.getPriceSeries(symbol, "1M"));
+                requests.submit(() -> service.getQuote(symbol));
+                requests.submit(() -> service.getQuotes(List.of(symbol, "OTHER" + symbol)));
+            }
+            requests.shutdown();
+            assertTrue(requests.awaitTermination(30, TimeUnit.SECONDS));
+            recording.stop();
+        } finally {
+            executors.shutdown();
+        }
+
+        assertEquals(List.of(), pinned.stream().map(event -> event.getStackTrace().toString()).toList());
+    }
+
+    private static class SlowProvider extends MarketDataServiceTest.StubProvider {
+
+        @Override
+        public StockQuote getQuote(String symbol) {
+            pause();
+            return super.getQuote(symbol);
+        }
+
+        @Override
+        public PriceSeries getPriceSeries(String symbol, LocalDate from, LocalDate to) {
+            pause();
+            return super.getPriceSeries(symbol, from, to);
+        }
+
+        private static void pause() {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.stockpilot.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.stockpilot.domain.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YahooResponseParserTest {
+
+    private final YahooResponseParser parser = new YahooResponseParser(new JsonFactory());
+
+    @Test
+    void testParseChart() throws IOException {
+        String json = """
+                {"chart":{"result":[{"meta":{"currency":"USD","symbol":"AAPL","tradingPeriods":[[{"start":1}]]},
+                "timestamp":[1704205800,1704292200,1704378600],
+                "indicators":{"quote":[{"volume":[82488700,null,71983600],
+                "open":[187.15,184.22,null],"close":[185.64,184.25,181.91],
+                "low":[183.89,183.43,181.5],"high":[188.44,185.88,183.09]}],
+                "adjclose":[{"adjclose":[185.4,184.0,181.7]}]}}],"error":null}}
+                """;
+
+        PriceSeries series = parser.parseChart(stream(json));
+
+        assertEquals(3, series.size());
+        assertEquals(187.15, series.open(0));
+        assertEquals(185.64, series.close(0));
+        assertEquals(82488700L, series.volume(0));
+        assertEquals(0L, series.volume(1));
+        assertTrue(Double.isNaN(series.open(2)));
+        assertTrue(series.epochDay(0) < series.epochDay(2));
+
+        List<HistoricalPrice> prices = series.toHistoricalPrices();
+        assertEquals(0, new BigDecimal("185.64").compareTo(prices.get(0).getClose()));
+        assertEquals(BigDecimal.ZERO, prices.get(2).getOpen());
+        assertEquals(series.date(1), prices.get(1).getDate());
+    }
+
+    @Test
+    void testParseChartQuote() throws IOException {
+        String json = """
+                {"chart":{"result":[{"meta":{"symbol":"AAPL","exchangeName":"NMS","longName":"Apple Inc.",
+                "regularMarketPrice":190.0,"previousClose":200.0,"regularMarketDayHigh":191.5,
+                "regularMarketVolume":51234567,"validRanges":["1d","5d"]},"timestamp":[1704205800]}],"error":null}}
+                """;
+
+        StockQuote quote = parser.parseChartQuote(stream(json), "AAPL");
+
+        assertEquals("Apple Inc.", quote.getName());
+        assertEquals("NMS", quote.getExchange());
+        assertEquals(0, new BigDecimal("-10").compareTo(quote.getChange()));
+        assertEquals(0, new BigDecimal("-5").compareTo(quote.getChangePercent()));
+        assertEquals(0, new BigDecimal("191.5").compareTo(quote.getHigh()));
+        assertEquals(BigDecimal.ZERO, quote.getLow());
+        assertEquals(51234567L, quote.getVolume());
+    }
+
+    @Test
+    void testParseChartQuoteWithoutResult() throws IOException {
+        String json = "{\"chart\":{\"result\":null,\"error\":{\"code\":\"Not Found\"}}}";
+
+        assertNull(parser.parseChartQuote(stream(json), "NOPE"));
+    }
+
+    @Test
+    void testParseQuotes() throws IOException {
+        String json = """
+                {"quoteResponse":{"result":[
+                {"symbol":"AAPL","shortName":"Apple","regularMarketPrice":190.0,"regularMarketPreviousClose":180.0,"exchange":"NMS"},
+                {"symbol":"DELISTED"}],"error":null}}
+                """;
+
+        Map<String, StockQuote> quotes = parser.parseQuotes(stream(json));
+
+        assertEquals(1, quotes.size());
+        assertEquals("Apple", quotes.get("AAPL").getName());
+        assertEquals(0, new BigDecimal("10").compareTo(quotes.get("AAPL").getChange()));
+    }
+
+    @Test
+    void testParseSearchAndNews() throws IOException {
+        String json = """
+                {"explains":[],"count":2,"quotes":[{"exchange":"NMS","shortname":"Apple Inc.","quoteType":"EQUITY",
+                "symbol":"AAPL","index":"quotes","score":2.0}],
+                "news":[{"uuid":"1","title":"Apple ships","publisher":"Reuters","link":"https://example.com/a",
+                "providerPublishTime":1704205800,"type":"STORY","thumbnail":{"resolutions":[
+                {"url":"https://example.com/a.jpg","width":140},{"url":"https://example.com/b.jpg"}]},
+                "relatedTickers":["AAPL"]}]}
+                """;
+
+        List<StockSearchResult> results = parser.parseSearch(stream(json));
+        assertEquals(1, results.size());
+        assertEquals("AAPL", results.get(0).getSymbol());
+        assertEquals("EQUITY", results.get(0).getType());
+
+        List<NewsArticle> news = parser.parseNews(stream(json));
+        assertEquals(1, news.size());
+        assertEquals("Apple ships", news.get(0).getTitle());
+        assertEquals("Reuters", news.get(0).getSource());
+        assertEquals("https://example.com/a.jpg", news.get(0).getImageUrl());
+    }
+
+    @Test
+    void testParseFundamentals() throws IOException {
+        String json = """
+                {"quoteSummary":{"result":[{
+                "summaryDetail":{"marketCap":{"raw":2950000000000,"fmt":"2.95T"},"trailingPE":{"raw":29.5,"fmt":"29.50"},"beta":{}},
+                "price":{"longName":"Apple Inc.","regularMarketPrice":{"raw":190.0}},
+                "defaultKeyStatistics":{"trailingEps":{"raw":6.43}},
+                "assetProfile":{"sector":"Technology","industry":"Consumer Electronics","longBusinessSummary":"Makes phones.",
+                "companyOfficers":[{"name":"Tim"}]}}],"error":null}}
+                """;
+
+        StockFundamentals fundamentals = parser.parseFundamentals(stream(json), "AAPL");
+
+        assertEquals("Apple Inc.", fundamentals.getName());
+        assertEquals(0, new BigDecimal("2950000000000").compareTo(fundamentals.getMarketCap()));
+        assertEquals(0, new BigDecimal("6.43").compareTo(fundamentals.getEps()));
+        assertNull(fundamentals.getBeta());
+        assertEquals("Technology", fundamentals.getSector());
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,114 @@
+package com.stockpilot.store;
+
+import com.stockpilot.domain.PriceSeries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryStoreTest {
+
+    private static final long FIRST_DAY = 19_000;
+
+    @TempDir
+    Path directory;
+
+    private HistoryStore store;
+    private List<Long> fetches;
+
+    @BeforeEach
+    void setUp() {
+        StoreProperties properties = new StoreProperties();
+        properties.setDirectory(directory);
+        store = new HistoryStore(properties);
+        fetches = new ArrayList<>();
+    }
+
+    @Test
+    void testCompletedDaysAreStoredAndReadBack() {
+        PriceSeries upstream = bars(FIRST_DAY, 30);
+        long today = upstream.lastDay();
+
+        PriceSeries loaded = store.load("aapl", FIRST_DAY, today, fetcher(upstream));
+
+        assertEquals(30, loaded.size());
+        PriceSeries stored = store.read("AAPL");
+        assertEquals(29, stored.size());
+        for (int i = 0; i < stored.size(); i++) {
+            assertEquals(upstream.epochDay(i), stored.epochDay(i));
+            assertEquals(upstream.close(i), stored.close(i));
+            assertEquals(upstream.volume(i), stored.volume(i));
+        }
+    }
+
+    @Test
+    void testOnlyTheMissingTailIsFetched() {
+        PriceSeries upstream = bars(FIRST_DAY, 40);
+        store.load("AAPL", FIRST_DAY, FIRST_DAY + 29, fetcher(upstream.before(FIRST_DAY + 30)));
+
+        PriceSeries loaded = store.load("AAPL", FIRST_DAY + 10, FIRST_DAY + 39, fetcher(upstream));
+
+        assertEquals(List.of(FIRST_DAY, FIRST_DAY + 29), fetches);
+        assertEquals(30, loaded.size());
+        assertEquals(FIRST_DAY + 10, loaded.firstDay());
+        assertEquals(upstream.close(39), loaded.close(loaded.size() - 1));
+        assertEquals(39, store.read("AAPL").size());
+    }
+
+    @Test
+    void testEarlierRangeRefetchesWholeSpan() {
+        PriceSeries upstream = bars(FIRST_DAY, 40);
+        store.load("AAPL", FIRST_DAY + 20, FIRST_DAY + 39, fetcher(upstream));
+
+        PriceSeries loaded = store.load("AAPL", FIRST_DAY, FIRST_DAY + 39, fetcher(upstream));
+
+        assertEquals(List.of(FIRST_DAY + 20, FIRST_DAY), fetches);
+        assertEquals(40, loaded.size());
+        assertEquals(39, store.read("AAPL").size());
+    }
+
+    @Test
+    void testTornTrailingRecordIsIgnored() throws IOException {
+        PriceSeries upstream = bars(FIRST_DAY, 10);
+        store.load("AAPL", FIRST_DAY, FIRST_DAY + 10, fetcher(upstream));
+        Path file = directory.resolve("AAPL.bars");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 5);
+        }
+
+        assertEquals(9, store.read("AAPL").size());
+
+        store.load("AAPL", FIRST_DAY, FIRST_DAY + 10, fetcher(upstream));
+        assertEquals(10, store.read("AAPL").size());
+    }
+
+    private HistoryStore.Fetcher fetcher(PriceSeries upstream) {
+        return fromDay -> {
+            fetches.add(fromDay);
+            return upstream.since(fromDay);
+        };
+    }
+
+    private static PriceSeries bars(long firstDay, int size) {
+        long[] days = new long[size];
+        double[] open = new double[size];
+        double[] close = new double[size];
+        long[] volume = new long[size];
+        for (int i = 0; i < size; i++) {
+            days[i] = firstDay + i;
+            open[i] = 100 + i;
+            close[i] = 100.5 + i;
+            volume[i] = 1_000 + i;
+        }
+        return new PriceSeries(days, open, close.clone(), open.clone(), close, volume);
+    }
+}
@@ -0,0 +1,230 @@
+package com.stockpilot.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpilot.cache.CacheProperties;
+import com.stockpilot.cache.MarketDataCache;
+import com.stockpilot.domain.*;
+import com.stockpilot.search.SearchProperties;
+import com.stockpilot.search.SymbolIndex;
+import com.stockpilot.service.FinanceUtilsService;
+import com.stockpilot.service.MarketDataExecutors;
+import com.stockpilot.service.MarketDataProvider;
+import com.stockpilot.service.MarketDataService;
+import com.stockpilot.service.ProviderHealthProperties;
+import com.stockpilot.service.ProviderHealthRegistry;
+import com.stockpilot.service.ProviderRoutingProperties;
+import com.stockpilot.service.QuoteRefreshScheduler;
+import com.stockpilot.service.RateLimitProperties;
+import com.stockpilot.service.RefreshProperties;
+import com.stockpilot.service.UpstreamRateLimiter;
+import com.stockpilot.store.HistoryStore;
+import com.stockpilot.store.StoreProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteStreamHubTest {
+
+    private PriceProvider provider;
+    private MarketDataExecutors executors;
+    private MarketDataService service;
+    private QuoteRefreshScheduler scheduler;
+    private StreamProperties properties;
+    private QuoteStreamHub hub;
+
+    @BeforeEach
+    void setUp() {
+        StoreProperties store = new StoreProperties();
+        store.setEnabled(false);
+        RateLimitProperties limits = new RateLimitProperties();
+        limits.setEnabled(false);
+        SearchProperties search = new SearchProperties();
+        search.setEnabled(false);
+        provider = new PriceProvider();
+        executors = new MarketDataExecutors();
+        service = new MarketDataService(List.of(provider), new MarketDataCache(new CacheProperties()), executors,
+                new ProviderHealthRegistry(List.of(provider), new ProviderHealthProperties()),
+                new HistoryStore(store), new ProviderRoutingProperties(), new UpstreamRateLimiter(limits),
+                new SymbolIndex(search));
+        // Every subscribed symbol is due on every tick
+        RefreshProperties refresh = new RefreshProperties();
+        refresh.setMinInterval(Duration.ZERO);
+        refresh.setMaxInterval(Duration.ZERO);
+        refresh.setMaxSymbolsPerSecond(1_000);
+        scheduler = new QuoteRefreshScheduler(service, new FinanceUtilsService(), executors, refresh);
+        properties = new StreamProperties();
+        hub = new QuoteStreamHub(service, scheduler, Runnable::run, properties, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executors.shutdown();
+    }
+
+    @Test
+    void testSubscribersGetTheQuoteThenOnlyChanges() {
+        provider.prices.put("AAPL", "190.00");
+        List<String> first = new CopyOnWriteArrayList<>();
+        List<String> second = new CopyOnWriteArrayList<>();
+        hub.subscribe(List.of("aapl"), first::add);
+        hub.subscribe(List.of("AAPL"), second::add);
+
+        assertEquals(List.of("{\"symbol\":\"AAPL\",\"name\":\"AAPL Inc.\",\"price\":190.00}"), first);
+        assertEquals(first, second);
+
+        provider.prices.put("AAPL", "191.5");
+        scheduler.refreshDue();
+        // Same price at another scale is no change
+        provider.prices.put("AAPL", "191.50");
+        scheduler.refreshDue();
+
+        assertEquals(2, first.size());
+        assertEquals("{\"symbol\":\"AAPL\",\"price\":191.5}", first.get(1));
+        assertEquals(first, second);
+    }
+
+    @Test
+    void testUpstreamIsCalledOncePerRefreshWhateverTheNumberOfClients() {
+        AtomicInteger received = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            hub.subscribe(List.of("AAPL", "MSFT", i % 2 == 0 ? "GOOG" : "AMZN"), json -> received.incrementAndGet());
+        }
+        assertEquals(Set.of("AAPL", "MSFT", "GOOG", "AMZN"), hub.getWatchedSymbols());
+
+        provider.batchCalls.set(0);
+        provider.prices.replaceAll((symbol, price) -> "1" + price);
+        received.set(0);
+        scheduler.refreshDue();
+
+        assertEquals(1, provider.batchCalls.get());
+        assertEquals(300, received.get());
+    }
+
+    @Test
+    void testFailingAndClosedSubscribersAreDropped() {
+        QuoteStreamHub.Subscription failing = hub.subscribe(List.of("AAPL", "MSFT"), json -> {
+            throw new IOException("Broken pipe");
+        });
+        QuoteStreamHub.Subscription closed = hub.subscribe(List.of("MSFT"), json -> {});
+
+        assertTrue(failing.isClosed());
+        assertEquals(1, hub.getSubscriberCount());
+        assertEquals(Set.of("MSFT"), hub.getWatchedSymbols());
+
+        closed.close();
+        closed.close();
+        assertEquals(0, hub.getSubscriberCount());
+        assertTrue(hub.getWatchedSymbols().isEmpty());
+        scheduler.refreshDue();
+        assertEquals(1, provider.batchCalls.get());
+    }
+
+    @Test
+    void testSubscriptionLimits() {
+        properties.setMaxSymbols(2);
+        properties.setMaxSubscribers(1);
+
+        assertThrows(IllegalArgumentException.class, () -> hub.subscribe(List.of("A", "B", "C"), json -> {}));
+        assertThrows(IllegalArgumentException.class, () -> hub.subscribe(List.of(" "), json -> {}));
+        hub.subscribe(List.of("A", "a", "B"), json -> {});
+        assertThrows(IllegalStateException.class, () -> hub.subscribe(List.of("C"), json -> {}));
+        assertEquals(1, hub.getSubscriberCount());
+    }
+
+    @Test
+    void testUpdatesForASlowSubscriberAreMerged() {
+        List<Runnable> deliveries = new ArrayList<>();
+        QuoteStreamHub slowHub = new QuoteStreamHub(service, scheduler, deliveries::add, properties, new ObjectMapper());
+        List<String> sent = new ArrayList<>();
+        slowHub.subscribe(List.of("AAPL"), sent::add);
+
+        provider.prices.put("AAPL", "101");
+        scheduler.refreshDue();
+        provider.volumes.put("AAPL", 5_000L);
+        scheduler.refreshDue();
+
+        assertEquals(1, deliveries.size());
+        deliveries.get(0).run();
+        assertEquals(List.of("{\"symbol\":\"AAPL\",\"name\":\"AAPL Inc.\",\"price\":101,\"volume\":5000}"), sent);
+    }
+
+    @Test
+    void testChangesCarryTheTimestamp() {
+        StockQuote previous = new StockQuote("AAPL", "Apple Inc.", new BigDecimal("1"));
+        StockQuote current = new StockQuote("AAPL", "Apple Inc.", new BigDecimal("1.0"));
+
+        assertTrue(QuoteStreamHub.changes(previous, current).isEmpty());
+        current.setHigh(new BigDecimal("2"));
+        Map<String, Object> changes = QuoteStreamHub.changes(previous, current);
+        assertEquals(List.of("symbol", "high", "timestamp"), List.copyOf(changes.keySet()));
+        assertEquals(current.getTimestamp(), changes.get("timestamp"));
+    }
+
+    /**
+     * Quotes at whatever price and volume the test set; 100 for unknown symbols.
+     */
+    private static class PriceProvider implements MarketDataProvider {
+        final Map<String, String> prices = new ConcurrentHashMap<>();
+        final Map<String, Long> volumes = new ConcurrentHashMap<>();
+        final AtomicInteger batchCalls = new AtomicInteger();
+
+        @Override
+        public StockQuote getQuote(String symbol) {
+            StockQuote quote = new StockQuote(symbol, symbol + " Inc.",
+                    new BigDecimal(prices.computeIfAbsent(symbol, key -> "100")));
+            quote.setTimestamp(null);
+            quote.setVolume(volumes.get(symbol));
+            return quote;
+        }
+
+        @Override
+        public Map<String, StockQuote> getQuotes(Collection<String> symbols) {
+            batchCalls.incrementAndGet();
+            return MarketDataProvider.super.getQuotes(symbols);
+        }
+
+        @Override
+        public List<StockSearchResult> searchSymbols(String query) {
+            return List.of();
+        }
+
+        @Override
+        public List<HistoricalPrice> getHistoricalData(String symbol, String range) {
+            return List.of();
+        }
+
+        @Override
+        public StockFundamentals getFundamentals(String symbol) {
+            return null;
+        }
+
+        @Override
+        public List<NewsArticle> getNews(String symbol, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public String getProviderName() {
+            return "Prices";
+        }
+    }
+}
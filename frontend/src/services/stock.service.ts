@@ -27,6 +27,10 @@ export class StockService {
     return this.http.get<StockQuote>(`${this.apiUrl}/quote/${symbol}`);
   }
 
+  getQuotes(symbols: string[]): Observable<Record<string, StockQuote>> {
+    return this.http.post<Record<string, StockQuote>>(`${this.apiUrl}/quotes`, symbols);
+  }
+
   getHistoricalData(symbol: string, range: string = '1M'): Observable<HistoricalPrice[]> {
     const params = new HttpParams().set('range', range);
     return this.http.get<HistoricalPrice[]>(`${this.apiUrl}/historical/${symbol}`, { params });